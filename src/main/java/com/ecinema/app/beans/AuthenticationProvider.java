@@ -1,23 +1,41 @@
 package com.ecinema.app.beans;
 
 import com.ecinema.app.services.UserService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.Executor;
+
 /**
  * The type Authentication provider.
  */
 @Component
-@RequiredArgsConstructor
 public class AuthenticationProvider {
 
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
+    private final Executor passwordHashingExecutor;
+
+    /**
+     * Instantiates a new Authentication provider.
+     *
+     * @param userService             the user service
+     * @param passwordEncoder         the password encoder
+     * @param passwordHashingExecutor the bounded pool that verifies passwords
+     */
+    public AuthenticationProvider(UserService userService, PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashingExecutor") Executor passwordHashingExecutor) {
+        this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
 
     /**
-     * Dao authentication provider dao authentication provider.
+     * Dao authentication provider dao authentication provider. Passwords are verified on the bounded
+     * password hashing pool and rehashed through {@link UserService#updatePassword} when their cost differs
+     * from the configured strength.
      *
      * @return the dao authentication provider
      */
@@ -25,7 +43,9 @@ public class AuthenticationProvider {
     public DaoAuthenticationProvider daoAuthenticationProvider() {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userService);
-        authenticationProvider.setPasswordEncoder(passwordEncoder.bCryptPasswordEncoder());
+        authenticationProvider.setUserDetailsPasswordService(userService);
+        authenticationProvider.setPasswordEncoder(new BoundedPasswordEncoder(
+                passwordEncoder.bCryptPasswordEncoder(), passwordEncoder.getStrength(), passwordHashingExecutor));
         return authenticationProvider;
     }
 
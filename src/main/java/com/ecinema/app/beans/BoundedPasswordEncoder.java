@@ -0,0 +1,80 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.exceptions.LoginThrottledException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Verifies passwords on a bounded pool so that a burst of logins queues for the hashing threads instead of
+ * taking every request thread. Once the pool and its queue are full a login fails fast with
+ * {@link LoginThrottledException}. Hashes with a cost other than the configured strength are reported as
+ * needing an upgrade, so that they are rehashed at the current cost when their user logs in.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final int strength;
+    private final Executor executor;
+    private final PasswordEncoder delegate;
+
+    /**
+     * Instantiates a new Bounded password encoder.
+     *
+     * @param delegate the BCrypt encoder
+     * @param strength the log rounds of the delegate
+     * @param executor the bounded pool that verifies passwords
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int strength, Executor executor) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        try {
+            return CompletableFuture.supplyAsync(() -> delegate.matches(rawPassword, encodedPassword), executor)
+                                    .join();
+        } catch (RejectedExecutionException e) {
+            throw new LoginThrottledException();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost != -1 && cost != strength;
+    }
+
+    /**
+     * The log rounds of the provided BCrypt hash, read from its "$2a$10$" prefix.
+     *
+     * @param encodedPassword the BCrypt hash
+     * @return the log rounds, or -1 if the provided string is not a BCrypt hash
+     */
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$' ||
+                encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
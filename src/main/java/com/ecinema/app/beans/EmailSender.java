@@ -19,6 +19,9 @@ public class EmailSender {
     @Value("${emailPassword}")
     private String emailPassword;
 
+    @Value("${email.smtpTimeoutMillis:10000}")
+    private int smtpTimeoutMillis;
+
     /**
      * Java mail sender java mail sender.
      *
@@ -36,6 +39,10 @@ public class EmailSender {
         props.put("mail.smtp.auth", "true");
         props.put("mail.smtp.starttls.enable", "true");
         props.put("mail.debug", "true");
+        // without timeouts an unresponsive server holds a dispatch worker, and the lease of its email, forever
+        props.put("mail.smtp.connectiontimeout", String.valueOf(smtpTimeoutMillis));
+        props.put("mail.smtp.timeout", String.valueOf(smtpTimeoutMillis));
+        props.put("mail.smtp.writetimeout", String.valueOf(smtpTimeoutMillis));
         return mailSender;
     }
 
@@ -0,0 +1,39 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.exceptions.LoginThrottledException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Redirects a failed login to the login error page, except for a login rejected because the password
+ * hashing pool is saturated, which is answered with 429 Too Many Requests.
+ */
+@Component
+public class LoginFailureHandler extends SimpleUrlAuthenticationFailureHandler {
+
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    public LoginFailureHandler() {
+        super("/login-error");
+    }
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
+                                        AuthenticationException exception)
+            throws IOException, ServletException {
+        if (exception instanceof LoginThrottledException) {
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), exception.getMessage());
+            return;
+        }
+        super.onAuthenticationFailure(request, response, exception);
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.services.SessionRevocationService;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Redirects a successful login to the login success page. In stateless session mode it first issues the
+ * signed session cookie of the user, which authenticates their following requests on any node.
+ */
+@Component
+public class LoginSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    private final SignedSessionCodec signedSessionCodec;
+    private final SessionRevocationService sessionRevocationService;
+
+    public LoginSuccessHandler(SignedSessionCodec signedSessionCodec,
+                               SessionRevocationService sessionRevocationService) {
+        super("/login-success");
+        setAlwaysUseDefaultTargetUrl(true);
+        this.signedSessionCodec = signedSessionCodec;
+        this.sessionRevocationService = sessionRevocationService;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication)
+            throws IOException, ServletException {
+        if (signedSessionCodec.isEnabled() && authentication.getPrincipal() instanceof User user) {
+            long issuedAt = sessionRevocationService.issueTimeOf(user.getId(), System.currentTimeMillis());
+            signedSessionCodec.writeCookie(response, signedSessionCodec.newSession(
+                    user.getId(), user.getUsername(), user.getAuthorities(), issuedAt));
+        }
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+
+}
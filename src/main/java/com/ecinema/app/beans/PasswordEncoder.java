@@ -1,5 +1,6 @@
 package com.ecinema.app.beans;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -9,6 +10,27 @@ import org.springframework.stereotype.Component;
  */
 @Component
 public class PasswordEncoder {
+
+    private final int strength;
+
+    /**
+     * Instantiates a new Password encoder.
+     *
+     * @param strength the log rounds of new BCrypt hashes
+     */
+    public PasswordEncoder(@Value("${passwordHashing.strength:10}") int strength) {
+        this.strength = strength;
+    }
+
+    /**
+     * The log rounds of new BCrypt hashes. Existing hashes of another cost are rehashed when their user logs in.
+     *
+     * @return the strength
+     */
+    public int getStrength() {
+        return strength;
+    }
+
     /**
      * B crypt password encoder b crypt password encoder.
      *
@@ -16,6 +38,6 @@ public class PasswordEncoder {
      */
     @Bean
     public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(strength);
     }
 }
@@ -0,0 +1,69 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.domain.objects.PrincipalView;
+import com.ecinema.app.util.UtilMethods;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpSession;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the {@link PrincipalView} of the logged-in user in their session. Every user has a version which is
+ * bumped whenever something the view shows about them changes, and a cached view is only used while its version
+ * is current, so a change made by one session, e.g. an admin removing an authority, is picked up by every
+ * other session of that user on their next page. Versions live in memory and are bumped after the changing
+ * transaction commits, so a view rebuilt in the meantime is still detected as stale.
+ */
+@Component
+public class PrincipalViewCache {
+
+    /**
+     * The session attribute the view is cached under.
+     */
+    public static final String SESSION_ATTRIBUTE = "principalView";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public long currentVersionOf(Long userId) {
+        return versions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Returns the view cached in the session if it belongs to the user and is still current.
+     *
+     * @param session the session, may be null
+     * @param userId  the user id
+     * @return the cached view, or null if there is none or it is stale
+     */
+    public PrincipalView find(HttpSession session, Long userId) {
+        if (session == null) {
+            return null;
+        }
+        Object attribute = session.getAttribute(SESSION_ATTRIBUTE);
+        return attribute instanceof PrincipalView principalView && principalView.getUserId().equals(userId) &&
+                principalView.getVersion() == currentVersionOf(userId) ? principalView : null;
+    }
+
+    public void put(HttpSession session, PrincipalView principalView) {
+        if (session != null) {
+            session.setAttribute(SESSION_ATTRIBUTE, principalView);
+        }
+    }
+
+    /**
+     * Marks every cached view of the user as stale once the current transaction, if any, commits. Does nothing
+     * for a user without an id, which cannot have been cached.
+     *
+     * @param userId the user id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        UtilMethods.runAfterCommit(() -> versions.put(userId, clock.incrementAndGet()));
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.ecinema.app.beans;
 
 import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.domain.objects.SignedSession;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -33,7 +34,11 @@ public class SecurityContext {
      */
     public Long findIdOfLoggedInUser() {
         User user = findLoggedInUser();
-        return user != null ? user.getId() : null;
+        if (user != null) {
+            return user.getId();
+        }
+        SignedSession signedSession = findSignedSession();
+        return signedSession != null ? signedSession.getUserId() : null;
     }
 
     /**
@@ -42,7 +47,22 @@ public class SecurityContext {
      * @return the boolean
      */
     public boolean userIsLoggedIn() {
-        return findLoggedInUser() != null;
+        return findIdOfLoggedInUser() != null;
+    }
+
+    /**
+     * Find the signed session the logged-in user was authenticated from in stateless session mode.
+     *
+     * @return the signed session, or null if the user was not authenticated from one
+     */
+    protected SignedSession findSignedSession() {
+        Authentication authentication = SecurityContextHolder
+                .getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        Object o = authentication.getPrincipal();
+        return o instanceof SignedSession signedSession ? signedSession : null;
     }
 
 }
@@ -0,0 +1,215 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.objects.SignedSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Encodes and verifies the signed session cookie of stateless session mode. The cookie value is the session
+ * "userId|authorities|issuedAt|expiresAt|username", with the authorities as a bit mask of ordinals, in base64url,
+ * followed by a dot and the base64url HMAC-SHA256 of it. Every node shares the same secret, so any node can
+ * verify a cookie issued by another without a lookup. Stateless session mode is off unless
+ * "statelessSession.enabled" is set, and then requires a secret of at least 32 bytes.
+ */
+@Component
+public class SignedSessionCodec {
+
+    /**
+     * The name of the signed session cookie.
+     */
+    public static final String COOKIE_NAME = "ECINEMA_SESSION";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final boolean secureCookie;
+    private final Duration timeToLive;
+    private final SecretKeySpec key;
+
+    public SignedSessionCodec(@Value("${statelessSession.enabled:false}") boolean enabled,
+                              @Value("${statelessSession.secret:}") String secret,
+                              @Value("${statelessSession.ttlMinutes:720}") long ttlMinutes,
+                              @Value("${statelessSession.secureCookie:false}") boolean secureCookie) {
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (enabled && secretBytes.length < 32) {
+            throw new IllegalArgumentException(
+                    "statelessSession.secret must be at least 32 bytes when stateless sessions are enabled");
+        }
+        this.enabled = enabled;
+        this.secureCookie = secureCookie;
+        this.timeToLive = Duration.ofMinutes(ttlMinutes);
+        this.key = secretBytes.length > 0 ? new SecretKeySpec(secretBytes, ALGORITHM) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Instantiates a session for the provided user that is issued now and expires after the time to live.
+     *
+     * @param userId      the user id
+     * @param username    the username
+     * @param authorities the authorities
+     * @return the signed session
+     */
+    public SignedSession newSession(Long userId, String username, Set<UserAuthority> authorities) {
+        return newSession(userId, username, authorities, System.currentTimeMillis());
+    }
+
+    /**
+     * Instantiates a session for the provided user that is issued at the provided time and expires after the
+     * time to live.
+     *
+     * @param userId         the user id
+     * @param username       the username
+     * @param authorities    the authorities
+     * @param issuedAtMillis the time of issue in millis
+     * @return the signed session
+     */
+    public SignedSession newSession(Long userId, String username, Set<UserAuthority> authorities,
+                                    long issuedAtMillis) {
+        return new SignedSession(userId, username, authorities, issuedAtMillis,
+                                 issuedAtMillis + timeToLive.toMillis());
+    }
+
+    /**
+     * Encodes and signs the provided session.
+     *
+     * @param signedSession the signed session
+     * @return the cookie value
+     */
+    public String encode(SignedSession signedSession) {
+        long mask = 0L;
+        for (UserAuthority userAuthority : signedSession.getAuthorities()) {
+            mask |= 1L << userAuthority.ordinal();
+        }
+        String payload = signedSession.getUserId() + "|" + mask + "|" + signedSession.getIssuedAtMillis() + "|" +
+                signedSession.getExpiresAtMillis() + "|" + signedSession.getUsername();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Decodes the provided cookie value if its signature is valid and it has not expired.
+     *
+     * @param value     the cookie value
+     * @param nowMillis the current time in millis
+     * @return the signed session, or empty if the value is malformed, forged or expired
+     */
+    public Optional<SignedSession> decode(String value, long nowMillis) {
+        if (value == null || key == null) {
+            return Optional.empty();
+        }
+        int dot = value.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(value.substring(0, dot));
+            byte[] signature = DECODER.decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+                return Optional.empty();
+            }
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 5);
+            if (fields.length != 5) {
+                return Optional.empty();
+            }
+            long mask = Long.parseLong(fields[1]);
+            Set<UserAuthority> authorities = EnumSet.noneOf(UserAuthority.class);
+            for (UserAuthority userAuthority : UserAuthority.values()) {
+                if ((mask & 1L << userAuthority.ordinal()) != 0) {
+                    authorities.add(userAuthority);
+                }
+            }
+            SignedSession signedSession = new SignedSession(
+                    Long.parseLong(fields[0]), fields[4], authorities,
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+            return signedSession.getExpiresAtMillis() > nowMillis ? Optional.of(signedSession) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Finds the value of the signed session cookie of the provided request.
+     *
+     * @param request the request
+     * @return the cookie value, or null if there is none
+     */
+    public String findCookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets the signed session cookie of the provided session on the response.
+     *
+     * @param response      the response
+     * @param signedSession the signed session
+     */
+    public void writeCookie(HttpServletResponse response, SignedSession signedSession) {
+        Duration maxAge = Duration.ofMillis(signedSession.getExpiresAtMillis() - System.currentTimeMillis());
+        response.addHeader("Set-Cookie", cookie(encode(signedSession), maxAge).toString());
+    }
+
+    /**
+     * Expires the signed session cookie on the client.
+     *
+     * @param response the response
+     */
+    public void clearCookie(HttpServletResponse response) {
+        response.addHeader("Set-Cookie", cookie("", Duration.ZERO).toString());
+    }
+
+    private ResponseCookie cookie(String value, Duration maxAge) {
+        return ResponseCookie.from(COOKIE_NAME, value)
+                             .httpOnly(true)
+                             .secure(secureCookie)
+                             .sameSite("Lax")
+                             .path("/")
+                             .maxAge(maxAge)
+                             .build();
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
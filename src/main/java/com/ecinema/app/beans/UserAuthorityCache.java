@@ -0,0 +1,84 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.util.UtilMethods;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the set of {@link UserAuthority} of every user by user id, so that a permission check does not have
+ * to load the user and its authority entities. Like {@link PrincipalViewCache}, every user has a version which
+ * is bumped after a transaction changing their authorities commits, and an entry loaded under an older version
+ * is never served, so a load racing with a change cannot cache the authorities from before it. Versions are
+ * bumped on this node only, so every entry also expires after a short time to live, which bounds how long a
+ * change committed on another node can go unseen here in either session mode. The cache is cleared whenever
+ * it grows past {@link #MAX_ENTRIES}.
+ */
+@Component
+public class UserAuthorityCache {
+
+    /**
+     * The number of users whose authorities are cached before the cache is cleared.
+     */
+    public static final int MAX_ENTRIES = 10_000;
+
+    private record Entry(long version, long expiresAtNanos, EnumSet<UserAuthority> authorities) {}
+
+    private final long ttlNanos;
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public UserAuthorityCache(@Value("${userAuthorityCache.ttlSeconds:30}") long ttlSeconds) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Returns the authorities of the user, loading them with the provided loader if they are not cached, are
+     * stale or have expired.
+     *
+     * @param userId the user id
+     * @param loader loads the authorities of the user from the database
+     * @return a copy of the authorities of the user
+     */
+    public Set<UserAuthority> get(Long userId, Supplier<Set<UserAuthority>> loader) {
+        long version = versions.getOrDefault(userId, 0L);
+        Entry entry = entries.get(userId);
+        long now = System.nanoTime();
+        if (entry == null || entry.version() != version || entry.expiresAtNanos() - now <= 0) {
+            EnumSet<UserAuthority> authorities = EnumSet.noneOf(UserAuthority.class);
+            authorities.addAll(loader.get());
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+            entry = new Entry(version, now + ttlNanos, authorities);
+            entries.put(userId, entry);
+        }
+        return entry.authorities().clone();
+    }
+
+    /**
+     * Marks the cached authorities of the user as stale once the current transaction, if any, commits. Does
+     * nothing for a user without an id, which cannot have been cached.
+     *
+     * @param userId the user id
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        UtilMethods.runAfterCommit(() -> {
+            versions.put(userId, clock.incrementAndGet());
+            entries.remove(userId);
+        });
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.ecinema.app.configs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The thread pools of work that is kept off the request path.
+ */
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * The bounded pool that delivers outbox emails. When the pool and its queue are full the dispatcher
+     * delivers the email itself, which slows the polling down instead of dropping work.
+     *
+     * @param workers the number of worker threads
+     * @return the thread pool task executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor emailDispatchExecutor(@Value("${emailOutbox.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("email-dispatch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * The bounded pool that verifies BCrypt hashes on login. When the pool and its queue are full the login is
+     * rejected straight away, so a burst of logins cannot take every request thread.
+     *
+     * @param workers       the number of worker threads, by default one per processor
+     * @param queueCapacity the number of logins that may wait for a worker
+     * @return the thread pool task executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${passwordHashing.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+            int workers,
+            @Value("${passwordHashing.queueCapacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+}
@@ -1,12 +1,19 @@
 package com.ecinema.app.configs;
 
 import com.ecinema.app.beans.AuthenticationProvider;
+import com.ecinema.app.beans.LoginFailureHandler;
+import com.ecinema.app.beans.LoginSuccessHandler;
+import com.ecinema.app.beans.SignedSessionCodec;
+import com.ecinema.app.configs.filters.SignedSessionFilter;
+import com.ecinema.app.services.SessionRevocationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import static com.ecinema.app.domain.enums.UserAuthority.*;
 
@@ -35,6 +42,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             "/movies/**",
             "/perform-login/**",
             "/post-email/**",
+            "/registration-availability/**",
             "/submit-registration/**",
             "/submit-customer-registration/**",
             "/view-seats/**"
@@ -48,8 +56,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     private static final String[] CUSTOMERS_PERMITTED = new String[]{
             "/add-payment-card/**",
             "/book-seat/**",
+            "/book-seats/**",
             "/current-tickets/**",
             "/edit-payment-card/**",
+            "/find-seats/**",
+            "/hold-seat/**",
+            "/hold-seats/**",
             "/past-tickets/**",
             "/payment-cards/**",
             "/payment-card/**",
@@ -83,6 +95,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     };
 
     private final AuthenticationProvider authenticationProvider;
+    private final LoginFailureHandler loginFailureHandler;
+    private final LoginSuccessHandler loginSuccessHandler;
+    private final SignedSessionCodec signedSessionCodec;
+    private final SessionRevocationService sessionRevocationService;
 
     @Override
     protected void configure(AuthenticationManagerBuilder builder) {
@@ -91,7 +107,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     @Override
     public void configure(WebSecurity web) {
-        web.ignoring().antMatchers("/css/**", "/img/**", "/js/**");
+        web.ignoring().antMatchers(WebConfig.STATIC_ASSET_PATHS);
     }
 
     @Override
@@ -115,18 +131,28 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .loginProcessingUrl("/perform-login")
                 .usernameParameter("username")
                 .passwordParameter("password")
-                .defaultSuccessUrl("/login-success", true)
-                .failureUrl("/login-error")
+                .successHandler(loginSuccessHandler)
+                .failureHandler(loginFailureHandler)
                 .and()
                 .logout()
                 .logoutUrl("/logout")
                 .invalidateHttpSession(true)
                 .logoutSuccessUrl("/logout-success")
-                .deleteCookies("JSESSIONID")
-                .and()
-                .rememberMe()
-                .key("uniqueAndSecret")
-                .tokenValiditySeconds(86400);
+                .deleteCookies("JSESSIONID", SignedSessionCodec.COOKIE_NAME);
+        if (signedSessionCodec.isEnabled()) {
+            // the signed session cookie replaces both the http session and remember-me
+            httpSecurity
+                    .sessionManagement()
+                    .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                    .and()
+                    .addFilterBefore(new SignedSessionFilter(signedSessionCodec, sessionRevocationService),
+                                     UsernamePasswordAuthenticationFilter.class);
+        } else {
+            httpSecurity
+                    .rememberMe()
+                    .key("uniqueAndSecret")
+                    .tokenValiditySeconds(86400);
+        }
     }
 
 }
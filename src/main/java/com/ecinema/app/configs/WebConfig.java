@@ -1,15 +1,22 @@
 package com.ecinema.app.configs;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.beans.SecurityContext;
 import com.ecinema.app.configs.interceptors.ModelAttributesInterceptor;
+import com.ecinema.app.configs.interceptors.StaticAssetCacheInterceptor;
 import com.ecinema.app.configs.interceptors.UserActivityInterceptor;
+import com.ecinema.app.services.UserActivityService;
 import com.ecinema.app.services.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
 /**
  * https://github.com/eugenp/tutorials/blob/master/spring-security-modules/
@@ -19,8 +26,20 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    /**
+     * The directories of static assets under "classpath:/static/", each served at the path of the same name.
+     */
+    public static final String[] STATIC_ASSET_DIRECTORIES = new String[]{"css", "img", "js"};
+
+    /**
+     * The paths of static assets, which skip the interceptors that look up the logged-in user.
+     */
+    public static final String[] STATIC_ASSET_PATHS = new String[]{"/css/**", "/img/**", "/js/**", "/static/**"};
+
     private final UserService userService;
     private final SecurityContext securityContext;
+    private final PrincipalViewCache principalViewCache;
+    private final UserActivityService userActivityService;
 
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
@@ -33,8 +52,25 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addViewController("/message-page").setViewName("message-page");
     }
 
+    /**
+     * Rewrites the asset urls of rendered templates, e.g. "@{/css/style.css}", to their fingerprinted urls.
+     *
+     * @return the resource url encoding filter
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : STATIC_ASSET_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
         registry.addResourceHandler("/static/**")
                 .addResourceLocations("classpath:/static/");
     }
@@ -42,9 +78,13 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(new ModelAttributesInterceptor(
-                userService, securityContext));
+                        userService, securityContext, principalViewCache))
+                .excludePathPatterns(STATIC_ASSET_PATHS);
         registry.addInterceptor(new UserActivityInterceptor(
-                userService, securityContext));
+                        userActivityService, securityContext))
+                .excludePathPatterns(STATIC_ASSET_PATHS);
+        registry.addInterceptor(new StaticAssetCacheInterceptor())
+                .addPathPatterns(STATIC_ASSET_PATHS);
     }
 
 }
@@ -0,0 +1,59 @@
+package com.ecinema.app.configs.filters;
+
+import com.ecinema.app.beans.SignedSessionCodec;
+import com.ecinema.app.domain.objects.SignedSession;
+import com.ecinema.app.services.SessionRevocationService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Authenticates a request of stateless session mode from its signed session cookie. A valid cookie that has not
+ * been revoked becomes an authentication whose principal is the {@link SignedSession}, without a lookup of the
+ * user or a server-side session. A cookie past half its lifetime is renewed, and an invalid or revoked one is
+ * cleared.
+ */
+public class SignedSessionFilter extends OncePerRequestFilter {
+
+    private final SignedSessionCodec signedSessionCodec;
+    private final SessionRevocationService sessionRevocationService;
+
+    public SignedSessionFilter(SignedSessionCodec signedSessionCodec,
+                               SessionRevocationService sessionRevocationService) {
+        this.signedSessionCodec = signedSessionCodec;
+        this.sessionRevocationService = sessionRevocationService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cookieValue = signedSessionCodec.findCookieValue(request);
+        if (cookieValue != null && !cookieValue.isEmpty()) {
+            long now = System.currentTimeMillis();
+            Optional<SignedSession> signedSessionOptional = signedSessionCodec.decode(cookieValue, now);
+            if (signedSessionOptional.isPresent() && !sessionRevocationService.isRevoked(signedSessionOptional.get())) {
+                SignedSession signedSession = signedSessionOptional.get();
+                Authentication authentication = new UsernamePasswordAuthenticationToken(
+                        signedSession, null, signedSession.getAuthorities());
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (signedSession.isDueForRenewal(now)) {
+                    signedSessionCodec.writeCookie(response, signedSessionCodec.newSession(
+                            signedSession.getUserId(), signedSession.getUsername(), signedSession.getAuthorities()));
+                }
+            } else {
+                logger.debug("Clearing invalid, expired or revoked signed session cookie");
+                signedSessionCodec.clearCookie(response);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+}
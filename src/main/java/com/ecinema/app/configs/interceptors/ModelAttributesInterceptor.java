@@ -1,10 +1,12 @@
 package com.ecinema.app.configs.interceptors;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.beans.SecurityContext;
 import com.ecinema.app.domain.dtos.UserDto;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.services.UserService;
 import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.PrincipalView;
 import com.ecinema.app.util.UtilMethods;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -15,7 +17,9 @@ import org.springframework.web.servlet.ModelAndView;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -24,8 +28,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ModelAttributesInterceptor implements HandlerInterceptor {
 
+    private static final List<Pair<String, String>> ANONYMOUS_DROPDOWN_MENU = List.of(
+            new Pair<>("Login", "/login"),
+            new Pair<>("Register New Customer Account", "/submit-customer-registration"),
+            new Pair<>("Forgot My Password", "/get-email-for-change-password"));
+
     private final UserService userService;
     private final SecurityContext securityContext;
+    private final PrincipalViewCache principalViewCache;
     private final Logger logger = LoggerFactory.getLogger(ModelAttributesInterceptor.class);
 
     @Override
@@ -35,36 +45,34 @@ public class ModelAttributesInterceptor implements HandlerInterceptor {
         logger.debug("Model attributes interceptor");
         if (modelAndView != null) {
             Long userId = securityContext.findIdOfLoggedInUser();
-            addUserDto(userId, modelAndView);
-            addDropdownMenu(userId, modelAndView);
+            logger.debug("User id: " + userId);
+            if (userId == null) {
+                addUserDto(null, modelAndView);
+                addDropdownMenu(ANONYMOUS_DROPDOWN_MENU, modelAndView);
+                return;
+            }
+            HttpSession session = request.getSession(false);
+            PrincipalView principalView = principalViewCache.find(session, userId);
+            if (principalView == null) {
+                principalView = buildPrincipalView(userId);
+                principalViewCache.put(session, principalView);
+            } else {
+                logger.debug("Using principal view cached in session");
+            }
+            addUserDto(principalView.getUserDto(), modelAndView);
+            addDropdownMenu(principalView.getDropdownMenu(), modelAndView);
         } else {
             logger.debug("Model and view is null");
         }
     }
 
-    private void addUserDto(final Long userId, final ModelAndView modelAndView) {
-        logger.debug("User id: " + userId);
-        UserDto userDto = userId != null ? userService.findById(userId) : null;
+    private PrincipalView buildPrincipalView(final Long userId) {
+        // read the version first so that a change committed while building leaves this view stale
+        long version = principalViewCache.currentVersionOf(userId);
+        UserDto userDto = userService.findById(userId);
         logger.debug("User DTO: " + userDto);
-        modelAndView.addObject("user", userDto);
-        modelAndView.addObject("userIsAdmin", userDto != null && userDto.isAdmin());
-        modelAndView.addObject("userIsCustomer", userDto != null && userDto.isCustomer());
-        modelAndView.addObject("userIsModerator", userDto != null && userDto.isModerator());
-    }
-
-    private void addDropdownMenu(final Long userId, final ModelAndView modelAndView) {
-        logger.debug("Id of logged in user: " + userId);
         List<Pair<String, String>> dropdownMenu = new ArrayList<>();
-        if (userId == null) {
-            dropdownMenu.add(new Pair<>("Login", "/login"));
-            dropdownMenu.add(new Pair<>("Register New Customer Account", "/submit-customer-registration"));
-            dropdownMenu.add(new Pair<>("Forgot My Password", "/get-email-for-change-password"));
-        } else {
-            UserDto userDto = userService.findById(userId);
-            if (userDto == null) {
-                return;
-            }
-            logger.debug("User DTO: " + userDto);
+        if (userDto != null) {
             if (userDto.getUserAuthorities().contains(UserAuthority.CUSTOMER)) {
                 dropdownMenu.add(new Pair<>("Tickets", "/current-tickets"));
                 dropdownMenu.add(new Pair<>("Payment Cards", "/payment-cards"));
@@ -77,6 +85,18 @@ public class ModelAttributesInterceptor implements HandlerInterceptor {
             dropdownMenu.add(new Pair<>("Change Password", "/get-email-for-change-password"));
             dropdownMenu.add(new Pair<>("Logout", "/logout"));
         }
+        return new PrincipalView(userId, version, userDto, Collections.unmodifiableList(dropdownMenu));
+    }
+
+    private void addUserDto(final UserDto userDto, final ModelAndView modelAndView) {
+        logger.debug("User DTO: " + userDto);
+        modelAndView.addObject("user", userDto);
+        modelAndView.addObject("userIsAdmin", userDto != null && userDto.isAdmin());
+        modelAndView.addObject("userIsCustomer", userDto != null && userDto.isCustomer());
+        modelAndView.addObject("userIsModerator", userDto != null && userDto.isModerator());
+    }
+
+    private void addDropdownMenu(final List<Pair<String, String>> dropdownMenu, final ModelAndView modelAndView) {
         modelAndView.addObject("dropdownMenu", dropdownMenu);
         logger.debug("Dropdown menu: " + dropdownMenu);
     }
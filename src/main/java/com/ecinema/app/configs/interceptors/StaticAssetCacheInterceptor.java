@@ -0,0 +1,36 @@
+package com.ecinema.app.configs.interceptors;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.regex.Pattern;
+
+/**
+ * Sets the caching headers of static assets. An asset requested by its fingerprinted url, which carries the
+ * hash of its content, can never change under that url and so is cached for a year without revalidation.
+ * An asset requested by its plain url is revalidated against its last modified time on every use.
+ */
+public class StaticAssetCacheInterceptor implements HandlerInterceptor {
+
+    /**
+     * The Cache-Control of fingerprinted assets.
+     */
+    public static final String IMMUTABLE = "max-age=31536000, public, immutable";
+
+    /**
+     * The Cache-Control of assets requested without a fingerprint.
+     */
+    public static final String REVALIDATE = "no-cache";
+
+    private static final Pattern FINGERPRINTED = Pattern.compile("-[0-9a-f]{32}\\.[^/.]+$");
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean fingerprinted = FINGERPRINTED.matcher(request.getRequestURI()).find();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, fingerprinted ? IMMUTABLE : REVALIDATE);
+        return true;
+    }
+
+}
@@ -1,7 +1,7 @@
 package com.ecinema.app.configs.interceptors;
 
 import com.ecinema.app.beans.SecurityContext;
-import com.ecinema.app.services.UserService;
+import com.ecinema.app.services.UserActivityService;
 import com.ecinema.app.util.UtilMethods;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -12,12 +12,13 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
- * The type User activity interceptor.
+ * Records the activity of the logged-in user after every request. The time is only buffered in memory by
+ * {@link UserActivityService}, so a request never waits on a write to the user row.
  */
 @RequiredArgsConstructor
 public class UserActivityInterceptor implements HandlerInterceptor {
 
-    private final UserService userService;
+    private final UserActivityService userActivityService;
     private final SecurityContext securityContext;
     private final Logger logger = LoggerFactory.getLogger(UserActivityInterceptor.class);
 
@@ -31,7 +32,7 @@ public class UserActivityInterceptor implements HandlerInterceptor {
         if (securityContext.userIsLoggedIn()) {
             Long userId = securityContext.findIdOfLoggedInUser();
             logger.debug("User id: " + userId);
-            userService.updateLastActivityDateTimeOfUserWithId(userId);
+            userActivityService.recordActivity(userId);
         }
     }
 
@@ -5,6 +5,7 @@ import com.ecinema.app.domain.dtos.ScreeningDto;
 import com.ecinema.app.domain.dtos.ShowroomDto;
 import com.ecinema.app.domain.enums.Letter;
 import com.ecinema.app.domain.forms.*;
+import com.ecinema.app.domain.objects.Pair;
 import com.ecinema.app.exceptions.ClashException;
 import com.ecinema.app.exceptions.InvalidArgumentException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
@@ -239,6 +240,13 @@ public class AdminController {
         List<ShowroomDto> showrooms = showroomService.findAll();
         logger.debug("Showrooms: " + showrooms);
         model.addAttribute("showrooms", showrooms);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Letter, List<Pair<LocalDateTime, LocalDateTime>>> freeSlots = new TreeMap<>();
+        for (ShowroomDto showroom : showrooms) {
+            freeSlots.put(showroom.getShowroomLetter(), screeningService.findFreeSlots(
+                    showroom.getId(), now, now.plusWeeks(1), movieDto.getDuration()));
+        }
+        model.addAttribute("freeSlots", freeSlots);
         model.addAttribute("action", "/add-screening/{id}");
         model.addAttribute("screeningForm", new ScreeningForm());
         String minDate = LocalDateTime.now().toLocalDate().format(
@@ -1,11 +1,13 @@
 package com.ecinema.app.controllers;
 
+import com.ecinema.app.exceptions.LoginThrottledException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.exceptions.PasswordMismatchException;
 import com.ecinema.app.services.LoginService;
 import com.ecinema.app.util.UtilMethods;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -15,6 +17,8 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import javax.servlet.http.HttpServletResponse;
+
 /**
  * The type Login controller.
  * https://www.thymeleaf.org/doc/articles/springsecurity.html
@@ -54,11 +58,14 @@ public class LoginController {
      *
      * @param username the username
      * @param password the password
+     * @param model    the model
+     * @param response the response
      * @return the string
      */
     @PostMapping("/perform-login")
     public String performLogin(@RequestParam("username") final String username,
-                               @RequestParam("password") final String password) {
+                               @RequestParam("password") final String password,
+                               final Model model, final HttpServletResponse response) {
         logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
         logger.debug("Perform login post mapping");
         try {
@@ -67,6 +74,11 @@ public class LoginController {
         } catch (NoEntityFoundException | PasswordMismatchException e) {
             logger.debug(e.toString());
             return "login";
+        } catch (LoginThrottledException e) {
+            logger.debug(e.toString());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            model.addAttribute("error", e.getMessage());
+            return "login";
         }
     }
 
@@ -1,7 +1,6 @@
 package com.ecinema.app.controllers;
 
 import com.ecinema.app.beans.SecurityContext;
-import com.ecinema.app.domain.dtos.UserDto;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.services.*;
 import com.ecinema.app.util.UtilMethods;
@@ -13,6 +12,8 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * The type Management controller.
@@ -23,6 +24,7 @@ public class ManagementController {
 
     private final UserService userService;
     private final SecurityContext securityContext;
+    private final TokenSweeperService tokenSweeperService;
     private final Logger logger = LoggerFactory.getLogger(ManagementController.class);
 
     /**
@@ -34,13 +36,14 @@ public class ManagementController {
     @GetMapping("/management")
     public String showAdminPage(final Model model) {
         Long userId = securityContext.findIdOfLoggedInUser();
-        UserDto userDto = userService.findById(userId);
-        List<String> userAuthorities = userService.userAuthoritiesAsListOfStrings(userDto.getId());
-        if (userDto.getUserAuthorities().contains(UserAuthority.MODERATOR)) {
+        Set<UserAuthority> authorities = userService.userAuthorities(userId);
+        List<String> userAuthorities = authorities.stream().map(UserAuthority::name).collect(Collectors.toList());
+        if (authorities.contains(UserAuthority.MODERATOR)) {
             model.addAttribute("moderator", true);
         }
-        if (userDto.getUserAuthorities().contains(UserAuthority.ADMIN)) {
+        if (authorities.contains(UserAuthority.ADMIN)) {
             model.addAttribute("admin", true);
+            model.addAttribute("tokenSweepStatistics", tokenSweeperService.getStatistics());
         }
         model.addAttribute("userAuthorities", userAuthorities);
         logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
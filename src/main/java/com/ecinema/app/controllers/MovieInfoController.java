@@ -1,15 +1,19 @@
 package com.ecinema.app.controllers;
 
 import com.ecinema.app.domain.dtos.MovieDto;
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+import com.ecinema.app.domain.objects.MovieFacetFilter;
+import com.ecinema.app.domain.objects.MovieFacetPage;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.services.MovieService;
-import com.ecinema.app.services.ReviewService;
 import com.ecinema.app.util.UtilMethods;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +21,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.ecinema.app.util.UtilMethods.addPageNumbersAttribute;
 
@@ -28,25 +33,48 @@ import static com.ecinema.app.util.UtilMethods.addPageNumbersAttribute;
 public class MovieInfoController {
 
     private final MovieService movieService;
-    private final ReviewService reviewService;
     private final Logger logger = LoggerFactory.getLogger(MovieInfoController.class);
 
     /**
-     * Movies page string.
+     * Movies page string. Without a search, browses the movies by facets, see
+     * {@link MovieService#findAllByFacets(MovieFacetFilter, Pageable)}.
      *
-     * @param model  the model
-     * @param page   the page
-     * @param search the search
+     * @param model         the model
+     * @param page          the page
+     * @param search        the search
+     * @param categories    the categories every movie must have
+     * @param anyCategories the categories every movie must have at least one of
+     * @param msrbRatings   the ratings every movie must have one of
      * @return the string
      */
     @GetMapping("/movies")
     public String moviesPage(final Model model,
                              @RequestParam(value = "page", required = false, defaultValue = "1") final Integer page,
-                             @RequestParam(value = "search", required = false, defaultValue = "") final String search) {
+                             @RequestParam(value = "search", required = false, defaultValue = "") final String search,
+                             @RequestParam(value = "category", required = false) final Set<MovieCategory> categories,
+                             @RequestParam(value = "anyCategory", required = false)
+                             final Set<MovieCategory> anyCategories,
+                             @RequestParam(value = "rating", required = false) final Set<MsrbRating> msrbRatings) {
         PageRequest pageRequest = PageRequest.of(page - 1, 6);
-        Page<MovieDto> pageOfDtos = (search == null || search.isBlank()) ?
-                movieService.findAll(pageRequest) :
-                movieService.findAllByLikeTitle(search, pageRequest);
+        Page<MovieDto> pageOfDtos;
+        if (search == null || search.isBlank()) {
+            MovieFacetFilter filter = new MovieFacetFilter();
+            if (categories != null) {
+                filter.getAllCategories().addAll(categories);
+            }
+            if (anyCategories != null) {
+                filter.getAnyCategories().addAll(anyCategories);
+            }
+            if (msrbRatings != null) {
+                filter.getMsrbRatings().addAll(msrbRatings);
+            }
+            MovieFacetPage movieFacetPage = movieService.findAllByFacets(filter, pageRequest);
+            pageOfDtos = movieFacetPage.getMovies();
+            model.addAttribute("facets", movieFacetPage.getFacets());
+            model.addAttribute("filter", filter);
+        } else {
+            pageOfDtos = movieService.findAllByLikeTitle(search, pageRequest);
+        }
         addPageNumbersAttribute(model, pageOfDtos);
         Map<Integer, List<MovieDto>> movies = UtilMethods.get2dMapOf(pageOfDtos, 3);
         model.addAttribute("movies", movies);
@@ -73,7 +101,7 @@ public class MovieInfoController {
         try {
             MovieDto movieDto = movieService.findById(movieId);
             model.addAttribute("movie", movieDto);
-            Integer avgRating = reviewService.findAverageRatingOfMovieWithId(movieId);
+            Integer avgRating = (int) Math.round(movieDto.getAverageRating());
             model.addAttribute("avgRating", avgRating);
             logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
             logger.debug("Movie debug get mapping");
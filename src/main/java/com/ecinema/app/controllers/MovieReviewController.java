@@ -8,6 +8,7 @@ import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.enums.Vote;
 import com.ecinema.app.domain.forms.ReviewForm;
 import com.ecinema.app.exceptions.ClashException;
+import com.ecinema.app.exceptions.InvalidActionException;
 import com.ecinema.app.exceptions.InvalidArgumentException;
 import com.ecinema.app.exceptions.InvalidAssociationException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
@@ -50,13 +51,15 @@ public class MovieReviewController {
      * @param redirectAttributes the redirect attributes
      * @param page               the page
      * @param movieId            the movie id
+     * @param sort               "helpful" to order the reviews from most helpful, otherwise newest first
      * @return the view name
      */
     @GetMapping("/movie-reviews")
     public String movieReviewsPage(
             final Model model, final RedirectAttributes redirectAttributes,
             @RequestParam(value = "page", required = false, defaultValue = "1") final Integer page,
-            @RequestParam("id") final Long movieId) {
+            @RequestParam("id") final Long movieId,
+            @RequestParam(value = "sort", required = false) final String sort) {
         try {
             logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
             Long userId = securityContext.findIdOfLoggedInUser();
@@ -64,9 +67,10 @@ public class MovieReviewController {
                     !reviewService.existsByUserIdAndMovieId(userId, movieId);
             logger.debug("Can write review: " + canWriteReview);
             model.addAttribute("canWriteReview", canWriteReview);
-            PageRequest pageRequest = PageRequest.of(page - 1, 6);
+            PageRequest pageRequest = PageRequest.of(
+                    page - 1, 6, "helpful".equals(sort) ? ReviewService.MOST_HELPFUL : ReviewService.NEWEST);
             Page<ReviewDto> pageOfDtos = reviewService
-                    .findPageByMovieIdAndNotCensored(movieId, pageRequest);
+                    .findPageByMovieIdAndNotCensored(movieId, userId, pageRequest);
             logger.debug("Review DTOs: " + pageOfDtos.getContent());
             model.addAttribute("reviews", pageOfDtos);
             addPageNumbersAttribute(model, pageOfDtos);
@@ -74,6 +78,7 @@ public class MovieReviewController {
             model.addAttribute("page", page);
             logger.debug("Movie id: " + movieId);
             model.addAttribute("movieId", movieId);
+            model.addAttribute("sort", sort);
             return "movie-reviews";
         } catch (NoEntityFoundException e) {
             logger.debug("Errors: " + e);
@@ -90,6 +95,7 @@ public class MovieReviewController {
      * @param movieId            the movie id
      * @param voteOrdinal        the vote ordinal
      * @param page               the page
+     * @param sort               the sort of the reviews page to return to
      * @return the view name
      */
     @PostMapping("/vote-review/{id}/{vote}")
@@ -97,7 +103,8 @@ public class MovieReviewController {
                              @PathVariable("id") final Long reviewId,
                              @RequestParam("movieId") final Long movieId,
                              @PathVariable("vote") final Integer voteOrdinal,
-                             @RequestParam(value = "page", required = false, defaultValue = "1") final Integer page) {
+                             @RequestParam(value = "page", required = false, defaultValue = "1") final Integer page,
+                             @RequestParam(value = "sort", required = false) final String sort) {
         try {
             logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
             Long userId = securityContext.findIdOfLoggedInUser();
@@ -113,11 +120,13 @@ public class MovieReviewController {
             reviewVoteService.voteOnReview(userId, reviewId, vote);
             logger.debug("Successfully applied " + vote + " to review with id: " + reviewId);
             redirectAttributes.addFlashAttribute("success", "Successfully voted on review");
-        } catch (InvalidAssociationException | NoEntityFoundException  | InvalidArgumentException e) {
+        } catch (InvalidAssociationException | NoEntityFoundException | InvalidArgumentException |
+                 InvalidActionException e) {
             logger.debug("Errors: " + e);
             redirectAttributes.addFlashAttribute("errors", e.getErrors());
         }
-        return "redirect:/movie-reviews?id=" + movieId + "&page=" + page;
+        return "redirect:/movie-reviews?id=" + movieId + "&page=" + page +
+                ("helpful".equals(sort) ? "&sort=helpful" : "");
     }
 
     /**
@@ -8,6 +8,7 @@ import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.forms.RegistrationForm;
 import com.ecinema.app.exceptions.*;
 import com.ecinema.app.services.RegistrationService;
+import com.ecinema.app.services.UserAvailabilityService;
 import com.ecinema.app.util.UtilMethods;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -18,8 +19,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Controller for client registration process.
  */
@@ -28,6 +34,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class RegistrationController {
 
     private final RegistrationService registrationService;
+    private final UserAvailabilityService userAvailabilityService;
     private final Logger logger = LoggerFactory.getLogger(RegistrationController.class);
 
     /**
@@ -47,6 +54,26 @@ public class RegistrationController {
         return "submit-registration";
     }
 
+    /**
+     * Tells the registration form whether the username typed so far is free, without a query for one that
+     * definitely is. Usernames are shown publicly on reviews anyway; emails are not, so this endpoint does not
+     * answer for them, since an unauthenticated caller could otherwise use it to find out who has an account.
+     * A taken email is still reported when the form is submitted.
+     *
+     * @param username the username
+     * @return "usernameAvailable" mapped to whether the username is free, or nothing if it is blank
+     */
+    @GetMapping("/registration-availability")
+    @ResponseBody
+    public Map<String, Boolean> checkRegistrationAvailability(
+            @RequestParam(value = "username", required = false) final String username) {
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null && !username.isBlank()) {
+            availability.put("usernameAvailable", !userAvailabilityService.isUsernameTaken(username));
+        }
+        return availability;
+    }
+
     /**
      * Posts the {@link RegistrationForm} for registering a new {@link User} with {@link Customer} authority.
      *
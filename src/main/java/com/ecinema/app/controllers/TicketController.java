@@ -6,6 +6,7 @@ import com.ecinema.app.domain.dtos.ScreeningDto;
 import com.ecinema.app.domain.dtos.TicketDto;
 import com.ecinema.app.domain.forms.LongListForm;
 import com.ecinema.app.domain.forms.SeatBookingForm;
+import com.ecinema.app.domain.forms.SeatsBookingForm;
 import com.ecinema.app.exceptions.*;
 import com.ecinema.app.services.*;
 import lombok.RequiredArgsConstructor;
@@ -21,6 +22,7 @@ import com.ecinema.app.domain.enums.Letter;
 import com.ecinema.app.util.UtilMethods;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.SessionStatus;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
@@ -39,6 +41,7 @@ public class TicketController {
     private final ScreeningService screeningService;
     private final PaymentCardService paymentCardService;
     private final ScreeningSeatService screeningSeatService;
+    private final SeatHoldService seatHoldService;
     private final Logger logger = LoggerFactory.getLogger(TicketController.class);
 
     /**
@@ -63,6 +66,14 @@ public class TicketController {
             model.addAttribute("screening", screeningDto);
             model.addAttribute("mapOfScreeningSeats", mapOfScreeningSeats);
             model.addAttribute("seatIdsForm", new LongListForm());
+            Long userId = securityContext.findIdOfLoggedInUser();
+            Set<Long> seatIdsHeldByUser = new HashSet<>();
+            if (userId != null) {
+                mapOfScreeningSeats.values().stream().flatMap(Set::stream)
+                                   .filter(seat -> seat.getIsHeld() && seatHoldService.isHeldBy(seat.getId(), userId))
+                                   .forEach(seat -> seatIdsHeldByUser.add(seat.getId()));
+            }
+            model.addAttribute("seatIdsHeldByUser", seatIdsHeldByUser);
             for (Map.Entry<Letter, Set<ScreeningSeatDto>> entry : mapOfScreeningSeats.entrySet()) {
                 logger.debug("Row " + entry.getKey() + " has " + entry.getValue() + " seats");
             }
@@ -75,6 +86,42 @@ public class TicketController {
         }
     }
 
+    /**
+     * Holds the seat for the logged in customer while they check out and redirects to the book seat page. Holds
+     * are placed from a post so that reloading or prefetching the book seat page never places or renews one.
+     *
+     * @param redirectAttributes the redirect attributes
+     * @param screeningId        the screening id
+     * @param seatId             the seat id
+     * @return the string
+     */
+    @PostMapping("/hold-seat")
+    public String holdSeat(final RedirectAttributes redirectAttributes,
+                           @RequestParam("screeningId") final Long screeningId,
+                           @RequestParam("seatId") final Long seatId) {
+        try {
+            logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
+            logger.debug("Post mapping: hold seat");
+            if (!screeningService.existsById(screeningId)) {
+                throw new NoEntityFoundException("screening", "id", screeningId);
+            }
+            if (screeningSeatService.screeningSeatIsBooked(seatId)) {
+                throw new InvalidActionException("Seat with id " + seatId + " is already booked");
+            }
+            Long userId = securityContext.findIdOfLoggedInUser();
+            logger.debug("User id: " + userId);
+            seatHoldService.hold(screeningId, seatId, userId);
+            redirectAttributes.addAttribute("screeningId", screeningId);
+            redirectAttributes.addAttribute("seatId", seatId);
+            return "redirect:/book-seat";
+        } catch (NoEntityFoundException | InvalidActionException | InvalidAssociationException e) {
+            logger.debug("Errors: " + e);
+            redirectAttributes.addFlashAttribute("errors", e.getErrors());
+            logger.debug("Redirecting to view seats page");
+            return "redirect:/view-seats?id=" + screeningId;
+        }
+    }
+
     /**
      * See book seats page string.
      *
@@ -97,6 +144,14 @@ public class TicketController {
             if (screeningSeatService.screeningSeatIsBooked(seatId)) {
                 throw new InvalidActionException("Seat with id " + seatId + " is already booked");
             }
+            // user id
+            Long userId = securityContext.findIdOfLoggedInUser();
+            logger.debug("User id: " + userId);
+            // the seat is held by the post to hold seat, never by this page
+            if (!seatHoldService.isHeldBy(seatId, userId)) {
+                throw new InvalidActionException("Your hold on seat with id " + seatId + " has expired, please " +
+                                                         "choose the seat again");
+            }
             // screening dto
             ScreeningDto screening = screeningService.findById(screeningId);
             logger.debug("Screening DTO: " + screening);
@@ -109,9 +164,6 @@ public class TicketController {
             SeatBookingForm seatBookingForm = screeningSeatService.fetchSeatBookingForm(seatId);
             logger.debug("Seat booking form: " + seatBookingForm);
             model.addAttribute("seatBookingForm", seatBookingForm);
-            // user id
-            Long userId = securityContext.findIdOfLoggedInUser();
-            logger.debug("User id: " + userId);
             // payment cards
             List<PaymentCardDto> paymentCards = paymentCardService.findAllByCardUserWithId(userId);
             logger.debug("Payment cards: " + paymentCards);
@@ -121,7 +173,7 @@ public class TicketController {
             logger.debug("Tokens: " + tokens);
             model.addAttribute("tokens", tokens);
             return "book-seat";
-        } catch (NoEntityFoundException | InvalidActionException e) {
+        } catch (NoEntityFoundException | InvalidActionException | InvalidAssociationException e) {
             logger.debug("Errors: " + e);
             redirectAttributes.addFlashAttribute("errors", e.getErrors());
             logger.debug("Redirecting to view seats page");
@@ -165,6 +217,151 @@ public class TicketController {
         }
     }
 
+    /**
+     * Holds the seats for the logged in customer while they check out and redirects to the book seats page.
+     *
+     * @param redirectAttributes the redirect attributes
+     * @param screeningId        the screening id
+     * @param seatIdsForm        the ids of the seats to hold
+     * @return the string
+     */
+    @PostMapping("/hold-seats")
+    public String holdSeats(final RedirectAttributes redirectAttributes,
+                            @RequestParam("screeningId") final Long screeningId,
+                            @ModelAttribute("seatIdsForm") final LongListForm seatIdsForm) {
+        try {
+            logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
+            logger.debug("Post mapping: hold seats");
+            if (!screeningService.existsById(screeningId)) {
+                throw new NoEntityFoundException("screening", "id", screeningId);
+            }
+            return holdAndRedirectToBookSeats(redirectAttributes, screeningId, seatIdsForm.getList());
+        } catch (NoEntityFoundException | InvalidActionException | InvalidArgumentException |
+                InvalidAssociationException e) {
+            logger.debug("Errors: " + e);
+            redirectAttributes.addFlashAttribute("errors", e.getErrors());
+            logger.debug("Redirecting to view seats page");
+            return "redirect:/view-seats?id=" + screeningId;
+        }
+    }
+
+    /**
+     * See book multiple seats page string.
+     *
+     * @param model              the model
+     * @param redirectAttributes the redirect attributes
+     * @param screeningId        the screening id
+     * @param seatIdsForm        the ids of the seats to book
+     * @return the string
+     */
+    @GetMapping("/book-seats")
+    public String seeBookMultipleSeatsPage(final Model model, final RedirectAttributes redirectAttributes,
+                                           @RequestParam("screeningId") final Long screeningId,
+                                           @ModelAttribute("seatIdsForm") final LongListForm seatIdsForm) {
+        try {
+            logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
+            logger.debug("Get mapping: book seats");
+            if (!screeningService.existsById(screeningId)) {
+                throw new NoEntityFoundException("screening", "id", screeningId);
+            }
+            // seats booking form
+            SeatsBookingForm seatsBookingForm = screeningSeatService.fetchSeatsBookingForm(
+                    screeningId, seatIdsForm.getList());
+            logger.debug("Seats booking form: " + seatsBookingForm);
+            model.addAttribute("bookSeatsForm", seatsBookingForm);
+            // user id
+            Long userId = securityContext.findIdOfLoggedInUser();
+            logger.debug("User id: " + userId);
+            // the seats are held by the post to hold seats, never by this page
+            if (!seatIdsForm.getList().stream().allMatch(seatId -> seatHoldService.isHeldBy(seatId, userId))) {
+                throw new InvalidActionException("Your hold on the selected seats has expired, please choose " +
+                                                         "them again");
+            }
+            // screening dto
+            ScreeningDto screening = screeningService.findById(screeningId);
+            logger.debug("Screening DTO: " + screening);
+            model.addAttribute("screening", screening);
+            // screening seat dtos
+            List<ScreeningSeatDto> screeningSeats = screeningSeatService.findAll(seatIdsForm.getList());
+            logger.debug("Screening seat DTOs: " + screeningSeats);
+            model.addAttribute("screeningSeats", screeningSeats);
+            // payment cards
+            List<PaymentCardDto> paymentCards = paymentCardService.findAllByCardUserWithId(userId);
+            logger.debug("Payment cards: " + paymentCards);
+            model.addAttribute("paymentCards", paymentCards);
+            // tokens
+            Integer tokens = customerService.numberOfTokensOwnedByUser(userId);
+            logger.debug("Tokens: " + tokens);
+            model.addAttribute("tokens", tokens);
+            return "book-seats";
+        } catch (NoEntityFoundException | InvalidActionException | InvalidArgumentException |
+                InvalidAssociationException e) {
+            logger.debug("Errors: " + e);
+            redirectAttributes.addFlashAttribute("errors", e.getErrors());
+            logger.debug("Redirecting to view seats page");
+            return "redirect:/view-seats?id=" + screeningId;
+        }
+    }
+
+    /**
+     * Finds the most central block of the requested number of seats next to one another, holds it for the
+     * logged in customer, and redirects to the book seats page with those seats selected.
+     *
+     * @param redirectAttributes the redirect attributes
+     * @param screeningId        the screening id
+     * @param numberOfSeats      the number of seats
+     * @return the string
+     */
+    @PostMapping("/find-seats")
+    public String findSeatsTogether(final RedirectAttributes redirectAttributes,
+                                    @RequestParam("screeningId") final Long screeningId,
+                                    @RequestParam("numberOfSeats") final Integer numberOfSeats) {
+        try {
+            logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
+            logger.debug("Post mapping: find seats");
+            List<Long> screeningSeatIds = screeningSeatService.findBestContiguousSeats(screeningId, numberOfSeats);
+            logger.debug("Screening seat ids: " + screeningSeatIds);
+            return holdAndRedirectToBookSeats(redirectAttributes, screeningId, screeningSeatIds);
+        } catch (NoEntityFoundException | InvalidArgumentException | InvalidActionException |
+                InvalidAssociationException e) {
+            logger.debug("Errors: " + e);
+            redirectAttributes.addFlashAttribute("errors", e.getErrors());
+            logger.debug("Redirecting to view seats page");
+            return "redirect:/view-seats?id=" + screeningId;
+        }
+    }
+
+    /**
+     * Book multiple seats string.
+     *
+     * @param redirectAttributes the redirect attributes
+     * @param sessionStatus      the session status
+     * @param seatsBookingForm   the seats booking form
+     * @return the string
+     */
+    @PostMapping("/book-seats")
+    public String bookMultipleSeats(final RedirectAttributes redirectAttributes, final SessionStatus sessionStatus,
+                                    @ModelAttribute("bookSeatsForm") final SeatsBookingForm seatsBookingForm) {
+        try {
+            logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
+            logger.debug("Post mapping: book seats");
+            Long userId = securityContext.findIdOfLoggedInUser();
+            logger.debug("User id: " + userId);
+            seatsBookingForm.setUserId(userId);
+            logger.debug("Seats booking form: " + seatsBookingForm);
+            ticketService.bookTickets(seatsBookingForm);
+            logger.debug("Successfully booked seats");
+            redirectAttributes.addFlashAttribute("success", "Successfully booked tickets for " +
+                    seatsBookingForm.getTicketTypes().size() + " seats");
+        } catch (NoEntityFoundException | InvalidActionException | InvalidArgumentException e) {
+            logger.debug("Errors: " + e);
+            redirectAttributes.addFlashAttribute("errors", e.getErrors());
+        }
+        sessionStatus.setComplete();
+        logger.debug("Redirecting to view seats page");
+        return "redirect:/view-seats?id=" + seatsBookingForm.getScreeningId();
+    }
+
     /**
      * Show current ticket page string.
      *
@@ -238,4 +435,22 @@ public class TicketController {
         }
     }
 
+    /**
+     * Checks that the seats are of the screening and not booked, holds them for the logged in customer, and
+     * redirects to the book seats page with them selected.
+     */
+    private String holdAndRedirectToBookSeats(final RedirectAttributes redirectAttributes, final Long screeningId,
+                                              final List<Long> screeningSeatIds)
+            throws NoEntityFoundException, InvalidActionException, InvalidArgumentException,
+            InvalidAssociationException {
+        // validates that the seats are of the screening and not booked
+        screeningSeatService.fetchSeatsBookingForm(screeningId, screeningSeatIds);
+        Long userId = securityContext.findIdOfLoggedInUser();
+        logger.debug("User id: " + userId);
+        seatHoldService.holdAll(screeningId, screeningSeatIds, userId);
+        redirectAttributes.addAttribute("screeningId", screeningId);
+        redirectAttributes.addAttribute("list", screeningSeatIds);
+        return "redirect:/book-seats";
+    }
+
 }
@@ -32,4 +32,6 @@ public class MovieDto extends AbstractDto implements IMovie {
     private Set<String> writers = new HashSet<>();
     private Set<MovieCategory> movieCategories =
             EnumSet.noneOf(MovieCategory.class);
+    private Double averageRating = 0.0;
+    private Integer ratingCount = 0;
 }
@@ -2,16 +2,11 @@ package com.ecinema.app.domain.dtos;
 
 import com.ecinema.app.domain.contracts.AbstractDto;
 import com.ecinema.app.domain.contracts.IReview;
-import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.enums.Vote;
 import com.ecinema.app.util.UtilMethods;
 import lombok.*;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.EnumMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * The type Review dto.
@@ -28,8 +23,27 @@ public class ReviewDto extends AbstractDto implements IReview {
     private Long customerId = null;
     private Boolean isCensored = false;
     private LocalDateTime creationDateTime;
-    private List<Long> upvoteUserIds = new ArrayList<>();
-    private List<Long> downvoteUserIds = new ArrayList<>();
+    private Integer upvotes = 0;
+    private Integer downvotes = 0;
+    private Vote voteOfCurrentUser = null;
+
+    /**
+     * Returns true if the user the review was fetched for has upvoted it.
+     *
+     * @return the boolean
+     */
+    public boolean upvotedByCurrentUser() {
+        return voteOfCurrentUser == Vote.UPVOTE;
+    }
+
+    /**
+     * Returns true if the user the review was fetched for has downvoted it.
+     *
+     * @return the boolean
+     */
+    public boolean downvotedByCurrentUser() {
+        return voteOfCurrentUser == Vote.DOWNVOTE;
+    }
 
     /**
      * Creation date time formatted string.
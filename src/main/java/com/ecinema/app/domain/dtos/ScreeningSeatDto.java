@@ -15,4 +15,5 @@ import lombok.ToString;
 public class ScreeningSeatDto extends SeatDto {
     private Long screeningId = 0L;
     private Boolean isBooked = false;
+    private Boolean isHeld = false;
 }
@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
  * The type Ticket dto.
  */
 @Data
+@NoArgsConstructor
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
 public class TicketDto extends AbstractDto {
@@ -32,6 +33,30 @@ public class TicketDto extends AbstractDto {
     private LocalDateTime creationDateTime;
     private SeatDesignation seatDesignation;
 
+    /**
+     * Instantiates a new Ticket dto with every field other than {@link #isRefundable}, which depends on the
+     * time at which the dto is read. Used by the JPQL constructor expressions of
+     * {@link com.ecinema.app.repositories.TicketRepository}.
+     */
+    public TicketDto(Long id, Long userId, String email, String username, String movieTitle, Long paymentCardId,
+                     TicketType ticketType, Letter showroomLetter, TicketStatus ticketStatus,
+                     LocalDateTime endDateTime, LocalDateTime showDateTime, LocalDateTime creationDateTime,
+                     Letter rowLetter, Integer seatNumber) {
+        setId(id);
+        this.userId = userId;
+        this.email = email;
+        this.username = username;
+        this.movieTitle = movieTitle;
+        this.paymentCardId = paymentCardId;
+        this.ticketType = ticketType;
+        this.showroomLetter = showroomLetter;
+        this.ticketStatus = ticketStatus;
+        this.endDateTime = endDateTime;
+        this.showDateTime = showDateTime;
+        this.creationDateTime = creationDateTime;
+        this.seatDesignation = SeatDesignation.of(rowLetter, seatNumber);
+    }
+
     /**
      * Show date time formatted string.
      *
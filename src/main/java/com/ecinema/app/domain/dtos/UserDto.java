@@ -6,6 +6,7 @@ import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.util.UtilMethods;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
 
@@ -19,6 +20,7 @@ import java.util.Set;
  */
 @Getter
 @Setter
+@NoArgsConstructor
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
 public class UserDto extends AbstractDto implements IProfile {
@@ -33,6 +35,22 @@ public class UserDto extends AbstractDto implements IProfile {
     private Set<UserAuthority> userAuthorities =
             EnumSet.noneOf(UserAuthority.class);
 
+    /**
+     * Instantiates a new User dto with every field other than {@link #userAuthorities}, which are read
+     * separately. Used by the JPQL constructor expressions of {@link com.ecinema.app.repositories.UserRepository}.
+     */
+    public UserDto(Long id, String email, String username, String firstName, String lastName, LocalDate birthDate,
+                   LocalDateTime creationDateTime, LocalDateTime lastActivityDateTime) {
+        setId(id);
+        this.email = email;
+        this.username = username;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthDate = birthDate;
+        this.creationDateTime = creationDateTime;
+        this.lastActivityDateTime = lastActivityDateTime;
+    }
+
     /**
      * Is customer boolean.
      *
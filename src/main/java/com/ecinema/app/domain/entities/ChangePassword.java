@@ -6,6 +6,8 @@ import lombok.ToString;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.time.LocalDateTime;
 
 /**
@@ -15,6 +17,10 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @ToString
+@Table(indexes = {
+        @Index(columnList = "token", unique = true),
+        @Index(columnList = "expirationDateTime")
+})
 public class ChangePassword extends AbstractEntity {
 
     @Column
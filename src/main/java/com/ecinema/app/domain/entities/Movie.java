@@ -54,14 +54,33 @@ public class Movie extends AbstractEntity implements IMovie {
     @Enumerated(EnumType.STRING)
     private MsrbRating msrbRating;
 
+    /**
+     * The sum of {@link Review#getRating()} of the uncensored reviews of this movie. Never written by entity
+     * updates, only by the atomic increments of
+     * {@link com.ecinema.app.repositories.MovieRepository#addToRatingAggregates(Long, int, int)} and by
+     * {@link com.ecinema.app.repositories.MovieRepository#repairRatingAggregates()}, so a stale copy of the
+     * entity can never overwrite the sum.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer ratingSum = 0;
+
+    /**
+     * The number of uncensored reviews of this movie, maintained like {@link #ratingSum}.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer ratingCount = 0;
+
     @ElementCollection
+    @CollectionTable(name = "movie_cast", joinColumns = @JoinColumn(name = "movie_id"))
     private Set<String> cast = new HashSet<>();
 
     @ElementCollection
+    @CollectionTable(name = "movie_writers", joinColumns = @JoinColumn(name = "movie_id"))
     private Set<String> writers = new HashSet<>();
 
     @ElementCollection
     @Enumerated(EnumType.STRING)
+    @CollectionTable(name = "movie_movie_categories", joinColumns = @JoinColumn(name = "movie_id"))
     private Set<MovieCategory> movieCategories = EnumSet.noneOf(MovieCategory.class);
 
     @ToString.Exclude
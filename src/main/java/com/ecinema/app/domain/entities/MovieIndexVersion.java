@@ -0,0 +1,25 @@
+package com.ecinema.app.domain.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+
+/**
+ * A counter bumped in the same transaction as every change to the indexed fields of a movie, so that every node
+ * can tell with one cheap query whether its in-memory movie indexes have fallen behind, see
+ * {@link com.ecinema.app.services.MovieSearchService#refresh()}. Normally there is one row; should two nodes
+ * race to insert the first, every row is bumped together and the highest version is the one read.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+public class MovieIndexVersion extends AbstractEntity {
+
+    @Column(nullable = false)
+    private Long version = 0L;
+
+}
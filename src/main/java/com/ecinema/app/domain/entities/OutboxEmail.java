@@ -0,0 +1,58 @@
+package com.ecinema.app.domain.entities;
+
+import com.ecinema.app.domain.enums.OutboxEmailStatus;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting in the outbox. The row is written in the same transaction as the change it announces and is
+ * delivered afterwards by {@link com.ecinema.app.services.EmailDispatchService}, so an email is sent if and only
+ * if its transaction commits, and no request waits on the mail server.
+ */
+@Entity
+@Getter
+@Setter
+@ToString(exclude = "body")
+@Table(indexes = {
+        @Index(columnList = "status, nextAttemptDateTime"),
+        @Index(columnList = "status, creationDateTime")
+})
+public class OutboxEmail extends AbstractEntity {
+
+    @Column
+    private String sender;
+
+    @Column
+    private String recipient;
+
+    @Column
+    private String subject;
+
+    @Lob
+    @Column
+    private String body;
+
+    @Column
+    @Enumerated(EnumType.STRING)
+    private OutboxEmailStatus status;
+
+    @Column
+    private Integer attempts = 0;
+
+    @Column
+    private String lastError;
+
+    @Column
+    private LocalDateTime creationDateTime;
+
+    @Column
+    private LocalDateTime nextAttemptDateTime;
+
+    @Column
+    private LocalDateTime sentDateTime;
+
+}
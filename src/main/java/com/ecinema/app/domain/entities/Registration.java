@@ -19,6 +19,10 @@ import java.util.Set;
 @Setter
 @Entity
 @ToString
+@Table(indexes = {
+        @Index(columnList = "token", unique = true),
+        @Index(columnList = "creationDateTime")
+})
 public class Registration extends AbstractEntity implements IRegistration {
 
     /**
@@ -35,6 +39,7 @@ public class Registration extends AbstractEntity implements IRegistration {
 
     @ElementCollection
     @Enumerated(EnumType.STRING)
+    @CollectionTable(name = "registration_authorities", joinColumns = @JoinColumn(name = "registration_id"))
     private Set<UserAuthority> authorities =
             EnumSet.noneOf(UserAuthority.class);
 
@@ -18,6 +18,7 @@ import java.util.Set;
 @Setter
 @Entity
 @ToString
+@Table(indexes = @Index(columnList = "movie_id, isCensored, helpfulness, id"))
 public class Review extends AbstractEntity implements IReview {
 
     @Column(length = 2000)
@@ -32,6 +33,29 @@ public class Review extends AbstractEntity implements IReview {
     @Column
     private LocalDateTime creationDateTime;
 
+    /**
+     * The number of upvotes of this review. Never written by entity updates, only by the atomic increments of
+     * {@link com.ecinema.app.repositories.ReviewRepository#addToVoteCounters(Long, int, int)} and by
+     * {@link com.ecinema.app.repositories.ReviewRepository#repairVoteCounters(Vote, Vote)}, so a stale copy of
+     * the entity can never overwrite the count.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer upvotes = 0;
+
+    /**
+     * The number of downvotes of this review, maintained like {@link #upvotes}.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer downvotes = 0;
+
+    /**
+     * The lower bound of the 95% Wilson score interval of the fraction of votes on this review that are upvotes,
+     * by which reviews are ordered from most helpful. Recomputed from {@link #upvotes} and {@link #downvotes}
+     * whenever they change, see {@link com.ecinema.app.repositories.ReviewRepository#HELPFULNESS}.
+     */
+    @Column(nullable = false, updatable = false)
+    private Double helpfulness = 0.0;
+
     @JoinColumn
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
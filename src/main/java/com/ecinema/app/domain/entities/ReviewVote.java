@@ -14,6 +14,7 @@ import javax.persistence.*;
 @Getter
 @Setter
 @ToString
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"review_id", "voter_id"}))
 public class ReviewVote extends AbstractEntity {
 
     @JoinColumn
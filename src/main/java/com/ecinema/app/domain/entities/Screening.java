@@ -19,6 +19,7 @@ import java.util.TreeSet;
 @Setter
 @Entity
 @ToString
+@Table(indexes = @Index(columnList = "showroom_id, showDateTime, endDateTime"))
 public class Screening extends AbstractEntity implements IScreening {
 
     @Column
@@ -27,6 +28,21 @@ public class Screening extends AbstractEntity implements IScreening {
     @Column
     private LocalDateTime endDateTime;
 
+    /**
+     * The number of seats of this screening that are booked. Never written by entity updates, only by the atomic
+     * increments of {@link com.ecinema.app.repositories.ScreeningRepository#addToSeatsBooked(Long, int)} and by
+     * {@link com.ecinema.app.repositories.ScreeningRepository#repairSeatCounters()}, so a stale copy of the
+     * entity can never overwrite the count.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer seatsBooked = 0;
+
+    /**
+     * The number of seats of this screening, set when the screening is created.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer totalSeats = 0;
+
     @JoinColumn
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
@@ -28,6 +28,9 @@ public class ScreeningSeat extends AbstractEntity implements ISeat {
     @OneToOne(mappedBy = "screeningSeat")
     private Ticket ticket;
 
+    @Column(nullable = false)
+    private Boolean isClaimed = false;
+
     @Override
     public Letter getRowLetter() {
         return showroomSeat != null ? showroomSeat.getRowLetter() : null;
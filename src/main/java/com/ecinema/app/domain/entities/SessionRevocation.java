@@ -0,0 +1,30 @@
+package com.ecinema.app.domain.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Revokes every signed session cookie of a user issued before {@link #getRevokedDateTime()}. Only used in
+ * stateless session mode, where there is no server-side session to invalidate, and read by every node through
+ * {@link com.ecinema.app.services.SessionRevocationService}. Keyed by the user id, so that a revocation is
+ * written with a single upsert that needs no lookup of the row first.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+@Table(indexes = @Index(columnList = "revokedDateTime"))
+public class SessionRevocation {
+
+    @Id
+    @Column
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedDateTime;
+
+}
@@ -20,6 +20,12 @@ import java.util.*;
 @Setter
 @Entity
 @ToString
+@Table(indexes = {
+        @Index(columnList = "creationDateTime, id"),
+        @Index(columnList = "isAccountLocked, creationDateTime, id"),
+        @Index(columnList = "isAccountEnabled, creationDateTime, id"),
+        @Index(columnList = "lastActivityDateTime")
+})
 public class User extends AbstractEntity implements UserDetails {
 
     @Column(unique = true)
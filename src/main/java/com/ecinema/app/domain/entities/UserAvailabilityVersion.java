@@ -0,0 +1,25 @@
+package com.ecinema.app.domain.entities;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+
+/**
+ * A counter bumped in the same transaction as every new user, so that every node can tell with one cheap query
+ * whether its filter of taken usernames and emails has fallen behind, see
+ * {@link com.ecinema.app.services.UserAvailabilityService#refresh()}. Normally there is one row; should two nodes
+ * race to insert the first, every row is bumped together and the highest version is the one read.
+ */
+@Entity
+@Getter
+@Setter
+@ToString
+public class UserAvailabilityVersion extends AbstractEntity {
+
+    @Column(nullable = false)
+    private Long version = 0L;
+
+}
@@ -0,0 +1,8 @@
+package com.ecinema.app.domain.enums;
+
+public enum OutboxEmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD,
+}
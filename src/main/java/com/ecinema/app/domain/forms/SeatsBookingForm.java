@@ -0,0 +1,17 @@
+package com.ecinema.app.domain.forms;
+
+import com.ecinema.app.domain.enums.TicketType;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class SeatsBookingForm implements Serializable {
+    private Long userId;
+    private Long screeningId;
+    private Long paymentCardId;
+    private Integer tokensToApply;
+    private Map<Long, TicketType> ticketTypes = new LinkedHashMap<>();
+}
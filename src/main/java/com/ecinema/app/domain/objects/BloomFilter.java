@@ -0,0 +1,96 @@
+package com.ecinema.app.domain.objects;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings. {@link #mightContain(String)} never answers false for a string that was added,
+ * and answers true for a string that was not added with about the false positive probability given on
+ * instantiation, as long as no more than the expected number of strings are added. Strings cannot be removed.
+ * The bits are kept in an {@link AtomicLongArray} so that adds and lookups are lock-free.
+ */
+public class BloomFilter {
+
+    private final int numberOfBits;
+    private final int numberOfHashes;
+    private final AtomicLongArray bits;
+
+    /**
+     * Instantiates a new Bloom filter sized for the provided number of strings and false positive probability.
+     *
+     * @param expectedInsertions       the expected number of strings
+     * @param falsePositiveProbability the false positive probability once that many strings are added
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+        int n = Math.max(expectedInsertions, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.numberOfBits = (int) Math.max(64L, Math.min(m, Integer.MAX_VALUE - 63L));
+        this.numberOfHashes = Math.max(1, (int) Math.round((double) numberOfBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((numberOfBits + 63) >>> 6);
+    }
+
+    /**
+     * Adds the provided string.
+     *
+     * @param s the string
+     */
+    public void add(String s) {
+        long hash = hash(s);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numberOfHashes; i++) {
+            int index = Math.floorMod(h1 + i * h2, numberOfBits);
+            long mask = 1L << index;
+            int word = index >>> 6;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * Returns false if the provided string was definitely never added, else true.
+     *
+     * @param s the string
+     * @return if the string might have been added
+     */
+    public boolean mightContain(String s) {
+        long hash = hash(s);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numberOfHashes; i++) {
+            int index = Math.floorMod(h1 + i * h2, numberOfBits);
+            if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getNumberOfBits() {
+        return numberOfBits;
+    }
+
+    public int getNumberOfHashes() {
+        return numberOfHashes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the chars of the provided string, finished with the MurmurHash3 mix so that both
+     * halves are usable as independent hashes.
+     */
+    private static long hash(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash | 1L << 32;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The ticket id, screening seat id, screening id and owning customer id of a single booked seat, fetched by
+ * projection so that the seats of tickets being deleted in bulk can be released without hydrating any entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookedSeat {
+
+    private Long ticketId;
+    private Long screeningSeatId;
+    private Long screeningId;
+    private Long customerId;
+
+}
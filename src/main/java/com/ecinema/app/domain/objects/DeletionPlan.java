@@ -0,0 +1,44 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The ids of every entity to be deleted by one bulk cascade deletion, collected by walking the entity graph
+ * once from the movies, screenings, showrooms or users being deleted. Each set is deleted with set-based
+ * statements, children before parents, when the plan is executed.
+ */
+@Getter
+@ToString
+public class DeletionPlan {
+
+    private final Set<Long> movieIds = new LinkedHashSet<>();
+    private final Set<Long> reviewIds = new LinkedHashSet<>();
+    private final Set<Long> reviewVoteIds = new LinkedHashSet<>();
+    private final Set<Long> screeningIds = new LinkedHashSet<>();
+    private final Set<Long> screeningSeatIds = new LinkedHashSet<>();
+    private final Set<Long> ticketIds = new LinkedHashSet<>();
+    private final Set<Long> showroomIds = new LinkedHashSet<>();
+    private final Set<Long> showroomSeatIds = new LinkedHashSet<>();
+    private final Set<Long> userIds = new LinkedHashSet<>();
+    private final Set<Long> customerIds = new LinkedHashSet<>();
+    private final Set<Long> moderatorIds = new LinkedHashSet<>();
+    private final Set<Long> adminIds = new LinkedHashSet<>();
+    private final Set<Long> paymentCardIds = new LinkedHashSet<>();
+
+    /**
+     * Returns true if the plan deletes nothing.
+     *
+     * @return if the plan is empty
+     */
+    public boolean isEmpty() {
+        return movieIds.isEmpty() && reviewIds.isEmpty() && reviewVoteIds.isEmpty() && screeningIds.isEmpty() &&
+                screeningSeatIds.isEmpty() && ticketIds.isEmpty() && showroomIds.isEmpty() &&
+                showroomSeatIds.isEmpty() && userIds.isEmpty() && customerIds.isEmpty() &&
+                moderatorIds.isEmpty() && adminIds.isEmpty() && paymentCardIds.isEmpty();
+    }
+
+}
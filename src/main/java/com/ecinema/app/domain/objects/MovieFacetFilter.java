@@ -0,0 +1,23 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The filters of a faceted movie browse. A movie matches if it has every one of {@link #allCategories}, at least
+ * one of {@link #anyCategories} and one of {@link #msrbRatings}. Every filter left empty matches every movie.
+ */
+@Data
+@NoArgsConstructor
+public class MovieFacetFilter {
+
+    private Set<MovieCategory> allCategories = EnumSet.noneOf(MovieCategory.class);
+    private Set<MovieCategory> anyCategories = EnumSet.noneOf(MovieCategory.class);
+    private Set<MsrbRating> msrbRatings = EnumSet.noneOf(MsrbRating.class);
+
+}
@@ -0,0 +1,170 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The categories and rating of every movie in parallel arrays sorted by movie id, for faceted browsing without
+ * joining the movie categories table. The categories of a movie are a bitmask of {@link MovieCategory} ordinals
+ * and its rating is the {@link MsrbRating} ordinal, or -1 for none, so every filter of a browse is a couple of
+ * bitwise operations per movie. Reads share a lock, and writes are exclusive.
+ */
+public class MovieFacetIndex {
+
+    private static final MovieCategory[] CATEGORIES = MovieCategory.values();
+    private static final MsrbRating[] MSRB_RATINGS = MsrbRating.values();
+
+    static {
+        if (CATEGORIES.length > Long.SIZE) {
+            throw new IllegalStateException("Movie categories do not fit in a long bitmask");
+        }
+    }
+
+    private long[] movieIds = new long[64];
+    private long[] categoryMasks = new long[64];
+    private byte[] msrbRatings = new byte[64];
+    private int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The bitmask of the provided categories.
+     *
+     * @param movieCategories the movie categories
+     * @return the bitmask
+     */
+    public static long maskOf(Collection<MovieCategory> movieCategories) {
+        long mask = 0L;
+        for (MovieCategory movieCategory : movieCategories) {
+            mask |= 1L << movieCategory.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Indexes the categories and rating of the movie with the provided id, replacing those indexed before.
+     *
+     * @param movieId         the movie id
+     * @param movieCategories the movie categories
+     * @param msrbRating      the msrb rating, or null for none
+     */
+    public void put(Long movieId, Collection<MovieCategory> movieCategories, MsrbRating msrbRating) {
+        long mask = maskOf(movieCategories);
+        byte rating = msrbRating != null ? (byte) msrbRating.ordinal() : -1;
+        lock.writeLock().lock();
+        try {
+            int i = Arrays.binarySearch(movieIds, 0, size, movieId);
+            if (i < 0) {
+                i = -i - 1;
+                if (size == movieIds.length) {
+                    movieIds = Arrays.copyOf(movieIds, size * 2);
+                    categoryMasks = Arrays.copyOf(categoryMasks, size * 2);
+                    msrbRatings = Arrays.copyOf(msrbRatings, size * 2);
+                }
+                System.arraycopy(movieIds, i, movieIds, i + 1, size - i);
+                System.arraycopy(categoryMasks, i, categoryMasks, i + 1, size - i);
+                System.arraycopy(msrbRatings, i, msrbRatings, i + 1, size - i);
+                movieIds[i] = movieId;
+                size++;
+            }
+            categoryMasks[i] = mask;
+            msrbRatings[i] = rating;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the movie with the provided id.
+     *
+     * @param movieId the movie id
+     */
+    public void remove(Long movieId) {
+        lock.writeLock().lock();
+        try {
+            int i = Arrays.binarySearch(movieIds, 0, size, movieId);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(movieIds, i + 1, movieIds, i, size - i - 1);
+            System.arraycopy(categoryMasks, i + 1, categoryMasks, i, size - i - 1);
+            System.arraycopy(msrbRatings, i + 1, msrbRatings, i, size - i - 1);
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids of the movies matching the provided filter in ascending order, along with the facet counts,
+     * see {@link MovieFacets}.
+     *
+     * @param filter the filter
+     * @return the pair of the list of movie ids and the facet counts
+     */
+    public Pair<List<Long>, MovieFacets> browse(MovieFacetFilter filter) {
+        long allMask = maskOf(filter.getAllCategories());
+        long anyMask = maskOf(filter.getAnyCategories());
+        int ratingMask = 0;
+        for (MsrbRating msrbRating : filter.getMsrbRatings()) {
+            ratingMask |= 1 << msrbRating.ordinal();
+        }
+        int[] categoryCounts = new int[CATEGORIES.length];
+        int[] ratingCounts = new int[MSRB_RATINGS.length];
+        List<Long> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                long mask = categoryMasks[i];
+                if ((mask & allMask) != allMask || (anyMask != 0L && (mask & anyMask) == 0L)) {
+                    continue;
+                }
+                int rating = msrbRatings[i];
+                if (rating >= 0) {
+                    ratingCounts[rating]++;
+                }
+                if (ratingMask != 0 && (rating < 0 || (ratingMask & (1 << rating)) == 0)) {
+                    continue;
+                }
+                matches.add(movieIds[i]);
+                for (long remaining = mask; remaining != 0L; remaining &= remaining - 1) {
+                    categoryCounts[Long.numberOfTrailingZeros(remaining)]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<MovieCategory, Integer> categoryCountMap = new EnumMap<>(MovieCategory.class);
+        for (MovieCategory movieCategory : CATEGORIES) {
+            categoryCountMap.put(movieCategory, categoryCounts[movieCategory.ordinal()]);
+        }
+        Map<MsrbRating, Integer> ratingCountMap = new EnumMap<>(MsrbRating.class);
+        for (MsrbRating msrbRating : MSRB_RATINGS) {
+            ratingCountMap.put(msrbRating, ratingCounts[msrbRating.ordinal()]);
+        }
+        return new Pair<>(matches, new MovieFacets(matches.size(), categoryCountMap, ratingCountMap));
+    }
+
+    /**
+     * The number of movies indexed.
+     *
+     * @return the number of movies
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
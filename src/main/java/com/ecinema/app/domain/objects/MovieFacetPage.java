@@ -0,0 +1,20 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.dtos.MovieDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Page;
+
+/**
+ * A page of faceted movie browse results along with the facet counts of every matching movie.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MovieFacetPage {
+
+    private final Page<MovieDto> movies;
+    private final MovieFacets facets;
+
+}
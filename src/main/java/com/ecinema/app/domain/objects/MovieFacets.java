@@ -0,0 +1,27 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * The facet counts of a faceted movie browse, see {@link MovieFacetIndex#browse(MovieFacetFilter)}. Each category
+ * count is the number of matching movies in that category, i.e. the number left if the category were added to
+ * {@link MovieFacetFilter#getAllCategories()}. Each rating count is the number of movies matching the category
+ * filters with that rating, regardless of {@link MovieFacetFilter#getMsrbRatings()}, so that every rating shows
+ * the number of movies selecting it would add.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MovieFacets {
+
+    private final int total;
+    private final Map<MovieCategory, Integer> categoryCounts;
+    private final Map<MsrbRating, Integer> msrbRatingCounts;
+
+}
@@ -2,12 +2,14 @@ package com.ecinema.app.domain.objects;
 
 import lombok.*;
 
+import java.io.Serializable;
+
 @Getter
 @Setter
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
-public class Pair<K, V> {
+public class Pair<K, V> implements Serializable {
     private K first;
     private V second;
 }
@@ -0,0 +1,27 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.dtos.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * What every rendered page shows about the logged-in user: the user dto and the dropdown menu. Built once per
+ * session by {@link com.ecinema.app.configs.interceptors.ModelAttributesInterceptor} and stamped with the
+ * version of the user it was built from, see {@link com.ecinema.app.beans.PrincipalViewCache}. Serializable, as is
+ * everything it holds, since it lives in the http session, which a container may persist or replicate.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PrincipalView implements Serializable {
+
+    private final Long userId;
+    private final long version;
+    private final UserDto userDto;
+    private final List<Pair<String, String>> dropdownMenu;
+
+}
@@ -0,0 +1,19 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The sum and number of the ratings of some reviews of the movie with {@link #movieId}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RatingAggregate {
+
+    private final Long movieId;
+    private final Long ratingSum;
+    private final Long ratingCount;
+
+}
@@ -0,0 +1,22 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.enums.Vote;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * What casting a vote on a review as a user depends on: the id of the customer of the user, the user id of the
+ * writer of the review, and the id and kind of the vote the customer has already cast on it, both null if none.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ReviewVoteTarget {
+
+    private final Long customerId;
+    private final Long writerUserId;
+    private final Long reviewVoteId;
+    private final Vote vote;
+
+}
@@ -0,0 +1,20 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The ids of the writer of the review with {@link #reviewId} and the username of their user.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class ReviewWriter {
+
+    private final Long reviewId;
+    private final Long customerId;
+    private final Long userId;
+    private final String username;
+
+}
@@ -0,0 +1,35 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The id, show date time, and end date time of a single screening, fetched by projection so that the schedule
+ * of a showroom can be built without hydrating any entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScreeningInterval {
+
+    private Long screeningId;
+    private LocalDateTime showDateTime;
+    private LocalDateTime endDateTime;
+
+    /**
+     * Returns true if this interval overlaps the provided one, endpoints included, in the same way as
+     * {@link com.ecinema.app.util.UtilMethods#localDateTimeOverlap(LocalDateTime, LocalDateTime, LocalDateTime,
+     * LocalDateTime)}.
+     *
+     * @param start the start of the other interval
+     * @param end   the end of the other interval
+     * @return true if the intervals overlap
+     */
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return !showDateTime.isAfter(end) && !start.isAfter(endDateTime);
+    }
+
+}
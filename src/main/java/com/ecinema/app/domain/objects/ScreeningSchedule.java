@@ -0,0 +1,121 @@
+package com.ecinema.app.domain.objects;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The screenings of a single showroom ordered by show date time. Intervals are kept in a sorted set alongside
+ * the longest duration of any of them, so every interval that can overlap [start, end] has its show date time
+ * in [start - longest duration, end]. Overlap queries are therefore a single O(log n) descent of the sorted set
+ * followed by a scan of the k intervals in that range, which is at most a few since the screenings of one
+ * showroom do not overlap one another. The longest duration is never shrunk on removal, which can only widen
+ * the scanned range. All methods are synchronized.
+ */
+public class ScreeningSchedule {
+
+    private static final Comparator<ScreeningInterval> ORDER = Comparator
+            .comparing(ScreeningInterval::getShowDateTime)
+            .thenComparing(ScreeningInterval::getScreeningId);
+
+    private final NavigableSet<ScreeningInterval> intervals = new TreeSet<>(ORDER);
+    private final Map<Long, ScreeningInterval> intervalsById = new HashMap<>();
+    private Duration longestDuration = Duration.ZERO;
+
+    public ScreeningSchedule(Collection<ScreeningInterval> screeningIntervals) {
+        screeningIntervals.forEach(this::add);
+    }
+
+    public synchronized void add(ScreeningInterval screeningInterval) {
+        remove(screeningInterval.getScreeningId());
+        intervals.add(screeningInterval);
+        intervalsById.put(screeningInterval.getScreeningId(), screeningInterval);
+        Duration duration = Duration.between(
+                screeningInterval.getShowDateTime(), screeningInterval.getEndDateTime());
+        if (duration.compareTo(longestDuration) > 0) {
+            longestDuration = duration;
+        }
+    }
+
+    public synchronized void remove(Long screeningId) {
+        ScreeningInterval screeningInterval = intervalsById.remove(screeningId);
+        if (screeningInterval != null) {
+            intervals.remove(screeningInterval);
+        }
+    }
+
+    /**
+     * Removes every interval that ends before the provided date time.
+     *
+     * @param dateTime the date time
+     */
+    public synchronized void removeAllEndingBefore(LocalDateTime dateTime) {
+        Iterator<ScreeningInterval> iterator = intervals.headSet(probe(dateTime, Long.MIN_VALUE)).iterator();
+        while (iterator.hasNext()) {
+            ScreeningInterval screeningInterval = iterator.next();
+            if (screeningInterval.getEndDateTime().isBefore(dateTime)) {
+                iterator.remove();
+                intervalsById.remove(screeningInterval.getScreeningId());
+            }
+        }
+    }
+
+    /**
+     * Finds the earliest interval that overlaps [start, end], endpoints included.
+     *
+     * @param start the start
+     * @param end   the end
+     * @return the overlapping interval if there is one
+     */
+    public synchronized Optional<ScreeningInterval> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        return candidates(start, end).stream()
+                                     .filter(screeningInterval -> screeningInterval.overlaps(start, end))
+                                     .findFirst();
+    }
+
+    /**
+     * Finds every gap between from and to that is at least as long as the provided duration. A gap is returned
+     * as the earliest and latest date times, to the minute, that a screening in it can start and end at without
+     * overlapping its neighbours.
+     *
+     * @param from     the earliest date time of a gap
+     * @param to       the latest date time of a gap
+     * @param duration the minimum length of a gap
+     * @return the gaps in order
+     */
+    public synchronized List<Pair<LocalDateTime, LocalDateTime>> findFreeSlots(
+            LocalDateTime from, LocalDateTime to, Duration duration) {
+        List<Pair<LocalDateTime, LocalDateTime>> freeSlots = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (ScreeningInterval screeningInterval : candidates(from, to)) {
+            if (screeningInterval.getEndDateTime().isBefore(cursor)) {
+                continue;
+            }
+            addFreeSlot(freeSlots, cursor, screeningInterval.getShowDateTime().minusMinutes(1), duration);
+            cursor = screeningInterval.getEndDateTime().plusMinutes(1);
+        }
+        addFreeSlot(freeSlots, cursor, to, duration);
+        return freeSlots;
+    }
+
+    public synchronized int size() {
+        return intervals.size();
+    }
+
+    private NavigableSet<ScreeningInterval> candidates(LocalDateTime start, LocalDateTime end) {
+        return intervals.subSet(probe(start.minus(longestDuration), Long.MIN_VALUE), true,
+                                probe(end, Long.MAX_VALUE), true);
+    }
+
+    private static ScreeningInterval probe(LocalDateTime showDateTime, Long screeningId) {
+        return new ScreeningInterval(screeningId, showDateTime, showDateTime);
+    }
+
+    private static void addFreeSlot(List<Pair<LocalDateTime, LocalDateTime>> freeSlots, LocalDateTime start,
+                                    LocalDateTime end, Duration duration) {
+        if (!start.plus(duration).isAfter(end)) {
+            freeSlots.add(new Pair<>(start, end));
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A short-lived hold placed on a screening seat by the customer who has opened the booking page for it.
+ * Holds are ordered by expiry so that expired holds can be drained from a {@link java.util.concurrent.DelayQueue}.
+ */
+@Getter
+@ToString
+public class SeatHold implements Delayed {
+
+    private final Long screeningId;
+    private final Long screeningSeatId;
+    private final Long userId;
+    private final long placedAtNanos;
+    private final long expiresAtNanos;
+
+    /**
+     * Instantiates a new seat hold that expires after the provided number of nanoseconds.
+     *
+     * @param screeningId     the screening id
+     * @param screeningSeatId the screening seat id
+     * @param userId          the id of the user holding the seat
+     * @param ttlNanos        the time to live of the hold in nanoseconds
+     */
+    public SeatHold(Long screeningId, Long screeningSeatId, Long userId, long ttlNanos) {
+        this(screeningId, screeningSeatId, userId, System.nanoTime(), System.nanoTime() + ttlNanos);
+    }
+
+    private SeatHold(Long screeningId, Long screeningSeatId, Long userId, long placedAtNanos, long expiresAtNanos) {
+        this.screeningId = screeningId;
+        this.screeningSeatId = screeningSeatId;
+        this.userId = userId;
+        this.placedAtNanos = placedAtNanos;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    /**
+     * Renews this hold for another time to live, but never past the maximum lifetime counted from when the
+     * hold was first placed, so that a customer cannot keep a seat from everyone else by renewing it forever.
+     *
+     * @param ttlNanos         the time to live of the hold in nanoseconds
+     * @param maxLifetimeNanos the maximum lifetime of the hold in nanoseconds
+     * @return the renewed hold
+     */
+    public SeatHold renew(long ttlNanos, long maxLifetimeNanos) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        if (expiresAt - (placedAtNanos + maxLifetimeNanos) > 0L) {
+            expiresAt = placedAtNanos + maxLifetimeNanos;
+        }
+        return new SeatHold(screeningId, screeningSeatId, userId, placedAtNanos, expiresAt);
+    }
+
+    public boolean isExpired() {
+        return getDelay(TimeUnit.NANOSECONDS) <= 0;
+    }
+
+    public boolean isHeldBy(Long userId) {
+        return this.userId.equals(userId);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        if (o instanceof SeatHold seatHold) {
+            return Long.compare(expiresAtNanos - seatHold.expiresAtNanos, 0L);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+}
@@ -0,0 +1,271 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.contracts.ISeat;
+import com.ecinema.app.domain.dtos.ScreeningSeatDto;
+import com.ecinema.app.domain.enums.Letter;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The occupancy of the seats of a single screening. The seat layout is fixed on instantiation and sorted
+ * by row letter and then seat number. The booked and held states of each seat are one bit each of two
+ * {@link AtomicLongArray}s indexed by the position of the seat in that order, so reads and writes are
+ * lock-free. The seat map handed to the view is rendered at most once per change of occupancy and shared
+ * between readers until the next one.
+ */
+public class SeatOccupancy {
+
+    private final Long screeningId;
+    private final long[] screeningSeatIds;
+    private final Letter[] rowLetters;
+    private final int[] seatNumbers;
+    private final int[] rowStarts;
+    private final Map<Long, Integer> indices;
+    private final AtomicLongArray bookedBits;
+    private final AtomicLongArray heldBits;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private record Snapshot(long version, Map<Letter, Set<ScreeningSeatDto>> seatMap) {}
+
+    /**
+     * Instantiates a new seat occupancy.
+     *
+     * @param screeningId the screening id
+     * @param seatStates  the seat states of every seat of the screening
+     */
+    public SeatOccupancy(Long screeningId, Collection<SeatState> seatStates) {
+        List<SeatState> sorted = new ArrayList<>(seatStates);
+        sorted.sort(ISeat.SeatComparator.getInstance());
+        int size = sorted.size();
+        this.screeningId = screeningId;
+        this.screeningSeatIds = new long[size];
+        this.rowLetters = new Letter[size];
+        this.seatNumbers = new int[size];
+        this.indices = new HashMap<>(size * 2);
+        this.bookedBits = new AtomicLongArray((size + 63) >>> 6);
+        this.heldBits = new AtomicLongArray((size + 63) >>> 6);
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            SeatState seatState = sorted.get(i);
+            if (i == 0 || sorted.get(i - 1).getRowLetter() != seatState.getRowLetter()) {
+                starts.add(i);
+            }
+            screeningSeatIds[i] = seatState.getScreeningSeatId();
+            rowLetters[i] = seatState.getRowLetter();
+            seatNumbers[i] = seatState.getSeatNumber();
+            indices.put(seatState.getScreeningSeatId(), i);
+            if (seatState.isBooked()) {
+                setBit(bookedBits, i, true);
+            }
+        }
+        starts.add(size);
+        this.rowStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public Long getScreeningId() {
+        return screeningId;
+    }
+
+    public int size() {
+        return screeningSeatIds.length;
+    }
+
+    public boolean contains(Long screeningSeatId) {
+        return indices.containsKey(screeningSeatId);
+    }
+
+    /**
+     * Returns true if the screening seat with the provided id is booked.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return true if the seat is booked, false if it is available or not part of this screening
+     */
+    public boolean isBooked(Long screeningSeatId) {
+        Integer index = indices.get(screeningSeatId);
+        return index != null && getBit(bookedBits, index);
+    }
+
+    /**
+     * Returns true if the screening seat with the provided id is held by a customer who is booking it.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return true if the seat is held, false if it is not or is not part of this screening
+     */
+    public boolean isHeld(Long screeningSeatId) {
+        Integer index = indices.get(screeningSeatId);
+        return index != null && getBit(heldBits, index);
+    }
+
+    /**
+     * Marks the screening seat with the provided id as booked.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return true if the occupancy changed
+     */
+    public boolean markBooked(Long screeningSeatId) {
+        Integer index = indices.get(screeningSeatId);
+        return index != null && setBit(bookedBits, index, true);
+    }
+
+    /**
+     * Marks the screening seat with the provided id as available.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return true if the occupancy changed
+     */
+    public boolean markAvailable(Long screeningSeatId) {
+        Integer index = indices.get(screeningSeatId);
+        return index != null && setBit(bookedBits, index, false);
+    }
+
+    /**
+     * Marks the screening seat with the provided id as held.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return true if the occupancy changed
+     */
+    public boolean markHeld(Long screeningSeatId) {
+        Integer index = indices.get(screeningSeatId);
+        return index != null && setBit(heldBits, index, true);
+    }
+
+    /**
+     * Marks the screening seat with the provided id as no longer held.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return true if the occupancy changed
+     */
+    public boolean markReleased(Long screeningSeatId) {
+        Integer index = indices.get(screeningSeatId);
+        return index != null && setBit(heldBits, index, false);
+    }
+
+    public int numberOfSeatsBooked() {
+        return countBits(bookedBits);
+    }
+
+    public int numberOfSeatsHeld() {
+        return countBits(heldBits);
+    }
+
+    /**
+     * Finds the most central block of the provided number of seats that are next to one another in the same row
+     * and are neither booked nor held. Each row is scanned once for maximal runs of free seats with consecutive
+     * seat numbers, and within each run that is long enough only the window closest to the middle of the row is
+     * considered. Windows are ranked by the distance of their row from the middle row plus the distance of their
+     * center from the middle of their row, each as a fraction of the number of rows and the width of the row.
+     * No objects are allocated until the result, so the search takes microseconds even for the largest rooms.
+     *
+     * @param numberOfSeats the number of seats
+     * @return the screening seat ids of the block in seat number order, or an empty list if there is none
+     */
+    public List<Long> findBestContiguousSeats(int numberOfSeats) {
+        int numberOfRows = rowStarts.length - 1;
+        double middleRow = (numberOfRows - 1) / 2.0;
+        double bestScore = Double.MAX_VALUE;
+        int bestStart = -1;
+        for (int row = 0; row < numberOfRows && numberOfSeats > 0; row++) {
+            int rowStart = rowStarts[row];
+            int rowEnd = rowStarts[row + 1];
+            double middleSeat = (rowStart + rowEnd - 1) / 2.0;
+            double rowScore = Math.abs(row - middleRow) / numberOfRows;
+            int runStart = rowStart;
+            for (int i = rowStart; i <= rowEnd; i++) {
+                boolean runContinues = i < rowEnd && isFree(i) &&
+                        (i == runStart || seatNumbers[i] == seatNumbers[i - 1] + 1);
+                if (runContinues) {
+                    continue;
+                }
+                if (i - runStart >= numberOfSeats) {
+                    long idealStart = Math.round(middleSeat - (numberOfSeats - 1) / 2.0);
+                    int start = (int) Math.max(runStart, Math.min(idealStart, i - numberOfSeats));
+                    double score = rowScore + Math.abs(start + (numberOfSeats - 1) / 2.0 - middleSeat) /
+                            (rowEnd - rowStart);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestStart = start;
+                    }
+                }
+                runStart = i < rowEnd && isFree(i) ? i : i + 1;
+            }
+        }
+        if (bestStart < 0) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(numberOfSeats);
+        for (int i = bestStart; i < bestStart + numberOfSeats; i++) {
+            ids.add(screeningSeatIds[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the seats of the screening keyed by row letter, each row in seat number order. The returned
+     * map is unmodifiable and is shared between callers until the occupancy next changes.
+     *
+     * @return the seat map
+     */
+    public Map<Letter, Set<ScreeningSeatDto>> toSeatMap() {
+        long currentVersion = version.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version() == currentVersion) {
+            return current.seatMap();
+        }
+        Map<Letter, Set<ScreeningSeatDto>> seatMap = render();
+        snapshot = new Snapshot(currentVersion, seatMap);
+        return seatMap;
+    }
+
+    private Map<Letter, Set<ScreeningSeatDto>> render() {
+        Map<Letter, Set<ScreeningSeatDto>> seatMap = new EnumMap<>(Letter.class);
+        for (int i = 0; i < screeningSeatIds.length; i++) {
+            ScreeningSeatDto screeningSeatDto = new ScreeningSeatDto();
+            screeningSeatDto.setId(screeningSeatIds[i]);
+            screeningSeatDto.setRowLetter(rowLetters[i]);
+            screeningSeatDto.setSeatNumber(seatNumbers[i]);
+            screeningSeatDto.setScreeningId(screeningId);
+            boolean isBooked = getBit(bookedBits, i);
+            screeningSeatDto.setIsBooked(isBooked);
+            screeningSeatDto.setIsHeld(!isBooked && getBit(heldBits, i));
+            seatMap.computeIfAbsent(rowLetters[i], k -> new LinkedHashSet<>()).add(screeningSeatDto);
+        }
+        seatMap.replaceAll((k, v) -> Collections.unmodifiableSet(v));
+        return Collections.unmodifiableMap(seatMap);
+    }
+
+    private boolean isFree(int index) {
+        return !getBit(bookedBits, index) && !getBit(heldBits, index);
+    }
+
+    private static boolean getBit(AtomicLongArray bits, int index) {
+        return (bits.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    private static int countBits(AtomicLongArray bits) {
+        int count = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            count += Long.bitCount(bits.get(i));
+        }
+        return count;
+    }
+
+    private boolean setBit(AtomicLongArray bits, int index, boolean value) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = bits.get(word);
+            long next = value ? current | mask : current & ~mask;
+            if (current == next) {
+                return false;
+            }
+            if (bits.compareAndSet(word, current, next)) {
+                version.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+}
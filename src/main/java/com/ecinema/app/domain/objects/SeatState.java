@@ -0,0 +1,27 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.contracts.ISeat;
+import com.ecinema.app.domain.enums.Letter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The row letter, seat number, and ticket id (null if unbooked) of a single screening seat, fetched by
+ * projection so that the seat layout of a screening can be read without hydrating any entities.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatState implements ISeat {
+
+    private Long screeningSeatId;
+    private Letter rowLetter;
+    private Integer seatNumber;
+    private Long ticketId;
+
+    public boolean isBooked() {
+        return ticketId != null;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.enums.UserAuthority;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The logged-in user as carried by a signed session cookie in stateless session mode, and the principal of the
+ * authentication rebuilt from it. It holds just enough to authorize a request without loading the user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SignedSession implements Serializable {
+
+    private Long userId;
+    private String username;
+    private Set<UserAuthority> authorities = EnumSet.noneOf(UserAuthority.class);
+    private long issuedAtMillis;
+    private long expiresAtMillis;
+
+    /**
+     * Returns true if this session is past half of its lifetime, and so should be renewed.
+     *
+     * @param nowMillis the current time in millis
+     * @return if this session should be renewed
+     */
+    public boolean isDueForRenewal(long nowMillis) {
+        return nowMillis - issuedAtMillis > (expiresAtMillis - issuedAtMillis) / 2;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.ecinema.app.domain.objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * What a single run of the token sweeper purged and how long it took, along with the totals of every run since
+ * the application started.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenSweepStatistics {
+
+    private LocalDateTime sweepDateTime;
+    private int registrationsPurged;
+    private int changePasswordsPurged;
+    private int batches;
+    private long durationMillis;
+    private long totalRegistrationsPurged;
+    private long totalChangePasswordsPurged;
+    private long totalSweeps;
+
+}
@@ -0,0 +1,219 @@
+package com.ecinema.app.domain.objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An inverted index from the trigrams of weighted text fields to the ids of the documents holding them, for
+ * substring and typo-tolerant search. Text is normalized to upper case letters and digits before it is split
+ * into trigrams, so "Star Wars: Episode V" and "starwars episode v" match. A query matches a field if the field
+ * contains the whole normalized query, or if at least {@link #MIN_SHARED_TRIGRAMS} of the trigrams of the query
+ * are in the field. Matches are ranked by the best weighted score of any field of a document, where containing
+ * the query scores above any fuzzy match, and a fuzzy match scores the Dice coefficient of the trigrams of the
+ * query and the field. Queries shorter than a trigram fall back to a scan of every field. Reads share a lock,
+ * and writes are exclusive.
+ */
+public class TrigramIndex {
+
+    /**
+     * The fraction of the trigrams of a query a field must hold to match fuzzily.
+     */
+    public static final double MIN_SHARED_TRIGRAMS = 0.6;
+
+    /**
+     * A field of a document. Fields are compared by identity, so that counting the trigrams a field shares with
+     * a query never hashes its text or trigrams.
+     */
+    private static final class Field {
+
+        private final Long id;
+        private final String text;
+        private final double weight;
+        private final Set<String> trigrams;
+
+        private Field(Long id, String text, double weight, Set<String> trigrams) {
+            this.id = id;
+            this.text = text;
+            this.weight = weight;
+            this.trigrams = trigrams;
+        }
+
+    }
+
+    private record Match(Long id, double score) {}
+
+    private final Map<String, List<Field>> postings = new HashMap<>();
+    private final Map<Long, List<Field>> fieldsById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Normalizes the provided text to the upper case letters and digits in it.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        text.toUpperCase(Locale.ROOT).codePoints().filter(Character::isLetterOrDigit)
+            .forEach(normalized::appendCodePoint);
+        return normalized.toString();
+    }
+
+    /**
+     * Indexes the provided fields of the document with the provided id, replacing those indexed before.
+     *
+     * @param id             the document id
+     * @param weightedFields the text of each field mapped to its weight
+     */
+    public void put(Long id, Map<String, Double> weightedFields) {
+        List<Field> fields = new ArrayList<>();
+        weightedFields.forEach((text, weight) -> {
+            String normalized = normalize(text);
+            if (!normalized.isEmpty()) {
+                fields.add(new Field(id, normalized, weight, trigramsOf(normalized)));
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            fieldsById.put(id, fields);
+            for (Field field : fields) {
+                for (String trigram : field.trigrams) {
+                    postings.computeIfAbsent(trigram, t -> new ArrayList<>()).add(field);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the document with the provided id.
+     *
+     * @param id the document id
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids of the documents matching the provided query, best match first and then by id.
+     *
+     * @param query      the query
+     * @param maxResults the maximum number of ids returned
+     * @return the list of ids
+     */
+    public List<Long> search(String query, int maxResults) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < 3) {
+                fieldsById.values().forEach(fields -> fields.forEach(field -> {
+                    if (field.text.contains(normalized)) {
+                        scores.merge(field.id, containsScore(field, normalized), Math::max);
+                    }
+                }));
+            } else {
+                Set<String> queryTrigrams = trigramsOf(normalized);
+                Map<Field, Integer> shared = new IdentityHashMap<>();
+                for (String trigram : queryTrigrams) {
+                    for (Field field : postings.getOrDefault(trigram, Collections.emptyList())) {
+                        shared.merge(field, 1, Integer::sum);
+                    }
+                }
+                int minShared = (int) Math.ceil(MIN_SHARED_TRIGRAMS * queryTrigrams.size());
+                shared.forEach((field, count) -> {
+                    double score;
+                    if (count == queryTrigrams.size() && field.text.contains(normalized)) {
+                        score = containsScore(field, normalized);
+                    } else if (count >= minShared) {
+                        score = field.weight * 2.0 * count / (queryTrigrams.size() + field.trigrams.size());
+                    } else {
+                        return;
+                    }
+                    scores.merge(field.id, score, Math::max);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> matches = new ArrayList<>(scores.size());
+        scores.forEach((id, score) -> matches.add(new Match(id, score)));
+        matches.sort(Comparator.comparingDouble(Match::score).reversed().thenComparing(Match::id));
+        List<Long> ids = new ArrayList<>(Math.min(matches.size(), maxResults));
+        for (int i = 0; i < matches.size() && i < maxResults; i++) {
+            ids.add(matches.get(i).id());
+        }
+        return ids;
+    }
+
+    /**
+     * The number of documents indexed.
+     *
+     * @return the number of documents
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fieldsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(Long id) {
+        List<Field> fields = fieldsById.remove(id);
+        if (fields == null) {
+            return;
+        }
+        for (Field field : fields) {
+            for (String trigram : field.trigrams) {
+                List<Field> posting = postings.get(trigram);
+                if (posting != null) {
+                    posting.remove(field);
+                    if (posting.isEmpty()) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A field containing the query scores 1 plus its weight, and half a point more if it starts with the query.
+     */
+    private static double containsScore(Field field, String normalized) {
+        return 1.0 + field.weight + (field.text.startsWith(normalized) ? 0.5 : 0.0);
+    }
+
+    private static Set<String> trigramsOf(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            trigrams.add(normalized.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.enums.UserAuthority;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The filters of an admin user search. Every filter left null matches every user, and the filters that are set
+ * must all match. Date time bounds are exclusive.
+ */
+@Data
+@NoArgsConstructor
+public class UserSearchCriteria {
+
+    private Boolean isAccountLocked;
+    private Boolean isAccountEnabled;
+    private Boolean isAccountExpired;
+    private Boolean isCredentialsExpired;
+    private LocalDateTime createdAfter;
+    private LocalDateTime createdBefore;
+    private LocalDateTime lastActiveAfter;
+    private LocalDateTime lastActiveBefore;
+    private UserAuthority userAuthority;
+
+}
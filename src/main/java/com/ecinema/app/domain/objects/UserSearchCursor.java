@@ -0,0 +1,42 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.dtos.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The position of a user in the (creation date time, id) order of admin user search, from which the next page
+ * is read. Seeking past a position instead of skipping an offset keeps every page as cheap as the first. Users
+ * without a creation date time are ordered as if created at {@link #NO_CREATION_DATE_TIME}, before every other user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSearchCursor {
+
+    /**
+     * The creation date time by which users without one are ordered and sought, see
+     * {@link com.ecinema.app.repositories.UserRepository#CREATION_DATE_TIME}.
+     */
+    public static final LocalDateTime NO_CREATION_DATE_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private LocalDateTime creationDateTime;
+    private Long id;
+
+    /**
+     * Instantiates the cursor positioned at the provided user. A null creation date time is replaced with
+     * {@link #NO_CREATION_DATE_TIME}, since a cursor without one would restart the search from the first user.
+     *
+     * @param userDto the user dto
+     * @return the user search cursor
+     */
+    public static UserSearchCursor of(UserDto userDto) {
+        LocalDateTime creationDateTime = userDto.getCreationDateTime();
+        return new UserSearchCursor(creationDateTime != null ? creationDateTime : NO_CREATION_DATE_TIME,
+                                    userDto.getId());
+    }
+
+}
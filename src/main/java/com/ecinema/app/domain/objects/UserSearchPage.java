@@ -0,0 +1,25 @@
+package com.ecinema.app.domain.objects;
+
+import com.ecinema.app.domain.dtos.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A page of admin user search results along with the cursor of the next page, which is null on the last page.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserSearchPage {
+
+    private final List<UserDto> users;
+    private final UserSearchCursor nextCursor;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+}
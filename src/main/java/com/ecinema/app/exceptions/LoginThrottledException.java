@@ -0,0 +1,19 @@
+package com.ecinema.app.exceptions;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Thrown when every password hashing thread is busy and the queue of logins waiting for one is full. It is an
+ * {@link AuthenticationException} so that the login filter hands it to the failure handler, which answers
+ * with 429 Too Many Requests instead of a bad credentials error.
+ */
+public class LoginThrottledException extends AuthenticationException {
+
+    /**
+     * Instantiates a new Login throttled exception.
+     */
+    public LoginThrottledException() {
+        super("Too many logins in progress, please try again shortly");
+    }
+
+}
@@ -1,9 +1,15 @@
 package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.ChangePassword;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,4 +50,25 @@ public interface ChangePasswordRepository extends JpaRepository<ChangePassword,
      */
     List<ChangePassword> findAllByUserId(Long userId);
 
+    /**
+     * Find the ids of the {@link ChangePassword}s that expired before the provided date time, oldest first.
+     *
+     * @param localDateTime the local date time
+     * @param pageable      the maximum number of ids to find
+     * @return the list of ids
+     */
+    @Query("SELECT c.id FROM ChangePassword c WHERE c.expirationDateTime < ?1 ORDER BY c.expirationDateTime")
+    List<Long> findAllIdsByExpirationDateTimeBefore(LocalDateTime localDateTime, Pageable pageable);
+
+    /**
+     * Deletes the {@link ChangePassword}s with the provided ids in one statement.
+     *
+     * @param ids the ids of the change password requests
+     * @return the number of change password requests deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ChangePassword c WHERE c.id IN ?1")
+    int deleteAllWithIds(Collection<Long> ids);
+
 }
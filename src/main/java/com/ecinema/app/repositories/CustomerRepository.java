@@ -1,9 +1,12 @@
 package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.*;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -100,4 +103,28 @@ public interface CustomerRepository extends UserAuthorityRepository<Customer> {
             "FROM Customer c WHERE c.user.id = ?1")
     boolean existsByUserWithId(Long userId);
 
+    /**
+     * Adds the provided number of tokens to {@link Customer#getTokens()} of the customer with the provided id.
+     *
+     * @param customerId the customer id
+     * @param tokens     the number of tokens
+     * @return the number of customers updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Customer c SET c.tokens = c.tokens + ?2 WHERE c.id = ?1")
+    int addTokensToCustomerWithId(Long customerId, int tokens);
+
+    /**
+     * Unsets {@link Customer#getCensoredBy()} of every customer censored by one of the moderators with the
+     * provided ids.
+     *
+     * @param moderatorIds the moderator ids
+     * @return the number of customers updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Customer c SET c.censoredBy = NULL WHERE c.censoredBy.id IN ?1")
+    int uncensorAllCensoredByModeratorsWithIds(Collection<Long> moderatorIds);
+
 }
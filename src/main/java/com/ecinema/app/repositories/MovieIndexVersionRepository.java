@@ -0,0 +1,36 @@
+package com.ecinema.app.repositories;
+
+import com.ecinema.app.domain.entities.MovieIndexVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * The jpa repository for {@link MovieIndexVersion}.
+ */
+@Repository
+public interface MovieIndexVersionRepository extends JpaRepository<MovieIndexVersion, Long> {
+
+    /**
+     * Find the current version of the movie indexes.
+     *
+     * @return the version, or empty if it was never bumped
+     */
+    @Query("SELECT MAX(v.version) FROM MovieIndexVersion v")
+    Optional<Long> findVersion();
+
+    /**
+     * Bumps the version of the movie indexes.
+     *
+     * @return the number of rows updated, zero if there is no version yet
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE MovieIndexVersion v SET v.version = v.version + 1")
+    int increment();
+
+}
@@ -3,12 +3,16 @@ package com.ecinema.app.repositories;
 import com.ecinema.app.domain.entities.Movie;
 import com.ecinema.app.domain.enums.MovieCategory;
 import com.ecinema.app.domain.enums.MsrbRating;
+import com.ecinema.app.domain.objects.Pair;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -110,4 +114,127 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     @Query("SELECT m FROM Movie m ORDER BY m.duration DESC")
     List<Movie> findAllOrderByDurationDescending();
 
+    /**
+     * Find the id of every {@link Movie}.
+     *
+     * @return the list of movie ids
+     */
+    @Query("SELECT m.id FROM Movie m")
+    List<Long> findAllIds();
+
+    /**
+     * Delete the {@link Movie#getCast()} rows of every movie with one of the provided ids.
+     *
+     * @param movieIds the movie ids
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM movie_cast WHERE movie_id IN ?1", nativeQuery = true)
+    int deleteAllCastOfMoviesWithIds(Collection<Long> movieIds);
+
+    /**
+     * Delete the {@link Movie#getWriters()} rows of every movie with one of the provided ids.
+     *
+     * @param movieIds the movie ids
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM movie_writers WHERE movie_id IN ?1", nativeQuery = true)
+    int deleteAllWritersOfMoviesWithIds(Collection<Long> movieIds);
+
+    /**
+     * Delete the {@link Movie#getMovieCategories()} rows of every movie with one of the provided ids.
+     *
+     * @param movieIds the movie ids
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM movie_movie_categories WHERE movie_id IN ?1", nativeQuery = true)
+    int deleteAllMovieCategoriesOfMoviesWithIds(Collection<Long> movieIds);
+
+    /**
+     * Delete every {@link Movie} with one of the provided ids in one statement. The element collections of the
+     * movies must be deleted first.
+     *
+     * @param movieIds the movie ids
+     * @return the number of movies deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Movie m WHERE m.id IN ?1")
+    int deleteAllWithIds(Collection<Long> movieIds);
+
+    /**
+     * Find the id and {@link Movie#getTitle()} of every {@link Movie}, as a {@link Pair}.
+     *
+     * @return the list of id and title pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(m.id, m.title) FROM Movie m")
+    List<Pair<Long, String>> findAllIdAndTitlePairs();
+
+    /**
+     * Find the id and {@link Movie#getDirector()} of every {@link Movie} with a director, as a {@link Pair}.
+     *
+     * @return the list of id and director pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(m.id, m.director) FROM Movie m " +
+            "WHERE m.director IS NOT NULL")
+    List<Pair<Long, String>> findAllIdAndDirectorPairs();
+
+    /**
+     * Find the id of each {@link Movie} and each member of its {@link Movie#getCast()}, as a {@link Pair}.
+     *
+     * @return the list of id and cast member pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(m.id, c) FROM Movie m JOIN m.cast c")
+    List<Pair<Long, String>> findAllIdAndCastMemberPairs();
+
+    /**
+     * Find the id and {@link Movie#getMsrbRating()} of every {@link Movie}, as a {@link Pair}. The rating is null
+     * for a movie without one.
+     *
+     * @return the list of id and msrb rating pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(m.id, m.msrbRating) FROM Movie m")
+    List<Pair<Long, MsrbRating>> findAllIdAndMsrbRatingPairs();
+
+    /**
+     * Find the id of each {@link Movie} and each of its {@link Movie#getMovieCategories()}, as a {@link Pair}.
+     *
+     * @return the list of id and movie category pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(m.id, mc) FROM Movie m JOIN m.movieCategories mc")
+    List<Pair<Long, MovieCategory>> findAllIdAndMovieCategoryPairs();
+
+    /**
+     * Atomically adds the provided deltas to {@link Movie#getRatingSum()} and {@link Movie#getRatingCount()} of
+     * the {@link Movie} with the provided id.
+     *
+     * @param movieId     the movie id
+     * @param ratingDelta the sum of the ratings added, negative for ratings removed
+     * @param countDelta  the number of ratings added, negative for ratings removed
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Movie m SET m.ratingSum = m.ratingSum + ?2, m.ratingCount = m.ratingCount + ?3 WHERE m.id = ?1")
+    int addToRatingAggregates(Long movieId, int ratingDelta, int countDelta);
+
+    /**
+     * Rebuilds {@link Movie#getRatingSum()} and {@link Movie#getRatingCount()} of every {@link Movie} from its
+     * uncensored {@link Review} rows.
+     *
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Movie m SET " +
+            "m.ratingSum = (SELECT COALESCE(SUM(r.rating), 0) FROM Review r " +
+            "WHERE r.movie = m AND r.isCensored = false), " +
+            "m.ratingCount = (SELECT COUNT(r) FROM Review r WHERE r.movie = m AND r.isCensored = false)")
+    int repairRatingAggregates();
+
 }
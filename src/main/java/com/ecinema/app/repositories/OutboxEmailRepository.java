@@ -0,0 +1,125 @@
+package com.ecinema.app.repositories;
+
+import com.ecinema.app.domain.entities.OutboxEmail;
+import com.ecinema.app.domain.enums.OutboxEmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The jpa repository for {@link OutboxEmail}.
+ */
+@Repository
+public interface OutboxEmailRepository extends JpaRepository<OutboxEmail, Long> {
+
+    /**
+     * Find all {@link OutboxEmail} that are due for delivery, oldest first. An email is due if it is pending and
+     * its next attempt is not in the future, or if it is being sent but the lease of the dispatcher that took it
+     * has run out, which happens only if that dispatcher died mid-batch.
+     *
+     * @param localDateTime the local date time
+     * @param pageable      the pageable, which limits the size of the batch
+     * @return the list of outbox emails
+     */
+    @Query("SELECT e FROM OutboxEmail e WHERE e.status IN (com.ecinema.app.domain.enums.OutboxEmailStatus.PENDING, " +
+            "com.ecinema.app.domain.enums.OutboxEmailStatus.SENDING) AND e.nextAttemptDateTime <= ?1 " +
+            "ORDER BY e.nextAttemptDateTime")
+    List<OutboxEmail> findAllDue(LocalDateTime localDateTime, Pageable pageable);
+
+    /**
+     * Marks the {@link OutboxEmail} with the provided id as being sent until the provided lease expires, but only
+     * if it is still due at the provided date time, see {@link #findAllDue(LocalDateTime, Pageable)}. Of two
+     * dispatchers that found the same email due, only the first to update it leases it, since the update of the
+     * other no longer matches the moved next attempt, so only an email leased here may be sent.
+     *
+     * @param outboxEmailId the outbox email id
+     * @param localDateTime the local date time the email was found due at
+     * @param leaseExpiry   the date time after which the email is due again if it has not been resolved
+     * @return 1 if the email was leased, 0 if another dispatcher took it first
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail e SET e.status = com.ecinema.app.domain.enums.OutboxEmailStatus.SENDING, " +
+            "e.nextAttemptDateTime = ?3 WHERE e.id = ?1 AND e.nextAttemptDateTime <= ?2 AND e.status IN (" +
+            "com.ecinema.app.domain.enums.OutboxEmailStatus.PENDING, " +
+            "com.ecinema.app.domain.enums.OutboxEmailStatus.SENDING)")
+    int leaseWithId(Long outboxEmailId, LocalDateTime localDateTime, LocalDateTime leaseExpiry);
+
+    /**
+     * Marks the {@link OutboxEmail} with the provided id as sent, but only if it is still held under the provided
+     * lease, see {@link #leaseWithId(Long, LocalDateTime, LocalDateTime)}. A dispatcher whose lease ran out and was
+     * taken over by another one no longer matches, so it cannot overwrite the outcome of the new lease.
+     *
+     * @param outboxEmailId the outbox email id
+     * @param leaseExpiry   the lease expiry the email was leased with
+     * @param sentDateTime  the sent date time
+     * @return 1 if the email was marked sent, 0 if the lease was lost
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail e SET e.status = com.ecinema.app.domain.enums.OutboxEmailStatus.SENT, " +
+            "e.attempts = e.attempts + 1, e.sentDateTime = ?3, e.nextAttemptDateTime = NULL WHERE e.id = ?1 AND " +
+            "e.status = com.ecinema.app.domain.enums.OutboxEmailStatus.SENDING AND e.nextAttemptDateTime = ?2")
+    int markSent(Long outboxEmailId, LocalDateTime leaseExpiry, LocalDateTime sentDateTime);
+
+    /**
+     * Records a failed delivery attempt of the {@link OutboxEmail} with the provided id. The email is given the
+     * provided status, which is either pending with a later next attempt, or dead once it is out of attempts. As
+     * with {@link #markSent(Long, LocalDateTime, LocalDateTime)}, the email is updated only under the provided lease.
+     *
+     * @param outboxEmailId       the outbox email id
+     * @param leaseExpiry         the lease expiry the email was leased with
+     * @param status              the new status
+     * @param attempts            the number of attempts made so far
+     * @param nextAttemptDateTime the next attempt date time, null if dead
+     * @param lastError           the error of the failed attempt
+     * @return 1 if the attempt was recorded, 0 if the lease was lost
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEmail e SET e.status = ?3, e.attempts = ?4, e.nextAttemptDateTime = ?5, " +
+            "e.lastError = ?6 WHERE e.id = ?1 AND " +
+            "e.status = com.ecinema.app.domain.enums.OutboxEmailStatus.SENDING AND e.nextAttemptDateTime = ?2")
+    int markFailed(Long outboxEmailId, LocalDateTime leaseExpiry, OutboxEmailStatus status, Integer attempts,
+                   LocalDateTime nextAttemptDateTime, String lastError);
+
+    /**
+     * Find the ids of the {@link OutboxEmail}s that are resolved, either sent or dead, and were created before the
+     * provided date time, oldest first.
+     *
+     * @param localDateTime the local date time
+     * @param pageable      the maximum number of ids to find
+     * @return the list of ids
+     */
+    @Query("SELECT e.id FROM OutboxEmail e WHERE e.status IN (com.ecinema.app.domain.enums.OutboxEmailStatus.SENT, " +
+            "com.ecinema.app.domain.enums.OutboxEmailStatus.DEAD) AND e.creationDateTime < ?1 " +
+            "ORDER BY e.creationDateTime")
+    List<Long> findAllResolvedIdsByCreationDateTimeBefore(LocalDateTime localDateTime, Pageable pageable);
+
+    /**
+     * Deletes the {@link OutboxEmail}s with the provided ids in one statement.
+     *
+     * @param ids the ids of the outbox emails
+     * @return the number of outbox emails deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEmail e WHERE e.id IN ?1")
+    int deleteAllWithIds(Collection<Long> ids);
+
+    /**
+     * Find all {@link OutboxEmail} with the provided {@link OutboxEmailStatus}.
+     *
+     * @param status the status
+     * @return the list of outbox emails
+     */
+    List<OutboxEmail> findAllByStatus(OutboxEmailStatus status);
+
+}
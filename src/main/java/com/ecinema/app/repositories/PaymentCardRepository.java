@@ -2,9 +2,12 @@ package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.PaymentCard;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,4 +31,12 @@ public interface PaymentCardRepository extends JpaRepository<PaymentCard, Long>
             "FROM PaymentCard p WHERE p.id = ?1 AND p.cardOwner.user.id = ?2")
     boolean isPaymentCardOwnedByUser(Long paymentCardId, Long userId);
 
+    @Query("SELECT p.id FROM PaymentCard p WHERE p.cardOwner.id IN ?1")
+    List<Long> findAllIdsByCardOwnerWithIdIn(Collection<Long> customerIds);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM PaymentCard p WHERE p.id IN ?1")
+    int deleteAllWithIds(Collection<Long> paymentCardIds);
+
 }
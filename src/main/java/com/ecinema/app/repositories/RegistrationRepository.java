@@ -1,10 +1,15 @@
 package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.Registration;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,4 +49,37 @@ public interface RegistrationRepository extends JpaRepository<Registration, Long
      */
     void deleteAllByCreationDateTimeBefore(LocalDateTime localDateTime);
 
+    /**
+     * Find the ids of the {@link Registration}s created before the provided date time, oldest first.
+     *
+     * @param localDateTime the local date time
+     * @param pageable      the maximum number of ids to find
+     * @return the list of ids
+     */
+    @Query("SELECT r.id FROM Registration r WHERE r.creationDateTime < ?1 ORDER BY r.creationDateTime")
+    List<Long> findAllIdsByCreationDateTimeBefore(LocalDateTime localDateTime, Pageable pageable);
+
+    /**
+     * Deletes the {@link Registration#getAuthorities()} rows of the {@link Registration}s with the provided ids.
+     * Must be called before {@link #deleteAllWithIds(Collection)}, which does not cascade to them.
+     *
+     * @param ids the ids of the registrations
+     * @return the number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM registration_authorities WHERE registration_id IN ?1", nativeQuery = true)
+    int deleteAllAuthoritiesOfRegistrationsWithIds(Collection<Long> ids);
+
+    /**
+     * Deletes the {@link Registration}s with the provided ids in one statement.
+     *
+     * @param ids the ids of the registrations
+     * @return the number of registrations deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Registration r WHERE r.id IN ?1")
+    int deleteAllWithIds(Collection<Long> ids);
+
 }
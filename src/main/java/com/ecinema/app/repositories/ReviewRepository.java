@@ -3,13 +3,20 @@ package com.ecinema.app.repositories;
 import com.ecinema.app.domain.entities.Customer;
 import com.ecinema.app.domain.entities.Movie;
 import com.ecinema.app.domain.entities.Review;
+import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.RatingAggregate;
+import com.ecinema.app.domain.objects.ReviewWriter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -135,4 +142,148 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT r.writer.user.username FROM Review r WHERE r.id = ?1")
     Optional<String> findUsernameOfWriterForReviewWithId(Long reviewId);
 
+    /**
+     * Find the ids of every {@link Review} of one of the movies with the provided ids.
+     *
+     * @param movieIds the movie ids
+     * @return the list of review ids
+     */
+    @Query("SELECT r.id FROM Review r WHERE r.movie.id IN ?1")
+    List<Long> findAllIdsByMovieWithIdIn(Collection<Long> movieIds);
+
+    /**
+     * Find the ids of every {@link Review} written by one of the customers with the provided ids.
+     *
+     * @param customerIds the customer ids
+     * @return the list of review ids
+     */
+    @Query("SELECT r.id FROM Review r WHERE r.writer.id IN ?1")
+    List<Long> findAllIdsByWriterWithIdIn(Collection<Long> customerIds);
+
+    /**
+     * Delete every {@link Review} with one of the provided ids in one statement.
+     *
+     * @param reviewIds the review ids
+     * @return the number of reviews deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Review r WHERE r.id IN ?1")
+    int deleteAllWithIds(Collection<Long> reviewIds);
+
+    /**
+     * Find the {@link RatingAggregate} of each {@link Movie} over the uncensored {@link Review} with one of the
+     * provided ids.
+     *
+     * @param reviewIds the review ids
+     * @return the list of rating aggregates
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.RatingAggregate(r.movie.id, SUM(r.rating), COUNT(r)) " +
+            "FROM Review r WHERE r.id IN ?1 AND r.isCensored = false GROUP BY r.movie.id")
+    List<RatingAggregate> findAllRatingAggregatesByReviewWithIdIn(Collection<Long> reviewIds);
+
+    /**
+     * Find the {@link ReviewWriter} of each {@link Review} with one of the provided ids.
+     *
+     * @param reviewIds the review ids
+     * @return the list of review writers
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.ReviewWriter(r.id, c.id, u.id, u.username) " +
+            "FROM Review r JOIN r.writer c JOIN c.user u WHERE r.id IN ?1")
+    List<ReviewWriter> findAllReviewWritersByReviewWithIdIn(Collection<Long> reviewIds);
+
+    /**
+     * The JPQL expression of the lower bound of the Wilson score interval at 95% confidence of the share of
+     * {@link Review#getUpvotes()} among all votes on a {@link Review} aliased "r", or 0 if it has no votes. It
+     * ranks a review with 40 of 45 votes up above one with its only vote up, which a plain share would not.
+     */
+    String HELPFULNESS = "CASE WHEN r.upvotes + r.downvotes = 0 THEN 0.0 ELSE (" +
+            "(r.upvotes + 1.9208 - 1.96 * SQRT(1.0 * r.upvotes * r.downvotes / (r.upvotes + r.downvotes) + 0.9604)) " +
+            "/ (r.upvotes + r.downvotes + 3.8416)) END";
+
+    /**
+     * Sets {@link Review#getIsCensored()} of the {@link Review} with the provided id, unless it is already set to
+     * the provided value, so that of two racing requests to censor the same review only one updates a row.
+     *
+     * @param reviewId   the review id
+     * @param isCensored the censored status
+     * @return the number of rows updated, zero if the review does not exist or already has the status
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Review r SET r.isCensored = ?2 WHERE r.id = ?1 AND r.isCensored <> ?2")
+    int updateIsCensoredOfReviewWithId(Long reviewId, Boolean isCensored);
+
+    /**
+     * Atomically adds the provided deltas to {@link Review#getUpvotes()} and {@link Review#getDownvotes()} of the
+     * {@link Review} with the provided id. {@link Review#getHelpfulness()} is refreshed separately by
+     * {@link #refreshHelpfulnessOfReviewsWithIds(Collection)}, since databases disagree on whether the other
+     * assignments of an update see the new counts.
+     *
+     * @param reviewId      the review id
+     * @param upvoteDelta   the number of upvotes added, negative for upvotes removed
+     * @param downvoteDelta the number of downvotes added, negative for downvotes removed
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Review r SET r.upvotes = r.upvotes + ?2, r.downvotes = r.downvotes + ?3 WHERE r.id = ?1")
+    int addToVoteCounters(Long reviewId, int upvoteDelta, int downvoteDelta);
+
+    /**
+     * Recomputes {@link Review#getHelpfulness()} of every {@link Review} with one of the provided ids from its
+     * vote counters, see {@link #HELPFULNESS}.
+     *
+     * @param reviewIds the review ids
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Review r SET r.helpfulness = " + HELPFULNESS + " WHERE r.id IN ?1")
+    int refreshHelpfulnessOfReviewsWithIds(Collection<Long> reviewIds);
+
+    /**
+     * Recomputes {@link Review#getHelpfulness()} of every {@link Review} from its vote counters, see
+     * {@link #HELPFULNESS}.
+     *
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Review r SET r.helpfulness = " + HELPFULNESS)
+    int refreshHelpfulness();
+
+    /**
+     * Rebuilds {@link Review#getUpvotes()} and {@link Review#getDownvotes()} of every {@link Review} from its
+     * {@link ReviewVote} rows. The votes are parameters so that they bind through the mapping of
+     * {@link ReviewVote#getVote()} rather than as enum literals.
+     *
+     * @param upvote   {@link Vote#UPVOTE}
+     * @param downvote {@link Vote#DOWNVOTE}
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Review r SET " +
+            "r.upvotes = (SELECT COUNT(rv) FROM ReviewVote rv WHERE rv.review = r AND rv.vote = ?1), " +
+            "r.downvotes = (SELECT COUNT(rv) FROM ReviewVote rv WHERE rv.review = r AND rv.vote = ?2)")
+    int repairVoteCounters(Vote upvote, Vote downvote);
+
+    /**
+     * Rebuilds {@link Review#getUpvotes()} and {@link Review#getDownvotes()} of every {@link Review} with one of
+     * the provided ids from its {@link ReviewVote} rows, see {@link #repairVoteCounters(Vote, Vote)}.
+     *
+     * @param reviewIds the review ids
+     * @param upvote    {@link Vote#UPVOTE}
+     * @param downvote  {@link Vote#DOWNVOTE}
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Review r SET " +
+            "r.upvotes = (SELECT COUNT(rv) FROM ReviewVote rv WHERE rv.review = r AND rv.vote = ?2), " +
+            "r.downvotes = (SELECT COUNT(rv) FROM ReviewVote rv WHERE rv.review = r AND rv.vote = ?3) " +
+            "WHERE r.id IN ?1")
+    int repairVoteCountersOfReviewsWithIds(Collection<Long> reviewIds, Vote upvote, Vote downvote);
+
 }
@@ -5,10 +5,15 @@ import com.ecinema.app.domain.entities.Review;
 import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.entities.User;
 import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ReviewVoteTarget;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -140,4 +145,82 @@ public interface ReviewVoteRepository extends JpaRepository<ReviewVote, Long> {
             "FROM ReviewVote rv WHERE rv.voter.user.id = ?1 AND rv.review.id = ?2")
     boolean existsByUserWithIdAndReviewWithId(Long userId, Long reviewId);
 
+    /**
+     * Find the ids of every {@link ReviewVote} on one of the reviews with the provided ids.
+     *
+     * @param reviewIds the review ids
+     * @return the list of review vote ids
+     */
+    @Query("SELECT rv.id FROM ReviewVote rv WHERE rv.review.id IN ?1")
+    List<Long> findAllIdsByReviewWithIdIn(Collection<Long> reviewIds);
+
+    /**
+     * Find the ids of every {@link ReviewVote} cast by one of the customers with the provided ids.
+     *
+     * @param customerIds the customer ids
+     * @return the list of review vote ids
+     */
+    @Query("SELECT rv.id FROM ReviewVote rv WHERE rv.voter.id IN ?1")
+    List<Long> findAllIdsByVoterWithIdIn(Collection<Long> customerIds);
+
+    /**
+     * Delete every {@link ReviewVote} with one of the provided ids in one statement.
+     *
+     * @param reviewVoteIds the review vote ids
+     * @return the number of review votes deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM ReviewVote rv WHERE rv.id IN ?1")
+    int deleteAllWithIds(Collection<Long> reviewVoteIds);
+
+    /**
+     * Find the {@link ReviewVoteTarget} of the user with the provided id and the {@link Review} with the provided
+     * id in one query. Empty if the user has no {@link Customer} or the review does not exist.
+     *
+     * @param userId   the user id
+     * @param reviewId the review id
+     * @return the optional review vote target
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.ReviewVoteTarget(c.id, wu.id, rv.id, rv.vote) " +
+            "FROM Customer c JOIN Review r ON r.id = ?2 LEFT JOIN r.writer w LEFT JOIN w.user wu " +
+            "LEFT JOIN ReviewVote rv ON rv.review = r AND rv.voter = c WHERE c.user.id = ?1")
+    Optional<ReviewVoteTarget> findReviewVoteTarget(Long userId, Long reviewId);
+
+    /**
+     * Sets {@link ReviewVote#getVote()} of the {@link ReviewVote} with the provided id, unless it already is the
+     * provided vote. Of two concurrent updates to the same vote only one updates the row, so the caller adjusts
+     * the vote counters of the review only if a row was updated.
+     *
+     * @param reviewVoteId the review vote id
+     * @param vote         the vote
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReviewVote rv SET rv.vote = ?2 WHERE rv.id = ?1 AND rv.vote <> ?2")
+    int updateVoteOfReviewVoteWithId(Long reviewVoteId, Vote vote);
+
+    /**
+     * Find the {@link Review#getId()} and {@link ReviewVote#getVote()} of every {@link ReviewVote} cast by the
+     * user with the provided id on a review with one of the provided ids, as a {@link Pair}.
+     *
+     * @param userId    the user id
+     * @param reviewIds the review ids
+     * @return the list of review id and vote pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(rv.review.id, rv.vote) FROM ReviewVote rv " +
+            "WHERE rv.voter.user.id = ?1 AND rv.review.id IN ?2")
+    List<Pair<Long, Vote>> findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn(
+            Long userId, Collection<Long> reviewIds);
+
+    /**
+     * Find the distinct {@link Review#getId()} of every {@link ReviewVote} with one of the provided ids.
+     *
+     * @param reviewVoteIds the review vote ids
+     * @return the list of review ids
+     */
+    @Query("SELECT DISTINCT rv.review.id FROM ReviewVote rv WHERE rv.id IN ?1")
+    List<Long> findAllReviewIdsByReviewVoteWithIdIn(Collection<Long> reviewVoteIds);
+
 }
@@ -2,17 +2,25 @@ package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.Movie;
 import com.ecinema.app.domain.entities.Screening;
+import com.ecinema.app.domain.entities.ScreeningSeat;
 import com.ecinema.app.domain.entities.Showroom;
+import com.ecinema.app.domain.entities.Ticket;
 import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ScreeningInterval;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * The jpa repository for {@link Screening}.
@@ -136,4 +144,130 @@ public interface ScreeningRepository extends JpaRepository<Screening, Long> {
     @Query("SELECT s.id FROM Screening s where s.movie.id = ?1")
     List<Long> findAllScreeningIdsByMovieId(Long movieId);
 
+    /**
+     * Find all where {@link Screening#getShowroom()} has the provided id and the show date time to end date time
+     * interval overlaps the provided one, endpoints included, ordered by show date time. A screening overlapping
+     * the interval starts no earlier than the start of the interval less the longest screening of the showroom,
+     * see {@link #findLongestLengthInSecondsOfShowroomWithId(Long)}, which the caller passes as the earliest show
+     * date time, so the range scan of the index on showroom id and show date time is bounded on both ends.
+     *
+     * @param showroomId           the showroom id
+     * @param earliestShowDateTime the start of the interval less the longest runtime of any screening
+     * @param start                the start of the interval
+     * @param end                  the end of the interval
+     * @param pageable             the pageable, usually the first page of size one
+     * @return the list of overlapping screenings
+     */
+    @Query("SELECT s FROM Screening s WHERE s.showroom.id = ?1 AND s.showDateTime >= ?2 AND s.showDateTime <= ?4 " +
+            "AND s.endDateTime >= ?3 ORDER BY s.showDateTime ASC")
+    List<Screening> findAllByShowroomWithIdOverlapping(Long showroomId, LocalDateTime earliestShowDateTime,
+                                                       LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Find the length in seconds of the longest {@link Screening} of the showroom with the provided id, from its
+     * stored show and end date times rather than the current duration of its movie, which may since have been
+     * shortened. Answered from the index on showroom id, show date time, and end date time alone.
+     *
+     * @param showroomId the showroom id
+     * @return the length of the longest screening in seconds, empty if the showroom has no screenings
+     */
+    @Query(value = "SELECT MAX(TIMESTAMPDIFF(SECOND, show_date_time, end_date_time)) FROM screening " +
+            "WHERE showroom_id = ?1", nativeQuery = true)
+    Optional<Long> findLongestLengthInSecondsOfShowroomWithId(Long showroomId);
+
+    /**
+     * Find the {@link ScreeningInterval} of every {@link Screening} of the showroom with the provided id that
+     * ends after the provided date time.
+     *
+     * @param showroomId    the showroom id
+     * @param localDateTime the local date time
+     * @return the list of screening intervals
+     */
+    @Query("SELECT new com.ecinema.app.domain.objects.ScreeningInterval(s.id, s.showDateTime, s.endDateTime) " +
+            "FROM Screening s WHERE s.showroom.id = ?1 AND s.endDateTime > ?2")
+    List<ScreeningInterval> findAllScreeningIntervalsByShowroomWithIdAndEndDateTimeAfter(
+            Long showroomId, LocalDateTime localDateTime);
+
+    /**
+     * Atomically adds the provided delta to {@link Screening#getSeatsBooked()} of the {@link Screening} with the
+     * provided id.
+     *
+     * @param screeningId the screening id
+     * @param delta       the number of seats booked, negative for seats released
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Screening s SET s.seatsBooked = s.seatsBooked + ?2 WHERE s.id = ?1")
+    int addToSeatsBooked(Long screeningId, int delta);
+
+    /**
+     * Rebuilds {@link Screening#getTotalSeats()} and {@link Screening#getSeatsBooked()} of every {@link Screening}
+     * from its {@link ScreeningSeat} and {@link Ticket} rows.
+     *
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Screening s SET " +
+            "s.totalSeats = (SELECT COUNT(ss) FROM ScreeningSeat ss WHERE ss.screening = s), " +
+            "s.seatsBooked = (SELECT COUNT(t) FROM Ticket t JOIN t.screeningSeat ts WHERE ts.screening = s)")
+    int repairSeatCounters();
+
+    /**
+     * Find the id of every {@link Screening}.
+     *
+     * @return the list of screening ids
+     */
+    @Query("SELECT s.id FROM Screening s")
+    List<Long> findAllIds();
+
+    /**
+     * Find the ids of every {@link Screening} of one of the movies with the provided ids.
+     *
+     * @param movieIds the movie ids
+     * @return the list of screening ids
+     */
+    @Query("SELECT s.id FROM Screening s WHERE s.movie.id IN ?1")
+    List<Long> findAllIdsByMovieWithIdIn(Collection<Long> movieIds);
+
+    /**
+     * Find the ids of every {@link Screening} in one of the showrooms with the provided ids.
+     *
+     * @param showroomIds the showroom ids
+     * @return the list of screening ids
+     */
+    @Query("SELECT s.id FROM Screening s WHERE s.showroom.id IN ?1")
+    List<Long> findAllIdsByShowroomWithIdIn(Collection<Long> showroomIds);
+
+    /**
+     * Find the showroom id and id of each {@link Screening} with one of the provided ids, as a {@link Pair}.
+     *
+     * @param screeningIds the screening ids
+     * @return the list of showroom id and screening id pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(s.showroom.id, s.id) FROM Screening s WHERE s.id IN ?1")
+    List<Pair<Long, Long>> findAllShowroomIdAndIdPairsByIdIn(Collection<Long> screeningIds);
+
+    /**
+     * Delete every {@link Screening} with one of the provided ids in one statement.
+     *
+     * @param screeningIds the screening ids
+     * @return the number of screenings deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Screening s WHERE s.id IN ?1")
+    int deleteAllWithIds(Collection<Long> screeningIds);
+
+    /**
+     * Find all {@link Screening} of the movies with the provided ids.
+     *
+     * @param movieIds the movie ids
+     * @param pageable the pageable
+     * @return the page of screenings
+     */
+    @Query("SELECT s FROM Screening s WHERE s.movie.id IN ?1")
+    Page<Screening> findAllByMovieWithIdIn(Collection<Long> movieIds, Pageable pageable);
+
 }
@@ -4,10 +4,14 @@ import com.ecinema.app.domain.entities.Screening;
 import com.ecinema.app.domain.entities.ScreeningSeat;
 import com.ecinema.app.domain.entities.ShowroomSeat;
 import com.ecinema.app.domain.entities.Ticket;
+import com.ecinema.app.domain.objects.SeatState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -90,4 +94,87 @@ public interface ScreeningSeatRepository extends JpaRepository<ScreeningSeat, Lo
             "FROM ScreeningSeat s WHERE s.id = ?1 AND s.ticket is not NULL")
     boolean screeningSeatIsBooked(Long screeningSeatId);
 
+    /**
+     * Claim the screening seat with the provided id in a single conditional update. The row is only updated
+     * if {@link ScreeningSeat#getIsClaimed()} is false, so when several transactions race for the same seat
+     * exactly one of them sees an update count of one.
+     *
+     * @param screeningSeatId the screening seat id
+     * @return the number of rows updated, one if the seat was claimed and zero otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScreeningSeat s SET s.isClaimed = true WHERE s.id = ?1 AND s.isClaimed = false")
+    int claimScreeningSeatWithId(Long screeningSeatId);
+
+    /**
+     * Claim every screening seat with an id in the provided collection in a single conditional update. Seats
+     * that are already claimed are left untouched, so the claim of the whole collection succeeded only if the
+     * returned count equals the size of the collection.
+     *
+     * @param screeningSeatIds the screening seat ids
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScreeningSeat s SET s.isClaimed = true WHERE s.id IN ?1 AND s.isClaimed = false")
+    int claimAllScreeningSeatsWithIds(Collection<Long> screeningSeatIds);
+
+    /**
+     * Find the {@link SeatState} of every {@link ScreeningSeat} where {@link Screening#getId()} from
+     * {@link ScreeningSeat#getScreening()} equals the provided Long screening id argument. The states are
+     * fetched in one query without loading any entities.
+     *
+     * @param screeningId the screening id
+     * @return the list of seat states
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.SeatState(s.id, ss.rowLetter, ss.seatNumber, t.id) " +
+            "FROM ScreeningSeat s JOIN s.showroomSeat ss LEFT JOIN s.ticket t WHERE s.screening.id = ?1")
+    List<SeatState> findAllSeatStatesByScreeningWithId(Long screeningId);
+
+    /**
+     * Sets {@link ScreeningSeat#getIsClaimed()} to true for every {@link ScreeningSeat} that has a {@link Ticket}
+     * but is not claimed, which is the case for seats booked before claims were tracked. Claims are never released
+     * here since a claim without a ticket may belong to a booking that has not committed yet.
+     *
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScreeningSeat s SET s.isClaimed = true WHERE s.isClaimed = false AND " +
+            "EXISTS (SELECT t FROM Ticket t WHERE t.screeningSeat = s)")
+    int repairClaims();
+
+    /**
+     * Find the ids of every {@link ScreeningSeat} of one of the screenings with the provided ids.
+     *
+     * @param screeningIds the screening ids
+     * @return the list of screening seat ids
+     */
+    @Query("SELECT s.id FROM ScreeningSeat s WHERE s.screening.id IN ?1")
+    List<Long> findAllIdsByScreeningWithIdIn(Collection<Long> screeningIds);
+
+    /**
+     * Unsets {@link ScreeningSeat#getIsClaimed()} of every screening seat with one of the provided ids, for
+     * seats whose tickets are being deleted.
+     *
+     * @param screeningSeatIds the screening seat ids
+     * @return the number of screening seats released
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ScreeningSeat s SET s.isClaimed = false WHERE s.id IN ?1")
+    int releaseAllScreeningSeatsWithIds(Collection<Long> screeningSeatIds);
+
+    /**
+     * Delete every {@link ScreeningSeat} with one of the provided ids in one statement.
+     *
+     * @param screeningSeatIds the screening seat ids
+     * @return the number of screening seats deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM ScreeningSeat s WHERE s.id IN ?1")
+    int deleteAllWithIds(Collection<Long> screeningSeatIds);
+
 }
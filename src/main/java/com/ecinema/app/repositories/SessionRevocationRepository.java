@@ -0,0 +1,58 @@
+package com.ecinema.app.repositories;
+
+import com.ecinema.app.domain.entities.SessionRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The jpa repository for {@link SessionRevocation}.
+ */
+@Repository
+public interface SessionRevocationRepository extends JpaRepository<SessionRevocation, Long> {
+
+    /**
+     * Find all {@link SessionRevocation} with {@link SessionRevocation#getRevokedDateTime()} after the provided
+     * date time.
+     *
+     * @param localDateTime the local date time
+     * @return the list of session revocations
+     */
+    List<SessionRevocation> findAllByRevokedDateTimeAfter(LocalDateTime localDateTime);
+
+    /**
+     * Inserts the {@link SessionRevocation} of the user with the provided id, or moves its
+     * {@link SessionRevocation#getRevokedDateTime()} forward to the provided date time if the user already has
+     * one. A single statement in the transaction of the caller: concurrent first revocations of the same user
+     * cannot both insert, and no locking read of a missing row takes a gap lock that the insert would then wait
+     * on. Written for MySQL, the database of the application.
+     *
+     * @param userId          the user id
+     * @param revokedDateTime the revoked date time
+     * @return the number of rows affected
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO session_revocation (user_id, revoked_date_time) VALUES (?1, ?2) " +
+            "ON DUPLICATE KEY UPDATE revoked_date_time = GREATEST(revoked_date_time, VALUES(revoked_date_time))",
+           nativeQuery = true)
+    int upsertRevokedDateTimeOfUserWithId(Long userId, LocalDateTime revokedDateTime);
+
+    /**
+     * Deletes every {@link SessionRevocation} older than the provided date time, which no unexpired session can
+     * predate.
+     *
+     * @param localDateTime the local date time
+     * @return the number of session revocations deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SessionRevocation s WHERE s.revokedDateTime < ?1")
+    int deleteAllByRevokedDateTimeBefore(LocalDateTime localDateTime);
+
+}
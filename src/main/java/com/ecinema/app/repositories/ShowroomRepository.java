@@ -5,9 +5,12 @@ import com.ecinema.app.domain.entities.Showroom;
 import com.ecinema.app.domain.entities.ShowroomSeat;
 import com.ecinema.app.domain.enums.Letter;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -78,4 +81,32 @@ public interface ShowroomRepository extends JpaRepository<Showroom, Long> {
      */
     boolean existsByShowroomLetter(Letter showroomLetter);
 
+    /**
+     * Find the id of the {@link Showroom} with the provided showroom letter.
+     *
+     * @param showroomLetter the showroom letter
+     * @return the optional showroom id
+     */
+    @Query("SELECT s.id FROM Showroom s WHERE s.showroomLetter = ?1")
+    Optional<Long> findIdByShowroomLetter(Letter showroomLetter);
+
+    /**
+     * Find the id of every {@link Showroom}.
+     *
+     * @return the list of showroom ids
+     */
+    @Query("SELECT s.id FROM Showroom s")
+    List<Long> findAllIds();
+
+    /**
+     * Delete every {@link Showroom} with one of the provided ids in one statement.
+     *
+     * @param showroomIds the showroom ids
+     * @return the number of showrooms deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Showroom s WHERE s.id IN ?1")
+    int deleteAllWithIds(Collection<Long> showroomIds);
+
 }
@@ -5,9 +5,12 @@ import com.ecinema.app.domain.entities.Showroom;
 import com.ecinema.app.domain.entities.ShowroomSeat;
 import com.ecinema.app.domain.enums.Letter;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -94,4 +97,24 @@ public interface ShowroomSeatRepository extends JpaRepository<ShowroomSeat, Long
     Optional<ShowroomSeat> findByShowroomWithIdAndRowLetterAndSeatNumber(Long showroomId, Letter rowLetter,
                                                                          Integer seatNumber);
 
+    /**
+     * Find the ids of every {@link ShowroomSeat} of one of the showrooms with the provided ids.
+     *
+     * @param showroomIds the showroom ids
+     * @return the list of showroom seat ids
+     */
+    @Query("SELECT s.id FROM ShowroomSeat s WHERE s.showroom.id IN ?1")
+    List<Long> findAllIdsByShowroomWithIdIn(Collection<Long> showroomIds);
+
+    /**
+     * Delete every {@link ShowroomSeat} with one of the provided ids in one statement.
+     *
+     * @param showroomSeatIds the showroom seat ids
+     * @return the number of showroom seats deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM ShowroomSeat s WHERE s.id IN ?1")
+    int deleteAllWithIds(Collection<Long> showroomSeatIds);
+
 }
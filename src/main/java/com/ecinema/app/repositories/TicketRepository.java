@@ -1,14 +1,19 @@
 package com.ecinema.app.repositories;
 
+import com.ecinema.app.domain.dtos.TicketDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.Letter;
 import com.ecinema.app.domain.enums.TicketStatus;
 import com.ecinema.app.domain.enums.TicketType;
+import com.ecinema.app.domain.objects.BookedSeat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +23,74 @@ import java.util.Optional;
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
 
+    /**
+     * Selects every field of {@link TicketDto} in one statement by joining each ticket to its owner, screening,
+     * movie, showroom and seat. The payment card is left joined since it may have been deleted.
+     */
+    String SELECT_TICKET_DTO = "SELECT NEW com.ecinema.app.domain.dtos.TicketDto(t.id, u.id, u.email, " +
+            "u.username, m.title, pc.id, t.ticketType, sr.showroomLetter, t.ticketStatus, s.endDateTime, " +
+            "s.showDateTime, t.creationDateTime, ss.rowLetter, ss.seatNumber) FROM Ticket t " +
+            "JOIN t.ticketOwner c JOIN c.user u JOIN t.screeningSeat scs JOIN scs.showroomSeat ss " +
+            "JOIN scs.screening s JOIN s.movie m JOIN s.showroom sr LEFT JOIN t.paymentCard pc ";
+
+    /**
+     * Find the {@link TicketDto} of the {@link Ticket} with the provided id.
+     *
+     * @param ticketId the ticket id
+     * @return the optional ticket dto
+     */
+    @Query(SELECT_TICKET_DTO + "WHERE t.id = ?1")
+    Optional<TicketDto> findTicketDtoById(Long ticketId);
+
+    /**
+     * Find the {@link TicketDto} of every {@link Ticket} whose id is in the provided collection.
+     *
+     * @param ticketIds the ticket ids
+     * @return the list of ticket dtos
+     */
+    @Query(SELECT_TICKET_DTO + "WHERE t.id IN ?1")
+    List<TicketDto> findAllTicketDtosByIds(Collection<Long> ticketIds);
+
+    /**
+     * Find the {@link TicketDto} of every {@link Ticket} owned by the {@link User} with the provided id.
+     *
+     * @param userId the user id
+     * @return the list of ticket dtos
+     */
+    @Query(SELECT_TICKET_DTO + "WHERE u.id = ?1")
+    List<TicketDto> findAllTicketDtosByUserWithId(Long userId);
+
+    /**
+     * Find the {@link TicketDto} of every {@link Ticket} owned by the {@link User} with the provided id whose
+     * {@link Screening#getShowDateTime()} is before the provided {@link LocalDateTime}.
+     *
+     * @param userId        the user id
+     * @param localDateTime the local date time
+     * @return the list of ticket dtos
+     */
+    @Query(SELECT_TICKET_DTO + "WHERE u.id = ?1 AND s.showDateTime < ?2")
+    List<TicketDto> findAllTicketDtosByUserWithIdAndShowDateTimeIsBefore(Long userId, LocalDateTime localDateTime);
+
+    /**
+     * Find the {@link TicketDto} of every {@link Ticket} owned by the {@link User} with the provided id whose
+     * {@link Screening#getShowDateTime()} is after the provided {@link LocalDateTime}.
+     *
+     * @param userId        the user id
+     * @param localDateTime the local date time
+     * @return the list of ticket dtos
+     */
+    @Query(SELECT_TICKET_DTO + "WHERE u.id = ?1 AND s.showDateTime > ?2")
+    List<TicketDto> findAllTicketDtosByUserWithIdAndShowDateTimeIsAfter(Long userId, LocalDateTime localDateTime);
+
+    /**
+     * Find the {@link TicketDto} of every {@link Ticket} with the provided {@link TicketStatus}.
+     *
+     * @param ticketStatus the ticket status
+     * @return the list of ticket dtos
+     */
+    @Query(SELECT_TICKET_DTO + "WHERE t.ticketStatus = ?1")
+    List<TicketDto> findAllTicketDtosByTicketStatus(TicketStatus ticketStatus);
+
     /**
      * Find all {@link Ticket} where {@link Screening#getId()} from {@link ScreeningSeat#getScreening()} from
      * {@link Ticket#getScreeningSeat()} equals the provided Long screening id argument.
@@ -201,4 +274,55 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     @Query("SELECT t.screeningSeat.showroomSeat FROM Ticket t WHERE t.id = ?1")
     Optional<ShowroomSeat> findShowroomSeatAssociatedWithTicket(Long ticketId);
 
+    /**
+     * Find the ids of every {@link Ticket} for a seat of one of the screenings with the provided ids.
+     *
+     * @param screeningIds the screening ids
+     * @return the list of ticket ids
+     */
+    @Query("SELECT t.id FROM Ticket t WHERE t.screeningSeat.screening.id IN ?1")
+    List<Long> findAllIdsByScreeningWithIdIn(Collection<Long> screeningIds);
+
+    /**
+     * Find the ids of every {@link Ticket} owned by one of the customers with the provided ids.
+     *
+     * @param customerIds the customer ids
+     * @return the list of ticket ids
+     */
+    @Query("SELECT t.id FROM Ticket t WHERE t.ticketOwner.id IN ?1")
+    List<Long> findAllIdsByTicketOwnerWithIdIn(Collection<Long> customerIds);
+
+    /**
+     * Find the {@link BookedSeat} of each {@link Ticket} with one of the provided ids.
+     *
+     * @param ticketIds the ticket ids
+     * @return the list of booked seats
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.BookedSeat(t.id, ss.id, ss.screening.id, t.ticketOwner.id) " +
+            "FROM Ticket t JOIN t.screeningSeat ss WHERE t.id IN ?1")
+    List<BookedSeat> findAllBookedSeatsByTicketWithIdIn(Collection<Long> ticketIds);
+
+    /**
+     * Unsets {@link Ticket#getPaymentCard()} of every ticket paid for with one of the payment cards with the
+     * provided ids.
+     *
+     * @param paymentCardIds the payment card ids
+     * @return the number of tickets updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Ticket t SET t.paymentCard = NULL WHERE t.paymentCard.id IN ?1")
+    int detachPaymentCardsWithIds(Collection<Long> paymentCardIds);
+
+    /**
+     * Delete every {@link Ticket} with one of the provided ids in one statement.
+     *
+     * @param ticketIds the ticket ids
+     * @return the number of tickets deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM Ticket t WHERE t.id IN ?1")
+    int deleteAllWithIds(Collection<Long> ticketIds);
+
 }
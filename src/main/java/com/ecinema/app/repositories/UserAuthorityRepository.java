@@ -3,9 +3,13 @@ package com.ecinema.app.repositories;
 import com.ecinema.app.domain.entities.AbstractUserAuthority;
 import com.ecinema.app.domain.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -54,4 +58,24 @@ public interface UserAuthorityRepository<T extends AbstractUserAuthority> extend
             "FROM #{#entityName} u WHERE u.user.id = ?1")
     boolean existsByUserWithId(Long userId);
 
+    /**
+     * Find the ids of every {@link T} of one of the users with the provided ids.
+     *
+     * @param userIds the user ids
+     * @return the list of ids
+     */
+    @Query("SELECT u.id FROM #{#entityName} u WHERE u.user.id IN ?1")
+    List<Long> findAllIdsByUserWithIdIn(Collection<Long> userIds);
+
+    /**
+     * Delete every {@link T} with one of the provided ids.
+     *
+     * @param ids the ids
+     * @return the number deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM #{#entityName} u WHERE u.id IN ?1")
+    int deleteAllWithIds(Collection<Long> ids);
+
 }
@@ -1,11 +1,20 @@
 package com.ecinema.app.repositories;
 
+import com.ecinema.app.domain.dtos.UserDto;
 import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.UserSearchCursor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +24,13 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * The JPQL expression of {@link User#getCreationDateTime()} of a {@link User} aliased "u", or
+     * {@link UserSearchCursor#NO_CREATION_DATE_TIME} if it is null, by which user search orders and seeks.
+     */
+    String CREATION_DATE_TIME = "COALESCE(u.creationDateTime, " +
+            ":#{T(com.ecinema.app.domain.objects.UserSearchCursor).NO_CREATION_DATE_TIME})";
+
     /**
      * Return if a {@link User} already exists with {@link User#getUsername()} equal to the provided argument.
      *
@@ -136,6 +152,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param localDateTime the local date time
      * @return the list of User
      */
+    @Query("SELECT u FROM User u WHERE u.creationDateTime < ?1 ORDER BY u.id")
     List<User> findAllByCreationDateTimeBefore(LocalDateTime localDateTime);
 
     /**
@@ -144,6 +161,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param localDateTime the local date time
      * @return the list of User
      */
+    @Query("SELECT u FROM User u WHERE u.creationDateTime > ?1 ORDER BY u.id")
     List<User> findAllByCreationDateTimeAfter(LocalDateTime localDateTime);
 
     /**
@@ -152,6 +170,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param localDateTime the local date time
      * @return the list of User
      */
+    @Query("SELECT u FROM User u WHERE u.lastActivityDateTime < ?1 ORDER BY u.id")
     List<User> findAllByLastActivityDateTimeBefore(LocalDateTime localDateTime);
 
     /**
@@ -160,6 +179,140 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @param localDateTime the local date time
      * @return the list of User
      */
+    @Query("SELECT u FROM User u WHERE u.lastActivityDateTime > ?1 ORDER BY u.id")
     List<User> findAllByLastActivityDateTimeAfter(LocalDateTime localDateTime);
 
+    /**
+     * Sets {@link User#getLastActivityDateTime()} of every {@link User} with id in the provided collection to the
+     * provided date time, skipping users whose last activity is already later.
+     *
+     * @param userIds              the ids of the users
+     * @param lastActivityDateTime the last activity date time
+     * @return the number of users updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.lastActivityDateTime = ?2 WHERE u.id IN ?1 " +
+            "AND (u.lastActivityDateTime IS NULL OR u.lastActivityDateTime < ?2)")
+    int updateLastActivityDateTimeOfAllWithIds(Collection<Long> userIds, LocalDateTime lastActivityDateTime);
+
+    /**
+     * Sets {@link User#getPassword()} of the {@link User} with the provided id.
+     *
+     * @param userId   the id of the user
+     * @param password the encoded password
+     * @return the number of users updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = ?2 WHERE u.id = ?1")
+    int updatePasswordOfUserWithId(Long userId, String password);
+
+    /**
+     * Find every {@link User#getUsername()} that is not null.
+     *
+     * @return the list of usernames
+     */
+    @Query("SELECT u.username FROM User u WHERE u.username IS NOT NULL")
+    List<String> findAllUsernames();
+
+    /**
+     * Find every {@link User#getEmail()} that is not null.
+     *
+     * @return the list of emails
+     */
+    @Query("SELECT u.email FROM User u WHERE u.email IS NOT NULL")
+    List<String> findAllEmails();
+
+    /**
+     * Find the {@link UserAuthority} of every {@link com.ecinema.app.domain.entities.AbstractUserAuthority} of
+     * the {@link User} with the provided id, without loading the user or its authority entities.
+     *
+     * @param userId the id of the user
+     * @return the list of user authorities
+     */
+    @Query("SELECT a.userAuthority FROM AbstractUserAuthority a WHERE a.user.id = ?1")
+    List<UserAuthority> findAllUserAuthoritiesOfUserWithId(Long userId);
+
+    /**
+     * Find the id of every {@link User}.
+     *
+     * @return the list of user ids
+     */
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
+
+    /**
+     * Delete every {@link User} with one of the provided ids in one statement. The authorities of the users
+     * must be deleted first.
+     *
+     * @param userIds the user ids
+     * @return the number of users deleted
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query("DELETE FROM User u WHERE u.id IN ?1")
+    int deleteAllWithIds(Collection<Long> userIds);
+
+    /**
+     * Find the {@link UserDto}, without authorities, of the users matching every provided filter that is not
+     * null, ordered by {@link User#getCreationDateTime()} then id and starting after the user at the provided
+     * creation date time and id, or from the first user if those are null. The size of the pageable is the
+     * maximum number of users returned, and its page number must be 0. A null creation date time is ordered and
+     * sought as {@link UserSearchCursor#NO_CREATION_DATE_TIME}, so that users without one come first and a cursor
+     * at one of them does not restart the search. Filtered on the (creationDateTime, id) indexes of {@link User}.
+     *
+     * @param isAccountLocked      the is account locked filter
+     * @param isAccountEnabled     the is account enabled filter
+     * @param isAccountExpired     the is account expired filter
+     * @param isCredentialsExpired the is credentials expired filter
+     * @param createdAfter         the exclusive lower bound of the creation date time
+     * @param createdBefore        the exclusive upper bound of the creation date time
+     * @param lastActiveAfter      the exclusive lower bound of the last activity date time
+     * @param lastActiveBefore     the exclusive upper bound of the last activity date time
+     * @param userAuthority        the user authority filter
+     * @param afterCreation        the creation date time of the cursor
+     * @param afterId              the id of the cursor
+     * @param pageable             the pageable
+     * @return the list of user dtos
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.dtos.UserDto(u.id, u.email, u.username, u.firstName, " +
+            "u.lastName, u.birthDate, u.creationDateTime, u.lastActivityDateTime) FROM User u WHERE " +
+            "(:isAccountLocked IS NULL OR u.isAccountLocked = :isAccountLocked) AND " +
+            "(:isAccountEnabled IS NULL OR u.isAccountEnabled = :isAccountEnabled) AND " +
+            "(:isAccountExpired IS NULL OR u.isAccountExpired = :isAccountExpired) AND " +
+            "(:isCredentialsExpired IS NULL OR u.isCredentialsExpired = :isCredentialsExpired) AND " +
+            "(:createdAfter IS NULL OR u.creationDateTime > :createdAfter) AND " +
+            "(:createdBefore IS NULL OR u.creationDateTime < :createdBefore) AND " +
+            "(:lastActiveAfter IS NULL OR u.lastActivityDateTime > :lastActiveAfter) AND " +
+            "(:lastActiveBefore IS NULL OR u.lastActivityDateTime < :lastActiveBefore) AND " +
+            "(:userAuthority IS NULL OR EXISTS (SELECT a.id FROM AbstractUserAuthority a " +
+            "WHERE a.user = u AND a.userAuthority = :userAuthority)) AND " +
+            "(:afterCreation IS NULL OR " + CREATION_DATE_TIME + " > :afterCreation OR " +
+            "(" + CREATION_DATE_TIME + " = :afterCreation AND u.id > :afterId)) " +
+            "ORDER BY " + CREATION_DATE_TIME + ", u.id")
+    List<UserDto> searchUserDtos(@Param("isAccountLocked") Boolean isAccountLocked,
+                                 @Param("isAccountEnabled") Boolean isAccountEnabled,
+                                 @Param("isAccountExpired") Boolean isAccountExpired,
+                                 @Param("isCredentialsExpired") Boolean isCredentialsExpired,
+                                 @Param("createdAfter") LocalDateTime createdAfter,
+                                 @Param("createdBefore") LocalDateTime createdBefore,
+                                 @Param("lastActiveAfter") LocalDateTime lastActiveAfter,
+                                 @Param("lastActiveBefore") LocalDateTime lastActiveBefore,
+                                 @Param("userAuthority") UserAuthority userAuthority,
+                                 @Param("afterCreation") LocalDateTime afterCreation,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    /**
+     * Find the user id and {@link UserAuthority} of every authority of the users with the provided ids, as a
+     * {@link Pair}, without loading the users or their authority entities.
+     *
+     * @param userIds the user ids
+     * @return the list of user id and user authority pairs
+     */
+    @Query("SELECT NEW com.ecinema.app.domain.objects.Pair(a.user.id, a.userAuthority) " +
+            "FROM AbstractUserAuthority a WHERE a.user.id IN ?1")
+    List<Pair<Long, UserAuthority>> findAllUserIdAndUserAuthorityPairsByUserIdIn(Collection<Long> userIds);
+
 }
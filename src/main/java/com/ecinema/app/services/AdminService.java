@@ -1,5 +1,6 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.domain.dtos.AdminDto;
 import com.ecinema.app.domain.entities.Admin;
 import com.ecinema.app.domain.entities.User;
@@ -22,13 +23,18 @@ public class AdminService extends UserAuthorityService<Admin, AdminRepository, A
     private final UserRepository userRepository;
     private final EncoderService encoderService;
     private final PasswordValidator passwordValidator;
+    private final PrincipalViewCache principalViewCache;
+    private final SessionRevocationService sessionRevocationService;
 
     public AdminService(AdminRepository repository, UserRepository userRepository,
-                        PasswordValidator passwordValidator, EncoderService encoderService) {
+                        PasswordValidator passwordValidator, EncoderService encoderService,
+                        PrincipalViewCache principalViewCache, SessionRevocationService sessionRevocationService) {
         super(repository);
         this.userRepository = userRepository;
         this.encoderService = encoderService;
         this.passwordValidator = passwordValidator;
+        this.principalViewCache = principalViewCache;
+        this.sessionRevocationService = sessionRevocationService;
     }
 
     @Override
@@ -52,6 +58,8 @@ public class AdminService extends UserAuthorityService<Admin, AdminRepository, A
         String encodedPassword = encoderService.encode(adminChangeUserPasswordForm.getPassword());
         user.setPassword(encodedPassword);
         userRepository.save(user);
+        principalViewCache.invalidate(user.getId());
+        sessionRevocationService.revokeSessionsOfUserWithId(user.getId());
     }
 
 }
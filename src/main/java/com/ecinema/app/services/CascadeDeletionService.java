@@ -0,0 +1,371 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.domain.dtos.TicketDto;
+import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.BookedSeat;
+import com.ecinema.app.domain.objects.DeletionPlan;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.RatingAggregate;
+import com.ecinema.app.repositories.AdminRepository;
+import com.ecinema.app.repositories.CustomerRepository;
+import com.ecinema.app.repositories.ModeratorRepository;
+import com.ecinema.app.repositories.MovieRepository;
+import com.ecinema.app.repositories.PaymentCardRepository;
+import com.ecinema.app.repositories.ReviewRepository;
+import com.ecinema.app.repositories.ReviewVoteRepository;
+import com.ecinema.app.repositories.ScreeningRepository;
+import com.ecinema.app.repositories.ScreeningSeatRepository;
+import com.ecinema.app.repositories.ShowroomRepository;
+import com.ecinema.app.repositories.ShowroomSeatRepository;
+import com.ecinema.app.repositories.TicketRepository;
+import com.ecinema.app.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Deletes movies, screenings, showrooms and users along with everything that depends on them without loading
+ * a single entity. Deleting through {@link AbstractEntityService#delete(Long)} walks the graph one entity at a
+ * time, loading and detaching each child before deleting it, which for a movie with a few screenings means
+ * thousands of statements. Here the graph is walked once with id queries into a {@link DeletionPlan}, which is
+ * then executed with one set-based delete per table and chunk of {@link #CHUNK_SIZE} ids, children before
+ * parents. The side effects of the per-entity path are kept: seats of deleted tickets are released, tickets of
+ * deleted screenings that are still upcoming are refunded and their owners emailed, the ratings of deleted
+ * reviews are subtracted from their movies, the vote counters of reviews that lose votes are rebuilt, the seat
+ * occupancy and screening schedule caches are updated, and deleted users are dropped from the principal and
+ * authority caches and have their sessions revoked. Since the deletes bypass the persistence context, it is
+ * cleared after each of them, so entities loaded before executing a plan must not be used after.
+ */
+@Service
+@Transactional
+public class CascadeDeletionService {
+
+    /**
+     * The maximum number of ids bound to a single IN-list.
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    private final MovieRepository movieRepository;
+    private final ReviewRepository reviewRepository;
+    private final ReviewVoteRepository reviewVoteRepository;
+    private final ScreeningRepository screeningRepository;
+    private final ScreeningSeatRepository screeningSeatRepository;
+    private final TicketRepository ticketRepository;
+    private final ShowroomRepository showroomRepository;
+    private final ShowroomSeatRepository showroomSeatRepository;
+    private final UserRepository userRepository;
+    private final CustomerRepository customerRepository;
+    private final ModeratorRepository moderatorRepository;
+    private final AdminRepository adminRepository;
+    private final PaymentCardRepository paymentCardRepository;
+    private final SeatOccupancyService seatOccupancyService;
+    private final ScreeningScheduleService screeningScheduleService;
+    private final EmailService emailService;
+    private final PrincipalViewCache principalViewCache;
+    private final UserAuthorityCache userAuthorityCache;
+    private final SessionRevocationService sessionRevocationService;
+    private final MovieSearchService movieSearchService;
+    private final Logger logger = LoggerFactory.getLogger(CascadeDeletionService.class);
+
+    public CascadeDeletionService(MovieRepository movieRepository, ReviewRepository reviewRepository,
+                                  ReviewVoteRepository reviewVoteRepository, ScreeningRepository screeningRepository,
+                                  ScreeningSeatRepository screeningSeatRepository, TicketRepository ticketRepository,
+                                  ShowroomRepository showroomRepository,
+                                  ShowroomSeatRepository showroomSeatRepository, UserRepository userRepository,
+                                  CustomerRepository customerRepository, ModeratorRepository moderatorRepository,
+                                  AdminRepository adminRepository, PaymentCardRepository paymentCardRepository,
+                                  SeatOccupancyService seatOccupancyService,
+                                  ScreeningScheduleService screeningScheduleService, EmailService emailService,
+                                  PrincipalViewCache principalViewCache, UserAuthorityCache userAuthorityCache,
+                                  SessionRevocationService sessionRevocationService,
+                                  MovieSearchService movieSearchService) {
+        this.movieRepository = movieRepository;
+        this.reviewRepository = reviewRepository;
+        this.reviewVoteRepository = reviewVoteRepository;
+        this.screeningRepository = screeningRepository;
+        this.screeningSeatRepository = screeningSeatRepository;
+        this.ticketRepository = ticketRepository;
+        this.showroomRepository = showroomRepository;
+        this.showroomSeatRepository = showroomSeatRepository;
+        this.userRepository = userRepository;
+        this.customerRepository = customerRepository;
+        this.moderatorRepository = moderatorRepository;
+        this.adminRepository = adminRepository;
+        this.paymentCardRepository = paymentCardRepository;
+        this.seatOccupancyService = seatOccupancyService;
+        this.screeningScheduleService = screeningScheduleService;
+        this.emailService = emailService;
+        this.principalViewCache = principalViewCache;
+        this.userAuthorityCache = userAuthorityCache;
+        this.sessionRevocationService = sessionRevocationService;
+        this.movieSearchService = movieSearchService;
+    }
+
+    /**
+     * Plans the deletion of the movies with the provided ids along with their reviews and screenings.
+     *
+     * @param movieIds the movie ids
+     * @return the deletion plan
+     */
+    public DeletionPlan planMovies(Collection<Long> movieIds) {
+        DeletionPlan plan = new DeletionPlan();
+        plan.getMovieIds().addAll(movieIds);
+        addReviews(plan, query(movieIds, reviewRepository::findAllIdsByMovieWithIdIn));
+        addScreenings(plan, query(movieIds, screeningRepository::findAllIdsByMovieWithIdIn));
+        return plan;
+    }
+
+    /**
+     * Plans the deletion of the screenings with the provided ids along with their seats and tickets.
+     *
+     * @param screeningIds the screening ids
+     * @return the deletion plan
+     */
+    public DeletionPlan planScreenings(Collection<Long> screeningIds) {
+        DeletionPlan plan = new DeletionPlan();
+        addScreenings(plan, screeningIds);
+        return plan;
+    }
+
+    /**
+     * Plans the deletion of the showrooms with the provided ids along with their seats and screenings.
+     *
+     * @param showroomIds the showroom ids
+     * @return the deletion plan
+     */
+    public DeletionPlan planShowrooms(Collection<Long> showroomIds) {
+        DeletionPlan plan = new DeletionPlan();
+        plan.getShowroomIds().addAll(showroomIds);
+        plan.getShowroomSeatIds().addAll(
+                query(showroomIds, showroomSeatRepository::findAllIdsByShowroomWithIdIn));
+        addScreenings(plan, query(showroomIds, screeningRepository::findAllIdsByShowroomWithIdIn));
+        return plan;
+    }
+
+    /**
+     * Plans the deletion of the users with the provided ids along with their authorities and, for customers,
+     * their reviews, review votes, tickets and payment cards.
+     *
+     * @param userIds the user ids
+     * @return the deletion plan
+     */
+    public DeletionPlan planUsers(Collection<Long> userIds) {
+        DeletionPlan plan = new DeletionPlan();
+        plan.getUserIds().addAll(userIds);
+        List<Long> customerIds = query(userIds, customerRepository::findAllIdsByUserWithIdIn);
+        plan.getCustomerIds().addAll(customerIds);
+        plan.getModeratorIds().addAll(query(userIds, moderatorRepository::findAllIdsByUserWithIdIn));
+        plan.getAdminIds().addAll(query(userIds, adminRepository::findAllIdsByUserWithIdIn));
+        addReviews(plan, query(customerIds, reviewRepository::findAllIdsByWriterWithIdIn));
+        plan.getReviewVoteIds().addAll(query(customerIds, reviewVoteRepository::findAllIdsByVoterWithIdIn));
+        plan.getTicketIds().addAll(query(customerIds, ticketRepository::findAllIdsByTicketOwnerWithIdIn));
+        plan.getPaymentCardIds().addAll(
+                query(customerIds, paymentCardRepository::findAllIdsByCardOwnerWithIdIn));
+        return plan;
+    }
+
+    /**
+     * Executes the provided plan, deleting children before parents and firing the side effects of each
+     * deletion.
+     *
+     * @param plan the deletion plan
+     */
+    public void execute(DeletionPlan plan) {
+        if (plan.isEmpty()) {
+            return;
+        }
+        logger.debug("Executing deletion plan: " + plan);
+        deleteTickets(plan);
+        deleteReviewVotes(plan);
+        subtractRatings(plan);
+        update(plan.getReviewIds(), reviewRepository::deleteAllWithIds);
+        update(plan.getScreeningSeatIds(), screeningSeatRepository::deleteAllWithIds);
+        deleteScreenings(plan);
+        update(plan.getShowroomSeatIds(), showroomSeatRepository::deleteAllWithIds);
+        update(plan.getShowroomIds(), showroomRepository::deleteAllWithIds);
+        plan.getShowroomIds().forEach(screeningScheduleService::evict);
+        update(plan.getMovieIds(), movieRepository::deleteAllCastOfMoviesWithIds);
+        update(plan.getMovieIds(), movieRepository::deleteAllWritersOfMoviesWithIds);
+        update(plan.getMovieIds(), movieRepository::deleteAllMovieCategoriesOfMoviesWithIds);
+        update(plan.getMovieIds(), movieRepository::deleteAllWithIds);
+        movieSearchService.removeAll(plan.getMovieIds());
+        update(plan.getPaymentCardIds(), ticketRepository::detachPaymentCardsWithIds);
+        update(plan.getPaymentCardIds(), paymentCardRepository::deleteAllWithIds);
+        update(plan.getModeratorIds(), customerRepository::uncensorAllCensoredByModeratorsWithIds);
+        update(plan.getCustomerIds(), customerRepository::deleteAllWithIds);
+        update(plan.getModeratorIds(), moderatorRepository::deleteAllWithIds);
+        update(plan.getAdminIds(), adminRepository::deleteAllWithIds);
+        update(plan.getUserIds(), userRepository::deleteAllWithIds);
+        for (Long userId : plan.getUserIds()) {
+            principalViewCache.invalidate(userId);
+            userAuthorityCache.invalidate(userId);
+            sessionRevocationService.revokeSessionsOfUserWithId(userId);
+        }
+        logger.debug("Executed deletion plan");
+    }
+
+    private void addScreenings(DeletionPlan plan, Collection<Long> screeningIds) {
+        plan.getScreeningIds().addAll(screeningIds);
+        plan.getScreeningSeatIds().addAll(
+                query(screeningIds, screeningSeatRepository::findAllIdsByScreeningWithIdIn));
+        plan.getTicketIds().addAll(query(screeningIds, ticketRepository::findAllIdsByScreeningWithIdIn));
+    }
+
+    private void addReviews(DeletionPlan plan, Collection<Long> reviewIds) {
+        plan.getReviewIds().addAll(reviewIds);
+        plan.getReviewVoteIds().addAll(query(reviewIds, reviewVoteRepository::findAllIdsByReviewWithIdIn));
+    }
+
+    /**
+     * Deletes the review votes of the plan and rebuilds the vote counters and helpfulness of their reviews,
+     * unless the reviews are being deleted too.
+     */
+    private void deleteReviewVotes(DeletionPlan plan) {
+        if (plan.getReviewVoteIds().isEmpty()) {
+            return;
+        }
+        List<Long> reviewIds = new ArrayList<>(
+                query(plan.getReviewVoteIds(), reviewVoteRepository::findAllReviewIdsByReviewVoteWithIdIn));
+        reviewIds.removeAll(plan.getReviewIds());
+        update(plan.getReviewVoteIds(), reviewVoteRepository::deleteAllWithIds);
+        update(reviewIds, ids -> reviewRepository.repairVoteCountersOfReviewsWithIds(
+                ids, Vote.UPVOTE, Vote.DOWNVOTE));
+        update(reviewIds, reviewRepository::refreshHelpfulnessOfReviewsWithIds);
+    }
+
+    /**
+     * Subtracts the ratings of the reviews of the plan from the rating aggregates of their movies, unless the
+     * movies are being deleted too.
+     */
+    private void subtractRatings(DeletionPlan plan) {
+        if (plan.getReviewIds().isEmpty()) {
+            return;
+        }
+        for (RatingAggregate ratingAggregate :
+                query(plan.getReviewIds(), reviewRepository::findAllRatingAggregatesByReviewWithIdIn)) {
+            if (!plan.getMovieIds().contains(ratingAggregate.getMovieId())) {
+                movieRepository.addToRatingAggregates(ratingAggregate.getMovieId(),
+                                                      -ratingAggregate.getRatingSum().intValue(),
+                                                      -ratingAggregate.getRatingCount().intValue());
+            }
+        }
+    }
+
+    /**
+     * Deletes the tickets of the plan. Seats of screenings that are not being deleted are released, and tickets
+     * for upcoming screenings that are being deleted are refunded to owners who are not, like
+     * {@link TicketService#refundTicket(Long)} does: with tokens unless the ticket was paid with a payment
+     * card that still exists.
+     */
+    private void deleteTickets(DeletionPlan plan) {
+        if (plan.getTicketIds().isEmpty()) {
+            return;
+        }
+        List<BookedSeat> bookedSeats = query(
+                plan.getTicketIds(), ticketRepository::findAllBookedSeatsByTicketWithIdIn);
+        List<Long> releasedSeatIds = new ArrayList<>();
+        Map<Long, Integer> releasedSeatsByScreening = new HashMap<>();
+        Map<Long, Long> customerIdsOfRefundedTickets = new HashMap<>();
+        for (BookedSeat bookedSeat : bookedSeats) {
+            if (!plan.getScreeningIds().contains(bookedSeat.getScreeningId())) {
+                releasedSeatIds.add(bookedSeat.getScreeningSeatId());
+                releasedSeatsByScreening.merge(bookedSeat.getScreeningId(), 1, Integer::sum);
+                seatOccupancyService.markAvailable(bookedSeat.getScreeningId(), bookedSeat.getScreeningSeatId());
+            } else if (!plan.getCustomerIds().contains(bookedSeat.getCustomerId())) {
+                customerIdsOfRefundedTickets.put(bookedSeat.getTicketId(), bookedSeat.getCustomerId());
+            }
+        }
+        update(releasedSeatIds, screeningSeatRepository::releaseAllScreeningSeatsWithIds);
+        releasedSeatsByScreening.forEach(
+                (screeningId, count) -> screeningRepository.addToSeatsBooked(screeningId, -count));
+        refund(customerIdsOfRefundedTickets);
+        update(plan.getTicketIds(), ticketRepository::deleteAllWithIds);
+    }
+
+    private void refund(Map<Long, Long> customerIdsOfTickets) {
+        if (customerIdsOfTickets.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Boolean> paymentCardExists = new HashMap<>();
+        Map<Long, Integer> tokensByCustomer = new HashMap<>();
+        Map<String, List<TicketDto>> ticketDtosByEmail = new LinkedHashMap<>();
+        List<TicketDto> ticketDtos = query(customerIdsOfTickets.keySet(), ticketRepository::findAllTicketDtosByIds);
+        for (TicketDto ticketDto : ticketDtos) {
+            if (!ticketDto.getShowDateTime().isAfter(now)) {
+                continue;
+            }
+            Long paymentCardId = ticketDto.getPaymentCardId();
+            if (paymentCardId == null ||
+                    !paymentCardExists.computeIfAbsent(paymentCardId, paymentCardRepository::existsById)) {
+                tokensByCustomer.merge(customerIdsOfTickets.get(ticketDto.getId()),
+                                       ticketDto.getTicketType().getPrice(), Integer::sum);
+            }
+            ticketDtosByEmail.computeIfAbsent(ticketDto.getEmail(), email -> new ArrayList<>()).add(ticketDto);
+        }
+        tokensByCustomer.forEach(customerRepository::addTokensToCustomerWithId);
+        ticketDtosByEmail.forEach((email, refunded) -> {
+            StringBuilder message = new StringBuilder("The following ").append(refunded.size())
+                    .append(" tickets have been refunded because their screenings were cancelled:\n");
+            for (TicketDto ticketDto : refunded) {
+                message.append(TicketService.ticketDetails(ticketDto)).append("\n");
+            }
+            message.append("\nTickets paid with a payment card that still exists are refunded to that card, ")
+                   .append("the others via ECinema tokens");
+            emailService.sendFromBusinessEmail(email, message.toString(), "Ticket Refund Confirmation");
+        });
+        logger.debug("Refunded " + customerIdsOfTickets.size() + " tickets of cancelled screenings");
+    }
+
+    private void deleteScreenings(DeletionPlan plan) {
+        if (plan.getScreeningIds().isEmpty()) {
+            return;
+        }
+        for (Pair<Long, Long> showroomIdAndScreeningId :
+                query(plan.getScreeningIds(), screeningRepository::findAllShowroomIdAndIdPairsByIdIn)) {
+            screeningScheduleService.remove(showroomIdAndScreeningId.getFirst(),
+                                            showroomIdAndScreeningId.getSecond());
+        }
+        update(plan.getScreeningIds(), screeningRepository::deleteAllWithIds);
+        plan.getScreeningIds().forEach(seatOccupancyService::evict);
+    }
+
+    private static <T> List<T> query(Collection<Long> ids, Function<Collection<Long>, List<T>> query) {
+        List<T> results = new ArrayList<>();
+        for (List<Long> chunk : chunk(ids)) {
+            results.addAll(query.apply(chunk));
+        }
+        return results;
+    }
+
+    private static int update(Collection<Long> ids, ToIntFunction<Collection<Long>> update) {
+        int updated = 0;
+        for (List<Long> chunk : chunk(ids)) {
+            updated += update.applyAsInt(chunk);
+        }
+        return updated;
+    }
+
+    private static List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> list = List.copyOf(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < list.size(); i += CHUNK_SIZE) {
+            chunks.add(list.subList(i, Math.min(list.size(), i + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.domain.dtos.ChangePasswordDto;
 import com.ecinema.app.domain.entities.ChangePassword;
 import com.ecinema.app.domain.entities.User;
@@ -29,15 +30,20 @@ public class ChangePasswordService extends AbstractEntityService<ChangePassword,
     private final EncoderService encoderService;
     private final UserRepository userRepository;
     private final PasswordValidator passwordValidator;
+    private final PrincipalViewCache principalViewCache;
+    private final SessionRevocationService sessionRevocationService;
 
     public ChangePasswordService(ChangePasswordRepository repository, EmailService emailService,
                                  EncoderService encoderService, UserRepository userRepository,
-                                 PasswordValidator passwordValidator) {
+                                 PasswordValidator passwordValidator, PrincipalViewCache principalViewCache,
+                                 SessionRevocationService sessionRevocationService) {
         super(repository);
         this.emailService = emailService;
         this.encoderService = encoderService;
         this.userRepository = userRepository;
         this.passwordValidator = passwordValidator;
+        this.principalViewCache = principalViewCache;
+        this.sessionRevocationService = sessionRevocationService;
     }
 
     @Override
@@ -134,6 +140,8 @@ public class ChangePasswordService extends AbstractEntityService<ChangePassword,
         logger.debug("Changing user password from " + user.getPassword() + " to " + changePassword.getPassword());
         user.setPassword(changePassword.getPassword());
         userRepository.save(user);
+        principalViewCache.invalidate(user.getId());
+        sessionRevocationService.revokeSessionsOfUserWithId(user.getId());
         repository.deleteAllByUserId(user.getId());
         sendConfirmationEmail(user.getEmail());
         logger.debug("Deleted all change password requests associated with user id: " + user.getId());
@@ -0,0 +1,147 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.entities.OutboxEmail;
+import com.ecinema.app.domain.enums.OutboxEmailStatus;
+import com.ecinema.app.repositories.OutboxEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email outbox. Every poll takes a batch of due emails, leases them one by one so that they are not
+ * taken again while in flight, by this or by another node, and delivers the ones it leased on a bounded worker
+ * pool. A failed delivery is retried with
+ * exponential backoff and the email is marked dead once it runs out of attempts. If the application stops
+ * mid-batch the leases run out and the emails are picked up again, so delivery is at least once. The outcome of
+ * a delivery is recorded only under the lease it was made with, so a dispatcher that outlived its lease cannot
+ * overwrite the outcome of the one that took the email over. Sent and dead emails are purged in batches once they
+ * are older than the retention period.
+ */
+@Service
+public class EmailDispatchService {
+
+    static final int MAX_ATTEMPTS = 6;
+    static final Duration LEASE = Duration.ofMinutes(5);
+    static final Duration BASE_BACKOFF = Duration.ofSeconds(30);
+    static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    private final int batchSize;
+    private final int purgeBatchSize;
+    private final Duration retention;
+    private final Executor executor;
+    private final EmailService emailService;
+    private final OutboxEmailRepository outboxEmailRepository;
+    private final Logger logger = LoggerFactory.getLogger(EmailDispatchService.class);
+
+    public EmailDispatchService(EmailService emailService, OutboxEmailRepository outboxEmailRepository,
+                                @Qualifier("emailDispatchExecutor") Executor executor,
+                                @Value("${emailOutbox.batchSize:50}") int batchSize,
+                                @Value("${emailOutbox.purgeBatchSize:500}") int purgeBatchSize,
+                                @Value("${emailOutbox.retentionHours:168}") long retentionHours) {
+        this.emailService = emailService;
+        this.outboxEmailRepository = outboxEmailRepository;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.purgeBatchSize = purgeBatchSize;
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * Delivers the next batch of due emails that this dispatcher manages to lease, and waits for every one of them
+     * to be resolved. Waiting slows the polling down to the pace of delivery, and it holds one thread of the
+     * scheduler pool, which is sized for the other scheduled jobs to run meanwhile, see
+     * {@code spring.task.scheduling.pool.size}.
+     *
+     * @return the number of emails attempted
+     */
+    @Scheduled(fixedDelayString = "${emailOutbox.pollIntervalMillis:2000}")
+    public int dispatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEmail> batch = outboxEmailRepository.findAllDue(now, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // whole seconds, so that the lease read back from the database still equals the one held here
+        LocalDateTime leaseExpiry = now.plus(LEASE).truncatedTo(ChronoUnit.SECONDS);
+        List<OutboxEmail> leased = batch.stream()
+                                        .filter(outboxEmail -> outboxEmailRepository.leaseWithId(
+                                                outboxEmail.getId(), now, leaseExpiry) == 1)
+                                        .collect(Collectors.toList());
+        CompletableFuture.allOf(leased.stream()
+                                      .map(outboxEmail -> CompletableFuture.runAsync(
+                                              () -> deliver(outboxEmail, leaseExpiry), executor))
+                                      .toArray(CompletableFuture[]::new)).join();
+        logger.debug("Dispatched " + leased.size() + " of " + batch.size() + " due outbox emails");
+        return leased.size();
+    }
+
+    /**
+     * Purges every sent or dead email created more than the retention period ago, one batch of ids at a time, each
+     * batch its own short transaction.
+     *
+     * @return the number of emails purged
+     */
+    @Scheduled(fixedDelayString = "${emailOutbox.purgeIntervalMillis:3600000}")
+    public int purge() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(retention);
+        Pageable batch = PageRequest.of(0, purgeBatchSize);
+        int purged = 0;
+        List<Long> ids;
+        while (!(ids = outboxEmailRepository.findAllResolvedIdsByCreationDateTimeBefore(
+                createdBefore, batch)).isEmpty()) {
+            purged += outboxEmailRepository.deleteAllWithIds(ids);
+        }
+        if (purged > 0) {
+            logger.debug("Purged " + purged + " resolved outbox emails");
+        }
+        return purged;
+    }
+
+    private void deliver(OutboxEmail outboxEmail, LocalDateTime leaseExpiry) {
+        try {
+            emailService.deliver(outboxEmail);
+            if (outboxEmailRepository.markSent(outboxEmail.getId(), leaseExpiry, LocalDateTime.now()) == 0) {
+                logger.debug("Lost the lease of " + outboxEmail + " before it was marked sent");
+            }
+        } catch (RuntimeException e) {
+            int attempts = outboxEmail.getAttempts() + 1;
+            String error = String.valueOf(e.getMessage());
+            error = error.length() > 255 ? error.substring(0, 255) : error;
+            if (attempts >= MAX_ATTEMPTS) {
+                logger.error("Giving up on " + outboxEmail + " after " + attempts + " attempts: " + error);
+                outboxEmailRepository.markFailed(
+                        outboxEmail.getId(), leaseExpiry, OutboxEmailStatus.DEAD, attempts, null, error);
+            } else {
+                logger.debug("Retrying " + outboxEmail + " after attempt " + attempts + " failed: " + error);
+                outboxEmailRepository.markFailed(outboxEmail.getId(), leaseExpiry, OutboxEmailStatus.PENDING,
+                                                 attempts, LocalDateTime.now().plus(backoff(attempts)), error);
+            }
+        }
+    }
+
+    /**
+     * The delay before the next attempt after the provided number of failed attempts, doubling with every
+     * attempt up to {@link #MAX_BACKOFF}.
+     *
+     * @param attempts the number of failed attempts
+     * @return the backoff
+     */
+    static Duration backoff(int attempts) {
+        Duration backoff = BASE_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff;
+    }
+
+}
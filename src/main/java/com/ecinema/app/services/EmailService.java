@@ -1,23 +1,34 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.domain.entities.OutboxEmail;
+import com.ecinema.app.domain.enums.OutboxEmailStatus;
 import com.ecinema.app.exceptions.EmailException;
-import org.springframework.beans.factory.annotation.Value;
+import com.ecinema.app.repositories.OutboxEmailRepository;
+import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
 
+/**
+ * Sends emails through an outbox. {@link #send(String, String, String, String)} only writes an
+ * {@link OutboxEmail} row as part of the current transaction; {@link EmailDispatchService} delivers it over
+ * SMTP once that transaction has committed.
+ */
 @Service
 public class EmailService {
 
     private static final String BUSINESS = "ECinema";
 
     private final JavaMailSender javaMailSender;
+    private final OutboxEmailRepository outboxEmailRepository;
 
-    public EmailService(JavaMailSender javaMailSender) {
+    public EmailService(JavaMailSender javaMailSender, OutboxEmailRepository outboxEmailRepository) {
         this.javaMailSender = javaMailSender;
+        this.outboxEmailRepository = outboxEmailRepository;
     }
 
     public void sendFromBusinessEmail(String to, String email, String subject)
@@ -27,13 +38,33 @@ public class EmailService {
 
     public void send(String from, String to, String email, String subject)
             throws EmailException {
+        OutboxEmail outboxEmail = new OutboxEmail();
+        outboxEmail.setSender(from);
+        outboxEmail.setRecipient(to);
+        outboxEmail.setBody(email);
+        outboxEmail.setSubject(subject);
+        outboxEmail.setStatus(OutboxEmailStatus.PENDING);
+        outboxEmail.setCreationDateTime(LocalDateTime.now());
+        outboxEmail.setNextAttemptDateTime(outboxEmail.getCreationDateTime());
+        outboxEmailRepository.save(outboxEmail);
+    }
+
+    /**
+     * Delivers the outbox email over SMTP. Called by {@link EmailDispatchService} only.
+     *
+     * @param outboxEmail the outbox email
+     * @throws EmailException if the message cannot be built
+     * @throws MailException  if the mail server rejects or cannot be reached
+     */
+    public void deliver(OutboxEmail outboxEmail)
+            throws EmailException, MailException {
         try {
             MimeMessage mimeMessage = javaMailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "utf-8");
-            helper.setText(email, true);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setFrom(from);
+            helper.setText(outboxEmail.getBody(), true);
+            helper.setTo(outboxEmail.getRecipient());
+            helper.setSubject(outboxEmail.getSubject());
+            helper.setFrom(outboxEmail.getSender());
             helper.setFrom(BUSINESS);
             javaMailSender.send(mimeMessage);
         } catch (MessagingException e) {
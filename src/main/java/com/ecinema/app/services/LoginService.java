@@ -1,48 +1,51 @@
 package com.ecinema.app.services;
 
-import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.exceptions.PasswordMismatchException;
-import com.ecinema.app.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 @Service
 @RequiredArgsConstructor
 public class LoginService {
 
-    private final UserRepository userRepository;
-    private final EncoderService encoderService;
     private final DaoAuthenticationProvider daoAuthenticationProvider;
     private final Logger logger = LoggerFactory.getLogger(LoginService.class);
 
+    /**
+     * Authenticates the user with the provided username or email and password and sets them as the principal of
+     * the current security context. The password is verified once, on the bounded password hashing pool, and
+     * rehashed if its cost differs from the configured strength.
+     *
+     * @param s        the username or email
+     * @param password the raw password
+     * @throws PasswordMismatchException if no user has the provided username or email, or the password is wrong
+     * @throws com.ecinema.app.exceptions.LoginThrottledException if the password hashing pool is saturated
+     */
     public void login(final String s, final String password)
-            throws NoEntityFoundException, PasswordMismatchException {
+            throws PasswordMismatchException {
         logger.debug("Security AbstractEntityService login method");
-        UserDetails user = userRepository.findByUsernameOrEmail(s).orElseThrow(
-                () -> new NoEntityFoundException("user", "username or email", s));
-        if (!encoderService.matches(password, user.getPassword())) {
+        Authentication authentication;
+        try {
+            authentication = daoAuthenticationProvider.authenticate(
+                    new UsernamePasswordAuthenticationToken(s, password));
+        } catch (BadCredentialsException e) {
             throw new PasswordMismatchException(s);
         }
-        for (GrantedAuthority authority : user.getAuthorities()) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
             logger.debug("User has authority: " + authority.getAuthority());
         }
-        UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
-                new UsernamePasswordAuthenticationToken(
-                        user, password, user.getAuthorities());
-        daoAuthenticationProvider.authenticate(usernamePasswordAuthenticationToken);
         SecurityContext securityContext = SecurityContextHolder.getContext();
-        if (usernamePasswordAuthenticationToken.isAuthenticated()) {
-            logger.debug(String.format("Auto login %s success!", user.getUsername()));
-            securityContext.setAuthentication(usernamePasswordAuthenticationToken);
-        }
+        logger.debug(String.format("Auto login %s success!", authentication.getName()));
+        securityContext.setAuthentication(authentication);
     }
 
 }
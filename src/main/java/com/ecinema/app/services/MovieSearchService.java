@@ -0,0 +1,253 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.entities.Movie;
+import com.ecinema.app.domain.entities.MovieIndexVersion;
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+import com.ecinema.app.domain.objects.MovieFacetFilter;
+import com.ecinema.app.domain.objects.MovieFacetIndex;
+import com.ecinema.app.domain.objects.MovieFacets;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.TrigramIndex;
+import com.ecinema.app.repositories.MovieIndexVersionRepository;
+import com.ecinema.app.repositories.MovieRepository;
+import com.ecinema.app.util.UtilMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Answers movie searches from a {@link TrigramIndex} over the title, director and cast of every movie instead of
+ * a leading-wildcard LIKE, which scans the whole table on every keystroke of the search box. The title weighs
+ * more than the director and cast. The index is built once the application is ready and is then kept in step
+ * by the submit and delete paths of {@link MovieService} and {@link CascadeDeletionService} once their
+ * transactions commit. Those paths also bump the {@link MovieIndexVersion} in their transactions, and every node
+ * polls it in {@link #refresh()} and rebuilds when it has moved, so changes made by other nodes show up within
+ * one poll interval. Until it is first built, {@link #search(String)} answers empty and callers fall back to the
+ * database.
+ * <p>
+ * Alongside, a {@link MovieFacetIndex} of the categories and rating of every movie answers faceted browsing. It
+ * is kept in step the same way, and the version poll rebuilds it together with the search index, so the facet
+ * counts of every node also catch up with changes made elsewhere within one poll interval. Until it is first
+ * built, {@link #browse(MovieFacetFilter)} loads one from the database for the call.
+ */
+@Service
+public class MovieSearchService {
+
+    /**
+     * The maximum number of movie ids a search returns.
+     */
+    public static final int MAX_RESULTS = 1000;
+
+    private static final double TITLE_WEIGHT = 1.0;
+    private static final double DIRECTOR_WEIGHT = 0.6;
+    private static final double CAST_WEIGHT = 0.6;
+
+    private final MovieRepository movieRepository;
+    private final MovieIndexVersionRepository movieIndexVersionRepository;
+    private final Object rebuildLock = new Object();
+    private final Logger logger = LoggerFactory.getLogger(MovieSearchService.class);
+    private volatile TrigramIndex index;
+    private volatile MovieFacetIndex facetIndex;
+    private volatile long indexedVersion;
+    private List<BiConsumer<TrigramIndex, MovieFacetIndex>> changesDuringRebuild;
+
+    public MovieSearchService(MovieRepository movieRepository,
+                              MovieIndexVersionRepository movieIndexVersionRepository) {
+        this.movieRepository = movieRepository;
+        this.movieIndexVersionRepository = movieIndexVersionRepository;
+    }
+
+    /**
+     * Finds the ids of the movies matching the provided query, best match first, see
+     * {@link TrigramIndex#search(String, int)}.
+     *
+     * @param query the query
+     * @return the list of movie ids, or empty if the index is not built yet
+     */
+    public Optional<List<Long>> search(String query) {
+        TrigramIndex current = index;
+        return current != null ? Optional.of(current.search(query, MAX_RESULTS)) : Optional.empty();
+    }
+
+    /**
+     * Finds the ids of the movies matching the provided filter in ascending order, along with the facet counts,
+     * see {@link MovieFacetIndex#browse(MovieFacetFilter)}.
+     *
+     * @param filter the filter
+     * @return the pair of the list of movie ids and the facet counts
+     */
+    public Pair<List<Long>, MovieFacets> browse(MovieFacetFilter filter) {
+        MovieFacetIndex current = facetIndex;
+        return (current != null ? current : loadFacetIndex()).browse(filter);
+    }
+
+    /**
+     * Indexes the title, director, cast, categories and rating of the provided movie once the current transaction
+     * commits, and bumps the index version in it for the other nodes.
+     *
+     * @param movie the movie
+     */
+    public void index(Movie movie) {
+        bumpVersion();
+        Long movieId = movie.getId();
+        Map<String, Double> weightedFields = weightedFieldsOf(movie.getTitle(), movie.getDirector(),
+                                                              new ArrayList<>(movie.getCast()));
+        Set<MovieCategory> movieCategories = EnumSet.noneOf(MovieCategory.class);
+        movieCategories.addAll(movie.getMovieCategories());
+        MsrbRating msrbRating = movie.getMsrbRating();
+        UtilMethods.runAfterCommit(() -> apply((trigramIndex, movieFacetIndex) -> {
+            trigramIndex.put(movieId, weightedFields);
+            movieFacetIndex.put(movieId, movieCategories, msrbRating);
+        }));
+    }
+
+    /**
+     * Removes the movie with the provided id once the current transaction commits, and bumps the index version
+     * in it for the other nodes.
+     *
+     * @param movieId the movie id
+     */
+    public void remove(Long movieId) {
+        removeAll(List.of(movieId));
+    }
+
+    /**
+     * Removes the movies with the provided ids once the current transaction commits, and bumps the index version
+     * in it once for the other nodes.
+     *
+     * @param movieIds the movie ids
+     */
+    public void removeAll(Collection<Long> movieIds) {
+        if (movieIds.isEmpty()) {
+            return;
+        }
+        bumpVersion();
+        List<Long> removed = List.copyOf(movieIds);
+        UtilMethods.runAfterCommit(() -> apply((trigramIndex, movieFacetIndex) -> removed.forEach(movieId -> {
+            trigramIndex.remove(movieId);
+            movieFacetIndex.remove(movieId);
+        })));
+    }
+
+    /**
+     * Rebuilds the search and facet indexes if the index version has moved since they were last built, which
+     * means another node, or this one, has changed a movie since. A rebuild on the node that made the change is
+     * redundant but harmless, and movies change rarely enough for it not to matter.
+     *
+     * @return true if the indexes were rebuilt
+     */
+    @Scheduled(fixedDelayString = "${movieSearch.refreshMillis:5000}")
+    public boolean refresh() {
+        if (index == null || currentVersion() == indexedVersion) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Rebuilds the search and facet indexes from the database. Changes committed while the database is read are
+     * replayed onto the new indexes before they replace the old ones.
+     *
+     * @return the number of movies indexed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${movieSearch.rebuildCron:0 0 5 * * *}")
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            return doRebuild();
+        }
+    }
+
+    private int doRebuild() {
+        long version = currentVersion();
+        synchronized (this) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        Map<Long, String> titles = new HashMap<>();
+        Map<Long, String> directors = new HashMap<>();
+        Map<Long, List<String>> casts = new HashMap<>();
+        movieRepository.findAllIdAndTitlePairs().forEach(pair -> titles.put(pair.getFirst(), pair.getSecond()));
+        movieRepository.findAllIdAndDirectorPairs().forEach(
+                pair -> directors.put(pair.getFirst(), pair.getSecond()));
+        for (Pair<Long, String> pair : movieRepository.findAllIdAndCastMemberPairs()) {
+            casts.computeIfAbsent(pair.getFirst(), movieId -> new ArrayList<>()).add(pair.getSecond());
+        }
+        TrigramIndex rebuilt = new TrigramIndex();
+        titles.forEach((movieId, title) -> rebuilt.put(movieId, weightedFieldsOf(
+                title, directors.get(movieId), casts.getOrDefault(movieId, List.of()))));
+        MovieFacetIndex rebuiltFacets = loadFacetIndex();
+        synchronized (this) {
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt, rebuiltFacets));
+            changesDuringRebuild = null;
+            index = rebuilt;
+            facetIndex = rebuiltFacets;
+            indexedVersion = version;
+        }
+        logger.debug("Rebuilt movie search index of " + rebuilt.size() + " movies");
+        return rebuilt.size();
+    }
+
+    private synchronized void apply(BiConsumer<TrigramIndex, MovieFacetIndex> change) {
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(change);
+        }
+        if (index != null) {
+            change.accept(index, facetIndex);
+        }
+    }
+
+    private long currentVersion() {
+        return movieIndexVersionRepository.findVersion().orElse(0L);
+    }
+
+    private void bumpVersion() {
+        if (movieIndexVersionRepository.increment() == 0) {
+            MovieIndexVersion movieIndexVersion = new MovieIndexVersion();
+            movieIndexVersion.setVersion(1L);
+            movieIndexVersionRepository.save(movieIndexVersion);
+        }
+    }
+
+    private MovieFacetIndex loadFacetIndex() {
+        Map<Long, Set<MovieCategory>> movieCategories = new HashMap<>();
+        for (Pair<Long, MovieCategory> pair : movieRepository.findAllIdAndMovieCategoryPairs()) {
+            movieCategories.computeIfAbsent(pair.getFirst(), movieId -> EnumSet.noneOf(MovieCategory.class))
+                           .add(pair.getSecond());
+        }
+        MovieFacetIndex movieFacetIndex = new MovieFacetIndex();
+        for (Pair<Long, MsrbRating> pair : movieRepository.findAllIdAndMsrbRatingPairs()) {
+            movieFacetIndex.put(pair.getFirst(), movieCategories.getOrDefault(pair.getFirst(), Set.of()),
+                                pair.getSecond());
+        }
+        return movieFacetIndex;
+    }
+
+    private static Map<String, Double> weightedFieldsOf(String title, String director, List<String> cast) {
+        Map<String, Double> weightedFields = new LinkedHashMap<>();
+        cast.forEach(castMember -> weightedFields.put(castMember, CAST_WEIGHT));
+        if (director != null) {
+            weightedFields.put(director, DIRECTOR_WEIGHT);
+        }
+        if (title != null) {
+            weightedFields.put(title, TITLE_WEIGHT);
+        }
+        return weightedFields;
+    }
+
+}
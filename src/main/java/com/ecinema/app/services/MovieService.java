@@ -3,18 +3,31 @@ package com.ecinema.app.services;
 import com.ecinema.app.domain.dtos.MovieDto;
 import com.ecinema.app.domain.entities.Movie;
 import com.ecinema.app.domain.forms.MovieForm;
+import com.ecinema.app.domain.objects.MovieFacetFilter;
+import com.ecinema.app.domain.objects.MovieFacetPage;
+import com.ecinema.app.domain.objects.MovieFacets;
+import com.ecinema.app.domain.objects.Pair;
 import com.ecinema.app.validators.MovieValidator;
 import com.ecinema.app.exceptions.InvalidArgumentException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.repositories.MovieRepository;
 import com.ecinema.app.util.UtilMethods;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -23,6 +36,8 @@ public class MovieService extends AbstractEntityService<Movie, MovieRepository,
     private final ScreeningService screeningService;
     private final ReviewService reviewService;
     private final MovieValidator movieValidator;
+    private final CascadeDeletionService cascadeDeletionService;
+    private final MovieSearchService movieSearchService;
 
     /**
      * Instantiates a new Movie service.
@@ -31,19 +46,34 @@ public class MovieService extends AbstractEntityService<Movie, MovieRepository,
      * @param reviewService          the review service
      * @param screeningService       the screening service
      * @param movieValidator         the movie validator
+     * @param cascadeDeletionService the cascade deletion service
+     * @param movieSearchService     the movie search service
      */
     public MovieService(MovieRepository repository, ReviewService reviewService,
-                        ScreeningService screeningService, MovieValidator movieValidator) {
+                        ScreeningService screeningService, MovieValidator movieValidator,
+                        CascadeDeletionService cascadeDeletionService, MovieSearchService movieSearchService) {
         super(repository);
         this.reviewService = reviewService;
         this.screeningService = screeningService;
         this.movieValidator = movieValidator;
+        this.cascadeDeletionService = cascadeDeletionService;
+        this.movieSearchService = movieSearchService;
     }
 
     public static String convertTitleToSearchTitle(String title) {
         return UtilMethods.removeWhitespace(title).toUpperCase();
     }
 
+    /**
+     * The average rating of the uncensored reviews of the provided movie, or 0 if it has none.
+     *
+     * @param movie the movie
+     * @return the average rating
+     */
+    public static double averageRatingOf(Movie movie) {
+        return movie.getRatingCount() > 0 ? (double) movie.getRatingSum() / movie.getRatingCount() : 0.0;
+    }
+
     @Override
     protected void onDelete(Movie movie) {
         logger.debug("Movie on delete");
@@ -53,6 +83,31 @@ public class MovieService extends AbstractEntityService<Movie, MovieRepository,
         // cascade delete Screenings
         logger.debug("Deleting all associated screenings");
         screeningService.deleteAll(movie.getScreenings());
+        movieSearchService.remove(movie.getId());
+    }
+
+    /**
+     * Deletes the movie with the provided id and everything depending on it in bulk, see
+     * {@link CascadeDeletionService}. Use {@link #delete(Movie)} for a movie already loaded and in use.
+     *
+     * @param movieId the movie id
+     * @throws NoEntityFoundException if no movie exists with the provided id
+     */
+    @Override
+    public void delete(Long movieId)
+            throws NoEntityFoundException {
+        if (!repository.existsById(movieId)) {
+            throw new NoEntityFoundException("movie", "id", movieId);
+        }
+        cascadeDeletionService.execute(cascadeDeletionService.planMovies(List.of(movieId)));
+    }
+
+    /**
+     * Deletes every movie and everything depending on them in bulk, see {@link CascadeDeletionService}.
+     */
+    @Override
+    public void deleteAll() {
+        cascadeDeletionService.execute(cascadeDeletionService.planMovies(repository.findAllIds()));
     }
 
     @Override
@@ -60,6 +115,8 @@ public class MovieService extends AbstractEntityService<Movie, MovieRepository,
         MovieDto movieDTO = new MovieDto();
         movieDTO.setId(movie.getId());
         movieDTO.setToIMovie(movie);
+        movieDTO.setAverageRating(averageRatingOf(movie));
+        movieDTO.setRatingCount(movie.getRatingCount());
         logger.debug("Converted movie to DTO: " + movieDTO);
         logger.debug("Movie: " + movie);
         return movieDTO;
@@ -98,6 +155,7 @@ public class MovieService extends AbstractEntityService<Movie, MovieRepository,
         movie.setToIMovie(movieForm);
         logger.debug("Saved movie: " + movie);
         save(movie);
+        movieSearchService.index(movie);
         return movie.getId();
     }
 
@@ -108,10 +166,62 @@ public class MovieService extends AbstractEntityService<Movie, MovieRepository,
         return convertToDto(movie);
     }
 
+    /**
+     * Finds the page of movies matching the provided search by title, director or cast, best match first, see
+     * {@link MovieSearchService}. Until the search index is built, finds the movies whose search title contains
+     * the search instead.
+     *
+     * @param title    the search
+     * @param pageable the pageable
+     * @return the page of movie dtos
+     */
     public Page<MovieDto> findAllByLikeTitle(String title, Pageable pageable) {
-        String searchTitle = convertTitleToSearchTitle(title);
-        return repository.findBySearchTitleContaining(searchTitle, pageable)
-                         .map(this::convertToDto);
+        Optional<List<Long>> movieIds = movieSearchService.search(title);
+        if (movieIds.isEmpty()) {
+            String searchTitle = convertTitleToSearchTitle(title);
+            return repository.findBySearchTitleContaining(searchTitle, pageable)
+                             .map(this::convertToDto);
+        }
+        return pageOf(movieIds.get(), pageable);
+    }
+
+    /**
+     * Finds the page of movies matching the provided facet filter in ascending order of id, along with the facet
+     * counts of every matching movie, see {@link MovieSearchService#browse(MovieFacetFilter)}.
+     *
+     * @param filter   the filter
+     * @param pageable the pageable
+     * @return the page of movie dtos and the facet counts
+     */
+    public MovieFacetPage findAllByFacets(MovieFacetFilter filter, Pageable pageable) {
+        Pair<List<Long>, MovieFacets> browse = movieSearchService.browse(filter);
+        return new MovieFacetPage(pageOf(browse.getFirst(), pageable), browse.getSecond());
+    }
+
+    private Page<MovieDto> pageOf(List<Long> orderedIds, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), orderedIds.size());
+        List<Long> pageIds = orderedIds.subList(from, Math.min(from + pageable.getPageSize(), orderedIds.size()));
+        Map<Long, Integer> ranks = new HashMap<>();
+        for (int i = 0; i < pageIds.size(); i++) {
+            ranks.put(pageIds.get(i), i);
+        }
+        List<MovieDto> movieDtos = repository.findAllById(pageIds).stream()
+                                             .sorted(Comparator.comparing(movie -> ranks.get(movie.getId())))
+                                             .map(this::convertToDto)
+                                             .collect(Collectors.toList());
+        return new PageImpl<>(movieDtos, pageable, orderedIds.size());
+    }
+
+    /**
+     * Rebuilds the rating sum and count of every movie from its uncensored reviews. Runs once the application is
+     * ready, which fills in the ratings of movies reviewed before they were kept, and then nightly to correct any
+     * drift.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${movieRatings.repairCron:0 30 4 * * *}")
+    public void repairRatingAggregates() {
+        int moviesRepaired = repository.repairRatingAggregates();
+        logger.debug("Repaired the rating aggregates of " + moviesRepaired + " movies");
     }
 
     public List<String> onDeleteInfo(Long movieId) {
@@ -6,26 +6,47 @@ import com.ecinema.app.domain.entities.Movie;
 import com.ecinema.app.domain.entities.Review;
 import com.ecinema.app.domain.enums.Vote;
 import com.ecinema.app.domain.forms.ReviewForm;
+import com.ecinema.app.domain.objects.ReviewWriter;
 import com.ecinema.app.validators.ReviewValidator;
 import com.ecinema.app.exceptions.*;
 import com.ecinema.app.repositories.CustomerRepository;
 import com.ecinema.app.repositories.MovieRepository;
 import com.ecinema.app.repositories.ReviewRepository;
 import com.ecinema.app.util.UtilMethods;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ReviewService extends AbstractEntityService<Review, ReviewRepository, ReviewDto> {
 
+    /**
+     * Orders reviews from most helpful, see {@link Review#getHelpfulness()}, and then from newest. Served by the
+     * index on {@link Review} when paging the uncensored reviews of a movie.
+     */
+    public static final Sort MOST_HELPFUL = Sort.by(Sort.Order.desc("helpfulness"), Sort.Order.desc("id"));
+
+    /**
+     * Orders reviews from newest, the order of a page of reviews requested without a sort.
+     */
+    public static final Sort NEWEST = Sort.by(Sort.Direction.DESC, "creationDateTime", "id");
+
     private final CustomerRepository customerRepository;
     private final MovieRepository movieRepository;
     private final ReviewValidator reviewValidator;
@@ -55,6 +76,9 @@ public class ReviewService extends AbstractEntityService<Review, ReviewRepositor
         Movie movie = review.getMovie();
         if (movie != null) {
             logger.debug("Detach movie: " + movie);
+            if (Boolean.FALSE.equals(review.getIsCensored())) {
+                movieRepository.addToRatingAggregates(movie.getId(), -review.getRating(), -1);
+            }
             movie.getReviews().remove(review);
             review.setMovie(null);
         }
@@ -64,28 +88,50 @@ public class ReviewService extends AbstractEntityService<Review, ReviewRepositor
 
     @Override
     public ReviewDto convertToDto(Review review) {
-        ReviewDto reviewDTO = new ReviewDto();
-        reviewDTO.setToIReview(review);
-        reviewDTO.setId(review.getId());
-        reviewDTO.setIsCensored(review.getIsCensored());
-        reviewDTO.setCreationDateTime(review.getCreationDateTime());
-        reviewDTO.setCustomerId(
-                repository.findCustomerIdByReviewWithId(review.getId())
-                          .orElseThrow(() -> new NoEntityFoundException(
-                                  "customer id", "review id", review.getId())));
-        reviewDTO.setUserId(
-                repository.findUserIdByReviewWithId(review.getId())
-                        .orElseThrow(() -> new NoEntityFoundException(
-                                "user id", "review id", review.getId())));
-        reviewDTO.setWriter(
-                repository.findUsernameOfWriterForReviewWithId(review.getId())
-                        .orElseThrow(() -> new NoEntityFoundException(
-                                "username", "review id", review.getId())));
-        Map<Vote, List<Long>> mapOfVoterUserIds = reviewVoteService.mapOfVoterUserIds(review.getId());
-        reviewDTO.setUpvoteUserIds(mapOfVoterUserIds.get(Vote.UPVOTE));
-        reviewDTO.setDownvoteUserIds(mapOfVoterUserIds.get(Vote.DOWNVOTE));
-        logger.debug("convert review to DTO: " + reviewDTO);
-        return reviewDTO;
+        return convertToDtos(List.of(review), null).get(0);
+    }
+
+    /**
+     * Converts the provided reviews to dtos in at most two queries, one for the writers of the reviews and one for
+     * the vote of the user with the provided id on each review, if any. The vote counts are read from the
+     * counters on each review.
+     *
+     * @param reviews the reviews
+     * @param userId  the id of the user to find the votes of, or null for none
+     * @return the list of review dtos in the order of the reviews
+     * @throws NoEntityFoundException if a review has no writer
+     */
+    public List<ReviewDto> convertToDtos(List<Review> reviews, Long userId)
+            throws NoEntityFoundException {
+        if (reviews.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> reviewIds = reviews.stream().map(Review::getId).collect(Collectors.toList());
+        Map<Long, ReviewWriter> writers = new HashMap<>();
+        repository.findAllReviewWritersByReviewWithIdIn(reviewIds).forEach(
+                writer -> writers.put(writer.getReviewId(), writer));
+        Map<Long, ReviewDto> reviewDtos = new LinkedHashMap<>();
+        for (Review review : reviews) {
+            ReviewWriter writer = writers.get(review.getId());
+            if (writer == null) {
+                throw new NoEntityFoundException("writer", "review id", review.getId());
+            }
+            ReviewDto reviewDTO = new ReviewDto();
+            reviewDTO.setToIReview(review);
+            reviewDTO.setId(review.getId());
+            reviewDTO.setIsCensored(review.getIsCensored());
+            reviewDTO.setCreationDateTime(review.getCreationDateTime());
+            reviewDTO.setCustomerId(writer.getCustomerId());
+            reviewDTO.setUserId(writer.getUserId());
+            reviewDTO.setWriter(writer.getUsername());
+            reviewDTO.setUpvotes(review.getUpvotes());
+            reviewDTO.setDownvotes(review.getDownvotes());
+            reviewDtos.put(review.getId(), reviewDTO);
+        }
+        reviewVoteService.findAllVotesOfUser(reviewIds, userId).forEach(
+                (reviewId, vote) -> reviewDtos.get(reviewId).setVoteOfCurrentUser(vote));
+        logger.debug("Converted " + reviewDtos.size() + " reviews to DTOs");
+        return new ArrayList<>(reviewDtos.values());
     }
 
     public void submitReviewForm(ReviewForm reviewForm)
@@ -118,6 +164,7 @@ public class ReviewService extends AbstractEntityService<Review, ReviewRepositor
         review.setCreationDateTime(LocalDateTime.now());
         review.setIsCensored(false);
         repository.save(review);
+        movieRepository.addToRatingAggregates(movie.getId(), review.getRating(), 1);
         logger.debug("Instantiated and saved review for " + movie.getTitle() +
                              " by " + customer.getUser().getUsername());
     }
@@ -127,15 +174,68 @@ public class ReviewService extends AbstractEntityService<Review, ReviewRepositor
         return repository.existsByUserWithIdAndMovieWithId(userId, movieId);
     }
 
-    public Page<ReviewDto> findPageByMovieIdAndNotCensored(Long movieId, Pageable pageable) {
-        return repository.findAllByMovieWithIdAndNotCensored(movieId, pageable)
-                         .map(this::convertToDto);
+    /**
+     * Finds the page of uncensored reviews of the movie with the provided id, along with the vote of the user
+     * with the provided id on each, see {@link #convertToDtos(List, Long)}. Reviews are ordered from
+     * {@link #NEWEST} unless the pageable is sorted.
+     *
+     * @param movieId  the movie id
+     * @param userId   the id of the user viewing the page, or null for none
+     * @param pageable the pageable
+     * @return the page of review dtos
+     */
+    public Page<ReviewDto> findPageByMovieIdAndNotCensored(Long movieId, Long userId, Pageable pageable) {
+        Pageable sorted = pageable.getSort().isSorted() ? pageable :
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), NEWEST);
+        Page<Review> reviews = repository.findAllByMovieWithIdAndNotCensored(movieId, sorted);
+        return new PageImpl<>(convertToDtos(reviews.getContent(), userId), sorted, reviews.getTotalElements());
     }
 
+    /**
+     * Censors or uncensors the review with the provided id. A censored review is hidden from the reviews of its
+     * movie and does not count towards its rating. The status is flipped with a conditional update, and the
+     * rating aggregates of the movie are adjusted only if it changed a row, so two moderators censoring the same
+     * review at once adjust them once.
+     *
+     * @param reviewId the review id
+     * @param censor   true to censor the review, false to uncensor it
+     * @throws NoEntityFoundException if no review exists with the provided id
+     */
+    public void setReviewCensoredStatus(Long reviewId, boolean censor)
+            throws NoEntityFoundException {
+        Review review = repository.findById(reviewId).orElseThrow(
+                () -> new NoEntityFoundException("review", "id", reviewId));
+        if (repository.updateIsCensoredOfReviewWithId(reviewId, censor) == 1) {
+            int sign = censor ? -1 : 1;
+            movieRepository.addToRatingAggregates(review.getMovie().getId(), sign * review.getRating(), sign);
+            logger.debug("Set censored status of review with id " + reviewId + " to " + censor);
+        }
+    }
+
+    /**
+     * Finds the average rating of the uncensored reviews of the movie with the provided id, rounded, from
+     * {@link Movie#getRatingSum()} and {@link Movie#getRatingCount()}.
+     *
+     * @param movieId the movie id
+     * @return the average rating, or 0 if the movie has no reviews or does not exist
+     */
     public Integer findAverageRatingOfMovieWithId(Long movieId) {
-        Integer avgRating = repository.findAverageOfReviewRatingsForMovieWithId(movieId);
-        return avgRating == null ? 0 : avgRating;
+        return movieRepository.findById(movieId)
+                              .map(movie -> (int) Math.round(MovieService.averageRatingOf(movie)))
+                              .orElse(0);
     }
 
-}
+    /**
+     * Rebuilds the vote counters and helpfulness of every review from its votes. Runs once the application is
+     * ready, which fills in the counters of reviews voted on before they were kept, and then nightly to correct
+     * any drift.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${reviewVotes.repairCron:0 15 4 * * *}")
+    public void repairVoteCounters() {
+        int reviewsRepaired = repository.repairVoteCounters(Vote.UPVOTE, Vote.DOWNVOTE);
+        repository.refreshHelpfulness();
+        logger.debug("Repaired the vote counters of " + reviewsRepaired + " reviews");
+    }
 
+}
@@ -5,15 +5,19 @@ import com.ecinema.app.domain.entities.Customer;
 import com.ecinema.app.domain.entities.Review;
 import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.ReviewVoteTarget;
+import com.ecinema.app.exceptions.InvalidActionException;
 import com.ecinema.app.exceptions.InvalidAssociationException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.repositories.CustomerRepository;
 import com.ecinema.app.repositories.ReviewRepository;
 import com.ecinema.app.repositories.ReviewVoteRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.EnumMap;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,6 +63,11 @@ public class ReviewVoteService extends AbstractEntityService<ReviewVote, ReviewV
         Review review = reviewVote.getReview();
         if (review != null) {
             logger.debug("Detaching Review: " + review);
+            if (reviewVote.getVote() == Vote.UPVOTE) {
+                addToVoteCounters(review.getId(), -1, 0);
+            } else if (reviewVote.getVote() == Vote.DOWNVOTE) {
+                addToVoteCounters(review.getId(), 0, -1);
+            }
             reviewVote.setReview(null);
             review.getReviewVotes().remove(reviewVote);
         }
@@ -71,36 +80,68 @@ public class ReviewVoteService extends AbstractEntityService<ReviewVote, ReviewV
         }
     }
 
+    /**
+     * Casts the provided vote of the user with the provided id on the review with the provided id, replacing any
+     * vote the user cast on it before. The customer of the user, the writer of the review and the existing vote
+     * are found in one query, and the new vote is written without loading the review or the customer. A changed
+     * vote is written by a conditional update, and the vote counters and helpfulness of the review are adjusted
+     * only if it updated the row, see {@link ReviewVoteRepository#updateVoteOfReviewVoteWithId(Long, Vote)}, so
+     * concurrent changes of the same vote are counted once. A first vote racing another first vote of the same
+     * user on the same review is rejected by the unique constraint on {@link ReviewVote}.
+     *
+     * @param userId   the user id
+     * @param reviewId the review id
+     * @param vote     the vote
+     * @throws InvalidAssociationException if the user wrote the review
+     * @throws NoEntityFoundException      if the user has no customer or the review does not exist
+     * @throws InvalidActionException      if another vote of the user on the review was cast concurrently
+     */
     public void voteOnReview(Long userId, Long reviewId, Vote vote)
-            throws InvalidAssociationException, NoEntityFoundException {
-        if (reviewRepository.existsByUserWithIdAndReviewWithId(userId, reviewId)) {
+            throws InvalidAssociationException, NoEntityFoundException, InvalidActionException {
+        ReviewVoteTarget target = repository.findReviewVoteTarget(userId, reviewId).orElseThrow(
+                () -> new NoEntityFoundException("customer or review", "user id and review id",
+                                                 userId + " and " + reviewId));
+        if (userId.equals(target.getWriterUserId())) {
             throw new InvalidAssociationException("User cannot vote for his/her own review");
         }
-        if (!customerRepository.existsByUserWithId(userId)) {
-            throw new NoEntityFoundException("customer", "user id", userId);
+        int delta = vote == Vote.UPVOTE ? 1 : -1;
+        if (target.getReviewVoteId() == null) {
+            ReviewVote reviewVote = new ReviewVote();
+            reviewVote.setReview(reviewRepository.getById(reviewId));
+            reviewVote.setVoter(customerRepository.getById(target.getCustomerId()));
+            reviewVote.setVote(vote);
+            try {
+                repository.saveAndFlush(reviewVote);
+            } catch (DataIntegrityViolationException e) {
+                throw new InvalidActionException("Another vote on this review was cast at the same time, " +
+                                                         "please try again");
+            }
+            addToVoteCounters(reviewId, Math.max(delta, 0), Math.max(-delta, 0));
+        } else if (repository.updateVoteOfReviewVoteWithId(target.getReviewVoteId(), vote) == 1) {
+            addToVoteCounters(reviewId, delta, -delta);
         }
-        ReviewVote reviewVote = repository.findByUserWithIdAndReviewWithId(
-                userId, reviewId).orElseGet(() -> {
-            Customer customer = customerRepository.findByUserWithId(userId).orElseThrow(
-                    () -> new NoEntityFoundException("customer", "user id", userId));
-            Review review = reviewRepository.findById(reviewId).orElseThrow(
-                    () -> new NoEntityFoundException("review", "id", reviewId));
-            ReviewVote newReviewVote = new ReviewVote();
-            newReviewVote.setReview(review);
-            review.getReviewVotes().add(newReviewVote);
-            newReviewVote.setVoter(customer);
-            customer.getReviewVotes().add(newReviewVote);
-            return newReviewVote;
-        });
-        reviewVote.setVote(vote);
-        repository.save(reviewVote);
     }
 
-    public Map<Vote, List<Long>> mapOfVoterUserIds(Long reviewId) {
-        return new EnumMap<>(Vote.class) {{
-           put(Vote.UPVOTE, repository.findAllUserIdsByReviewWithIdAndVote(reviewId, Vote.UPVOTE));
-           put(Vote.DOWNVOTE, repository.findAllUserIdsByReviewWithIdAndVote(reviewId, Vote.DOWNVOTE));
-        }};
+    /**
+     * Finds the vote of the user with the provided id on each review with one of the provided ids that the user
+     * voted on.
+     *
+     * @param reviewIds the review ids
+     * @param userId    the user id, or null for none
+     * @return the map of review ids to votes
+     */
+    public Map<Long, Vote> findAllVotesOfUser(Collection<Long> reviewIds, Long userId) {
+        Map<Long, Vote> votes = new HashMap<>();
+        if (userId != null && !reviewIds.isEmpty()) {
+            repository.findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn(userId, reviewIds).forEach(
+                    pair -> votes.put(pair.getFirst(), pair.getSecond()));
+        }
+        return votes;
+    }
+
+    private void addToVoteCounters(Long reviewId, int upvoteDelta, int downvoteDelta) {
+        reviewRepository.addToVoteCounters(reviewId, upvoteDelta, downvoteDelta);
+        reviewRepository.refreshHelpfulnessOfReviewsWithIds(List.of(reviewId));
     }
 
 }
@@ -0,0 +1,89 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ScreeningInterval;
+import com.ecinema.app.domain.objects.ScreeningSchedule;
+import com.ecinema.app.repositories.ScreeningRepository;
+import com.ecinema.app.util.UtilMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link ScreeningSchedule} per showroom in memory so that free slots for new screenings can be suggested
+ * without querying the database. A schedule is built the first time it is asked for from the screenings of the
+ * showroom that have not yet ended, and is then kept in step by the create and delete paths once their
+ * transactions commit. Screenings that have ended are pruned nightly. The schedule only answers questions about
+ * the future, so clash detection when a screening is submitted goes to the database, see
+ * {@link ScreeningRepository#findAllByShowroomWithIdOverlapping}.
+ */
+@Service
+public class ScreeningScheduleService {
+
+    private final ScreeningRepository screeningRepository;
+    private final Map<Long, ScreeningSchedule> schedules = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(ScreeningScheduleService.class);
+
+    public ScreeningScheduleService(ScreeningRepository screeningRepository) {
+        this.screeningRepository = screeningRepository;
+    }
+
+    public ScreeningSchedule findByShowroomWithId(Long showroomId) {
+        return schedules.computeIfAbsent(showroomId, this::load);
+    }
+
+    /**
+     * Finds the free slots of the showroom between now, or from if it is later, and to that are long enough
+     * for a screening of the provided duration, see {@link ScreeningSchedule#findFreeSlots}.
+     *
+     * @param showroomId the showroom id
+     * @param from       the earliest date time of a slot
+     * @param to         the latest date time of a slot
+     * @param duration   the duration of the screening
+     * @return the free slots in order
+     */
+    public List<Pair<LocalDateTime, LocalDateTime>> findFreeSlots(Long showroomId, LocalDateTime from,
+                                                                  LocalDateTime to, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        return findByShowroomWithId(showroomId).findFreeSlots(from.isBefore(now) ? now : from, to, duration);
+    }
+
+    public void add(Long showroomId, ScreeningInterval screeningInterval) {
+        UtilMethods.runAfterCommit(() -> schedules.computeIfPresent(showroomId, (id, screeningSchedule) -> {
+            screeningSchedule.add(screeningInterval);
+            return screeningSchedule;
+        }));
+    }
+
+    public void remove(Long showroomId, Long screeningId) {
+        UtilMethods.runAfterCommit(() -> schedules.computeIfPresent(showroomId, (id, screeningSchedule) -> {
+            screeningSchedule.remove(screeningId);
+            return screeningSchedule;
+        }));
+    }
+
+    public void evict(Long showroomId) {
+        UtilMethods.runAfterCommit(() -> schedules.remove(showroomId));
+    }
+
+    @Scheduled(cron = "${screeningSchedule.pruneCron:0 30 4 * * *}")
+    public void pruneEndedScreenings() {
+        LocalDateTime now = LocalDateTime.now();
+        schedules.values().forEach(screeningSchedule -> screeningSchedule.removeAllEndingBefore(now));
+    }
+
+    private ScreeningSchedule load(Long showroomId) {
+        List<ScreeningInterval> screeningIntervals = screeningRepository
+                .findAllScreeningIntervalsByShowroomWithIdAndEndDateTimeAfter(showroomId, LocalDateTime.now());
+        logger.debug("Loaded " + screeningIntervals.size() + " screening intervals of showroom " + showroomId);
+        return new ScreeningSchedule(screeningIntervals);
+    }
+
+}
@@ -8,6 +8,10 @@ import com.ecinema.app.domain.entities.ShowroomSeat;
 import com.ecinema.app.domain.entities.Ticket;
 import com.ecinema.app.domain.enums.TicketType;
 import com.ecinema.app.domain.forms.SeatBookingForm;
+import com.ecinema.app.domain.forms.SeatsBookingForm;
+import com.ecinema.app.domain.objects.SeatOccupancy;
+import com.ecinema.app.exceptions.InvalidActionException;
+import com.ecinema.app.exceptions.InvalidArgumentException;
 import com.ecinema.app.exceptions.InvalidAssociationException;
 import com.ecinema.app.domain.enums.Letter;
 import com.ecinema.app.exceptions.NoEntityFoundException;
@@ -24,10 +28,13 @@ public class ScreeningSeatService extends AbstractEntityService<
         ScreeningSeat, ScreeningSeatRepository, ScreeningSeatDto> {
 
     private final TicketService ticketService;
+    private final SeatOccupancyService seatOccupancyService;
 
-    public ScreeningSeatService(ScreeningSeatRepository repository, TicketService ticketService) {
+    public ScreeningSeatService(ScreeningSeatRepository repository, TicketService ticketService,
+                                SeatOccupancyService seatOccupancyService) {
         super(repository);
         this.ticketService = ticketService;
+        this.seatOccupancyService = seatOccupancyService;
     }
 
     @Override
@@ -45,6 +52,7 @@ public class ScreeningSeatService extends AbstractEntityService<
         Screening screening = screeningSeat.getScreening();
         if (screening != null) {
             logger.debug("Detach screening " + screening);
+            seatOccupancyService.evict(screening.getId());
             screening.getScreeningSeats().remove(screeningSeat);
             screeningSeat.setScreening(null);
         }
@@ -57,6 +65,32 @@ public class ScreeningSeatService extends AbstractEntityService<
         }
     }
 
+    /**
+     * Creates and persists a {@link ScreeningSeat} for each of the provided {@link ShowroomSeat} instances. The
+     * seats are handed to the repository in one call and written when the transaction flushes, which Hibernate
+     * turns into JDBC batch inserts (hibernate.jdbc.batch_size) with ids allocated in blocks, see
+     * {@link com.ecinema.app.domain.entities.AbstractEntity}. Only the owning side and
+     * {@link Screening#getScreeningSeats()} are set: adding to {@link ShowroomSeat#getScreeningSeats()} would
+     * load that lazy collection once per seat.
+     *
+     * @param screening     the screening, already saved
+     * @param showroomSeats the showroom seats of the screening's showroom
+     * @return the screening seats
+     */
+    public List<ScreeningSeat> createScreeningSeats(Screening screening, Collection<ShowroomSeat> showroomSeats) {
+        List<ScreeningSeat> screeningSeats = new ArrayList<>(showroomSeats.size());
+        for (ShowroomSeat showroomSeat : showroomSeats) {
+            ScreeningSeat screeningSeat = new ScreeningSeat();
+            screeningSeat.setShowroomSeat(showroomSeat);
+            screeningSeat.setScreening(screening);
+            screening.getScreeningSeats().add(screeningSeat);
+            screeningSeats.add(screeningSeat);
+        }
+        saveAll(screeningSeats);
+        logger.debug("Created " + screeningSeats.size() + " screening seats for screening: " + screening);
+        return screeningSeats;
+    }
+
     @Override
     public ScreeningSeatDto convertToDto(ScreeningSeat screeningSeat) {
         ScreeningSeatDto screeningSeatDTO = new ScreeningSeatDto();
@@ -72,19 +106,11 @@ public class ScreeningSeatService extends AbstractEntityService<
 
     public Map<Letter, Set<ScreeningSeatDto>> findScreeningSeatMapByScreeningWithId(Long screeningId)
             throws InvalidAssociationException {
-        List<ScreeningSeatDto> screeningSeatDtos = findAllByScreeningWithId(screeningId);
-        if (screeningSeatDtos.isEmpty()) {
-            throw new InvalidAssociationException("No screening seats mapped to screening with id " + screeningId);
-        }
-        Map<Letter, Set<ScreeningSeatDto>> mapOfScreeningSeats = new TreeMap<>();
-        for (ScreeningSeatDto screeningSeatDto : screeningSeatDtos) {
-            mapOfScreeningSeats.putIfAbsent(
-                    screeningSeatDto.getRowLetter(), new TreeSet<>(ISeat.SeatComparator.getInstance()));
-            mapOfScreeningSeats.get(screeningSeatDto.getRowLetter()).add(screeningSeatDto);
-        }
+        Map<Letter, Set<ScreeningSeatDto>> mapOfScreeningSeats = seatOccupancyService
+                .findSeatMapByScreeningWithId(screeningId);
         logger.debug(UtilMethods.getLoggingSubjectDelimiterLine());
         logger.debug("Find screening seat map by screening with id: " + screeningId);
-        logger.debug("Screening seat map: " + screeningSeatDtos);
+        logger.debug("Screening seat map: " + mapOfScreeningSeats);
         return mapOfScreeningSeats;
     }
 
@@ -108,6 +134,55 @@ public class ScreeningSeatService extends AbstractEntityService<
         return seatBookingForm;
     }
 
+    public int repairClaims() {
+        return repository.repairClaims();
+    }
+
+    public SeatsBookingForm fetchSeatsBookingForm(Long screeningId, Collection<Long> screeningSeatIds)
+            throws NoEntityFoundException, InvalidActionException, InvalidArgumentException {
+        if (screeningSeatIds.isEmpty()) {
+            throw new InvalidArgumentException("No screening seats selected");
+        }
+        SeatOccupancy seatOccupancy = seatOccupancyService.findByScreeningWithId(screeningId);
+        SeatsBookingForm seatsBookingForm = new SeatsBookingForm();
+        seatsBookingForm.setScreeningId(screeningId);
+        seatsBookingForm.setTokensToApply(0);
+        for (Long screeningSeatId : screeningSeatIds) {
+            if (!seatOccupancy.contains(screeningSeatId)) {
+                throw new NoEntityFoundException("screening seat", "id", screeningSeatId);
+            }
+            if (seatOccupancy.isBooked(screeningSeatId)) {
+                throw new InvalidActionException("Seat with id " + screeningSeatId + " is already booked");
+            }
+            seatsBookingForm.getTicketTypes().put(screeningSeatId, TicketType.ADULT);
+        }
+        return seatsBookingForm;
+    }
+
+    /**
+     * Finds the most central block of seats of the screening that are next to one another in the same row and
+     * can be booked, see {@link SeatOccupancy#findBestContiguousSeats(int)}.
+     *
+     * @param screeningId   the screening id
+     * @param numberOfSeats the number of seats
+     * @return the screening seat ids of the block in seat number order
+     * @throws InvalidArgumentException    if the number of seats is not positive
+     * @throws InvalidActionException      if there is no such block of seats
+     * @throws InvalidAssociationException if the screening has no seats
+     */
+    public List<Long> findBestContiguousSeats(Long screeningId, int numberOfSeats)
+            throws InvalidArgumentException, InvalidActionException, InvalidAssociationException {
+        if (numberOfSeats <= 0) {
+            throw new InvalidArgumentException("Number of seats must be greater than zero");
+        }
+        List<Long> screeningSeatIds = seatOccupancyService.findByScreeningWithId(screeningId)
+                                                          .findBestContiguousSeats(numberOfSeats);
+        if (screeningSeatIds.isEmpty()) {
+            throw new InvalidActionException("No " + numberOfSeats + " seats next to one another are available");
+        }
+        return screeningSeatIds;
+    }
+
     public boolean screeningSeatIsBooked(Long screeningSeatId)
             throws NoEntityFoundException {
         ScreeningSeat screeningSeat = repository.findById(screeningSeatId).orElseThrow(
@@ -3,6 +3,9 @@ package com.ecinema.app.services;
 import com.ecinema.app.domain.dtos.ScreeningDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.forms.ScreeningForm;
+import com.ecinema.app.domain.objects.Duration;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ScreeningInterval;
 import com.ecinema.app.validators.ScreeningValidator;
 import com.ecinema.app.exceptions.ClashException;
 import com.ecinema.app.exceptions.InvalidArgumentException;
@@ -12,8 +15,12 @@ import com.ecinema.app.repositories.ScreeningRepository;
 import com.ecinema.app.repositories.ShowroomRepository;
 import com.ecinema.app.repositories.TicketRepository;
 import com.ecinema.app.util.UtilMethods;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,20 +36,29 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
     private final TicketRepository ticketRepository;
     private final ShowroomRepository showroomRepository;
     private final ScreeningSeatService screeningSeatService;
+    private final ScreeningScheduleService screeningScheduleService;
     private final ScreeningValidator screeningValidator;
+    private final CascadeDeletionService cascadeDeletionService;
+    private final MovieSearchService movieSearchService;
 
     public ScreeningService(ScreeningRepository repository,
                             MovieRepository movieRepository,
                             TicketRepository ticketRepository,
                             ShowroomRepository showroomRepository,
                             ScreeningSeatService screeningSeatService,
-                            ScreeningValidator screeningValidator) {
+                            ScreeningScheduleService screeningScheduleService,
+                            ScreeningValidator screeningValidator,
+                            CascadeDeletionService cascadeDeletionService,
+                            MovieSearchService movieSearchService) {
         super(repository);
         this.movieRepository = movieRepository;
         this.ticketRepository = ticketRepository;
         this.showroomRepository = showroomRepository;
         this.screeningSeatService = screeningSeatService;
+        this.screeningScheduleService = screeningScheduleService;
         this.screeningValidator = screeningValidator;
+        this.cascadeDeletionService = cascadeDeletionService;
+        this.movieSearchService = movieSearchService;
     }
 
     @Override
@@ -59,6 +75,7 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
         Showroom showroom = screening.getShowroom();
         logger.debug("Detach showroom: " + showroom);
         if (showroom != null) {
+            screeningScheduleService.remove(showroom.getId(), screening.getId());
             showroom.getScreenings().remove(screening);
             screening.setShowroom(null);
         }
@@ -67,6 +84,30 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
         screeningSeatService.deleteAll(screening.getScreeningSeats());
     }
 
+    /**
+     * Deletes the screening with the provided id and everything depending on it in bulk, see
+     * {@link CascadeDeletionService}. Use {@link #delete(Screening)} for a screening already loaded and in use.
+     *
+     * @param screeningId the screening id
+     * @throws NoEntityFoundException if no screening exists with the provided id
+     */
+    @Override
+    public void delete(Long screeningId)
+            throws NoEntityFoundException {
+        if (!repository.existsById(screeningId)) {
+            throw new NoEntityFoundException("screening", "id", screeningId);
+        }
+        cascadeDeletionService.execute(cascadeDeletionService.planScreenings(List.of(screeningId)));
+    }
+
+    /**
+     * Deletes every screening and everything depending on them in bulk, see {@link CascadeDeletionService}.
+     */
+    @Override
+    public void deleteAll() {
+        cascadeDeletionService.execute(cascadeDeletionService.planScreenings(repository.findAllIds()));
+    }
+
     @Override
     public ScreeningDto convertToDto(Screening screening) {
         ScreeningDto screeningDTO = new ScreeningDto();
@@ -82,22 +123,12 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
         if (showroom != null) {
             screeningDTO.setShowroomId(showroom.getId());
             screeningDTO.setShowroomLetter(showroom.getShowroomLetter());
-            screeningDTO.setTotalSeatsInRoom(showroom.getShowroomSeats().size());
-        } else {
-            screeningDTO.setTotalSeatsInRoom(0);
         }
         screeningDTO.setShowDateTime(screening.getShowDateTime());
         screeningDTO.setEndDateTime(screening.getEndDateTime());
-        Set<ScreeningSeat> screeningSeats =  screening.getScreeningSeats();
-        if (!screeningSeats.isEmpty()) {
-            long numberOfSeatsBooked = screeningSeats.stream().filter(
-                    screeningSeat -> screeningSeat.getTicket() != null).count();
-            screeningDTO.setSeatsBooked((int) numberOfSeatsBooked);
-            screeningDTO.setSeatsAvailable(screeningDTO.getTotalSeatsInRoom() - (int) numberOfSeatsBooked);
-        } else {
-            screeningDTO.setSeatsBooked(0);
-            screeningDTO.setSeatsAvailable(0);
-        }
+        screeningDTO.setTotalSeatsInRoom(screening.getTotalSeats());
+        screeningDTO.setSeatsBooked(screening.getSeatsBooked());
+        screeningDTO.setSeatsAvailable(screening.getTotalSeats() - screening.getSeatsBooked());
         logger.debug("Converted screening to DTO: " + screeningDTO);
         logger.debug("Screening: " + screening);
         return screeningDTO;
@@ -122,10 +153,26 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
         return onDeleteInfo;
     }
 
+    /**
+     * Finds the page of screenings of the movies matching the provided search, see {@link MovieSearchService}.
+     * Until the search index is built, finds the screenings of the movies whose search title contains the
+     * search instead.
+     *
+     * @param title    the search
+     * @param pageable the pageable
+     * @return the page of screening dtos
+     */
     public Page<ScreeningDto> findAllByMovieWithTitleLike(String title, Pageable pageable) {
-        return repository.findAllByMovieWithTitleLike(
-                MovieService.convertTitleToSearchTitle(title), pageable)
-                         .map(this::convertToDto);
+        Optional<List<Long>> movieIds = movieSearchService.search(title);
+        if (movieIds.isEmpty()) {
+            return repository.findAllByMovieWithTitleLike(
+                    MovieService.convertTitleToSearchTitle(title), pageable)
+                             .map(this::convertToDto);
+        }
+        if (movieIds.get().isEmpty()) {
+            return Page.empty(pageable);
+        }
+        return repository.findAllByMovieWithIdIn(movieIds.get(), pageable).map(this::convertToDto);
     }
 
     public void submitScreeningForm(ScreeningForm screeningForm)
@@ -165,23 +212,32 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
         Screening screening = new Screening();
         screening.setShowDateTime(screeningForm.getShowDateTime());
         screening.setEndDateTime(endDateTime);
+        screening.setTotalSeats(showroom.getShowroomSeats().size());
         screening.setShowroom(showroom);
         showroom.getScreenings().add(screening);
         screening.setMovie(movie);
         movie.getScreenings().add(screening);
         repository.save(screening);
-        for (ShowroomSeat showroomSeat : showroom.getShowroomSeats()) {
-            ScreeningSeat screeningSeat = new ScreeningSeat();
-            screeningSeat.setShowroomSeat(showroomSeat);
-            showroomSeat.getScreeningSeats().add(screeningSeat);
-            screeningSeat.setScreening(screening);
-            screening.getScreeningSeats().add(screeningSeat);
-            screeningSeat.setTicket(null);
-            screeningSeatService.save(screeningSeat);
-        }
+        screeningSeatService.createScreeningSeats(screening, showroom.getShowroomSeats());
+        screeningScheduleService.add(showroom.getId(), new ScreeningInterval(
+                screening.getId(), screening.getShowDateTime(), screening.getEndDateTime()));
         logger.debug("Saved and instantiated new screening: " + screening);
     }
 
+    /**
+     * Rebuilds the seat counters of every screening from the screening seat and ticket rows, and claims every
+     * booked seat that is not yet claimed. Runs once the application is ready, which fills in the counters of
+     * screenings created before they existed, and then nightly to correct any drift.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${screeningCounters.repairCron:0 0 4 * * *}")
+    public void repairSeatCounters() {
+        int claimsRepaired = screeningSeatService.repairClaims();
+        int screeningsRepaired = repository.repairSeatCounters();
+        logger.debug("Repaired " + claimsRepaired + " seat claims and the seat counters of " +
+                             screeningsRepaired + " screenings");
+    }
+
     public Optional<ScreeningDto> findScreeningByShowroomAndInBetweenStartTimeAndEndTime(
             Showroom showroom, LocalDateTime startTime, LocalDateTime endTime) {
         return findScreeningByShowroomIdAndInBetweenStartTimeAndEndTime(
@@ -190,15 +246,27 @@ public class ScreeningService extends AbstractEntityService<Screening, Screening
 
     public Optional<ScreeningDto> findScreeningByShowroomIdAndInBetweenStartTimeAndEndTime(
             Long showroomId, LocalDateTime startTime, LocalDateTime endTime) {
-        List<Screening> screenings = repository.findAllByShowroomWithId(showroomId);
-        for (Screening screening : screenings) {
-            if (UtilMethods.localDateTimeOverlap(
-                    startTime, endTime,
-                    screening.getShowDateTime(), screening.getEndDateTime())) {
-                return Optional.of(convertToDto(screening));
-            }
-        }
-        return Optional.empty();
+        LocalDateTime earliestShowDateTime = startTime.minusSeconds(
+                repository.findLongestLengthInSecondsOfShowroomWithId(showroomId).orElse(0L));
+        return repository.findAllByShowroomWithIdOverlapping(showroomId, earliestShowDateTime, startTime, endTime,
+                                                             PageRequest.of(0, 1))
+                         .stream().findFirst().map(this::convertToDto);
+    }
+
+    /**
+     * Finds the free slots of the showroom between from and to that are long enough for a screening of the
+     * provided duration, see {@link ScreeningScheduleService#findFreeSlots}.
+     *
+     * @param showroomId the showroom id
+     * @param from       the earliest date time of a slot
+     * @param to         the latest date time of a slot
+     * @param duration   the duration of the screening
+     * @return the free slots in order
+     */
+    public List<Pair<LocalDateTime, LocalDateTime>> findFreeSlots(Long showroomId, LocalDateTime from,
+                                                                  LocalDateTime to, Duration duration) {
+        return screeningScheduleService.findFreeSlots(showroomId, from, to, java.time.Duration
+                .ofHours(duration.getHours()).plusMinutes(duration.getMinutes()));
     }
 
     List<Long> findAllScreeningIdsByMovieId(Long movieId) {
@@ -0,0 +1,215 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.objects.SeatHold;
+import com.ecinema.app.exceptions.InvalidActionException;
+import com.ecinema.app.exceptions.InvalidAssociationException;
+import com.ecinema.app.util.UtilMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds screening seats for the customers who have opened the booking page for them so that nobody else can
+ * book a seat out from under a customer at checkout. A hold lasts for a fixed time to live and is renewed if
+ * the same customer holds the seat again, but never past a maximum lifetime, and a customer can hold only so
+ * many seats of a screening at once. Holds are kept in memory only: they last a few minutes, so
+ * losing them on restart only shortens them. Expired holds stop counting as soon as they expire and are
+ * cleared from the seat map in batches by {@link #releaseExpired()}, which runs on a fixed delay.
+ */
+@Service
+public class SeatHoldService {
+
+    private static final int REAPER_BATCH_SIZE = 500;
+    private static final int LOCK_STRIPES = 64;
+
+    private final long ttlNanos;
+    private final long maxLifetimeNanos;
+    private final int maxSeatsPerUser;
+    private final Object[] userLocks = new Object[LOCK_STRIPES];
+    private final SeatOccupancyService seatOccupancyService;
+    private final Map<Long, SeatHold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<SeatHold> expiryQueue = new DelayQueue<>();
+    private final Logger logger = LoggerFactory.getLogger(SeatHoldService.class);
+
+    public SeatHoldService(SeatOccupancyService seatOccupancyService,
+                           @Value("${seatHold.ttlSeconds:300}") long ttlSeconds,
+                           @Value("${seatHold.maxLifetimeSeconds:900}") long maxLifetimeSeconds,
+                           @Value("${seatHold.maxSeatsPerUser:10}") int maxSeatsPerUser) {
+        this.seatOccupancyService = seatOccupancyService;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxLifetimeNanos = TimeUnit.SECONDS.toNanos(maxLifetimeSeconds);
+        this.maxSeatsPerUser = maxSeatsPerUser;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            userLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Holds the screening seat for the user, or renews the hold if the user already has it.
+     *
+     * @param screeningId     the screening id
+     * @param screeningSeatId the screening seat id
+     * @param userId          the user id
+     * @throws InvalidActionException      if another user holds the seat, or the user holds too many seats
+     * @throws InvalidAssociationException if the screening has no seats
+     */
+    public void hold(Long screeningId, Long screeningSeatId, Long userId)
+            throws InvalidActionException, InvalidAssociationException {
+        holdAll(screeningId, List.of(screeningSeatId), userId);
+    }
+
+    private void placeHold(Long screeningId, Long screeningSeatId, Long userId)
+            throws InvalidActionException, InvalidAssociationException {
+        SeatHold[] placed = new SeatHold[1];
+        holds.compute(screeningSeatId, (id, existing) -> {
+            if (existing == null || existing.isExpired()) {
+                placed[0] = new SeatHold(screeningId, screeningSeatId, userId, ttlNanos);
+            } else if (existing.isHeldBy(userId)) {
+                placed[0] = existing.renew(ttlNanos, maxLifetimeNanos);
+            } else {
+                return existing;
+            }
+            return placed[0];
+        });
+        SeatHold seatHold = placed[0];
+        if (seatHold == null) {
+            throw new InvalidActionException("Seat with id " + screeningSeatId + " is being booked by another " +
+                                                     "customer, please choose another seat or try again later");
+        }
+        expiryQueue.add(seatHold);
+        seatOccupancyService.markHeld(screeningId, screeningSeatId);
+        logger.debug("Placed hold: " + seatHold);
+    }
+
+    /**
+     * Holds every one of the screening seats for the user. If any one of them is held by another user, none
+     * of them are held, and neither are they if placing any one of the holds fails for another reason. The
+     * user can hold at most the maximum number of seats per user of the screening, counting the holds they
+     * already have; requests of the same user are serialized so that concurrent ones cannot exceed it.
+     *
+     * @param screeningId      the screening id
+     * @param screeningSeatIds the screening seat ids
+     * @param userId           the user id
+     * @throws InvalidActionException      if another user holds any of the seats, or the user would hold too
+     *                                     many seats of the screening
+     * @throws InvalidAssociationException if the screening has no seats
+     */
+    public void holdAll(Long screeningId, Collection<Long> screeningSeatIds, Long userId)
+            throws InvalidActionException, InvalidAssociationException {
+        synchronized (userLocks[Math.floorMod(Objects.hashCode(userId), LOCK_STRIPES)]) {
+            Set<Long> seatIds = new HashSet<>(screeningSeatIds);
+            long alreadyHeld = holds.values().stream()
+                                    .filter(seatHold -> seatHold.getScreeningId().equals(screeningId) &&
+                                            seatHold.isHeldBy(userId) && !seatHold.isExpired() &&
+                                            !seatIds.contains(seatHold.getScreeningSeatId()))
+                                    .count();
+            if (alreadyHeld + seatIds.size() > maxSeatsPerUser) {
+                throw new InvalidActionException("Cannot hold more than " + maxSeatsPerUser + " seats of a " +
+                                                         "screening at once");
+            }
+            List<Long> held = new ArrayList<>();
+            try {
+                for (Long screeningSeatId : screeningSeatIds) {
+                    placeHold(screeningId, screeningSeatId, userId);
+                    held.add(screeningSeatId);
+                }
+            } catch (RuntimeException e) {
+                held.forEach(this::release);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the screening seat is held by a user other than the one provided.
+     *
+     * @param screeningSeatId the screening seat id
+     * @param userId          the user id
+     * @return true if another user holds the seat
+     */
+    public boolean isHeldByOtherUser(Long screeningSeatId, Long userId) {
+        SeatHold seatHold = screeningSeatId != null ? holds.get(screeningSeatId) : null;
+        return seatHold != null && !seatHold.isExpired() && !seatHold.isHeldBy(userId);
+    }
+
+    /**
+     * Returns true if the screening seat is held by the user provided.
+     *
+     * @param screeningSeatId the screening seat id
+     * @param userId          the user id
+     * @return true if the user holds the seat
+     */
+    public boolean isHeldBy(Long screeningSeatId, Long userId) {
+        SeatHold seatHold = screeningSeatId != null ? holds.get(screeningSeatId) : null;
+        return seatHold != null && !seatHold.isExpired() && seatHold.isHeldBy(userId);
+    }
+
+    /**
+     * Releases the hold on the screening seat once the current transaction commits, so that a booking that
+     * rolls back leaves the hold of the customer in place.
+     *
+     * @param screeningSeatId the screening seat id
+     */
+    public void releaseAfterCommit(Long screeningSeatId) {
+        UtilMethods.runAfterCommit(() -> release(screeningSeatId));
+    }
+
+    /**
+     * Releases the hold on the screening seat if there is one.
+     *
+     * @param screeningSeatId the screening seat id
+     */
+    public void release(Long screeningSeatId) {
+        SeatHold seatHold = holds.remove(screeningSeatId);
+        if (seatHold != null) {
+            seatOccupancyService.markReleased(seatHold.getScreeningId(), screeningSeatId);
+        }
+    }
+
+    /**
+     * Releases every expired hold, draining the expiry queue in batches. A hold that has since been renewed
+     * is left in place since its entry in the hold map is no longer the expired instance. A seat with no hold
+     * at all is cleared from the seat map too, in case a release raced with the hold being placed.
+     *
+     * @return the number of holds released
+     */
+    @Scheduled(fixedDelayString = "${seatHold.reaperIntervalMillis:5000}")
+    public int releaseExpired() {
+        int released = 0;
+        List<SeatHold> batch = new ArrayList<>(REAPER_BATCH_SIZE);
+        while (expiryQueue.drainTo(batch, REAPER_BATCH_SIZE) > 0) {
+            for (SeatHold seatHold : batch) {
+                Long screeningSeatId = seatHold.getScreeningSeatId();
+                if (holds.remove(screeningSeatId, seatHold)) {
+                    released++;
+                } else if (holds.containsKey(screeningSeatId)) {
+                    continue;
+                }
+                seatOccupancyService.markReleased(seatHold.getScreeningId(), screeningSeatId);
+            }
+            batch.clear();
+        }
+        if (released > 0) {
+            logger.debug("Released " + released + " expired seat holds");
+        }
+        return released;
+    }
+
+    public int numberOfHolds() {
+        return holds.size();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.dtos.ScreeningSeatDto;
+import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.objects.SeatOccupancy;
+import com.ecinema.app.domain.objects.SeatState;
+import com.ecinema.app.exceptions.InvalidAssociationException;
+import com.ecinema.app.repositories.ScreeningSeatRepository;
+import com.ecinema.app.util.UtilMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link SeatOccupancy} per screening in memory so that the seat map of the view seats page can be
+ * rendered without querying the database. An occupancy is built from the database the first time it is asked
+ * for and is then kept in step by the booking and refund paths. Changes made inside a transaction are applied
+ * only once that transaction commits. Each update goes through {@link ConcurrentHashMap#computeIfPresent}, which
+ * waits for a load of the same screening that is in progress, so a load that read the database before the
+ * commit is always corrected. Seat holds are not persisted and are applied immediately.
+ */
+@Service
+public class SeatOccupancyService {
+
+    private final ScreeningSeatRepository screeningSeatRepository;
+    private final Map<Long, SeatOccupancy> occupancies = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(SeatOccupancyService.class);
+
+    public SeatOccupancyService(ScreeningSeatRepository screeningSeatRepository) {
+        this.screeningSeatRepository = screeningSeatRepository;
+    }
+
+    public SeatOccupancy findByScreeningWithId(Long screeningId)
+            throws InvalidAssociationException {
+        SeatOccupancy seatOccupancy = occupancies.computeIfAbsent(screeningId, this::load);
+        if (seatOccupancy == null) {
+            throw new InvalidAssociationException("No screening seats mapped to screening with id " + screeningId);
+        }
+        return seatOccupancy;
+    }
+
+    public Map<Letter, Set<ScreeningSeatDto>> findSeatMapByScreeningWithId(Long screeningId)
+            throws InvalidAssociationException {
+        return findByScreeningWithId(screeningId).toSeatMap();
+    }
+
+    public void markBooked(Long screeningId, Long screeningSeatId) {
+        UtilMethods.runAfterCommit(() -> occupancies.computeIfPresent(screeningId, (id, seatOccupancy) -> {
+            seatOccupancy.markBooked(screeningSeatId);
+            return seatOccupancy;
+        }));
+    }
+
+    public void markAvailable(Long screeningId, Long screeningSeatId) {
+        UtilMethods.runAfterCommit(() -> occupancies.computeIfPresent(screeningId, (id, seatOccupancy) -> {
+            seatOccupancy.markAvailable(screeningSeatId);
+            return seatOccupancy;
+        }));
+    }
+
+    /**
+     * Marks the seat as held, loading the occupancy of the screening first if need be since holds are not
+     * part of what is loaded from the database.
+     *
+     * @param screeningId     the screening id
+     * @param screeningSeatId the screening seat id
+     * @throws InvalidAssociationException if the screening has no seats
+     */
+    public void markHeld(Long screeningId, Long screeningSeatId)
+            throws InvalidAssociationException {
+        findByScreeningWithId(screeningId).markHeld(screeningSeatId);
+    }
+
+    public void markReleased(Long screeningId, Long screeningSeatId) {
+        occupancies.computeIfPresent(screeningId, (id, seatOccupancy) -> {
+            seatOccupancy.markReleased(screeningSeatId);
+            return seatOccupancy;
+        });
+    }
+
+    public void evict(Long screeningId) {
+        UtilMethods.runAfterCommit(() -> occupancies.remove(screeningId));
+    }
+
+    public void evictAll() {
+        occupancies.clear();
+    }
+
+    private SeatOccupancy load(Long screeningId) {
+        List<SeatState> seatStates = screeningSeatRepository.findAllSeatStatesByScreeningWithId(screeningId);
+        logger.debug("Loaded occupancy of " + seatStates.size() + " seats for screening with id " + screeningId);
+        return seatStates.isEmpty() ? null : new SeatOccupancy(screeningId, seatStates);
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.SignedSessionCodec;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.domain.entities.SessionRevocation;
+import com.ecinema.app.domain.objects.SignedSession;
+import com.ecinema.app.repositories.SessionRevocationRepository;
+import com.ecinema.app.util.UtilMethods;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The denylist of stateless session mode. Revoking the sessions of a user, e.g. when their password or
+ * authorities change, writes the time of revocation to the database, and every signed session of that user
+ * issued before it is rejected. Each node keeps the revocations of the last session time to live in memory and
+ * polls the database for those written by other nodes, so a revocation reaches every node within one poll
+ * interval. A revocation seen from another node also invalidates the cached view and authorities of the user
+ * on this node. Does nothing unless stateless session mode is enabled.
+ */
+@Service
+public class SessionRevocationService {
+
+    private final SignedSessionCodec signedSessionCodec;
+    private final PrincipalViewCache principalViewCache;
+    private final UserAuthorityCache userAuthorityCache;
+    private final SessionRevocationRepository sessionRevocationRepository;
+    private final Map<Long, Long> revokedAtMillis = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(SessionRevocationService.class);
+
+    public SessionRevocationService(SessionRevocationRepository sessionRevocationRepository,
+                                    SignedSessionCodec signedSessionCodec, PrincipalViewCache principalViewCache,
+                                    UserAuthorityCache userAuthorityCache) {
+        this.sessionRevocationRepository = sessionRevocationRepository;
+        this.signedSessionCodec = signedSessionCodec;
+        this.principalViewCache = principalViewCache;
+        this.userAuthorityCache = userAuthorityCache;
+    }
+
+    /**
+     * Revokes every signed session of the user with the provided id issued before now, or within the second
+     * after. The revocation is upserted in the current transaction, so that it commits or rolls back with the
+     * change that caused it, and is applied on this node once it commits.
+     *
+     * @param userId the user id
+     */
+    public void revokeSessionsOfUserWithId(Long userId) {
+        if (!signedSessionCodec.isEnabled()) {
+            return;
+        }
+        // rounded up to the second so that a column without fractional seconds never moves it backwards
+        LocalDateTime revokedDateTime = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(userId, revokedDateTime);
+        long revokedAt = toMillis(revokedDateTime);
+        UtilMethods.runAfterCommit(() -> revokedAtMillis.merge(userId, revokedAt, Math::max));
+        logger.debug("Revoked signed sessions of user with id " + userId);
+    }
+
+    /**
+     * Returns true if the provided session was issued before the sessions of its user were last revoked.
+     *
+     * @param signedSession the signed session
+     * @return if the session is revoked
+     */
+    public boolean isRevoked(SignedSession signedSession) {
+        Long revokedAt = revokedAtMillis.get(signedSession.getUserId());
+        return revokedAt != null && signedSession.getIssuedAtMillis() <= revokedAt;
+    }
+
+    /**
+     * Returns the time to issue a new session of the user with the provided id at, which is now unless the
+     * sessions of the user were revoked within the last second or so, in which case it is just after the
+     * revocation, so that logging in right after e.g. a password change does not yield a revoked session.
+     *
+     * @param userId    the user id
+     * @param nowMillis the current time in millis
+     * @return the time of issue in millis
+     */
+    public long issueTimeOf(Long userId, long nowMillis) {
+        Long revokedAt = revokedAtMillis.get(userId);
+        return revokedAt != null && revokedAt >= nowMillis ? revokedAt + 1L : nowMillis;
+    }
+
+    /**
+     * Reloads the revocations of the last session time to live from the database, picking up those written by
+     * other nodes, and forgets older ones, which no unexpired session can predate.
+     *
+     * @return the number of revocations in force
+     */
+    @Scheduled(fixedDelayString = "${statelessSession.denylistRefreshMillis:5000}")
+    public int refresh() {
+        if (!signedSessionCodec.isEnabled()) {
+            return 0;
+        }
+        LocalDateTime oldest = LocalDateTime.now().minus(signedSessionCodec.getTimeToLive());
+        List<SessionRevocation> sessionRevocations = sessionRevocationRepository.findAllByRevokedDateTimeAfter(oldest);
+        long oldestMillis = toMillis(oldest);
+        revokedAtMillis.values().removeIf(revokedAt -> revokedAt < oldestMillis);
+        for (SessionRevocation sessionRevocation : sessionRevocations) {
+            Long userId = sessionRevocation.getUserId();
+            long revokedAt = toMillis(sessionRevocation.getRevokedDateTime());
+            Long previous = revokedAtMillis.get(userId);
+            if (previous == null || previous < revokedAt) {
+                revokedAtMillis.merge(userId, revokedAt, Math::max);
+                principalViewCache.invalidate(userId);
+                userAuthorityCache.invalidate(userId);
+            }
+        }
+        return revokedAtMillis.size();
+    }
+
+    /**
+     * Deletes the revocations older than the session time to live.
+     *
+     * @return the number of revocations deleted
+     */
+    @Scheduled(cron = "${statelessSession.denylistPurgeCron:0 45 4 * * *}")
+    public int purge() {
+        if (!signedSessionCodec.isEnabled()) {
+            return 0;
+        }
+        return sessionRevocationRepository.deleteAllByRevokedDateTimeBefore(
+                LocalDateTime.now().minus(signedSessionCodec.getTimeToLive()));
+    }
+
+    private static long toMillis(LocalDateTime localDateTime) {
+        return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+}
@@ -25,15 +25,17 @@ public class ShowroomService extends AbstractEntityService<Showroom, ShowroomRep
     private final ShowroomValidator showroomValidator;
     private final ScreeningService screeningService;
     private final TicketRepository ticketRepository;
+    private final CascadeDeletionService cascadeDeletionService;
 
     public ShowroomService(ShowroomRepository repository, ShowroomSeatService showroomSeatService,
                            ScreeningService screeningService, ShowroomValidator showroomValidator,
-                           TicketRepository ticketRepository) {
+                           TicketRepository ticketRepository, CascadeDeletionService cascadeDeletionService) {
         super(repository);
         this.showroomSeatService = showroomSeatService;
         this.screeningService = screeningService;
         this.showroomValidator = showroomValidator;
         this.ticketRepository = ticketRepository;
+        this.cascadeDeletionService = cascadeDeletionService;
     }
 
     @Override
@@ -47,6 +49,30 @@ public class ShowroomService extends AbstractEntityService<Showroom, ShowroomRep
         screeningService.deleteAll(showroom.getScreenings());
     }
 
+    /**
+     * Deletes the showroom with the provided id and everything depending on it in bulk, see
+     * {@link CascadeDeletionService}. Use {@link #delete(Showroom)} for a showroom already loaded and in use.
+     *
+     * @param showroomId the showroom id
+     * @throws NoEntityFoundException if no showroom exists with the provided id
+     */
+    @Override
+    public void delete(Long showroomId)
+            throws NoEntityFoundException {
+        if (!repository.existsById(showroomId)) {
+            throw new NoEntityFoundException("showroom", "id", showroomId);
+        }
+        cascadeDeletionService.execute(cascadeDeletionService.planShowrooms(List.of(showroomId)));
+    }
+
+    /**
+     * Deletes every showroom and everything depending on them in bulk, see {@link CascadeDeletionService}.
+     */
+    @Override
+    public void deleteAll() {
+        cascadeDeletionService.execute(cascadeDeletionService.planShowrooms(repository.findAllIds()));
+    }
+
     @Override
     public ShowroomDto convertToDto(Showroom showroom) {
         ShowroomDto showroomDto = new ShowroomDto();
@@ -61,7 +87,7 @@ public class ShowroomService extends AbstractEntityService<Showroom, ShowroomRep
 
     public void delete(Letter showroomLetter)
             throws NoEntityFoundException {
-        delete(repository.findByShowroomLetter(showroomLetter).orElseThrow(
+        delete(repository.findIdByShowroomLetter(showroomLetter).orElseThrow(
                 () -> new NoEntityFoundException("showroom", "showroom letter", showroomLetter)));
     }
 
@@ -4,7 +4,9 @@ import com.ecinema.app.domain.dtos.TicketDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.Letter;
 import com.ecinema.app.domain.enums.TicketStatus;
+import com.ecinema.app.domain.enums.TicketType;
 import com.ecinema.app.domain.forms.SeatBookingForm;
+import com.ecinema.app.domain.forms.SeatsBookingForm;
 import com.ecinema.app.domain.objects.SeatDesignation;
 import com.ecinema.app.exceptions.InvalidActionException;
 import com.ecinema.app.exceptions.InvalidArgumentException;
@@ -12,6 +14,7 @@ import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.exceptions.NoFieldFoundException;
 import com.ecinema.app.repositories.*;
 import com.ecinema.app.validators.SeatBookingValidator;
+import com.ecinema.app.validators.SeatsBookingValidator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,8 +22,12 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,18 +37,28 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
     private final EmailService emailService;
     private final CustomerRepository customerRepository;
     private final SeatBookingValidator seatBookingValidator;
+    private final SeatsBookingValidator seatsBookingValidator;
     private final PaymentCardRepository paymentCardRepository;
+    private final ScreeningRepository screeningRepository;
     private final ScreeningSeatRepository screeningSeatRepository;
+    private final SeatOccupancyService seatOccupancyService;
+    private final SeatHoldService seatHoldService;
 
     public TicketService(TicketRepository repository, EmailService emailService,
-                         SeatBookingValidator seatBookingValidator, CustomerRepository customerRepository,
-                         PaymentCardRepository paymentCardRepository, ScreeningSeatRepository screeningSeatRepository) {
+                         SeatBookingValidator seatBookingValidator, SeatsBookingValidator seatsBookingValidator,
+                         CustomerRepository customerRepository, PaymentCardRepository paymentCardRepository,
+                         ScreeningRepository screeningRepository, ScreeningSeatRepository screeningSeatRepository,
+                         SeatOccupancyService seatOccupancyService, SeatHoldService seatHoldService) {
         super(repository);
         this.emailService = emailService;
         this.customerRepository = customerRepository;
         this.seatBookingValidator = seatBookingValidator;
+        this.seatsBookingValidator = seatsBookingValidator;
         this.paymentCardRepository = paymentCardRepository;
+        this.screeningRepository = screeningRepository;
         this.screeningSeatRepository = screeningSeatRepository;
+        this.seatOccupancyService = seatOccupancyService;
+        this.seatHoldService = seatHoldService;
     }
 
     @Override
@@ -52,7 +69,13 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
         logger.debug("Detaching " + screeningSeat + " from " + ticket);
         if (screeningSeat != null) {
             screeningSeat.setTicket(null);
+            screeningSeat.setIsClaimed(false);
             ticket.setScreeningSeat(null);
+            if (screeningSeat.getScreening() != null) {
+                screeningRepository.addToSeatsBooked(screeningSeat.getScreening().getId(), -1);
+                seatOccupancyService.markAvailable(
+                        screeningSeat.getScreening().getId(), screeningSeat.getId());
+            }
         }
         // detach Customer
         Customer customer = ticket.getTicketOwner();
@@ -63,47 +86,48 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
         }
     }
 
+    /**
+     * Converts the ticket to a dto with a single query, see {@link TicketRepository#findTicketDtoById(Long)}.
+     * A ticket saved in the current transaction is flushed by Hibernate before the query runs.
+     */
     @Override
     public TicketDto convertToDto(Ticket ticket)
             throws NoFieldFoundException {
         logger.debug("Convert ticket to DTO");
         logger.debug("Ticket: " + ticket);
-        TicketDto ticketDto = new TicketDto();
-        ticketDto.setId(ticket.getId());
-        Long userId = findUserIdOfTicket(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("user id", "ticket"));
-        ticketDto.setUserId(userId);
-        String email = findEmailOfTicketUserOwner(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("email", "ticket"));
-        ticketDto.setEmail(email);
-        String username = findUsernameOfTicketUserOwner(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("username", "ticket"));
-        ticketDto.setUsername(username);
-        String movieTitle = findMovieTitleAssociatedWithTicket(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("movie title", "ticket"));
-        ticketDto.setMovieTitle(movieTitle);
-        Letter showroomLetter = findShowroomLetterAssociatedWithTicket(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("showroom letter", "ticket"));
-        ticketDto.setShowroomLetter(showroomLetter);
-        LocalDateTime showDateTime = findShowDateTimeOfScreeningAssociatedWithTicket(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("showDateTime", "ticket"));
-        ticketDto.setShowDateTime(showDateTime);
-        ticketDto.setIsRefundable(showDateTimeQualifiesForTicketRefund(showDateTime));
-        LocalDateTime endDateTime = findEndDateTimeOfScreeningAssociatedWithTicket(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("endDateTime", "ticket"));
-        ticketDto.setEndDateTime(endDateTime);
-        SeatDesignation seatDesignation = findSeatDesignationOfTicket(ticket.getId())
-                .orElseThrow(() -> new NoFieldFoundException("seat designation", "ticket"));
-        PaymentCard paymentCard = ticket.getPaymentCard();
-        ticketDto.setPaymentCardId(paymentCard != null ? paymentCard.getId() : null);
-        ticketDto.setSeatDesignation(seatDesignation);
-        ticketDto.setTicketType(ticket.getTicketType());
-        ticketDto.setTicketStatus(ticket.getTicketStatus());
-        ticketDto.setCreationDateTime(ticket.getCreationDateTime());
+        TicketDto ticketDto = repository.findTicketDtoById(ticket.getId())
+                .orElseThrow(() -> new NoFieldFoundException("owner, screening or seat", "ticket"));
+        setIsRefundable(ticketDto);
         logger.debug("Ticket DTO: " + ticketDto);
         return ticketDto;
     }
 
+    /**
+     * Converts the tickets to dtos with a single query no matter how many tickets there are, keeping the order
+     * of the provided collection.
+     */
+    @Override
+    protected List<TicketDto> convertToDto(Collection<Ticket> tickets)
+            throws NoFieldFoundException {
+        if (tickets.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ticketIds = tickets.stream().map(Ticket::getId).collect(Collectors.toList());
+        Map<Long, TicketDto> ticketDtos = setIsRefundable(repository.findAllTicketDtosByIds(ticketIds))
+                .stream().collect(Collectors.toMap(TicketDto::getId, Function.identity()));
+        if (ticketDtos.size() != ticketIds.stream().distinct().count()) {
+            throw new NoFieldFoundException("owner, screening or seat", "ticket");
+        }
+        return ticketIds.stream().map(ticketDtos::get).collect(Collectors.toList());
+    }
+
+    @Override
+    public TicketDto findById(Long ticketId)
+            throws NoEntityFoundException {
+        return repository.findTicketDtoById(ticketId).map(this::setIsRefundable)
+                .orElseThrow(() -> new NoEntityFoundException("ticket", "id", ticketId));
+    }
+
     public void bookTicket(SeatBookingForm seatBookingForm)
             throws NoEntityFoundException, InvalidActionException, InvalidArgumentException {
         List<String> errors = new ArrayList<>();
@@ -111,13 +135,7 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
         if (!errors.isEmpty()) {
             throw new InvalidArgumentException(errors);
         }
-        PaymentCard paymentCard = paymentCardRepository
-                .findById(seatBookingForm.getPaymentCardId())
-                .orElseThrow(() -> new NoEntityFoundException(
-                        "payment card", "id", seatBookingForm.getPaymentCardId()));
-        if (paymentCard.getExpirationDate().isBefore(LocalDate.now())) {
-            throw new InvalidActionException("Cannot purchase ticket with expired payment card");
-        }
+        PaymentCard paymentCard = findPaymentCardValidForPurchase(seatBookingForm.getPaymentCardId());
         ScreeningSeat screeningSeat = screeningSeatRepository
                 .findById(seatBookingForm.getScreeningSeatId())
                 .orElseThrow(() -> new NoEntityFoundException(
@@ -129,14 +147,124 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
         if (screening.getShowDateTime().isBefore(LocalDateTime.now())) {
             throw new InvalidActionException("Cannot purchase ticket for past screening");
         }
+        Customer customer = findCustomerValidForPurchase(seatBookingForm.getUserId());
+        if (seatHoldService.isHeldByOtherUser(screeningSeat.getId(), seatBookingForm.getUserId())) {
+            throw new InvalidActionException("Cannot purchase ticket for seat that's being booked by " +
+                                                     "another customer");
+        }
+        if (screeningSeatRepository.claimScreeningSeatWithId(screeningSeat.getId()) == 0) {
+            throw new InvalidActionException("Cannot purchase ticket for seat that's already booked");
+        }
+        screeningSeat.setIsClaimed(true);
+        screeningRepository.addToSeatsBooked(screening.getId(), 1);
+        seatOccupancyService.markBooked(screening.getId(), screeningSeat.getId());
+        seatHoldService.releaseAfterCommit(screeningSeat.getId());
+        Ticket ticket = createTicket(customer, paymentCard, screeningSeat, seatBookingForm.getTicketType());
+        save(ticket);
+        if (seatBookingForm.getTokensToApply() > 0) {
+            customer.subtractTokens(seatBookingForm.getTokensToApply());
+        }
+        sendPurchaseConfirmationEmail(
+                convertToDto(ticket), seatBookingForm.getTokensToApply());
+    }
+
+    /**
+     * Books every screening seat in {@link SeatsBookingForm#getTicketTypes()} in one transaction. Either all
+     * of the seats are booked or none are: the seats are claimed with a single conditional update, and if any
+     * one of them is already taken the whole booking is rolled back. The customer and payment card are loaded
+     * once, the tickets are saved together, and one confirmation email lists every ticket. Every seat must belong
+     * to the screening of {@link SeatsBookingForm#getScreeningId()}.
+     *
+     * @param seatsBookingForm the seats booking form
+     * @throws NoEntityFoundException   if the screening, payment card, customer, or any screening seat does not exist
+     * @throws InvalidActionException   if any seat is already booked or of another screening, or the booking is
+     *                                  otherwise not allowed
+     * @throws InvalidArgumentException if the form fails validation
+     */
+    public void bookTickets(SeatsBookingForm seatsBookingForm)
+            throws NoEntityFoundException, InvalidActionException, InvalidArgumentException {
+        List<String> errors = new ArrayList<>();
+        seatsBookingValidator.validate(seatsBookingForm, errors);
+        if (!errors.isEmpty()) {
+            throw new InvalidArgumentException(errors);
+        }
+        PaymentCard paymentCard = findPaymentCardValidForPurchase(seatsBookingForm.getPaymentCardId());
+        Map<Long, TicketType> ticketTypes = seatsBookingForm.getTicketTypes();
+        List<ScreeningSeat> screeningSeats = screeningSeatRepository.findAllById(ticketTypes.keySet());
+        if (screeningSeats.size() != ticketTypes.size()) {
+            Set<Long> foundIds = screeningSeats.stream().map(ScreeningSeat::getId).collect(Collectors.toSet());
+            throw new NoEntityFoundException(ticketTypes.keySet().stream().filter(id -> !foundIds.contains(id))
+                                                        .map(id -> "No screening seat found with id = " + id)
+                                                        .collect(Collectors.toList()));
+        }
+        Screening screening = screeningRepository.findById(seatsBookingForm.getScreeningId()).orElseThrow(
+                () -> new NoEntityFoundException("screening", "id", seatsBookingForm.getScreeningId()));
+        for (ScreeningSeat screeningSeat : screeningSeats) {
+            if (screeningSeat.getScreening() == null ||
+                    !screening.getId().equals(screeningSeat.getScreening().getId())) {
+                throw new InvalidActionException("Cannot purchase tickets for seats of different screenings at once");
+            }
+            if (screeningSeat.getTicket() != null) {
+                throw new InvalidActionException("Cannot purchase ticket for seat " +
+                                                         screeningSeat.seatDesignation() + " that's already booked");
+            }
+        }
+        if (screening.getShowDateTime().isBefore(LocalDateTime.now())) {
+            throw new InvalidActionException("Cannot purchase ticket for past screening");
+        }
+        Customer customer = findCustomerValidForPurchase(seatsBookingForm.getUserId());
+        for (Long screeningSeatId : ticketTypes.keySet()) {
+            if (seatHoldService.isHeldByOtherUser(screeningSeatId, seatsBookingForm.getUserId())) {
+                throw new InvalidActionException("Cannot purchase tickets because one or more of the seats " +
+                                                         "is being booked by another customer");
+            }
+        }
+        if (screeningSeatRepository.claimAllScreeningSeatsWithIds(ticketTypes.keySet()) != ticketTypes.size()) {
+            throw new InvalidActionException("Cannot purchase tickets because one or more of the seats " +
+                                                     "has just been booked by someone else");
+        }
+        screeningRepository.addToSeatsBooked(screening.getId(), ticketTypes.size());
+        List<Ticket> tickets = new ArrayList<>();
+        for (ScreeningSeat screeningSeat : screeningSeats) {
+            screeningSeat.setIsClaimed(true);
+            seatOccupancyService.markBooked(screening.getId(), screeningSeat.getId());
+            seatHoldService.releaseAfterCommit(screeningSeat.getId());
+            tickets.add(createTicket(customer, paymentCard, screeningSeat, ticketTypes.get(screeningSeat.getId())));
+        }
+        saveAll(tickets);
+        if (seatsBookingForm.getTokensToApply() > 0) {
+            customer.subtractTokens(seatsBookingForm.getTokensToApply());
+        }
+        sendPurchaseConfirmationEmail(convertToDto(tickets), seatsBookingForm.getTokensToApply());
+    }
+
+    private PaymentCard findPaymentCardValidForPurchase(Long paymentCardId)
+            throws NoEntityFoundException, InvalidActionException {
+        PaymentCard paymentCard = paymentCardRepository
+                .findById(paymentCardId)
+                .orElseThrow(() -> new NoEntityFoundException(
+                        "payment card", "id", paymentCardId));
+        if (paymentCard.getExpirationDate().isBefore(LocalDate.now())) {
+            throw new InvalidActionException("Cannot purchase ticket with expired payment card");
+        }
+        return paymentCard;
+    }
+
+    private Customer findCustomerValidForPurchase(Long userId)
+            throws NoEntityFoundException, InvalidActionException {
         Customer customer = customerRepository
-                .findByUserWithId(seatBookingForm.getUserId())
+                .findByUserWithId(userId)
                 .orElseThrow(() -> new NoEntityFoundException(
-                        "customer", "user id", seatBookingForm.getUserId()));
+                        "customer", "user id", userId));
         if (!customer.getIsAuthorityValid()) {
             throw new InvalidActionException("Cannot purchase ticket because your customer authority has been " +
                                                      "invalidated by an administrator");
         }
+        return customer;
+    }
+
+    private Ticket createTicket(Customer customer, PaymentCard paymentCard,
+                                ScreeningSeat screeningSeat, TicketType ticketType) {
         Ticket ticket = new Ticket();
         ticket.setTicketOwner(customer);
         customer.getTickets().add(ticket);
@@ -144,26 +272,18 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
         paymentCard.getPurchasedTickets().add(ticket);
         ticket.setScreeningSeat(screeningSeat);
         screeningSeat.setTicket(ticket);
-        ticket.setTicketType(seatBookingForm.getTicketType());
+        ticket.setTicketType(ticketType);
         ticket.setTicketStatus(TicketStatus.VALID);
         ticket.setCreationDateTime(LocalDateTime.now());
-        save(ticket);
-        if (seatBookingForm.getTokensToApply() > 0) {
-            customer.subtractTokens(seatBookingForm.getTokensToApply());
-        }
-        sendPurchaseConfirmationEmail(
-                convertToDto(ticket), seatBookingForm.getTokensToApply());
+        return ticket;
     }
 
     public void refundTicket(Long ticketId)
             throws NoEntityFoundException, InvalidActionException, NoFieldFoundException {
-        if (!existsById(ticketId)) {
-            throw new NoEntityFoundException("ticket", "id", ticketId);
-        }
-        if (!ticketIsRefundable(ticketId)) {
+        TicketDto ticketDto = findById(ticketId);
+        if (!ticketDto.getIsRefundable()) {
             throw new InvalidActionException("Ticket with id " + ticketId + " is not refundable");
         }
-        TicketDto ticketDto = findById(ticketId);
         if (ticketDto.getPaymentCardId() == null ||
                 !paymentCardRepository.existsById(ticketDto.getPaymentCardId())) {
             Customer customer = customerRepository.findByUserWithId(ticketDto.getUserId()).orElseThrow(
@@ -222,22 +342,31 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
     }
 
     public List<TicketDto> findAllByUserWithId(Long userId) {
-        return convertToDto(repository.findAllByUserWithId(userId));
+        return setIsRefundable(repository.findAllTicketDtosByUserWithId(userId));
     }
 
     public List<TicketDto> findAllByUserWithIdAndShowDateTimeIsBefore(Long userId, LocalDateTime localDateTime) {
-       return repository.findAllIdsByUserWithIdAndShowDateTimeIsBefore(userId, localDateTime)
-               .stream().map(this::convertToDto).collect(Collectors.toList());
+        return setIsRefundable(repository.findAllTicketDtosByUserWithIdAndShowDateTimeIsBefore(
+                userId, localDateTime));
     }
 
     public List<TicketDto> findAllByUserWithIdAndShowDateTimeIsAfter(Long userId, LocalDateTime localDateTime) {
-        return repository.findAllIdsByUserWithIdAndShowDateTimeIsAfter(userId, localDateTime)
-                .stream().map(this::convertToDto).collect(Collectors.toList());
+        return setIsRefundable(repository.findAllTicketDtosByUserWithIdAndShowDateTimeIsAfter(
+                userId, localDateTime));
     }
 
     public List<TicketDto> findAllByTicketStatus(TicketStatus ticketStatus) {
-        return convertToDto(
-                repository.findAllByTicketStatus(ticketStatus));
+        return setIsRefundable(repository.findAllTicketDtosByTicketStatus(ticketStatus));
+    }
+
+    private TicketDto setIsRefundable(TicketDto ticketDto) {
+        ticketDto.setIsRefundable(showDateTimeQualifiesForTicketRefund(ticketDto.getShowDateTime()));
+        return ticketDto;
+    }
+
+    private List<TicketDto> setIsRefundable(List<TicketDto> ticketDtos) {
+        ticketDtos.forEach(this::setIsRefundable);
+        return ticketDtos;
     }
 
     private void sendPurchaseConfirmationEmail(TicketDto ticketDto, Integer tokensApplied) {
@@ -245,6 +374,18 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
         sendEmail(ticketDto, "Ticket Purchase Confirmation", "purchased", append);
     }
 
+    private void sendPurchaseConfirmationEmail(List<TicketDto> ticketDtos, Integer tokensApplied) {
+        String append = tokensApplied > 0 ? tokensApplied + " tokens were applied to this purchase" : "";
+        StringBuilder message = new StringBuilder("You have just purchased the following ")
+                .append(ticketDtos.size()).append(" tickets:\n");
+        for (TicketDto ticketDto : ticketDtos) {
+            message.append(ticketDetails(ticketDto)).append("\n");
+        }
+        message.append("\n").append(append);
+        emailService.sendFromBusinessEmail(
+                ticketDtos.get(0).getEmail(), message.toString(), "Ticket Purchase Confirmation");
+    }
+
     private void sendRefundConfirmationEmail(TicketDto ticketDto) {
         PaymentCard paymentCard = paymentCardRepository.findById(ticketDto.getPaymentCardId()).orElse(null);
         String append = paymentCard != null ? "Refunded funds to payment card associated with ticket " :
@@ -255,7 +396,13 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
 
     private void sendEmail(TicketDto ticketDto, String subject, String action, String append) {
         String message = "You have just " + action + " the following ticket:\n" +
-                "\tMovie: " + ticketDto.getMovieTitle() + "\n" +
+                ticketDetails(ticketDto) + "\n" + append;
+        emailService.sendFromBusinessEmail(
+                ticketDto.getEmail(), message, "Ticket Refund Confirmation");
+    }
+
+    static String ticketDetails(TicketDto ticketDto) {
+        return "\tMovie: " + ticketDto.getMovieTitle() + "\n" +
                 "\tShowroom: " + ticketDto.getShowroomLetter() + "\n" +
                 "\tShowtime: " + ticketDto.showDateTimeFormatted() + "\n" +
                 "\tEndtime: " + ticketDto.endDateTimeFormatted() + "\n" +
@@ -263,9 +410,7 @@ public class TicketService extends AbstractEntityService<Ticket, TicketRepositor
                 "\tTicket Status: " + ticketDto.getTicketStatus() + "\n" +
                 "\tTicket Type: " + ticketDto.ticketTypeFormatted() + "\n" +
                 "\tPayment Card Id: " + ticketDto.getPaymentCardId() + "\n" +
-                "\tPurchased at: " + ticketDto.creationDateTimeFormatted() + "\n\n" + append;
-        emailService.sendFromBusinessEmail(
-                ticketDto.getEmail(), message, "Ticket Refund Confirmation");
+                "\tPurchased at: " + ticketDto.creationDateTimeFormatted() + "\n";
     }
 
 }
@@ -0,0 +1,98 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.objects.TokenSweepStatistics;
+import com.ecinema.app.repositories.ChangePasswordRepository;
+import com.ecinema.app.repositories.RegistrationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Purges registration requests that were never confirmed and change password requests that have expired.
+ * Rows are deleted in batches of bounded size, each batch its own short transaction, so a large backlog never
+ * holds locks on either table for long. The outcome of the last sweep and running totals are kept for
+ * {@link #getStatistics()}.
+ */
+@Service
+public class TokenSweeperService {
+
+    private final int batchSize;
+    private final Duration registrationTimeToLive;
+    private final RegistrationRepository registrationRepository;
+    private final ChangePasswordRepository changePasswordRepository;
+    private final AtomicLong totalRegistrationsPurged = new AtomicLong();
+    private final AtomicLong totalChangePasswordsPurged = new AtomicLong();
+    private final AtomicLong totalSweeps = new AtomicLong();
+    private final Logger logger = LoggerFactory.getLogger(TokenSweeperService.class);
+    private volatile TokenSweepStatistics lastSweep;
+
+    public TokenSweeperService(RegistrationRepository registrationRepository,
+                               ChangePasswordRepository changePasswordRepository,
+                               @Value("${tokenSweeper.batchSize:500}") int batchSize,
+                               @Value("${tokenSweeper.registrationTimeToLiveHours:24}") long registrationTtlHours) {
+        this.registrationRepository = registrationRepository;
+        this.changePasswordRepository = changePasswordRepository;
+        this.batchSize = batchSize;
+        this.registrationTimeToLive = Duration.ofHours(registrationTtlHours);
+    }
+
+    /**
+     * Purges every registration created more than the registration time to live ago and every change password
+     * request past its expiration date time.
+     *
+     * @return the statistics of this sweep
+     */
+    @Scheduled(fixedDelayString = "${tokenSweeper.intervalMillis:900000}")
+    public TokenSweepStatistics sweep() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        Pageable batch = PageRequest.of(0, batchSize);
+        int batches = 0;
+        int registrationsPurged = 0;
+        List<Long> ids;
+        while (!(ids = registrationRepository.findAllIdsByCreationDateTimeBefore(
+                now.minus(registrationTimeToLive), batch)).isEmpty()) {
+            registrationRepository.deleteAllAuthoritiesOfRegistrationsWithIds(ids);
+            registrationsPurged += registrationRepository.deleteAllWithIds(ids);
+            batches++;
+        }
+        int changePasswordsPurged = 0;
+        while (!(ids = changePasswordRepository.findAllIdsByExpirationDateTimeBefore(now, batch)).isEmpty()) {
+            changePasswordsPurged += changePasswordRepository.deleteAllWithIds(ids);
+            batches++;
+        }
+        long durationMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        TokenSweepStatistics statistics = new TokenSweepStatistics(
+                now, registrationsPurged, changePasswordsPurged, batches, durationMillis,
+                totalRegistrationsPurged.addAndGet(registrationsPurged),
+                totalChangePasswordsPurged.addAndGet(changePasswordsPurged),
+                totalSweeps.incrementAndGet());
+        lastSweep = statistics;
+        if (batches > 0) {
+            logger.debug("Token sweep purged " + registrationsPurged + " registrations and " +
+                                changePasswordsPurged + " change password requests in " + batches +
+                                " batches and " + durationMillis + " ms");
+        }
+        return statistics;
+    }
+
+    /**
+     * The statistics of the last sweep, or empty statistics if no sweep has run yet.
+     *
+     * @return the token sweep statistics
+     */
+    public TokenSweepStatistics getStatistics() {
+        TokenSweepStatistics statistics = lastSweep;
+        return statistics != null ? statistics : new TokenSweepStatistics();
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer of user last activity date times. Every request of a logged-in user only records the
+ * time in memory, and the latest time of each user is written to the database in bulk on every flush. Times
+ * are truncated to the second so that users active in the same second share a single update statement. Times
+ * recorded since the last flush are lost if the application dies without shutting down.
+ */
+@Service
+public class UserActivityService {
+
+    private final UserRepository userRepository;
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(UserActivityService.class);
+
+    public UserActivityService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Records that the user with the provided id is active now.
+     *
+     * @param userId the user id
+     */
+    public void recordActivity(Long userId) {
+        recordActivity(userId, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * Records that the user with the provided id was active at the provided date time, keeping the later time
+     * if one is already pending.
+     *
+     * @param userId       the user id
+     * @param activityTime the activity date time
+     */
+    public void recordActivity(Long userId, LocalDateTime activityTime) {
+        pending.merge(userId, activityTime, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    /**
+     * Find the last activity date time of the user with the provided id that is not yet written to the database.
+     *
+     * @param userId the user id, may be null for a user that is not yet saved
+     * @return the pending last activity date time
+     */
+    public Optional<LocalDateTime> findPending(Long userId) {
+        return userId == null ? Optional.empty() : Optional.ofNullable(pending.get(userId));
+    }
+
+    /**
+     * A snapshot of every last activity date time that is not yet written to the database.
+     *
+     * @return the pending last activity date times by user id
+     */
+    public Map<Long, LocalDateTime> pendingSnapshot() {
+        return new HashMap<>(pending);
+    }
+
+    /**
+     * Writes every pending last activity date time to the database, one update statement per distinct time.
+     * A time recorded while the flush is running stays pending for the next flush, and the times of a failed
+     * update are put back.
+     *
+     * @return the number of users flushed
+     */
+    @Scheduled(fixedDelayString = "${userActivity.flushIntervalMillis:10000}")
+    public int flush() {
+        Map<LocalDateTime, List<Long>> userIdsByTime = new TreeMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                userIdsByTime.computeIfAbsent(entry.getValue(), t -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        int flushed = 0;
+        for (Map.Entry<LocalDateTime, List<Long>> entry : userIdsByTime.entrySet()) {
+            try {
+                userRepository.updateLastActivityDateTimeOfAllWithIds(entry.getValue(), entry.getKey());
+                flushed += entry.getValue().size();
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush last activity of users " + entry.getValue() + ": " + e.getMessage());
+                entry.getValue().forEach(userId -> recordActivity(userId, entry.getKey()));
+            }
+        }
+        if (flushed > 0) {
+            logger.debug("Flushed last activity of " + flushed + " users in " + userIdsByTime.size() + " updates");
+        }
+        return flushed;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+}
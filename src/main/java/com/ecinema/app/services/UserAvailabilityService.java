@@ -0,0 +1,196 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.domain.entities.UserAvailabilityVersion;
+import com.ecinema.app.domain.objects.BloomFilter;
+import com.ecinema.app.repositories.UserAvailabilityVersionRepository;
+import com.ecinema.app.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether a username or email is taken without a query when it definitely is not. Every taken
+ * username and email is kept in a {@link BloomFilter}, lower-cased so that the filter holds whatever the
+ * collation of the database treats as equal. A miss in the filter means the username or email is free,
+ * and a hit is confirmed by the database. The filter is warmed from the database once the application is
+ * ready, and until then every check goes to the database. Since a Bloom filter cannot forget, the usernames
+ * and emails of deleted users keep hitting the database until the filter is rebuilt on schedule. Every new user
+ * also bumps the {@link UserAvailabilityVersion} in its transaction, and every node polls it in {@link #refresh()}
+ * and rebuilds when it has moved, so users registered on other nodes are seen as taken within one poll interval.
+ * Until then a check on another node may answer free, and the unique constraints of {@link User} still reject
+ * the duplicate when it is saved.
+ */
+@Service
+public class UserAvailabilityService {
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    private final int expectedUsers;
+    private final double falsePositiveProbability;
+    private final UserRepository userRepository;
+    private final UserAvailabilityVersionRepository userAvailabilityVersionRepository;
+    private final Object rebuildLock = new Object();
+    private final Logger logger = LoggerFactory.getLogger(UserAvailabilityService.class);
+    private volatile BloomFilter filter;
+    private volatile long filteredVersion;
+    private Set<String> addedSinceRebuild = ConcurrentHashMap.newKeySet();
+
+    public UserAvailabilityService(UserRepository userRepository,
+                                   UserAvailabilityVersionRepository userAvailabilityVersionRepository,
+                                   @Value("${userAvailability.expectedUsers:100000}") int expectedUsers,
+                                   @Value("${userAvailability.falsePositiveProbability:0.01}")
+                                   double falsePositiveProbability) {
+        this.userRepository = userRepository;
+        this.userAvailabilityVersionRepository = userAvailabilityVersionRepository;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    /**
+     * Returns true if a user with the provided username exists.
+     *
+     * @param username the username
+     * @return if the username is taken
+     */
+    public boolean isUsernameTaken(String username) {
+        if (username == null) {
+            return false;
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(USERNAME_PREFIX + normalize(username))) {
+            return false;
+        }
+        return userRepository.existsByUsername(username);
+    }
+
+    /**
+     * Returns true if a user with the provided email exists.
+     *
+     * @param email the email
+     * @return if the email is taken
+     */
+    public boolean isEmailTaken(String email) {
+        if (email == null) {
+            return false;
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(EMAIL_PREFIX + normalize(email))) {
+            return false;
+        }
+        return userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Marks the provided username and email as taken, and bumps the filter version in the current transaction
+     * for the other nodes. Must be called in the transaction of the user holding them, before it is committed,
+     * so that a check on this node never misses a committed user.
+     *
+     * @param username the username
+     * @param email    the email
+     */
+    public void add(String username, String email) {
+        bumpVersion();
+        synchronized (this) {
+            for (String key : keysOf(username, email)) {
+                addedSinceRebuild.add(key);
+                if (filter != null) {
+                    filter.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the filter if its version has moved since it was last built, which means a user was added on
+     * another node, or on this one, since. A rebuild on the node that added the user is redundant but harmless.
+     *
+     * @return true if the filter was rebuilt
+     */
+    @Scheduled(fixedDelayString = "${userAvailability.refreshMillis:10000}")
+    public boolean refresh() {
+        if (filter == null || currentVersion() == filteredVersion) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Rebuilds the filter from every username and email in the database, dropping those of deleted users.
+     * Usernames and emails added while the database is read are carried over, since their users might not
+     * have been committed yet.
+     *
+     * @return the number of usernames and emails in the new filter
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${userAvailability.rebuildCron:0 15 4 * * *}")
+    public int rebuild() {
+        synchronized (rebuildLock) {
+            return doRebuild();
+        }
+    }
+
+    private int doRebuild() {
+        long version = currentVersion();
+        Set<String> carried;
+        synchronized (this) {
+            carried = addedSinceRebuild;
+            addedSinceRebuild = ConcurrentHashMap.newKeySet();
+        }
+        List<String> usernames = userRepository.findAllUsernames();
+        List<String> emails = userRepository.findAllEmails();
+        BloomFilter rebuilt = new BloomFilter(
+                Math.max(expectedUsers, 2 * (usernames.size() + emails.size())), falsePositiveProbability);
+        usernames.forEach(username -> rebuilt.add(USERNAME_PREFIX + normalize(username)));
+        emails.forEach(email -> rebuilt.add(EMAIL_PREFIX + normalize(email)));
+        synchronized (this) {
+            carried.forEach(rebuilt::add);
+            addedSinceRebuild.forEach(rebuilt::add);
+            filter = rebuilt;
+            filteredVersion = version;
+        }
+        int size = usernames.size() + emails.size();
+        logger.debug("Rebuilt user availability filter of " + size + " usernames and emails");
+        return size;
+    }
+
+    private long currentVersion() {
+        return userAvailabilityVersionRepository.findVersion().orElse(0L);
+    }
+
+    private void bumpVersion() {
+        if (userAvailabilityVersionRepository.increment() == 0) {
+            UserAvailabilityVersion userAvailabilityVersion = new UserAvailabilityVersion();
+            userAvailabilityVersion.setVersion(1L);
+            userAvailabilityVersionRepository.save(userAvailabilityVersion);
+        }
+    }
+
+    private static Set<String> keysOf(String username, String email) {
+        Set<String> keys = new HashSet<>();
+        if (username != null) {
+            keys.add(USERNAME_PREFIX + normalize(username));
+        }
+        if (email != null) {
+            keys.add(EMAIL_PREFIX + normalize(email));
+        }
+        return keys;
+    }
+
+    private static String normalize(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -1,11 +1,17 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.UserAuthorityCache;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.contracts.IPassword;
 import com.ecinema.app.domain.contracts.IRegistration;
 import com.ecinema.app.domain.dtos.UserDto;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.forms.UserProfileForm;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.UserSearchCriteria;
+import com.ecinema.app.domain.objects.UserSearchCursor;
+import com.ecinema.app.domain.objects.UserSearchPage;
 import com.ecinema.app.validators.RegistrationValidator;
 import com.ecinema.app.validators.UserProfileValidator;
 import com.ecinema.app.exceptions.ClashException;
@@ -14,7 +20,10 @@ import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.repositories.UserRepository;
 import com.ecinema.app.util.UtilMethods;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -22,16 +31,32 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 @Transactional
-public class UserService extends AbstractEntityService<User, UserRepository, UserDto> implements UserDetailsService {
+public class UserService extends AbstractEntityService<User, UserRepository, UserDto> implements UserDetailsService,
+        UserDetailsPasswordService {
+
+    /**
+     * The maximum number of users in a page of {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    public static final int MAX_SEARCH_PAGE_SIZE = 500;
 
     private final AdminService adminService;
     private final EncoderService encoderService;
     private final CustomerService customerService;
     private final ModeratorService moderatorService;
+    private final PrincipalViewCache principalViewCache;
+    private final UserAuthorityCache userAuthorityCache;
+    private final UserActivityService userActivityService;
+    private final SessionRevocationService sessionRevocationService;
+    private final CascadeDeletionService cascadeDeletionService;
+    private final UserAvailabilityService userAvailabilityService;
     private final UserProfileValidator userProfileValidator;
     private final RegistrationValidator registrationValidator;
 
@@ -47,7 +72,10 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
     public UserService(UserRepository repository, CustomerService customerService,
                        ModeratorService moderatorService, AdminService adminService,
                        EncoderService encoderService, UserProfileValidator userProfileValidator,
-                       RegistrationValidator registrationValidator) {
+                       RegistrationValidator registrationValidator, PrincipalViewCache principalViewCache,
+                       UserActivityService userActivityService, UserAvailabilityService userAvailabilityService,
+                       UserAuthorityCache userAuthorityCache, SessionRevocationService sessionRevocationService,
+                       CascadeDeletionService cascadeDeletionService) {
         super(repository);
         this.adminService = adminService;
         this.encoderService = encoderService;
@@ -55,6 +83,12 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         this.moderatorService = moderatorService;
         this.userProfileValidator = userProfileValidator;
         this.registrationValidator = registrationValidator;
+        this.principalViewCache = principalViewCache;
+        this.userActivityService = userActivityService;
+        this.userAvailabilityService = userAvailabilityService;
+        this.userAuthorityCache = userAuthorityCache;
+        this.sessionRevocationService = sessionRevocationService;
+        this.cascadeDeletionService = cascadeDeletionService;
     }
 
     @Override
@@ -73,6 +107,32 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
                         (Moderator) user.getUserAuthorities().get(userAuthority));
             }
         }
+        userAuthorityCache.invalidate(user.getId());
+        sessionRevocationService.revokeSessionsOfUserWithId(user.getId());
+    }
+
+    /**
+     * Deletes the user with the provided id and everything depending on it in bulk, see
+     * {@link CascadeDeletionService}. Use {@link #delete(User)} for a user already loaded and in use.
+     *
+     * @param userId the user id
+     * @throws NoEntityFoundException if no user exists with the provided id
+     */
+    @Override
+    public void delete(Long userId)
+            throws NoEntityFoundException {
+        if (!repository.existsById(userId)) {
+            throw new NoEntityFoundException("user", "id", userId);
+        }
+        cascadeDeletionService.execute(cascadeDeletionService.planUsers(List.of(userId)));
+    }
+
+    /**
+     * Deletes every user and everything depending on them in bulk, see {@link CascadeDeletionService}.
+     */
+    @Override
+    public void deleteAll() {
+        cascadeDeletionService.execute(cascadeDeletionService.planUsers(repository.findAllIds()));
     }
 
     @Override
@@ -85,7 +145,7 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         userDto.setLastName(user.getLastName());
         userDto.setBirthDate(user.getBirthDate());
         userDto.setCreationDateTime(user.getCreationDateTime());
-        userDto.setLastActivityDateTime(user.getLastActivityDateTime());
+        userDto.setLastActivityDateTime(lastActivityDateTimeOf(user));
         userDto.getUserAuthorities().addAll(user.getUserAuthorities().keySet());
         logger.debug("Converting user to DTO: " + userDto);
         logger.debug("User: " + user);
@@ -112,6 +172,7 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         user.setLastName(userProfileForm.getLastName());
         user.setBirthDate(userProfileForm.getBirthDate());
         repository.save(user);
+        principalViewCache.invalidate(user.getId());
     }
 
 
@@ -122,12 +183,31 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
                 () -> new UsernameNotFoundException("No user found with username or email " + s));
     }
 
-    public void updateLastActivityDateTimeOfUserWithId(Long userId)
-            throws NoEntityFoundException {
-        User user = repository.findById(userId).orElseThrow(
-                () -> new NoEntityFoundException("user", "id", userId));
-        user.setLastActivityDateTime(LocalDateTime.now());
-        repository.save(user);
+    /**
+     * Replaces the password hash of the provided user with one at the current BCrypt cost. Called after a
+     * successful login whose hash was made at another cost.
+     *
+     * @param userDetails the user
+     * @param newPassword the new encoded password
+     * @return the user with the new password
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = (User) userDetails;
+        repository.updatePasswordOfUserWithId(user.getId(), newPassword);
+        user.setPassword(newPassword);
+        logger.debug("Rehashed password of user with id " + user.getId());
+        return user;
+    }
+
+    /**
+     * Records that the user with the provided id is active now. The time is buffered by
+     * {@link UserActivityService} and written to the database on its next flush.
+     *
+     * @param userId the user id
+     */
+    public void updateLastActivityDateTimeOfUserWithId(Long userId) {
+        userActivityService.recordActivity(userId);
     }
 
     public UserDto register(IRegistration registration, boolean passwordEncoded,
@@ -169,7 +249,14 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         user.setIsAccountLocked(false);
         user.setIsAccountExpired(false);
         user.setIsCredentialsExpired(false);
-        repository.save(user);
+        userAvailabilityService.add(user.getUsername(), user.getEmail());
+        try {
+            repository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // another registration claimed the email or username between the checks above and the insert
+            throw new ClashException("User with email " + registration.getEmail() + " or username " +
+                                             registration.getUsername() + " already exists");
+        }
         logger.debug("Saved user: " + user);
         logger.debug("Register new authorities for user: " + registration.getAuthorities());
         addUserAuthorityToUser(user, registration.getAuthorities());
@@ -179,12 +266,25 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         return userDto;
     }
 
+    /**
+     * Returns true if a user with the provided email exists. See {@link UserAvailabilityService#isEmailTaken}.
+     *
+     * @param email the email
+     * @return if the email is taken
+     */
     public boolean existsByEmail(String email) {
-        return repository.existsByEmail(email);
+        return userAvailabilityService.isEmailTaken(email);
     }
 
+    /**
+     * Returns true if a user with the provided username exists. See
+     * {@link UserAvailabilityService#isUsernameTaken}.
+     *
+     * @param username the username
+     * @return if the username is taken
+     */
     public boolean existsByUsername(String username) {
-        return repository.existsByUsername(username);
+        return userAvailabilityService.isUsernameTaken(username);
     }
 
     public boolean existsByUsernameOrEmail(String s) {
@@ -225,6 +325,9 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
             throw new InvalidArgumentException("The provided class " + userAuthorityClass.getName() +
                                                    " is not mapped to a user role value");
         }
+        if (!userAuthorities(userId).contains(userAuthority)) {
+            return Optional.empty();
+        }
         User user = repository.findById(userId).orElseThrow(
                 () -> new NoEntityFoundException("User", "id", userId));
         AbstractUserAuthority userAuthorityDef = user.getUserAuthorities().get(userAuthority);
@@ -235,51 +338,213 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         return repository.findIdByUsernameOrEmail(s);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByIsAccountLocked(boolean isAccountLocked) {
         List<User> users = repository.findAllByIsAccountLocked(isAccountLocked);
         return convertToDto(users);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByIsAccountEnabled(boolean isAccountEnabled) {
         List<User> users = repository.findAllByIsAccountEnabled(isAccountEnabled);
         return convertToDto(users);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByIsAccountExpired(boolean isAccountExpired) {
         List<User> users = repository.findAllByIsAccountExpired(isAccountExpired);
         return convertToDto(users);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByIsCredentialsExpired(boolean isCredentialsExpired) {
         List<User> users = repository.findAllByIsCredentialsExpired(isCredentialsExpired);
         return convertToDto(users);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByCreationDateTimeBefore(LocalDateTime localDateTime) {
         List<User> users = repository.findAllByCreationDateTimeBefore(localDateTime);
         return convertToDto(users);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByCreationDateTimeAfter(LocalDateTime localDateTime) {
         List<User> users = repository.findAllByCreationDateTimeAfter(localDateTime);
         return convertToDto(users);
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByLastActivityDateTimeBefore(LocalDateTime localDateTime) {
         List<User> users = repository.findAllByLastActivityDateTimeBefore(localDateTime);
-        return convertToDto(users);
+        return convertToDto(mergePendingActivity(users, t -> t.isBefore(localDateTime)));
     }
 
+    /**
+     * Loads every matching user at once, use {@link #search(UserSearchCriteria, UserSearchCursor, int)}.
+     */
+    @Deprecated
     public List<UserDto> findAllByLastActivityDateTimeAfter(LocalDateTime localDateTime) {
         List<User> users = repository.findAllByLastActivityDateTimeAfter(localDateTime);
-        return convertToDto(users);
+        return convertToDto(mergePendingActivity(users, t -> t.isAfter(localDateTime)));
     }
 
+    /**
+     * Finds a page of the users matching the provided criteria, ordered by creation date time then id and
+     * starting after the provided cursor, or from the first user if it is null. Each page is read by seeking
+     * past the cursor on an index, so reading deep pages costs no more than reading the first, and users
+     * are read by projection, with the authorities of the whole page in one more query. The last activity
+     * date time of each user includes pending activity, but the last activity filters only see activity
+     * already written to the database.
+     *
+     * @param criteria the user search criteria, or null to match every user
+     * @param after    the cursor to start after, or null to start from the first user
+     * @param pageSize the page size, capped at {@link #MAX_SEARCH_PAGE_SIZE}
+     * @return the user search page
+     */
+    @Transactional(readOnly = true)
+    public UserSearchPage search(UserSearchCriteria criteria, UserSearchCursor after, int pageSize) {
+        UserSearchCriteria c = criteria != null ? criteria : new UserSearchCriteria();
+        int size = Math.max(1, Math.min(pageSize, MAX_SEARCH_PAGE_SIZE));
+        // one more than the page size tells whether there is a next page without counting
+        List<UserDto> userDtos = new ArrayList<>(repository.searchUserDtos(
+                c.getIsAccountLocked(), c.getIsAccountEnabled(), c.getIsAccountExpired(),
+                c.getIsCredentialsExpired(), c.getCreatedAfter(), c.getCreatedBefore(),
+                c.getLastActiveAfter(), c.getLastActiveBefore(), c.getUserAuthority(),
+                after != null ? after.getCreationDateTime() : null, after != null ? after.getId() : null,
+                PageRequest.of(0, size + 1)));
+        UserSearchCursor nextCursor = null;
+        if (userDtos.size() > size) {
+            userDtos = new ArrayList<>(userDtos.subList(0, size));
+            nextCursor = UserSearchCursor.of(userDtos.get(size - 1));
+        }
+        if (!userDtos.isEmpty()) {
+            Map<Long, UserDto> userDtosById = new HashMap<>();
+            userDtos.forEach(userDto -> userDtosById.put(userDto.getId(), userDto));
+            for (Pair<Long, UserAuthority> pair : repository.findAllUserIdAndUserAuthorityPairsByUserIdIn(
+                    userDtosById.keySet())) {
+                userDtosById.get(pair.getFirst()).getUserAuthorities().add(pair.getSecond());
+            }
+            userDtos.forEach(userDto -> userDto.setLastActivityDateTime(latest(
+                    userDto.getLastActivityDateTime(),
+                    userActivityService.findPending(userDto.getId()).orElse(null))));
+        }
+        return new UserSearchPage(userDtos, nextCursor);
+    }
+
+    /**
+     * Streams every user matching the provided criteria in the order of
+     * {@link #search(UserSearchCriteria, UserSearchCursor, int)}, for exports. Pages of
+     * {@link #MAX_SEARCH_PAGE_SIZE} users are read as the stream is consumed, each in its own query, so no
+     * more than one page is held in memory and no database cursor stays open between pages.
+     *
+     * @param criteria the user search criteria, or null to match every user
+     * @return the stream of user dtos
+     */
+    public Stream<UserDto> streamAll(UserSearchCriteria criteria) {
+        Spliterator<UserDto> spliterator = new Spliterators.AbstractSpliterator<>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private Iterator<UserDto> page = Collections.emptyIterator();
+            private UserSearchCursor cursor;
+            private boolean lastPageRead;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super UserDto> action) {
+                if (!page.hasNext() && !lastPageRead) {
+                    UserSearchPage next = search(criteria, cursor, MAX_SEARCH_PAGE_SIZE);
+                    page = next.getUsers().iterator();
+                    cursor = next.getNextCursor();
+                    lastPageRead = !next.hasNext();
+                }
+                if (!page.hasNext()) {
+                    return false;
+                }
+                action.accept(page.next());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    /**
+     * Adds the users whose pending last activity date time matches the provided predicate to the users found in
+     * the database, then keeps only the users whose latest last activity date time still matches it.
+     */
+    private List<User> mergePendingActivity(List<User> users, Predicate<LocalDateTime> predicate) {
+        Map<Long, LocalDateTime> pending = userActivityService.pendingSnapshot();
+        if (pending.isEmpty()) {
+            return users;
+        }
+        Map<Long, User> merged = new LinkedHashMap<>();
+        users.forEach(user -> merged.put(user.getId(), user));
+        List<Long> missingIds = pending.entrySet().stream()
+                                       .filter(entry -> !merged.containsKey(entry.getKey()) &&
+                                               predicate.test(entry.getValue()))
+                                       .map(Map.Entry::getKey)
+                                       .collect(Collectors.toList());
+        if (!missingIds.isEmpty()) {
+            repository.findAllById(missingIds).forEach(user -> merged.put(user.getId(), user));
+        }
+        return merged.values().stream()
+                     .filter(user -> {
+                         LocalDateTime lastActivity = latest(user.getLastActivityDateTime(),
+                                                             pending.get(user.getId()));
+                         return lastActivity != null && predicate.test(lastActivity);
+                     })
+                     .collect(Collectors.toList());
+    }
+
+    private LocalDateTime lastActivityDateTimeOf(User user) {
+        return latest(user.getLastActivityDateTime(),
+                      userActivityService.findPending(user.getId()).orElse(null));
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        return a.isAfter(b) ? a : b;
+    }
+
+    /**
+     * The authorities of the user with the provided id, served from {@link UserAuthorityCache} and otherwise
+     * read by projection without loading the user.
+     *
+     * @param userId the user id
+     * @return the set of user authorities
+     * @throws NoEntityFoundException if there is no user with the provided id
+     */
     public Set<UserAuthority> userAuthorities(Long userId)
             throws NoEntityFoundException {
-        User user = repository.findById(userId).orElseThrow(
-                () -> new NoEntityFoundException("user", "id", userId));
-        return new HashSet<>(user.getUserAuthorities().keySet());
+        return userAuthorityCache.get(userId, () -> {
+            List<UserAuthority> userAuthorities = repository.findAllUserAuthoritiesOfUserWithId(userId);
+            if (userAuthorities.isEmpty() && !repository.existsById(userId)) {
+                throw new NoEntityFoundException("user", "id", userId);
+            }
+            return new HashSet<>(userAuthorities);
+        });
     }
 
     public List<String> userAuthoritiesAsListOfStrings(Long userId)
@@ -312,6 +577,8 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
                 case MODERATOR -> moderatorService.save((Moderator) abstractUserAuthority);
             }
         }
+        principalViewCache.invalidate(user.getId());
+        userAuthorityCache.invalidate(user.getId());
     }
 
     public void addUserAuthorityToUser(Long userId, UserAuthority... userAuthorities)
@@ -324,6 +591,7 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
         User user = repository.findById(userId).orElseThrow(
                 () -> new NoEntityFoundException("user", "id", userId));
         addUserAuthorityToUser(user, userAuthorities);
+        sessionRevocationService.revokeSessionsOfUserWithId(userId);
     }
 
     public void removeUserAuthorityFromUser(User user, UserAuthority... userAuthorities)
@@ -355,6 +623,9 @@ public class UserService extends AbstractEntityService<User, UserRepository, Use
                 }
             }
         }
+        principalViewCache.invalidate(userId);
+        userAuthorityCache.invalidate(userId);
+        sessionRevocationService.revokeSessionsOfUserWithId(userId);
     }
 
     public void requestPasswordChange(IPassword iPassword)
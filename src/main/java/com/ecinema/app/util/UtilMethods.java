@@ -5,6 +5,8 @@ import com.ecinema.app.domain.forms.RegistrationForm;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.ui.Model;
 
 import java.time.LocalDate;
@@ -335,4 +337,23 @@ public class UtilMethods {
         model.addAttribute("minDate", LocalDate.now().minusYears(120));
     }
 
+    /**
+     * Runs the provided action once the current transaction commits, or immediately if there is none.
+     * Nothing is run if the transaction rolls back, so in-memory state never reflects uncommitted changes.
+     *
+     * @param action the action
+     */
+    public static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
 }
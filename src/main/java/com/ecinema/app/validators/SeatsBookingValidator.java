@@ -0,0 +1,37 @@
+package com.ecinema.app.validators;
+
+import com.ecinema.app.domain.enums.TicketType;
+import com.ecinema.app.domain.forms.SeatsBookingForm;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+@Component
+public class SeatsBookingValidator implements AbstractValidator<SeatsBookingForm> {
+    @Override
+    public void validate(SeatsBookingForm seatsBookingForm, Collection<String> errors) {
+        if (seatsBookingForm.getScreeningId() == null) {
+            errors.add("No screening selected");
+        }
+        if (seatsBookingForm.getPaymentCardId() == null) {
+            errors.add("No payment card selected");
+        }
+        if (seatsBookingForm.getTicketTypes().isEmpty()) {
+            errors.add("No screening seats selected");
+        }
+        for (Map.Entry<Long, TicketType> entry : seatsBookingForm.getTicketTypes().entrySet()) {
+            if (entry.getKey() == null) {
+                errors.add("Invalid screening seat selected");
+            } else if (entry.getValue() == null) {
+                errors.add("No ticket type selected for screening seat with id " + entry.getKey());
+            }
+        }
+        if (seatsBookingForm.getTokensToApply() == null || seatsBookingForm.getTokensToApply() < 0) {
+            errors.add("Invalid number of tokens; cannot be less than zero");
+        }
+        if (seatsBookingForm.getUserId() == null) {
+            errors.add("Unable to fetch id of user");
+        }
+    }
+}
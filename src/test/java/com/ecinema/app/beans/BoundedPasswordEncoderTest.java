@@ -0,0 +1,110 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.exceptions.LoginThrottledException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void matchesOnExecutor() {
+        // given
+        BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder(4);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        BoundedPasswordEncoder boundedPasswordEncoder = new BoundedPasswordEncoder(
+                bCryptPasswordEncoder, 4, executor);
+        String encoded = boundedPasswordEncoder.encode("password123?!");
+        // then
+        assertTrue(boundedPasswordEncoder.matches("password123?!", encoded));
+        assertFalse(boundedPasswordEncoder.matches("password", encoded));
+        executor.shutdown();
+    }
+
+    @Test
+    void saturatedExecutorRejectsLogin() {
+        // given
+        BoundedPasswordEncoder boundedPasswordEncoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(4), 4, command -> {
+            throw new RejectedExecutionException();
+        });
+        String encoded = new BCryptPasswordEncoder(4).encode("password123?!");
+        // then
+        assertThrows(LoginThrottledException.class,
+                     () -> boundedPasswordEncoder.matches("password123?!", encoded));
+    }
+
+    @Test
+    void upgradeEncodingOfOtherCost() {
+        // given
+        BoundedPasswordEncoder boundedPasswordEncoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(10), 10, Runnable::run);
+        // then
+        assertTrue(boundedPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(boundedPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(12).encode("password")));
+        assertFalse(boundedPasswordEncoder.upgradeEncoding(new BCryptPasswordEncoder(10).encode("password")));
+        assertFalse(boundedPasswordEncoder.upgradeEncoding("not a hash"));
+        assertEquals(4, BoundedPasswordEncoder.costOf(new BCryptPasswordEncoder(4).encode("password")));
+    }
+
+    @Test
+    void throttledLoginIsTooManyRequests()
+            throws Exception {
+        // given
+        LoginFailureHandler loginFailureHandler = new LoginFailureHandler();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/perform-login");
+        MockHttpServletResponse throttledResponse = new MockHttpServletResponse();
+        MockHttpServletResponse failedResponse = new MockHttpServletResponse();
+        // when
+        loginFailureHandler.onAuthenticationFailure(request, throttledResponse, new LoginThrottledException());
+        loginFailureHandler.onAuthenticationFailure(request, failedResponse, new BadCredentialsException("bad"));
+        // then
+        assertEquals(429, throttledResponse.getStatus());
+        assertEquals(LoginFailureHandler.RETRY_AFTER_SECONDS, throttledResponse.getHeader("Retry-After"));
+        assertEquals("/login-error", failedResponse.getRedirectedUrl());
+    }
+
+    @Test
+    void verifyManyPasswordsOnBoundedPool()
+            throws Exception {
+        // given
+        int workers = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                workers, workers, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(8));
+        BoundedPasswordEncoder boundedPasswordEncoder = new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(6), 6, executor);
+        String encoded = boundedPasswordEncoder.encode("password123?!");
+        ExecutorService requestThreads = Executors.newFixedThreadPool(64);
+        int logins = 512;
+        // when
+        Future<?>[] futures = new Future<?>[logins];
+        for (int i = 0; i < logins; i++) {
+            futures[i] = requestThreads.submit(() -> boundedPasswordEncoder.matches("password123?!", encoded));
+        }
+        int accepted = 0;
+        int rejected = 0;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+                accepted++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof LoginThrottledException);
+                rejected++;
+            }
+        }
+        requestThreads.shutdown();
+        executor.shutdown();
+        // then
+        assertTrue(requestThreads.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(logins, accepted + rejected);
+        assertTrue(accepted >= workers);
+    }
+
+}
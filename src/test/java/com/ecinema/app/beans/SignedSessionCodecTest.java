@@ -0,0 +1,69 @@
+package com.ecinema.app.beans;
+
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.objects.SignedSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SignedSessionCodecTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private SignedSessionCodec signedSessionCodec;
+
+    @BeforeEach
+    void setUp() {
+        signedSessionCodec = new SignedSessionCodec(true, SECRET, 60, false);
+    }
+
+    @Test
+    void encodeAndDecode() {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(
+                1L, "user|name", EnumSet.of(UserAuthority.CUSTOMER, UserAuthority.ADMIN));
+        // when
+        String value = signedSessionCodec.encode(signedSession);
+        Optional<SignedSession> decoded = signedSessionCodec.decode(value, System.currentTimeMillis());
+        // then
+        assertTrue(decoded.isPresent());
+        assertEquals(signedSession, decoded.get());
+    }
+
+    @Test
+    void rejectTamperedSession() {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER));
+        String value = signedSessionCodec.encode(signedSession);
+        signedSession.getAuthorities().add(UserAuthority.ADMIN);
+        String forged = signedSessionCodec.encode(signedSession).split("\\.")[0] + "." + value.split("\\.")[1];
+        SignedSessionCodec otherCodec = new SignedSessionCodec(true, SECRET.toUpperCase(), 60, false);
+        // then
+        assertTrue(signedSessionCodec.decode(forged, System.currentTimeMillis()).isEmpty());
+        assertTrue(otherCodec.decode(value, System.currentTimeMillis()).isEmpty());
+        assertTrue(signedSessionCodec.decode("garbage", System.currentTimeMillis()).isEmpty());
+    }
+
+    @Test
+    void rejectExpiredSession() {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER));
+        String value = signedSessionCodec.encode(signedSession);
+        // then
+        assertTrue(signedSessionCodec.decode(value, signedSession.getExpiresAtMillis() - 1L).isPresent());
+        assertTrue(signedSessionCodec.decode(value, signedSession.getExpiresAtMillis()).isEmpty());
+        assertFalse(signedSession.isDueForRenewal(signedSession.getIssuedAtMillis()));
+        assertTrue(signedSession.isDueForRenewal(signedSession.getExpiresAtMillis() - 1L));
+    }
+
+    @Test
+    void requireLongSecretWhenEnabled() {
+        assertThrows(IllegalArgumentException.class, () -> new SignedSessionCodec(true, "short", 60, false));
+        assertFalse(new SignedSessionCodec(false, "", 60, false).isEnabled());
+    }
+
+}
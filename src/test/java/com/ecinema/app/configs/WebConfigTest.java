@@ -0,0 +1,101 @@
+package com.ecinema.app.configs;
+
+import com.ecinema.app.configs.interceptors.StaticAssetCacheInterceptor;
+import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.services.UserActivityService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+                properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class WebConfigTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ResourceUrlProvider resourceUrlProvider;
+
+    @MockBean
+    private InitializationConfig config;
+
+    @MockBean
+    private UserActivityService userActivityService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .webAppContextSetup(context)
+                .apply(springSecurity())
+                .alwaysDo(print())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void staticAssetsAreFingerprintedAndImmutable()
+            throws Exception {
+        String url = resourceUrlProvider.getForLookupPath("/css/style.css");
+        assertNotNull(url);
+        assertTrue(url.matches("/css/style-[0-9a-f]{32}\\.css"), url);
+        mockMvc.perform(get(url))
+               .andExpect(status().isOk())
+               .andExpect(header().string("Cache-Control", StaticAssetCacheInterceptor.IMMUTABLE));
+        mockMvc.perform(get("/css/style.css"))
+               .andExpect(status().isOk())
+               .andExpect(header().string("Cache-Control", StaticAssetCacheInterceptor.REVALIDATE));
+    }
+
+    @Test
+    void staticAssetsSkipInterceptorsAndDatabase()
+            throws Exception {
+        // given
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("user");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        // when
+        mockMvc.perform(get(resourceUrlProvider.getForLookupPath("/img/star.png")))
+               .andExpect(status().isOk());
+        mockMvc.perform(get(resourceUrlProvider.getForLookupPath("/js/cascading-form.js")))
+               .andExpect(status().isOk());
+        // then
+        assertEquals(0L, statistics.getPrepareStatementCount());
+        verifyNoInteractions(userActivityService);
+    }
+
+}
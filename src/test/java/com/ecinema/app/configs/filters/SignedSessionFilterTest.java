@@ -0,0 +1,125 @@
+package com.ecinema.app.configs.filters;
+
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.SignedSessionCodec;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.objects.SignedSession;
+import com.ecinema.app.repositories.SessionRevocationRepository;
+import com.ecinema.app.services.SessionRevocationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.http.Cookie;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class SignedSessionFilterTest {
+
+    private SignedSessionCodec signedSessionCodec;
+    private SessionRevocationService sessionRevocationService;
+    private SignedSessionFilter signedSessionFilter;
+    @Mock
+    private SessionRevocationRepository sessionRevocationRepository;
+
+    @BeforeEach
+    void setUp() {
+        signedSessionCodec = new SignedSessionCodec(true, "0123456789abcdef0123456789abcdef", 60, false);
+        sessionRevocationService = new SessionRevocationService(
+                sessionRevocationRepository, signedSessionCodec, new PrincipalViewCache(), new UserAuthorityCache(30L));
+        signedSessionFilter = new SignedSessionFilter(signedSessionCodec, sessionRevocationService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticateValidCookie()
+            throws Exception {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER));
+        // when
+        MockHttpServletResponse response = filter(signedSessionCodec.encode(signedSession));
+        // then
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals(signedSession.getUserId(), ((SignedSession) authentication.getPrincipal()).getUserId());
+        assertNull(response.getHeader("Set-Cookie"));
+    }
+
+    @Test
+    void clearTamperedCookie()
+            throws Exception {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER));
+        SignedSession forgedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.ADMIN));
+        String cookieValue = signedSessionCodec.encode(signedSession);
+        String forgedValue = signedSessionCodec.encode(forgedSession);
+        String tamperedValue = forgedValue.substring(0, forgedValue.indexOf('.')) +
+                cookieValue.substring(cookieValue.indexOf('.'));
+        // when
+        MockHttpServletResponse response = filter(tamperedValue);
+        // then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertClearsCookie(response);
+    }
+
+    @Test
+    void clearExpiredCookie()
+            throws Exception {
+        // given
+        long issuedAt = System.currentTimeMillis() - signedSessionCodec.getTimeToLive().toMillis() - 1000L;
+        SignedSession signedSession = signedSessionCodec.newSession(
+                1L, "user", EnumSet.of(UserAuthority.CUSTOMER), issuedAt);
+        // when
+        MockHttpServletResponse response = filter(signedSessionCodec.encode(signedSession));
+        // then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertClearsCookie(response);
+    }
+
+    @Test
+    void clearRevokedCookie()
+            throws Exception {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER));
+        sessionRevocationService.revokeSessionsOfUserWithId(1L);
+        // when
+        MockHttpServletResponse response = filter(signedSessionCodec.encode(signedSession));
+        // then
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertClearsCookie(response);
+    }
+
+    private MockHttpServletResponse filter(String cookieValue)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SignedSessionCodec.COOKIE_NAME, cookieValue));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        signedSessionFilter.doFilter(request, response, chain);
+        assertNotNull(chain.getRequest());
+        return response;
+    }
+
+    private static void assertClearsCookie(MockHttpServletResponse response) {
+        String setCookie = response.getHeader("Set-Cookie");
+        assertNotNull(setCookie);
+        assertTrue(setCookie.startsWith(SignedSessionCodec.COOKIE_NAME + "=;"));
+        assertTrue(setCookie.contains("Max-Age=0"));
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.ecinema.app.controllers;
 
+import com.ecinema.app.beans.PasswordEncoder;
 import com.ecinema.app.configs.InitializationConfig;
 import com.ecinema.app.domain.entities.User;
 import com.ecinema.app.repositories.UserRepository;
@@ -11,11 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -34,6 +37,9 @@ class LoginControllerTest {
     @Autowired
     private EncoderService encoderService;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @MockBean
     private InitializationConfig config;
 
@@ -72,6 +78,26 @@ class LoginControllerTest {
                .andExpect(redirectedUrl("/login-success"));
     }
 
+    @Test
+    void loginRehashesPasswordOfOtherCost()
+            throws Exception {
+        User user = new User();
+        user.setEmail("User456");
+        user.setPassword(new BCryptPasswordEncoder(4).encode("password123?!"));
+        user.setIsAccountEnabled(true);
+        user.setIsAccountExpired(false);
+        user.setIsAccountLocked(false);
+        user.setIsCredentialsExpired(false);
+        userRepository.save(user);
+        mockMvc.perform(post("/perform-login")
+                                .param("username", "User456")
+                                .param("password", "password123?!"))
+               .andExpect(redirectedUrl("/login-success"));
+        String rehashed = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertTrue(rehashed.startsWith("$2a$" + passwordEncoder.getStrength() + "$"));
+        assertTrue(encoderService.matches("password123?!", rehashed));
+    }
+
     @Test
     void failLogin()
             throws Exception {
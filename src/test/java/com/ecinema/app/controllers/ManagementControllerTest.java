@@ -44,6 +44,7 @@ import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -893,6 +894,7 @@ class ManagementControllerTest {
         given(securityContext.findIdOfLoggedInUser()).willReturn(1L);
         given(userService.findById(1L)).willReturn(userDto);
         given(userService.userAuthoritiesAsListOfStrings(1L)).willReturn(List.of("ADMIN"));
+        given(userService.userAuthorities(1L)).willReturn(EnumSet.of(UserAuthority.ADMIN));
     }
 
     void testAdminMovieChoose(String viewName, String href)
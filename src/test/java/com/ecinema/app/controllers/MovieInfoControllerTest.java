@@ -4,6 +4,11 @@ import com.ecinema.app.configs.InitializationConfig;
 import com.ecinema.app.domain.dtos.MovieDto;
 import com.ecinema.app.domain.dtos.ReviewDto;
 import com.ecinema.app.domain.dtos.ScreeningDto;
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+import com.ecinema.app.domain.objects.MovieFacetFilter;
+import com.ecinema.app.domain.objects.MovieFacetPage;
+import com.ecinema.app.domain.objects.MovieFacets;
 import com.ecinema.app.services.MovieService;
 import com.ecinema.app.services.ReviewService;
 import com.ecinema.app.services.ScreeningService;
@@ -22,7 +27,9 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.internal.bytebuddy.matcher.ElementMatchers.is;
 import static org.mockito.ArgumentMatchers.*;
@@ -67,8 +74,8 @@ class MovieInfoControllerTest {
     void moviesPage()
             throws Exception {
         Page<MovieDto> pageOfDtos = new PageImpl<>(new ArrayList<>());
-        given(movieService.findAll(any(PageRequest.class)))
-                .willReturn(pageOfDtos);
+        given(movieService.findAllByFacets(any(MovieFacetFilter.class), any(PageRequest.class)))
+                .willReturn(new MovieFacetPage(pageOfDtos, emptyFacets()));
         given(movieService.findAllByLikeTitle(anyString(), any(PageRequest.class)))
                 .willReturn(pageOfDtos);
         mockMvc.perform(get("/movies"))
@@ -77,6 +84,24 @@ class MovieInfoControllerTest {
                .andExpect(result -> model().attributeExists("movies"));
     }
 
+    @Test
+    void browseMoviesByFacets()
+            throws Exception {
+        Page<MovieDto> pageOfDtos = new PageImpl<>(new ArrayList<>());
+        MovieFacets movieFacets = emptyFacets();
+        MovieFacetFilter filter = new MovieFacetFilter();
+        filter.getAllCategories().addAll(Set.of(MovieCategory.ACTION, MovieCategory.DRAMA));
+        filter.getMsrbRatings().add(MsrbRating.PG13);
+        given(movieService.findAllByFacets(eq(filter), any(PageRequest.class)))
+                .willReturn(new MovieFacetPage(pageOfDtos, movieFacets));
+        mockMvc.perform(get("/movies")
+                                .param("category", "ACTION", "DRAMA")
+                                .param("rating", "PG13"))
+               .andDo(print())
+               .andExpect(status().isOk())
+               .andExpect(model().attribute("facets", movieFacets));
+    }
+
     @Test
     void searchMovie()
             throws Exception {
@@ -110,9 +135,9 @@ class MovieInfoControllerTest {
         MovieDto movieDto = new MovieDto();
         movieDto.setId(1L);
         given(movieService.findByTitle("dune")).willReturn(movieDto);
-        PageRequest pageRequest = PageRequest.of(0, 6);
+        PageRequest pageRequest = PageRequest.of(0, 6, ReviewService.NEWEST);
         Page<ReviewDto> pageOfDtos = new PageImpl<>(new ArrayList<>());
-        given(reviewService.findPageByMovieIdAndNotCensored(movieDto.getId(), pageRequest))
+        given(reviewService.findPageByMovieIdAndNotCensored(movieDto.getId(), null, pageRequest))
                 .willReturn(pageOfDtos);
         mockMvc.perform(get("/movie-reviews")
                                 .param("id", String.valueOf(movieDto.getId())))
@@ -138,4 +163,8 @@ class MovieInfoControllerTest {
                .andExpect(result -> model().attribute("screenings", pageOfDtos));
     }
 
+    private static MovieFacets emptyFacets() {
+        return new MovieFacets(0, new EnumMap<>(MovieCategory.class), new EnumMap<>(MsrbRating.class));
+    }
+
 }
\ No newline at end of file
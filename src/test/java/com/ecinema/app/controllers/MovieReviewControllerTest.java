@@ -43,6 +43,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -106,15 +107,29 @@ class MovieReviewControllerTest {
         List<ReviewDto> reviews = new ArrayList<>(
                 Collections.nCopies(10, new ReviewDto()));
         given(reviewService.findPageByMovieIdAndNotCensored(
-                1L, PageRequest.of(0, 6)))
+                1L, null, PageRequest.of(0, 6, ReviewService.NEWEST)))
                 .willReturn(UtilMethods.convertListToPage(
-                        reviews, PageRequest.of(0, 6)));
+                        reviews, PageRequest.of(0, 6, ReviewService.NEWEST)));
         mockMvc.perform(get("/movie-reviews")
                                 .param("id", String.valueOf(1L)))
                .andExpect(status().isOk())
                .andExpect(result -> model().attributeExists("reviews"));
     }
 
+    @Test
+    void movieReviewsPageMostHelpful()
+            throws Exception {
+        PageRequest pageRequest = PageRequest.of(0, 6, ReviewService.MOST_HELPFUL);
+        given(reviewService.findPageByMovieIdAndNotCensored(1L, null, pageRequest))
+                .willReturn(UtilMethods.convertListToPage(List.of(new ReviewDto()), pageRequest));
+        mockMvc.perform(get("/movie-reviews")
+                                .param("id", String.valueOf(1L))
+                                .param("sort", "helpful"))
+               .andExpect(status().isOk())
+               .andExpect(model().attribute("sort", "helpful"));
+        verify(reviewService).findPageByMovieIdAndNotCensored(1L, null, pageRequest);
+    }
+
     @Test
     @WithMockUser(username = "user", authorities = {"CUSTOMER"})
     void successfullyShowWriteReviewPage1()
@@ -295,6 +310,18 @@ class MovieReviewControllerTest {
                .andExpect(result -> model().attributeExists("success"));
     }
 
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void voteReviewKeepsSort()
+        throws Exception {
+        setUpCustomerPrivileges();
+        mockMvc.perform(post("/vote-review/" + 2L + "/" + 0)
+                                .param("movieId", String.valueOf(3L))
+                                .param("page", String.valueOf(2))
+                                .param("sort", "helpful"))
+               .andExpect(redirectedUrlPattern("/movie-reviews*sort=helpful*"));
+    }
+
     @Test
     @WithMockUser(username = "user", authorities = {"MODERATOR", "ADMIN"})
     void failToVoteReview1()
@@ -344,9 +371,9 @@ class MovieReviewControllerTest {
     }
 
     private void setUpReviews(Page<ReviewDto> reviews) {
-        PageRequest pageRequest = PageRequest.of(0, 6);
+        PageRequest pageRequest = PageRequest.of(0, 6, ReviewService.NEWEST);
         given(reviewService.findPageByMovieIdAndNotCensored(
-                2L, pageRequest)).willReturn(reviews);
+                eq(2L), any(), eq(pageRequest))).willReturn(reviews);
     }
 
     private void setUpCustomerPrivileges() {
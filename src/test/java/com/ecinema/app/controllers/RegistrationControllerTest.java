@@ -4,6 +4,7 @@ import com.ecinema.app.configs.InitializationConfig;
 import com.ecinema.app.domain.enums.SecurityQuestions;
 import com.ecinema.app.domain.forms.RegistrationForm;
 import com.ecinema.app.services.RegistrationService;
+import com.ecinema.app.services.UserAvailabilityService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,10 +16,14 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +41,9 @@ class RegistrationControllerTest {
     @MockBean
     private InitializationConfig config;
 
+    @MockBean
+    private UserAvailabilityService userAvailabilityService;
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders
@@ -76,4 +84,17 @@ class RegistrationControllerTest {
                 .andExpect(status().isOk());
     }
 
-}
\ No newline at end of file
+    @Test
+    void checkRegistrationAvailability()
+            throws Exception {
+        given(userAvailabilityService.isUsernameTaken("TakenUser")).willReturn(true);
+        mockMvc.perform(get("/registration-availability")
+                                .param("username", "TakenUser")
+                                .param("email", "taken@gmail.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").doesNotExist());
+        verify(userAvailabilityService, never()).isEmailTaken(any());
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.ecinema.app.controllers;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.beans.SecurityContext;
 import com.ecinema.app.configs.InitializationConfig;
 import com.ecinema.app.domain.dtos.*;
@@ -7,6 +8,8 @@ import com.ecinema.app.domain.enums.Letter;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.forms.LongListForm;
 import com.ecinema.app.domain.forms.SeatBookingForm;
+import com.ecinema.app.domain.forms.SeatsBookingForm;
+import com.ecinema.app.domain.objects.PrincipalView;
 import com.ecinema.app.exceptions.InvalidActionException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.services.*;
@@ -17,17 +20,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.test.context.support.WithAnonymousUser;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.SerializationUtils;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
@@ -60,12 +68,18 @@ class TicketControllerTest {
     @MockBean
     private ScreeningSeatService screeningSeatService;
 
+    @MockBean
+    private SeatHoldService seatHoldService;
+
     @MockBean
     private SecurityContext securityContext;
 
     @MockBean
     private InitializationConfig config;
 
+    @Autowired
+    private PrincipalViewCache principalViewCache;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -95,6 +109,66 @@ class TicketControllerTest {
                 .andExpect(result -> model().attribute("seatIdsForm", new LongListForm()));
     }
 
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void showOwnHeldSeatAsBookable()
+            throws Exception {
+        setUpCustomer();
+        given(screeningService.findById(1L)).willReturn(new ScreeningDto());
+        Map<Letter, Set<ScreeningSeatDto>> mapOfScreeningSeats = new EnumMap<>(Letter.class);
+        Set<ScreeningSeatDto> row = new LinkedHashSet<>();
+        for (long i = 1; i <= 2; i++) {
+            ScreeningSeatDto screeningSeatDto = new ScreeningSeatDto();
+            screeningSeatDto.setId(i);
+            screeningSeatDto.setRowLetter(Letter.A);
+            screeningSeatDto.setSeatNumber((int) i);
+            screeningSeatDto.setIsHeld(true);
+            row.add(screeningSeatDto);
+        }
+        mapOfScreeningSeats.put(Letter.A, row);
+        given(screeningSeatService.findScreeningSeatMapByScreeningWithId(1L))
+                .willReturn(mapOfScreeningSeats);
+        given(seatHoldService.isHeldBy(1L, 1L)).willReturn(true);
+        given(seatHoldService.isHeldBy(2L, 1L)).willReturn(false);
+        mockMvc.perform(get("/view-seats")
+                                .param("id", String.valueOf(1L)))
+               .andExpect(status().isOk())
+               .andExpect(model().attribute("seatIdsHeldByUser", Set.of(1L)))
+               .andExpect(content().string(containsString("name=\"seatId\" value=\"1\"")))
+               .andExpect(content().string(not(containsString("name=\"seatId\" value=\"2\""))));
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void loadLoggedInUserOncePerSession()
+            throws Exception {
+        setUpCustomer();
+        given(screeningService.findById(1L)).willReturn(new ScreeningDto());
+        given(screeningSeatService.findScreeningSeatMapByScreeningWithId(1L))
+                .willReturn(new EnumMap<>(Letter.class));
+        MockHttpSession session = new MockHttpSession();
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/view-seats")
+                                    .session(session)
+                                    .param("id", String.valueOf(1L)))
+                   .andExpect(status().isOk())
+                   .andExpect(model().attribute("userIsCustomer", true));
+        }
+        verify(userService, times(1)).findById(1L);
+        PrincipalView principalView = (PrincipalView) SerializationUtils.deserialize(SerializationUtils.serialize(
+                session.getAttribute(PrincipalViewCache.SESSION_ATTRIBUTE)));
+        assertNotNull(principalView);
+        assertEquals(1L, principalView.getUserId());
+        assertTrue(principalView.getUserDto().isCustomer());
+        assertEquals("Tickets", principalView.getDropdownMenu().get(0).getFirst());
+        principalViewCache.invalidate(1L);
+        mockMvc.perform(get("/view-seats")
+                                .session(session)
+                                .param("id", String.valueOf(1L)))
+               .andExpect(status().isOk());
+        verify(userService, times(2)).findById(1L);
+    }
+
     @Test
     @WithMockUser(username = "user", authorities = {"CUSTOMER"})
     void showBookSeatPage()
@@ -102,6 +176,7 @@ class TicketControllerTest {
         setUpCustomer();
         given(screeningService.existsById(1L)).willReturn(true);
         given(screeningSeatService.screeningSeatIsBooked(2L)).willReturn(false);
+        given(seatHoldService.isHeldBy(2L, 1L)).willReturn(true);
         given(customerService.numberOfTokensOwnedByUser(1L)).willReturn(6);
         ScreeningDto screening = new ScreeningDto();
         given(screeningService.findById(1L)).willReturn(screening);
@@ -177,6 +252,110 @@ class TicketControllerTest {
                .andExpect(result -> model().attributeExists("errors"));
     }
 
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void failToShowBookSeatPageWithoutHold()
+        throws Exception {
+        setUpCustomer();
+        given(screeningService.existsById(1L)).willReturn(true);
+        given(screeningSeatService.screeningSeatIsBooked(2L)).willReturn(false);
+        given(seatHoldService.isHeldBy(2L, 1L)).willReturn(false);
+        mockMvc.perform(get("/book-seat")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("seatId", String.valueOf(2L)))
+               .andExpect(redirectedUrlPattern("/view-seats**"))
+               .andExpect(flash().attributeExists("errors"));
+        verify(seatHoldService, never()).hold(any(), any(), any());
+        verify(screeningSeatService, never()).fetchSeatBookingForm(any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void holdSeat()
+        throws Exception {
+        setUpCustomer();
+        given(screeningService.existsById(1L)).willReturn(true);
+        given(screeningSeatService.screeningSeatIsBooked(2L)).willReturn(false);
+        mockMvc.perform(post("/hold-seat")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("seatId", String.valueOf(2L)))
+               .andExpect(redirectedUrlPattern("/book-seat?screeningId=1&seatId=2**"));
+        verify(seatHoldService, times(1)).hold(1L, 2L, 1L);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void failToHoldSeatHeldByOtherCustomer()
+        throws Exception {
+        setUpCustomer();
+        given(screeningService.existsById(1L)).willReturn(true);
+        given(screeningSeatService.screeningSeatIsBooked(2L)).willReturn(false);
+        InvalidActionException e = new InvalidActionException("Held by another customer");
+        doThrow(e).when(seatHoldService).hold(1L, 2L, 1L);
+        mockMvc.perform(post("/hold-seat")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("seatId", String.valueOf(2L)))
+               .andExpect(redirectedUrlPattern("/view-seats**"))
+               .andExpect(flash().attribute("errors", e.getErrors()));
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void holdSeats()
+        throws Exception {
+        setUpCustomer();
+        given(screeningService.existsById(1L)).willReturn(true);
+        mockMvc.perform(post("/hold-seats")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("list", "4", "5"))
+               .andExpect(redirectedUrlPattern("/book-seats?screeningId=1&list=4*5&**"));
+        verify(screeningSeatService, times(1)).fetchSeatsBookingForm(1L, List.of(4L, 5L));
+        verify(seatHoldService, times(1)).holdAll(1L, List.of(4L, 5L), 1L);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void failToShowBookSeatsPageWithoutHolds()
+        throws Exception {
+        setUpCustomer();
+        given(screeningService.existsById(1L)).willReturn(true);
+        given(seatHoldService.isHeldBy(4L, 1L)).willReturn(true);
+        given(seatHoldService.isHeldBy(5L, 1L)).willReturn(false);
+        mockMvc.perform(get("/book-seats")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("list", "4", "5"))
+               .andExpect(redirectedUrlPattern("/view-seats**"))
+               .andExpect(flash().attributeExists("errors"));
+        verify(seatHoldService, never()).holdAll(any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void findSeatsTogether()
+            throws Exception {
+        setUpCustomer();
+        given(screeningSeatService.findBestContiguousSeats(1L, 3)).willReturn(List.of(4L, 5L, 6L));
+        mockMvc.perform(post("/find-seats")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("numberOfSeats", String.valueOf(3)))
+               .andExpect(redirectedUrlPattern("/book-seats?screeningId=1&list=4*5*6&**"));
+        verify(seatHoldService, times(1)).holdAll(1L, List.of(4L, 5L, 6L), 1L);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void failToFindSeatsTogether()
+            throws Exception {
+        setUpCustomer();
+        InvalidActionException e = new InvalidActionException("No 3 seats next to one another are available");
+        given(screeningSeatService.findBestContiguousSeats(1L, 3)).willThrow(e);
+        mockMvc.perform(post("/find-seats")
+                                .param("screeningId", String.valueOf(1L))
+                                .param("numberOfSeats", String.valueOf(3)))
+               .andExpect(redirectedUrlPattern("/view-seats**"))
+               .andExpect(flash().attribute("errors", e.getErrors()));
+    }
+
     @Test
     @WithMockUser(username = "user", authorities = {"CUSTOMER"})
     void bookSeats()
@@ -201,6 +380,42 @@ class TicketControllerTest {
                 .andExpect(result -> model().attributeExists("errors"));
     }
 
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void bookMultipleSeats()
+        throws Exception {
+        SeatsBookingForm seatsBookingForm = new SeatsBookingForm();
+        seatsBookingForm.setScreeningId(1L);
+        doNothing().when(ticketService).bookTickets(eq(seatsBookingForm));
+        mockMvc.perform(post("/book-seats")
+                                .flashAttr("bookSeatsForm", seatsBookingForm))
+                .andExpect(redirectedUrlPattern("/view-seats**"))
+                .andExpect(result -> model().attributeExists("success"));
+        verify(ticketService, times(1)).bookTickets(seatsBookingForm);
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"CUSTOMER"})
+    void failToBookMultipleSeats()
+        throws Exception {
+        SeatsBookingForm seatsBookingForm = new SeatsBookingForm();
+        seatsBookingForm.setScreeningId(1L);
+        InvalidActionException e = new InvalidActionException("Invalid action");
+        doThrow(e).when(ticketService).bookTickets(seatsBookingForm);
+        mockMvc.perform(post("/book-seats").flashAttr("bookSeatsForm", seatsBookingForm))
+                .andExpect(redirectedUrlPattern("/view-seats**"))
+                .andExpect(result -> model().attributeExists("errors"));
+    }
+
+    @Test
+    @WithMockUser(username = "user", authorities = {"ADMIN", "MODERATOR"})
+    void failToBookMultipleSeatsWhenNotCustomer()
+        throws Exception {
+        mockMvc.perform(post("/book-seats").flashAttr("bookSeatsForm", new SeatsBookingForm()))
+                .andExpect(status().isForbidden());
+        verify(ticketService, never()).bookTickets(any());
+    }
+
     @Test
     @WithMockUser(username = "user", authorities = {"CUSTOMER"})
     void showCurrentTicketsPage()
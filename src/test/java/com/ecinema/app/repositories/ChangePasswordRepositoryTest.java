@@ -5,8 +5,12 @@ import com.ecinema.app.domain.entities.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -49,4 +53,23 @@ class ChangePasswordRepositoryTest {
         assertEquals(changePassword, changePasswordOptional.get());
     }
 
-}
\ No newline at end of file
+    @Test
+    void deleteAllWithIdsOfExpiredChangePasswords() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            ChangePassword changePassword = new ChangePassword();
+            changePassword.setToken(UUID.randomUUID().toString());
+            changePassword.setExpirationDateTime(i < 4 ? now.minusMinutes(i + 1) : now.plusMinutes(i));
+            changePasswordRepository.save(changePassword);
+        }
+        // when
+        List<Long> ids = changePasswordRepository.findAllIdsByExpirationDateTimeBefore(now, PageRequest.of(0, 10));
+        int deleted = changePasswordRepository.deleteAllWithIds(ids);
+        // then
+        assertEquals(4, ids.size());
+        assertEquals(4, deleted);
+        assertEquals(2, changePasswordRepository.count());
+    }
+
+}
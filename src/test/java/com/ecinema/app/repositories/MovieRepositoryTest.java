@@ -1,6 +1,7 @@
 package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.Movie;
+import com.ecinema.app.domain.entities.Review;
 import com.ecinema.app.services.MovieService;
 import com.ecinema.app.util.UtilMethods;
 import com.ecinema.app.domain.enums.MovieCategory;
@@ -9,6 +10,7 @@ import com.ecinema.app.domain.objects.Duration;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +27,12 @@ class MovieRepositoryTest {
     @Autowired
     private MovieRepository movieRepository;
 
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findAllPagination() {
         // given
@@ -276,4 +284,58 @@ class MovieRepositoryTest {
         assertFalse(test5);
     }
 
-}
\ No newline at end of file
+    @Test
+    void deleteAllWithIdsAfterElementCollections() {
+        // given
+        Movie movie = new Movie();
+        movie.setTitle("title");
+        movie.setCast(List.of("actor1", "actor2"));
+        movie.setWriters(List.of("writer"));
+        movie.setMovieCategories(EnumSet.of(ACTION, DRAMA));
+        movieRepository.saveAndFlush(movie);
+        Movie other = new Movie();
+        other.setTitle("other");
+        other.setCast(List.of("actor3"));
+        movieRepository.saveAndFlush(other);
+        List<Long> movieIds = List.of(movie.getId());
+        // when
+        assertEquals(2, movieRepository.deleteAllCastOfMoviesWithIds(movieIds));
+        assertEquals(1, movieRepository.deleteAllWritersOfMoviesWithIds(movieIds));
+        assertEquals(2, movieRepository.deleteAllMovieCategoriesOfMoviesWithIds(movieIds));
+        int deleted = movieRepository.deleteAllWithIds(movieIds);
+        // then
+        assertEquals(1, deleted);
+        assertEquals(List.of(other.getId()), movieRepository.findAllIds());
+        assertEquals(Set.of("actor3"), movieRepository.findById(other.getId()).orElseThrow().getCast());
+    }
+
+    @Test
+    void addToAndRepairRatingAggregates() {
+        // given
+        Movie movie = new Movie();
+        movie.setTitle("title");
+        movieRepository.saveAndFlush(movie);
+        for (int i = 1; i <= 4; i++) {
+            Review review = new Review();
+            review.setMovie(movie);
+            review.setRating(i * 2);
+            review.setIsCensored(i == 4);
+            reviewRepository.save(review);
+        }
+        entityManager.flush();
+        // when
+        movieRepository.addToRatingAggregates(movie.getId(), 9, 1);
+        movieRepository.addToRatingAggregates(movie.getId(), -2, -1);
+        // then
+        entityManager.refresh(movie);
+        assertEquals(7, movie.getRatingSum());
+        assertEquals(0, movie.getRatingCount());
+        // when
+        movieRepository.repairRatingAggregates();
+        // then
+        entityManager.refresh(movie);
+        assertEquals(12, movie.getRatingSum());
+        assertEquals(3, movie.getRatingCount());
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.ecinema.app.repositories;
+
+import com.ecinema.app.domain.entities.OutboxEmail;
+import com.ecinema.app.domain.enums.OutboxEmailStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class OutboxEmailRepositoryTest {
+
+    @Autowired
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @Test
+    void findAllDue() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEmail due = outboxEmail(OutboxEmailStatus.PENDING, now.minusMinutes(1));
+        OutboxEmail notYetDue = outboxEmail(OutboxEmailStatus.PENDING, now.plusMinutes(1));
+        OutboxEmail leaseExpired = outboxEmail(OutboxEmailStatus.SENDING, now.minusMinutes(2));
+        OutboxEmail leased = outboxEmail(OutboxEmailStatus.SENDING, now.plusMinutes(5));
+        outboxEmail(OutboxEmailStatus.SENT, null);
+        outboxEmail(OutboxEmailStatus.DEAD, null);
+        // when
+        List<OutboxEmail> test = outboxEmailRepository.findAllDue(now, PageRequest.of(0, 10));
+        // then
+        assertEquals(List.of(leaseExpired, due), test);
+        assertFalse(test.contains(notYetDue));
+        assertFalse(test.contains(leased));
+        assertEquals(1, outboxEmailRepository.findAllDue(now, PageRequest.of(0, 1)).size());
+    }
+
+    @Test
+    void leaseWithId() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = List.of(outboxEmail(OutboxEmailStatus.PENDING, now.minusMinutes(1)).getId(),
+                                 outboxEmail(OutboxEmailStatus.SENDING, now.minusMinutes(1)).getId());
+        // when
+        int leased = 0;
+        for (Long id : ids) {
+            leased += outboxEmailRepository.leaseWithId(id, now, now.plusMinutes(5));
+        }
+        int leasedAgain = outboxEmailRepository.leaseWithId(ids.get(0), now, now.plusMinutes(5));
+        // then
+        assertEquals(2, leased);
+        assertEquals(0, leasedAgain);
+        assertTrue(outboxEmailRepository.findAllDue(now, PageRequest.of(0, 10)).isEmpty());
+        assertEquals(2, outboxEmailRepository.findAllDue(now.plusMinutes(6), PageRequest.of(0, 10)).size());
+    }
+
+    @Test
+    void markSentAndFailed() {
+        // given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        LocalDateTime leaseExpiry = now.plusMinutes(5);
+        OutboxEmail sent = outboxEmail(OutboxEmailStatus.SENDING, leaseExpiry);
+        OutboxEmail dead = outboxEmail(OutboxEmailStatus.SENDING, leaseExpiry);
+        OutboxEmail takenOver = outboxEmail(OutboxEmailStatus.SENDING, leaseExpiry.plusMinutes(1));
+        // when
+        int markedSent = outboxEmailRepository.markSent(sent.getId(), leaseExpiry, now);
+        int markedDead = outboxEmailRepository.markFailed(
+                dead.getId(), leaseExpiry, OutboxEmailStatus.DEAD, 6, null, "Connection refused");
+        int markedAfterLeaseLost = outboxEmailRepository.markSent(takenOver.getId(), leaseExpiry, now) +
+                outboxEmailRepository.markFailed(takenOver.getId(), leaseExpiry, OutboxEmailStatus.PENDING, 1,
+                                                 now, "Connection refused");
+        int markedSentAgain = outboxEmailRepository.markSent(sent.getId(), leaseExpiry, now);
+        // then
+        assertEquals(1, markedSent);
+        assertEquals(1, markedDead);
+        assertEquals(0, markedAfterLeaseLost);
+        assertEquals(0, markedSentAgain);
+        assertEquals(List.of(takenOver.getId()), outboxEmailRepository.findAllByStatus(OutboxEmailStatus.SENDING)
+                                                                      .stream().map(OutboxEmail::getId)
+                                                                      .collect(Collectors.toList()));
+        assertEquals(List.of(sent.getId()), outboxEmailRepository.findAllByStatus(OutboxEmailStatus.SENT)
+                                                                 .stream().map(OutboxEmail::getId)
+                                                                 .collect(Collectors.toList()));
+        assertEquals(List.of(dead.getId()), outboxEmailRepository.findAllByStatus(OutboxEmailStatus.DEAD)
+                                                                 .stream().map(OutboxEmail::getId)
+                                                                 .collect(Collectors.toList()));
+    }
+
+    @Test
+    void findAllResolvedIdsByCreationDateTimeBeforeAndDelete() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEmail oldSent = outboxEmail(OutboxEmailStatus.SENT, null, now.minusDays(8));
+        OutboxEmail oldDead = outboxEmail(OutboxEmailStatus.DEAD, null, now.minusDays(9));
+        outboxEmail(OutboxEmailStatus.PENDING, now, now.minusDays(10));
+        outboxEmail(OutboxEmailStatus.SENT, null, now.minusDays(1));
+        // when
+        List<Long> ids = outboxEmailRepository.findAllResolvedIdsByCreationDateTimeBefore(
+                now.minusDays(7), PageRequest.of(0, 10));
+        int deleted = outboxEmailRepository.deleteAllWithIds(ids);
+        // then
+        assertEquals(List.of(oldDead.getId(), oldSent.getId()), ids);
+        assertEquals(2, deleted);
+        assertEquals(2, outboxEmailRepository.count());
+        assertTrue(outboxEmailRepository.findAllResolvedIdsByCreationDateTimeBefore(
+                now.minusDays(7), PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private OutboxEmail outboxEmail(OutboxEmailStatus status, LocalDateTime nextAttemptDateTime) {
+        return outboxEmail(status, nextAttemptDateTime, LocalDateTime.now());
+    }
+
+    private OutboxEmail outboxEmail(OutboxEmailStatus status, LocalDateTime nextAttemptDateTime,
+                                    LocalDateTime creationDateTime) {
+        OutboxEmail outboxEmail = new OutboxEmail();
+        outboxEmail.setSender("ECinema");
+        outboxEmail.setRecipient("user@gmail.com");
+        outboxEmail.setSubject("Subject");
+        outboxEmail.setBody("Body");
+        outboxEmail.setStatus(status);
+        outboxEmail.setCreationDateTime(creationDateTime);
+        outboxEmail.setNextAttemptDateTime(nextAttemptDateTime);
+        return outboxEmailRepository.saveAndFlush(outboxEmail);
+    }
+
+}
@@ -1,10 +1,13 @@
 package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.Registration;
+import com.ecinema.app.domain.enums.UserAuthority;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.time.Month;
@@ -20,6 +23,9 @@ class RegistrationRepositoryTest {
     @Autowired
     private RegistrationRepository registrationRepository;
 
+    @Autowired
+    private TestEntityManager testEntityManager;
+
     @AfterEach
     void tearDown() {
         registrationRepository.deleteAll();
@@ -100,4 +106,32 @@ class RegistrationRepositoryTest {
         assertEquals(5, registrationRepository.findAll().size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void deleteAllWithIdsOfExpiredRegistrations() {
+        // given
+        LocalDateTime time1 = LocalDateTime.of(2022, Month.APRIL, 1, 1, 1);
+        LocalDateTime time2 = LocalDateTime.of(2022, Month.APRIL, 20, 20, 20);
+        for (int i = 0; i < 10; i++) {
+            Registration registration = new Registration();
+            registration.setToken(UUID.randomUUID().toString());
+            registration.setCreationDateTime(i % 2 == 0 ? time1 : time2);
+            registration.getAuthorities().add(UserAuthority.CUSTOMER);
+            registrationRepository.save(registration);
+        }
+        testEntityManager.flush();
+        LocalDateTime time3 = LocalDateTime.of(2022, Month.APRIL, 10, 10, 10);
+        // when
+        List<Long> ids = registrationRepository.findAllIdsByCreationDateTimeBefore(time3, PageRequest.of(0, 3));
+        int authoritiesDeleted = registrationRepository.deleteAllAuthoritiesOfRegistrationsWithIds(ids);
+        int registrationsDeleted = registrationRepository.deleteAllWithIds(ids);
+        testEntityManager.clear();
+        // then
+        assertEquals(3, ids.size());
+        assertEquals(3, authoritiesDeleted);
+        assertEquals(3, registrationsDeleted);
+        assertEquals(7, registrationRepository.findAll().size());
+        assertEquals(2, registrationRepository.findAllIdsByCreationDateTimeBefore(
+                time3, PageRequest.of(0, 3)).size());
+    }
+
+}
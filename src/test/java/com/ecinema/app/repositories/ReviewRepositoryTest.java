@@ -3,14 +3,22 @@ package com.ecinema.app.repositories;
 import com.ecinema.app.domain.entities.Customer;
 import com.ecinema.app.domain.entities.Movie;
 import com.ecinema.app.domain.entities.Review;
+import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.entities.User;
 import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.enums.Vote;
 import com.ecinema.app.util.UtilMethods;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.time.LocalDateTime;
+import java.time.Month;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -33,6 +41,9 @@ class ReviewRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @AfterEach
     void tearDown() {
         reviewRepository.deleteAll();
@@ -197,4 +208,107 @@ class ReviewRepositoryTest {
         assertEquals(user.getUsername(), usernameOptional.get());
     }
 
-}
\ No newline at end of file
+    @Test
+    void addToVoteCountersAndRefreshHelpfulness() {
+        // given
+        Review review = new Review();
+        reviewRepository.save(review);
+        entityManager.flush();
+        // when
+        reviewRepository.addToVoteCounters(review.getId(), 41, 0);
+        reviewRepository.addToVoteCounters(review.getId(), -1, 5);
+        reviewRepository.refreshHelpfulnessOfReviewsWithIds(List.of(review.getId()));
+        // then
+        entityManager.refresh(review);
+        assertEquals(40, review.getUpvotes());
+        assertEquals(5, review.getDownvotes());
+        assertEquals(0.765, review.getHelpfulness(), 0.001);
+    }
+
+    @Test
+    void repairVoteCountersAndFindMostHelpful() {
+        // given
+        Movie movie = new Movie();
+        movieRepository.save(movie);
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Review review = new Review();
+            review.setMovie(movie);
+            movie.getReviews().add(review);
+            review.setIsCensored(false);
+            reviewRepository.save(review);
+            reviews.add(review);
+        }
+        for (int i = 0; i < 4; i++) {
+            Customer customer = new Customer();
+            customerRepository.save(customer);
+            ReviewVote reviewVote = new ReviewVote();
+            reviewVote.setReview(reviews.get(1));
+            reviewVote.setVoter(customer);
+            reviewVote.setVote(i < 3 ? Vote.UPVOTE : Vote.DOWNVOTE);
+            entityManager.persist(reviewVote);
+        }
+        entityManager.flush();
+        reviewRepository.addToVoteCounters(reviews.get(2).getId(), 1, 0);
+        // when
+        reviewRepository.repairVoteCounters(Vote.UPVOTE, Vote.DOWNVOTE);
+        reviewRepository.refreshHelpfulness();
+        entityManager.clear();
+        Page<Review> mostHelpful = reviewRepository.findAllByMovieWithIdAndNotCensored(
+                movie.getId(), PageRequest.of(0, 3, Sort.by(Sort.Order.desc("helpfulness"),
+                                                             Sort.Order.desc("id"))));
+        // then
+        List<Review> ordered = mostHelpful.getContent();
+        assertEquals(List.of(reviews.get(1).getId(), reviews.get(2).getId(), reviews.get(0).getId()),
+                     ordered.stream().map(Review::getId).collect(Collectors.toList()));
+        assertEquals(3, ordered.get(0).getUpvotes());
+        assertEquals(1, ordered.get(0).getDownvotes());
+        assertEquals(0.301, ordered.get(0).getHelpfulness(), 0.001);
+        assertEquals(0, ordered.get(1).getUpvotes());
+        assertEquals(0.0, ordered.get(1).getHelpfulness());
+    }
+
+    @Test
+    void findAllByMovieWithIdAndNotCensoredNewestFirst() {
+        // given
+        Movie movie = new Movie();
+        movieRepository.save(movie);
+        List<Long> reviewIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Review review = new Review();
+            review.setMovie(movie);
+            movie.getReviews().add(review);
+            review.setIsCensored(false);
+            review.setCreationDateTime(LocalDateTime.of(2022, Month.MAY, i == 1 ? 3 : 1, 12, 0));
+            reviewRepository.save(review);
+            reviewIds.add(review.getId());
+        }
+        // when
+        Page<Review> newest = reviewRepository.findAllByMovieWithIdAndNotCensored(
+                movie.getId(), PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "creationDateTime", "id")));
+        // then
+        assertEquals(List.of(reviewIds.get(1), reviewIds.get(2), reviewIds.get(0)),
+                     newest.getContent().stream().map(Review::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void updateIsCensoredOfReviewWithIdOnlyOnChange() {
+        // given
+        Movie movie = new Movie();
+        movieRepository.save(movie);
+        Review review = new Review();
+        review.setMovie(movie);
+        review.setIsCensored(false);
+        reviewRepository.save(review);
+        entityManager.flush();
+        // when
+        int censored = reviewRepository.updateIsCensoredOfReviewWithId(review.getId(), true);
+        int censoredAgain = reviewRepository.updateIsCensoredOfReviewWithId(review.getId(), true);
+        int uncensored = reviewRepository.updateIsCensoredOfReviewWithId(review.getId(), false);
+        // then
+        assertEquals(1, censored);
+        assertEquals(0, censoredAgain);
+        assertEquals(1, uncensored);
+    }
+
+}
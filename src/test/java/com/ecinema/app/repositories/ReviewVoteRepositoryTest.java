@@ -6,6 +6,7 @@ import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.entities.User;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.ReviewVoteTarget;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -261,4 +262,82 @@ class ReviewVoteRepositoryTest {
         assertEquals(mapOfUserIds.get(Vote.DOWNVOTE), downvoteUserIds);
     }
 
-}
\ No newline at end of file
+    @Test
+    void findReviewVoteTarget() {
+        // given
+        User writerUser = new User();
+        userRepository.save(writerUser);
+        Customer writer = new Customer();
+        writer.setUser(writerUser);
+        writerUser.getUserAuthorities().put(UserAuthority.CUSTOMER, writer);
+        customerRepository.save(writer);
+        Review review = new Review();
+        review.setWriter(writer);
+        writer.getReviews().add(review);
+        reviewRepository.save(review);
+        List<User> users = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            User user = new User();
+            userRepository.save(user);
+            Customer customer = new Customer();
+            customer.setUser(user);
+            user.getUserAuthorities().put(UserAuthority.CUSTOMER, customer);
+            customerRepository.save(customer);
+            users.add(user);
+            customers.add(customer);
+        }
+        ReviewVote reviewVote = new ReviewVote();
+        reviewVote.setVote(Vote.DOWNVOTE);
+        reviewVote.setReview(review);
+        reviewVote.setVoter(customers.get(1));
+        reviewVoteRepository.save(reviewVote);
+        // when
+        Optional<ReviewVoteTarget> newVoteTarget = reviewVoteRepository.findReviewVoteTarget(
+                users.get(0).getId(), review.getId());
+        Optional<ReviewVoteTarget> existingVoteTarget = reviewVoteRepository.findReviewVoteTarget(
+                users.get(1).getId(), review.getId());
+        Optional<ReviewVoteTarget> missingReviewTarget = reviewVoteRepository.findReviewVoteTarget(
+                users.get(0).getId(), review.getId() + 1000L);
+        // then
+        assertTrue(newVoteTarget.isPresent());
+        assertEquals(customers.get(0).getId(), newVoteTarget.get().getCustomerId());
+        assertEquals(writerUser.getId(), newVoteTarget.get().getWriterUserId());
+        assertNull(newVoteTarget.get().getReviewVoteId());
+        assertTrue(existingVoteTarget.isPresent());
+        assertEquals(reviewVote.getId(), existingVoteTarget.get().getReviewVoteId());
+        assertEquals(Vote.DOWNVOTE, existingVoteTarget.get().getVote());
+        assertTrue(missingReviewTarget.isEmpty());
+    }
+
+    @Test
+    void findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn() {
+        // given
+        User user = new User();
+        userRepository.save(user);
+        Customer customer = new Customer();
+        customer.setUser(user);
+        user.getUserAuthorities().put(UserAuthority.CUSTOMER, customer);
+        customerRepository.save(customer);
+        List<Long> reviewIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Review review = new Review();
+            reviewRepository.save(review);
+            reviewIds.add(review.getId());
+            if (i > 0) {
+                ReviewVote reviewVote = new ReviewVote();
+                reviewVote.setVote(i == 1 ? Vote.UPVOTE : Vote.DOWNVOTE);
+                reviewVote.setReview(review);
+                reviewVote.setVoter(customer);
+                reviewVoteRepository.save(reviewVote);
+            }
+        }
+        // when
+        Map<Long, Vote> votes = new HashMap<>();
+        reviewVoteRepository.findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn(
+                user.getId(), reviewIds.subList(0, 2)).forEach(pair -> votes.put(pair.getFirst(), pair.getSecond()));
+        // then
+        assertEquals(Map.of(reviewIds.get(1), Vote.UPVOTE), votes);
+    }
+
+}
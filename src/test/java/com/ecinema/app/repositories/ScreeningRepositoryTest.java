@@ -6,6 +6,7 @@ import com.ecinema.app.util.UtilMethods;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
@@ -13,6 +14,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +31,15 @@ class ScreeningRepositoryTest {
     @Autowired
     private ShowroomRepository showroomRepository;
 
+    @Autowired
+    private ScreeningSeatRepository screeningSeatRepository;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Test
     void findAllByShowDateTimeLessThanEqual() {
         // given
@@ -154,6 +165,70 @@ class ScreeningRepositoryTest {
         assertEquals(showroom, test2.get(0).getShowroom());
     }
 
+    @Test
+    void findLongestLengthInSecondsOfShowroomWithId() {
+        // given
+        Showroom showroom = new Showroom();
+        showroom.setShowroomLetter(Letter.A);
+        showroomRepository.save(showroom);
+        Showroom otherShowroom = new Showroom();
+        otherShowroom.setShowroomLetter(Letter.B);
+        showroomRepository.save(otherShowroom);
+        LocalDateTime midnight = LocalDateTime.now().toLocalDate().plusDays(1).atStartOfDay();
+        // a screening keeps its length when the duration of its movie is later shortened
+        for (int minutes : new int[]{90, 200, 45}) {
+            Screening screening = new Screening();
+            screening.setShowDateTime(midnight);
+            screening.setEndDateTime(midnight.plusMinutes(minutes));
+            screening.setShowroom(showroom);
+            showroom.getScreenings().add(screening);
+            screeningRepository.save(screening);
+        }
+        // when
+        Optional<Long> longest = screeningRepository.findLongestLengthInSecondsOfShowroomWithId(showroom.getId());
+        Optional<Long> none = screeningRepository.findLongestLengthInSecondsOfShowroomWithId(otherShowroom.getId());
+        // then
+        assertEquals(Optional.of(200L * 60L), longest);
+        assertTrue(none.isEmpty());
+    }
+
+    @Test
+    void findAllByShowroomWithIdOverlapping() {
+        // given
+        Showroom showroom = new Showroom();
+        showroom.setShowroomLetter(Letter.A);
+        showroomRepository.save(showroom);
+        LocalDateTime midnight = LocalDateTime.now().toLocalDate().plusDays(1).atStartOfDay();
+        List<Screening> screenings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Screening screening = new Screening();
+            screening.setShowDateTime(midnight.plusHours(2L * i));
+            screening.setEndDateTime(midnight.plusHours(2L * i + 1));
+            screening.setShowroom(showroom);
+            showroom.getScreenings().add(screening);
+            screeningRepository.save(screening);
+            screenings.add(screening);
+        }
+        // when
+        List<Screening> test1 = screeningRepository.findAllByShowroomWithIdOverlapping(
+                showroom.getId(), midnight.plusHours(2), midnight.plusHours(3), midnight.plusHours(6),
+                PageRequest.of(0, 10));
+        List<Screening> test2 = screeningRepository.findAllByShowroomWithIdOverlapping(
+                showroom.getId(), midnight.plusHours(2), midnight.plusHours(3), midnight.plusHours(6),
+                PageRequest.of(0, 1));
+        List<Screening> test3 = screeningRepository.findAllByShowroomWithIdOverlapping(
+                showroom.getId(), midnight.plusHours(4), midnight.plusHours(5).plusMinutes(1),
+                midnight.plusHours(5).plusMinutes(59), PageRequest.of(0, 1));
+        List<Screening> test4 = screeningRepository.findAllByShowroomWithIdOverlapping(
+                showroom.getId(), midnight.plusHours(3), midnight.plusHours(3), midnight.plusHours(6),
+                PageRequest.of(0, 10));
+        // then
+        assertEquals(List.of(screenings.get(1), screenings.get(2), screenings.get(3)), test1);
+        assertEquals(List.of(screenings.get(1)), test2);
+        assertTrue(test3.isEmpty());
+        assertEquals(List.of(screenings.get(2), screenings.get(3)), test4);
+    }
+
     @Test
     void findAllByShowroomLetter() {
         // given
@@ -280,4 +355,45 @@ class ScreeningRepositoryTest {
         assertEquals(screeningIds, test);
     }
 
-}
\ No newline at end of file
+    @Test
+    void addToSeatsBooked() {
+        // given
+        Screening screening = new Screening();
+        screeningRepository.save(screening);
+        entityManager.flush();
+        // when
+        screeningRepository.addToSeatsBooked(screening.getId(), 3);
+        screeningRepository.addToSeatsBooked(screening.getId(), -1);
+        // then
+        entityManager.refresh(screening);
+        assertEquals(2, screening.getSeatsBooked());
+    }
+
+    @Test
+    void repairSeatCounters() {
+        // given
+        Screening screening = new Screening();
+        screeningRepository.save(screening);
+        for (int i = 0; i < 10; i++) {
+            ScreeningSeat screeningSeat = new ScreeningSeat();
+            screeningSeat.setScreening(screening);
+            screening.getScreeningSeats().add(screeningSeat);
+            screeningSeatRepository.save(screeningSeat);
+            if (i % 3 == 0) {
+                Ticket ticket = new Ticket();
+                ticket.setScreeningSeat(screeningSeat);
+                screeningSeat.setTicket(ticket);
+                ticketRepository.save(ticket);
+            }
+        }
+        entityManager.flush();
+        screeningRepository.addToSeatsBooked(screening.getId(), 7);
+        // when
+        screeningRepository.repairSeatCounters();
+        // then
+        entityManager.refresh(screening);
+        assertEquals(10, screening.getTotalSeats());
+        assertEquals(4, screening.getSeatsBooked());
+    }
+
+}
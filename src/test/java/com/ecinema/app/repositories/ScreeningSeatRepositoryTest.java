@@ -2,14 +2,29 @@ package com.ecinema.app.repositories;
 
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.objects.SeatState;
 import com.ecinema.app.exceptions.NoEntityFoundException;
+import com.ecinema.app.services.ScreeningSeatService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +46,17 @@ class ScreeningSeatRepositoryTest {
     @Autowired
     private TicketRepository ticketRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private ScreeningSeatService screeningSeatService;
+    private final Logger logger = LoggerFactory.getLogger(ScreeningSeatRepositoryTest.class);
+
+    @BeforeEach
+    void setUp() {
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, null, null);
+    }
+
     @Test
     void findAllByScreening() {
         // given
@@ -129,4 +155,240 @@ class ScreeningSeatRepositoryTest {
         assertEquals(screeningSeat, screeningSeatOptional2.get());
     }
 
-}
\ No newline at end of file
+    @Test
+    void findAllSeatStatesByScreeningWithId() {
+        // given
+        Showroom showroom = new Showroom();
+        showroom.setShowroomLetter(Letter.A);
+        showroomRepository.save(showroom);
+        Screening screening = new Screening();
+        screening.setShowroom(showroom);
+        screeningRepository.save(screening);
+        List<ScreeningSeat> screeningSeats = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            ShowroomSeat showroomSeat = new ShowroomSeat();
+            showroomSeat.setRowLetter(Letter.B);
+            showroomSeat.setSeatNumber(i);
+            showroomSeat.setShowroom(showroom);
+            showroomSeatRepository.save(showroomSeat);
+            ScreeningSeat screeningSeat = new ScreeningSeat();
+            screeningSeat.setShowroomSeat(showroomSeat);
+            screeningSeat.setScreening(screening);
+            screeningSeatRepository.save(screeningSeat);
+            screeningSeats.add(screeningSeat);
+        }
+        Ticket ticket = new Ticket();
+        ticket.setScreeningSeat(screeningSeats.get(3));
+        screeningSeats.get(3).setTicket(ticket);
+        ticketRepository.save(ticket);
+        // when
+        List<SeatState> seatStates = screeningSeatRepository
+                .findAllSeatStatesByScreeningWithId(screening.getId());
+        // then
+        assertEquals(10, seatStates.size());
+        for (SeatState seatState : seatStates) {
+            assertEquals(Letter.B, seatState.getRowLetter());
+            boolean expectedIsBooked = seatState.getScreeningSeatId().equals(screeningSeats.get(3).getId());
+            assertEquals(expectedIsBooked, seatState.isBooked());
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void claimScreeningSeatWithIdConcurrently()
+            throws InterruptedException {
+        claimScreeningSeatsConcurrently(4, 25, 50, 32);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void claimScreeningSeatWithIdThroughput()
+            throws InterruptedException {
+        // the largest room allowed, once to warm up and once to measure
+        claimScreeningSeatsConcurrently(26, 50, 20, 32);
+        int numberOfClaims = 26 * 50 * 20;
+        long elapsedNanos = claimScreeningSeatsConcurrently(26, 50, 20, 32);
+        logger.info(numberOfClaims + " concurrent claims of " + 26 * 50 + " seats in " +
+                            TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms, " +
+                            (numberOfClaims * TimeUnit.SECONDS.toNanos(1) / elapsedNanos) + " claims per second");
+    }
+
+    @Test
+    void saveAllScreeningSeatsInBatches() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                                             .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        // smallest showroom and the largest one allowed by the showroom validator
+        for (int[] dimensions : new int[][]{{1, 10}, {26, 50}}) {
+            // given
+            List<ShowroomSeat> showroomSeats = saveShowroomSeats(dimensions[0], dimensions[1]);
+            int numberOfScreenings = 20;
+            statistics.clear();
+            // when
+            List<Screening> screenings = new ArrayList<>();
+            List<List<ScreeningSeat>> createdScreeningSeats = new ArrayList<>();
+            for (int i = 0; i < numberOfScreenings; i++) {
+                Screening screening = new Screening();
+                screeningRepository.save(screening);
+                screenings.add(screening);
+                createdScreeningSeats.add(screeningSeatService.createScreeningSeats(screening, showroomSeats));
+                entityManager.flush();
+                entityManager.clear();
+            }
+            long statementsPerScreening = statistics.getPrepareStatementCount() / numberOfScreenings;
+            // then
+            for (int i = 0; i < numberOfScreenings; i++) {
+                Screening screening = screenings.get(i);
+                List<ScreeningSeat> screeningSeats = createdScreeningSeats.get(i);
+                assertEquals(showroomSeats.size(), screeningSeats.size());
+                assertEquals(showroomSeats.size(), screening.getScreeningSeats().size());
+                assertTrue(screeningSeats.stream().allMatch(
+                        screeningSeat -> screeningSeat.getId() != null && screeningSeat.getScreening() == screening));
+                assertEquals(showroomSeats.size(),
+                             screeningSeatRepository.findAllByScreeningWithId(screening.getId()).size());
+            }
+            assertEquals((long) numberOfScreenings * showroomSeats.size(),
+                         statistics.getEntityInsertCount() - numberOfScreenings);
+            assertTrue(statementsPerScreening <= 2 * (showroomSeats.size() / 50 + 2),
+                       statementsPerScreening + " statements per screening");
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void createScreeningSeatsThroughput() {
+        // smallest showroom and the largest one allowed by the showroom validator
+        for (int[] dimensions : new int[][]{{1, 10}, {26, 50}}) {
+            List<ShowroomSeat> showroomSeats = saveShowroomSeats(dimensions[0], dimensions[1]);
+            // warm up, then measure
+            createScreenings(showroomSeats, 20);
+            int numberOfScreenings = 100;
+            long start = System.nanoTime();
+            createScreenings(showroomSeats, numberOfScreenings);
+            long elapsedNanos = System.nanoTime() - start;
+            logger.info(numberOfScreenings + " screenings of " + showroomSeats.size() + " seats in " +
+                                TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms, " +
+                                (numberOfScreenings * TimeUnit.SECONDS.toNanos(1) / elapsedNanos) +
+                                " screenings per second");
+        }
+    }
+
+    /**
+     * Races the provided number of claims for every seat of a new screening on the provided number of threads,
+     * asserts that every seat was claimed exactly once and every other claim lost by updating no row, and returns
+     * the time taken by the claims. Any exception thrown by a claim fails the test. The rows are committed, so they
+     * are deleted afterwards.
+     */
+    private long claimScreeningSeatsConcurrently(int numberOfRows, int seatsPerRow, int claimsPerSeat,
+                                                 int numberOfThreads)
+            throws InterruptedException {
+        Showroom showroom = new Showroom();
+        showroom.setShowroomLetter(Letter.Z);
+        showroomRepository.save(showroom);
+        Screening screening = new Screening();
+        screening.setShowroom(showroom);
+        screeningRepository.save(screening);
+        List<Long> screeningSeatIds = new ArrayList<>();
+        for (int i = 0; i < numberOfRows; i++) {
+            for (int j = 1; j <= seatsPerRow; j++) {
+                ShowroomSeat showroomSeat = new ShowroomSeat();
+                showroomSeat.setRowLetter(Letter.values()[i]);
+                showroomSeat.setSeatNumber(j);
+                showroomSeat.setShowroom(showroom);
+                showroomSeatRepository.save(showroomSeat);
+                ScreeningSeat screeningSeat = new ScreeningSeat();
+                screeningSeat.setShowroomSeat(showroomSeat);
+                screeningSeat.setScreening(screening);
+                screeningSeatRepository.save(screeningSeat);
+                screeningSeatIds.add(screeningSeat.getId());
+            }
+        }
+        List<Long> claims = new ArrayList<>();
+        for (int i = 0; i < claimsPerSeat; i++) {
+            claims.addAll(screeningSeatIds);
+        }
+        Map<Long, AtomicInteger> winnersPerSeat = new ConcurrentHashMap<>();
+        screeningSeatIds.forEach(id -> winnersPerSeat.put(id, new AtomicInteger()));
+        AtomicInteger losers = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        CountDownLatch startingGun = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long screeningSeatId : claims) {
+            futures.add(executorService.submit(() -> {
+                startingGun.await();
+                // a claim that loses the race updates no row, anything thrown fails the test through its future
+                if (screeningSeatRepository.claimScreeningSeatWithId(screeningSeatId) == 1) {
+                    winnersPerSeat.get(screeningSeatId).incrementAndGet();
+                } else {
+                    losers.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        try {
+            long start = System.nanoTime();
+            startingGun.countDown();
+            assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            });
+            long elapsedNanos = System.nanoTime() - start;
+            assertTrue(futures.stream().allMatch(Future::isDone));
+            assertEquals(screeningSeatIds.size(),
+                         winnersPerSeat.values().stream().mapToInt(AtomicInteger::get).sum());
+            for (Map.Entry<Long, AtomicInteger> entry : winnersPerSeat.entrySet()) {
+                assertEquals(1, entry.getValue().get(), "winners for screening seat " + entry.getKey());
+            }
+            assertEquals(claims.size() - screeningSeatIds.size(), losers.get());
+            assertTrue(screeningSeatRepository.findAllByScreeningWithId(screening.getId())
+                                              .stream().allMatch(ScreeningSeat::getIsClaimed));
+            return elapsedNanos;
+        } finally {
+            executorService.shutdownNow();
+            screeningSeatRepository.deleteAllInBatch();
+            screeningRepository.deleteAllInBatch();
+            showroomSeatRepository.deleteAllInBatch();
+            showroomRepository.deleteAllInBatch();
+        }
+    }
+
+    /**
+     * Saves a showroom with the provided number of rows and seats per row, and returns its detached seats.
+     */
+    private List<ShowroomSeat> saveShowroomSeats(int numberOfRows, int seatsPerRow) {
+        Showroom showroom = new Showroom();
+        showroom.setShowroomLetter(Letter.values()[numberOfRows - 1]);
+        showroomRepository.save(showroom);
+        List<ShowroomSeat> showroomSeats = new ArrayList<>();
+        for (int i = 0; i < numberOfRows; i++) {
+            for (int j = 1; j <= seatsPerRow; j++) {
+                ShowroomSeat showroomSeat = new ShowroomSeat();
+                showroomSeat.setRowLetter(Letter.values()[i]);
+                showroomSeat.setSeatNumber(j);
+                showroomSeat.setShowroom(showroom);
+                showroomSeats.add(showroomSeat);
+            }
+        }
+        showroomSeatRepository.saveAll(showroomSeats);
+        entityManager.flush();
+        entityManager.clear();
+        return showroomSeats;
+    }
+
+    /**
+     * Saves the provided number of screenings with a screening seat for every provided showroom seat, flushing
+     * and clearing the persistence context after each one as a request would.
+     */
+    private void createScreenings(List<ShowroomSeat> showroomSeats, int numberOfScreenings) {
+        for (int i = 0; i < numberOfScreenings; i++) {
+            Screening screening = new Screening();
+            screeningRepository.save(screening);
+            screeningSeatService.createScreeningSeats(screening, showroomSeats);
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+}
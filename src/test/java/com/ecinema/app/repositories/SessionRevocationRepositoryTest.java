@@ -0,0 +1,59 @@
+package com.ecinema.app.repositories;
+
+import com.ecinema.app.domain.entities.SessionRevocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the upsert is written for MySQL, so run it against H2 in MySQL mode
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:revocations;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SessionRevocationRepositoryTest {
+
+    @Autowired
+    private SessionRevocationRepository sessionRevocationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void upsertRevokedDateTimeOfUserWithId() {
+        // given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        // when
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(1L, now);
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(2L, now);
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(1L, now.plusSeconds(5));
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(2L, now.minusSeconds(5));
+        entityManager.clear();
+        // then
+        List<SessionRevocation> sessionRevocations = sessionRevocationRepository.findAll();
+        assertEquals(2, sessionRevocations.size());
+        assertEquals(now.plusSeconds(5), sessionRevocationRepository.findById(1L).orElseThrow().getRevokedDateTime());
+        assertEquals(now, sessionRevocationRepository.findById(2L).orElseThrow().getRevokedDateTime());
+    }
+
+    @Test
+    void deleteAllByRevokedDateTimeBefore() {
+        // given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(1L, now.minusHours(2));
+        sessionRevocationRepository.upsertRevokedDateTimeOfUserWithId(2L, now);
+        // when
+        int deleted = sessionRevocationRepository.deleteAllByRevokedDateTimeBefore(now.minusHours(1));
+        entityManager.clear();
+        // then
+        assertEquals(1, deleted);
+        assertTrue(sessionRevocationRepository.findById(1L).isEmpty());
+        assertEquals(List.of(2L), sessionRevocationRepository.findAllByRevokedDateTimeAfter(now.minusHours(1))
+                                                             .stream().map(SessionRevocation::getUserId).toList());
+    }
+
+}
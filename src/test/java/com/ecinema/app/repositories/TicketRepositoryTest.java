@@ -1,15 +1,21 @@
 package com.ecinema.app.repositories;
 
+import com.ecinema.app.domain.dtos.TicketDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.enums.TicketType;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.objects.Duration;
+import com.ecinema.app.domain.objects.SeatDesignation;
 import com.ecinema.app.util.UtilMethods;
 import com.ecinema.app.domain.enums.TicketStatus;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -21,6 +27,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @DataJpaTest
 class TicketRepositoryTest {
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Autowired
     private TicketRepository ticketRepository;
 
@@ -133,7 +142,7 @@ class TicketRepositoryTest {
         showroom.getScreenings().add(screening);
         screening.setMovie(movie);
         movie.getScreenings().add(screening);
-        LocalDateTime localDateTime = LocalDateTime.now();
+        LocalDateTime localDateTime = LocalDateTime.now().withNano(0);
         screening.setShowDateTime(localDateTime);
         screening.setEndDateTime(
                 localDateTime.plusHours(1).plusMinutes(30));
@@ -185,6 +194,56 @@ class TicketRepositoryTest {
         assertEquals(showroomSeat, testShowroomSeat);
     }
 
+    @Test
+    void findTicketDtoById() {
+        // given
+        Customer customer = persistCustomer("TestUser123");
+        Screening screening = persistScreening(LocalDateTime.now().withNano(0).plusDays(5));
+        Ticket ticket = persistTicket(customer, screening, 9);
+        // when
+        TicketDto ticketDto = ticketRepository.findTicketDtoById(ticket.getId())
+                                              .orElseThrow(IllegalStateException::new);
+        // then
+        assertEquals(ticket.getId(), ticketDto.getId());
+        assertEquals(customer.getUser().getId(), ticketDto.getUserId());
+        assertEquals("TestUser123", ticketDto.getUsername());
+        assertEquals("TestUser123@gmail.com", ticketDto.getEmail());
+        assertEquals("Test Title", ticketDto.getMovieTitle());
+        assertEquals(Letter.C, ticketDto.getShowroomLetter());
+        assertEquals(screening.getShowDateTime(), ticketDto.getShowDateTime());
+        assertEquals(screening.getEndDateTime(), ticketDto.getEndDateTime());
+        assertEquals(SeatDesignation.of(Letter.D, 9), ticketDto.getSeatDesignation());
+        assertEquals(TicketType.ADULT, ticketDto.getTicketType());
+        assertEquals(TicketStatus.VALID, ticketDto.getTicketStatus());
+        assertNull(ticketDto.getPaymentCardId());
+    }
+
+    @Test
+    void findAllTicketDtosWithConstantStatementCount() {
+        // given
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                                             .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        Screening screening = persistScreening(LocalDateTime.now().plusDays(5));
+        int seatNumber = 1;
+        for (int numberOfTickets : new int[]{1, 5, 25}) {
+            Customer customer = persistCustomer("TestUser" + numberOfTickets);
+            List<Long> ticketIds = new ArrayList<>();
+            for (int i = 0; i < numberOfTickets; i++) {
+                ticketIds.add(persistTicket(customer, screening, seatNumber++).getId());
+            }
+            entityManager.flush();
+            // when
+            statistics.clear();
+            List<TicketDto> byUser = ticketRepository.findAllTicketDtosByUserWithId(customer.getUser().getId());
+            List<TicketDto> byIds = ticketRepository.findAllTicketDtosByIds(ticketIds);
+            // then
+            assertEquals(2, statistics.getPrepareStatementCount(), numberOfTickets + " tickets");
+            assertEquals(numberOfTickets, byUser.size());
+            assertEquals(numberOfTickets, byIds.size());
+        }
+    }
+
     @Test
     void findAllIdsByUserWithIdAndShowDateTime() {
         // given
@@ -245,4 +304,60 @@ class TicketRepositoryTest {
         assertEquals(controlTicketIdsOfCurrentTickets, idsOfCurrentTickets);
     }
 
-}
\ No newline at end of file
+    private Customer persistCustomer(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@gmail.com");
+        userRepository.save(user);
+        Customer customer = new Customer();
+        customer.setUser(user);
+        user.getUserAuthorities().put(UserAuthority.CUSTOMER, customer);
+        customerRepository.save(customer);
+        return customer;
+    }
+
+    private Screening persistScreening(LocalDateTime showDateTime) {
+        Showroom showroom = new Showroom();
+        showroom.setShowroomLetter(Letter.C);
+        showroomRepository.save(showroom);
+        Movie movie = new Movie();
+        movie.setTitle("Test Title");
+        movie.setDuration(Duration.of(1, 30));
+        movieRepository.save(movie);
+        Screening screening = new Screening();
+        screening.setShowroom(showroom);
+        showroom.getScreenings().add(screening);
+        screening.setMovie(movie);
+        movie.getScreenings().add(screening);
+        screening.setShowDateTime(showDateTime);
+        screening.setEndDateTime(showDateTime.plusHours(1).plusMinutes(30));
+        screeningRepository.save(screening);
+        return screening;
+    }
+
+    private Ticket persistTicket(Customer customer, Screening screening, int seatNumber) {
+        ShowroomSeat showroomSeat = new ShowroomSeat();
+        showroomSeat.setRowLetter(Letter.D);
+        showroomSeat.setSeatNumber(seatNumber);
+        showroomSeat.setShowroom(screening.getShowroom());
+        screening.getShowroom().getShowroomSeats().add(showroomSeat);
+        showroomSeatRepository.save(showroomSeat);
+        ScreeningSeat screeningSeat = new ScreeningSeat();
+        screeningSeat.setShowroomSeat(showroomSeat);
+        showroomSeat.getScreeningSeats().add(screeningSeat);
+        screeningSeat.setScreening(screening);
+        screening.getScreeningSeats().add(screeningSeat);
+        screeningSeatRepository.save(screeningSeat);
+        Ticket ticket = new Ticket();
+        ticket.setTicketType(TicketType.ADULT);
+        ticket.setTicketStatus(TicketStatus.VALID);
+        ticket.setCreationDateTime(LocalDateTime.now());
+        ticket.setTicketOwner(customer);
+        customer.getTickets().add(ticket);
+        ticket.setScreeningSeat(screeningSeat);
+        screeningSeat.setTicket(ticket);
+        ticketRepository.save(ticket);
+        return ticket;
+    }
+
+}
@@ -1,16 +1,24 @@
 package com.ecinema.app.repositories;
 
+import com.ecinema.app.domain.dtos.UserDto;
+import com.ecinema.app.domain.entities.Admin;
+import com.ecinema.app.domain.entities.Customer;
 import com.ecinema.app.domain.entities.User;
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.objects.UserSearchCursor;
 import com.ecinema.app.util.UtilMethods;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +29,15 @@ class UserRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AdminRepository adminRepository;
+
     private final Random rand = new Random();
 
     @Test
@@ -208,6 +225,55 @@ class UserRepositoryTest {
                      userRepository.findAllByLastActivityDateTimeAfter(randomLDT));
     }
 
+    @Test
+    void updateLastActivityDateTimeOfAllWithIds() {
+        // given
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        User staleUser = new User();
+        staleUser.setLastActivityDateTime(now.minusHours(1));
+        userRepository.save(staleUser);
+        User newerUser = new User();
+        newerUser.setLastActivityDateTime(now.plusHours(1));
+        userRepository.save(newerUser);
+        User otherUser = new User();
+        otherUser.setLastActivityDateTime(now.minusHours(1));
+        userRepository.save(otherUser);
+        testEntityManager.flush();
+        // when
+        int updated = userRepository.updateLastActivityDateTimeOfAllWithIds(
+                List.of(staleUser.getId(), newerUser.getId()), now);
+        testEntityManager.clear();
+        // then
+        assertEquals(1, updated);
+        assertEquals(now, userRepository.findById(staleUser.getId()).orElseThrow().getLastActivityDateTime());
+        assertEquals(now.plusHours(1),
+                     userRepository.findById(newerUser.getId()).orElseThrow().getLastActivityDateTime());
+        assertEquals(now.minusHours(1),
+                     userRepository.findById(otherUser.getId()).orElseThrow().getLastActivityDateTime());
+    }
+
+    @Test
+    void findAllUserAuthoritiesOfUserWithId() {
+        // given
+        User user = new User();
+        userRepository.save(user);
+        Customer customer = new Customer();
+        customer.setUser(user);
+        user.getUserAuthorities().put(UserAuthority.CUSTOMER, customer);
+        customerRepository.save(customer);
+        Admin admin = new Admin();
+        admin.setUser(user);
+        user.getUserAuthorities().put(UserAuthority.ADMIN, admin);
+        adminRepository.save(admin);
+        User otherUser = new User();
+        userRepository.save(otherUser);
+        // when
+        List<UserAuthority> userAuthorities = userRepository.findAllUserAuthoritiesOfUserWithId(user.getId());
+        // then
+        assertEquals(Set.of(UserAuthority.CUSTOMER, UserAuthority.ADMIN), Set.copyOf(userAuthorities));
+        assertTrue(userRepository.findAllUserAuthoritiesOfUserWithId(otherUser.getId()).isEmpty());
+    }
+
     @Test
     void findIdByUsernameOrEmail() {
         // given
@@ -227,4 +293,81 @@ class UserRepositoryTest {
         assertEquals(savedUser.getId(), id2.get());
     }
 
-}
\ No newline at end of file
+    @Test
+    void searchUserDtosSeeksPastCursor() {
+        // given
+        LocalDateTime creationDateTime = LocalDateTime.of(2022, 1, 1, 12, 0);
+        List<User> lockedUsers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            // pairs of users share a creation date time so that ties are broken by id
+            user.setCreationDateTime(creationDateTime.plusDays(i / 2));
+            user.setIsAccountLocked(i % 3 != 0);
+            userRepository.save(user);
+            if (user.getIsAccountLocked()) {
+                lockedUsers.add(user);
+            }
+        }
+        Customer customer = new Customer();
+        customer.setUser(lockedUsers.get(0));
+        lockedUsers.get(0).getUserAuthorities().put(UserAuthority.CUSTOMER, customer);
+        customerRepository.save(customer);
+        // when
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime afterCreation = null;
+        Long afterId = null;
+        List<UserDto> page;
+        do {
+            page = userRepository.searchUserDtos(true, null, null, null, null, null, null, null, null,
+                                                 afterCreation, afterId, PageRequest.of(0, 2));
+            page.forEach(userDto -> ids.add(userDto.getId()));
+            if (!page.isEmpty()) {
+                afterCreation = page.get(page.size() - 1).getCreationDateTime();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 2);
+        List<UserDto> customers = userRepository.searchUserDtos(
+                true, null, null, null, null, null, null, null, UserAuthority.CUSTOMER, null, null,
+                PageRequest.of(0, 10));
+        // then
+        assertEquals(lockedUsers.stream().map(User::getId).collect(Collectors.toList()), ids);
+        assertEquals(1, customers.size());
+        assertEquals(lockedUsers.get(0).getUsername(), customers.get(0).getUsername());
+        assertEquals(List.of(UserAuthority.CUSTOMER), userRepository.findAllUserIdAndUserAuthorityPairsByUserIdIn(
+                List.of(lockedUsers.get(0).getId())).stream().map(pair -> pair.getSecond())
+                                                          .collect(Collectors.toList()));
+    }
+
+    @Test
+    void searchUserDtosSeeksPastUsersWithoutCreationDateTime() {
+        // given
+        List<Long> expectedIds = new ArrayList<>();
+        List<Long> createdIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setUsername("user" + i);
+            // users without a creation date time come before every other user
+            user.setCreationDateTime(i % 2 == 0 ? null : LocalDateTime.of(2022, 1, 1, 12, 0).plusDays(i));
+            userRepository.save(user);
+            (user.getCreationDateTime() == null ? expectedIds : createdIds).add(user.getId());
+        }
+        expectedIds.addAll(createdIds);
+        // when
+        List<Long> ids = new ArrayList<>();
+        UserSearchCursor cursor = null;
+        List<UserDto> page;
+        do {
+            page = userRepository.searchUserDtos(null, null, null, null, null, null, null, null, null,
+                                                 cursor != null ? cursor.getCreationDateTime() : null,
+                                                 cursor != null ? cursor.getId() : null, PageRequest.of(0, 2));
+            page.forEach(userDto -> ids.add(userDto.getId()));
+            if (!page.isEmpty()) {
+                cursor = UserSearchCursor.of(page.get(page.size() - 1));
+            }
+        } while (page.size() == 2 && ids.size() <= expectedIds.size());
+        // then
+        assertEquals(expectedIds, ids);
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.SignedSessionCodec;
 import com.ecinema.app.domain.dtos.AdminDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.UserAuthority;
@@ -33,8 +35,11 @@ class AdminServiceTest {
         PasswordValidator passwordValidator = new PasswordValidator();
         BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
         encoderService = new EncoderService(passwordEncoder);
+        SessionRevocationService sessionRevocationService =
+                new SessionRevocationService(null, new SignedSessionCodec(false, "", 720, false), null, null);
         adminService = new AdminService(adminRepository, userRepository,
-                                        passwordValidator, encoderService);
+                                        passwordValidator, encoderService, new PrincipalViewCache(),
+                                        sessionRevocationService);
     }
 
     @Test
@@ -84,6 +89,7 @@ class AdminServiceTest {
     void adminChangeUserPassword() {
         // given
         User user = new User();
+        user.setId(1L);
         given(userRepository.findByUsernameOrEmail("user")).willReturn(Optional.of(user));
         AdminChangeUserPasswordForm form = new AdminChangeUserPasswordForm();
         form.setEmailOrUsername("user");
@@ -0,0 +1,196 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.SignedSessionCodec;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.domain.dtos.TicketDto;
+import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.enums.TicketStatus;
+import com.ecinema.app.domain.enums.TicketType;
+import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.BookedSeat;
+import com.ecinema.app.domain.objects.DeletionPlan;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.RatingAggregate;
+import com.ecinema.app.repositories.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CascadeDeletionServiceTest {
+
+    private CascadeDeletionService cascadeDeletionService;
+    @Mock
+    private MovieRepository movieRepository;
+    @Mock
+    private ReviewRepository reviewRepository;
+    @Mock
+    private ReviewVoteRepository reviewVoteRepository;
+    @Mock
+    private ScreeningRepository screeningRepository;
+    @Mock
+    private ScreeningSeatRepository screeningSeatRepository;
+    @Mock
+    private TicketRepository ticketRepository;
+    @Mock
+    private ShowroomRepository showroomRepository;
+    @Mock
+    private ShowroomSeatRepository showroomSeatRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private ModeratorRepository moderatorRepository;
+    @Mock
+    private AdminRepository adminRepository;
+    @Mock
+    private PaymentCardRepository paymentCardRepository;
+    @Mock
+    private SeatOccupancyService seatOccupancyService;
+    @Mock
+    private ScreeningScheduleService screeningScheduleService;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private MovieSearchService movieSearchService;
+
+    @BeforeEach
+    void setUp() {
+        SessionRevocationService sessionRevocationService =
+                new SessionRevocationService(null, new SignedSessionCodec(false, "", 720, false), null, null);
+        cascadeDeletionService = new CascadeDeletionService(
+                movieRepository, reviewRepository, reviewVoteRepository, screeningRepository,
+                screeningSeatRepository, ticketRepository, showroomRepository, showroomSeatRepository,
+                userRepository, customerRepository, moderatorRepository, adminRepository, paymentCardRepository,
+                seatOccupancyService, screeningScheduleService, emailService, new PrincipalViewCache(),
+                new UserAuthorityCache(30L), sessionRevocationService, movieSearchService);
+    }
+
+    @Test
+    void deleteMovieRefundsTicketsOfUpcomingScreenings() {
+        // given
+        given(reviewRepository.findAllIdsByMovieWithIdIn(List.of(1L))).willReturn(List.of(20L));
+        given(reviewVoteRepository.findAllIdsByReviewWithIdIn(List.of(20L))).willReturn(List.of(30L));
+        given(reviewVoteRepository.findAllReviewIdsByReviewVoteWithIdIn(List.of(30L))).willReturn(List.of(20L));
+        given(reviewRepository.findAllRatingAggregatesByReviewWithIdIn(List.of(20L)))
+                .willReturn(List.of(new RatingAggregate(1L, 9L, 1L)));
+        given(screeningRepository.findAllIdsByMovieWithIdIn(List.of(1L))).willReturn(List.of(3L));
+        given(screeningSeatRepository.findAllIdsByScreeningWithIdIn(List.of(3L))).willReturn(List.of(10L, 11L));
+        given(ticketRepository.findAllIdsByScreeningWithIdIn(List.of(3L))).willReturn(List.of(100L));
+        given(ticketRepository.findAllBookedSeatsByTicketWithIdIn(List.of(100L)))
+                .willReturn(List.of(new BookedSeat(100L, 10L, 3L, 50L)));
+        given(ticketRepository.findAllTicketDtosByIds(List.of(100L)))
+                .willReturn(List.of(ticketDto(100L, null, LocalDateTime.now().plusDays(1))));
+        given(screeningRepository.findAllShowroomIdAndIdPairsByIdIn(List.of(3L)))
+                .willReturn(List.of(new Pair<>(7L, 3L)));
+        // when
+        DeletionPlan plan = cascadeDeletionService.planMovies(List.of(1L));
+        cascadeDeletionService.execute(plan);
+        // then
+        assertEquals(Set.of(20L), plan.getReviewIds());
+        assertEquals(Set.of(30L), plan.getReviewVoteIds());
+        assertEquals(Set.of(10L, 11L), plan.getScreeningSeatIds());
+        InOrder inOrder = inOrder(ticketRepository, reviewVoteRepository, reviewRepository,
+                                  screeningSeatRepository, screeningRepository, movieRepository);
+        inOrder.verify(ticketRepository).deleteAllWithIds(List.of(100L));
+        inOrder.verify(reviewVoteRepository).deleteAllWithIds(List.of(30L));
+        inOrder.verify(reviewRepository).deleteAllWithIds(List.of(20L));
+        inOrder.verify(screeningSeatRepository).deleteAllWithIds(List.of(10L, 11L));
+        inOrder.verify(screeningRepository).deleteAllWithIds(List.of(3L));
+        inOrder.verify(movieRepository).deleteAllCastOfMoviesWithIds(List.of(1L));
+        inOrder.verify(movieRepository).deleteAllWithIds(List.of(1L));
+        verify(customerRepository, times(1)).addTokensToCustomerWithId(50L, TicketType.ADULT.getPrice());
+        verify(emailService, times(1)).sendFromBusinessEmail(
+                eq("test@gmail.com"), anyString(), eq("Ticket Refund Confirmation"));
+        verify(screeningSeatRepository, never()).releaseAllScreeningSeatsWithIds(any());
+        verify(screeningScheduleService, times(1)).remove(7L, 3L);
+        verify(seatOccupancyService, times(1)).evict(3L);
+        verify(movieSearchService, times(1)).removeAll(Set.of(1L));
+        verify(movieRepository, never()).addToRatingAggregates(any(), anyInt(), anyInt());
+        verify(reviewRepository, never()).repairVoteCountersOfReviewsWithIds(any(), any(), any());
+    }
+
+    @Test
+    void deleteScreeningDoesNotRefundTicketsOfPastScreenings() {
+        // given
+        given(ticketRepository.findAllIdsByScreeningWithIdIn(List.of(3L))).willReturn(List.of(100L));
+        given(ticketRepository.findAllBookedSeatsByTicketWithIdIn(List.of(100L)))
+                .willReturn(List.of(new BookedSeat(100L, 10L, 3L, 50L)));
+        given(ticketRepository.findAllTicketDtosByIds(List.of(100L)))
+                .willReturn(List.of(ticketDto(100L, null, LocalDateTime.now().minusDays(1))));
+        // when
+        cascadeDeletionService.execute(cascadeDeletionService.planScreenings(List.of(3L)));
+        // then
+        verify(customerRepository, never()).addTokensToCustomerWithId(any(), anyInt());
+        verify(emailService, never()).sendFromBusinessEmail(any(), any(), any());
+        verify(ticketRepository, times(1)).deleteAllWithIds(List.of(100L));
+        verify(screeningRepository, times(1)).deleteAllWithIds(List.of(3L));
+    }
+
+    @Test
+    void deleteUserReleasesSeatsOfScreeningsNotDeleted() {
+        // given
+        given(customerRepository.findAllIdsByUserWithIdIn(List.of(1L))).willReturn(List.of(2L));
+        given(reviewVoteRepository.findAllIdsByVoterWithIdIn(List.of(2L))).willReturn(List.of(31L));
+        given(reviewVoteRepository.findAllReviewIdsByReviewVoteWithIdIn(List.of(31L))).willReturn(List.of(22L));
+        given(reviewRepository.findAllIdsByWriterWithIdIn(List.of(2L))).willReturn(List.of(21L));
+        given(reviewRepository.findAllRatingAggregatesByReviewWithIdIn(List.of(21L)))
+                .willReturn(List.of(new RatingAggregate(4L, 7L, 1L)));
+        given(ticketRepository.findAllIdsByTicketOwnerWithIdIn(List.of(2L))).willReturn(List.of(100L));
+        given(paymentCardRepository.findAllIdsByCardOwnerWithIdIn(List.of(2L))).willReturn(List.of(5L));
+        given(ticketRepository.findAllBookedSeatsByTicketWithIdIn(List.of(100L)))
+                .willReturn(List.of(new BookedSeat(100L, 10L, 3L, 2L)));
+        // when
+        cascadeDeletionService.execute(cascadeDeletionService.planUsers(List.of(1L)));
+        // then
+        verify(screeningSeatRepository, times(1)).releaseAllScreeningSeatsWithIds(List.of(10L));
+        verify(screeningRepository, times(1)).addToSeatsBooked(3L, -1);
+        verify(seatOccupancyService, times(1)).markAvailable(3L, 10L);
+        verify(ticketRepository, never()).findAllTicketDtosByIds(any());
+        verify(emailService, never()).sendFromBusinessEmail(any(), any(), any());
+        InOrder inOrder = inOrder(ticketRepository, reviewVoteRepository, paymentCardRepository,
+                                  customerRepository, userRepository);
+        inOrder.verify(ticketRepository).deleteAllWithIds(List.of(100L));
+        inOrder.verify(reviewVoteRepository).deleteAllWithIds(List.of(31L));
+        inOrder.verify(ticketRepository).detachPaymentCardsWithIds(List.of(5L));
+        inOrder.verify(paymentCardRepository).deleteAllWithIds(List.of(5L));
+        inOrder.verify(customerRepository).deleteAllWithIds(List.of(2L));
+        inOrder.verify(userRepository).deleteAllWithIds(List.of(1L));
+        verify(customerRepository, never()).uncensorAllCensoredByModeratorsWithIds(any());
+        verify(movieRepository, times(1)).addToRatingAggregates(4L, -7, -1);
+        inOrder = inOrder(reviewVoteRepository, reviewRepository);
+        inOrder.verify(reviewVoteRepository).deleteAllWithIds(List.of(31L));
+        inOrder.verify(reviewRepository).repairVoteCountersOfReviewsWithIds(List.of(22L), Vote.UPVOTE, Vote.DOWNVOTE);
+        inOrder.verify(reviewRepository).refreshHelpfulnessOfReviewsWithIds(List.of(22L));
+        verify(moderatorRepository, never()).deleteAllWithIds(any());
+    }
+
+    @Test
+    void emptyPlanDeletesNothing() {
+        // when
+        cascadeDeletionService.execute(new DeletionPlan());
+        // then
+        verifyNoInteractions(ticketRepository, screeningRepository, movieRepository, userRepository);
+    }
+
+    private static TicketDto ticketDto(Long ticketId, Long paymentCardId, LocalDateTime showDateTime) {
+        return new TicketDto(ticketId, 1L, "test@gmail.com", "test", "Movie", paymentCardId, TicketType.ADULT,
+                             Letter.A, TicketStatus.VALID, showDateTime.plusHours(2), showDateTime,
+                             LocalDateTime.now().minusDays(7), Letter.B, 4);
+    }
+
+}
@@ -1,10 +1,14 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.beans.SignedSessionCodec;
 import com.ecinema.app.domain.entities.ChangePassword;
 import com.ecinema.app.domain.entities.User;
 import com.ecinema.app.domain.forms.ChangePasswordForm;
 import com.ecinema.app.validators.PasswordValidator;
 import com.ecinema.app.repositories.ChangePasswordRepository;
+import com.ecinema.app.repositories.UserAvailabilityVersionRepository;
 import com.ecinema.app.repositories.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +37,8 @@ class ChangePasswordServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserAvailabilityVersionRepository userAvailabilityVersionRepository;
+    @Mock
     private ChangePasswordRepository changePasswordRepository;
 
     @BeforeEach
@@ -40,13 +46,19 @@ class ChangePasswordServiceTest {
         passwordValidator = new PasswordValidator();
         passwordEncoder = new BCryptPasswordEncoder();
         encoderService = new EncoderService(passwordEncoder);
+        SessionRevocationService sessionRevocationService =
+                new SessionRevocationService(null, new SignedSessionCodec(false, "", 720, false), null, null);
         userService = new UserService(
                 userRepository, null, null,
                 null, encoderService,
-                null, null);
+                null, null, new PrincipalViewCache(),
+                new UserActivityService(userRepository),
+                new UserAvailabilityService(userRepository, userAvailabilityVersionRepository, 100, 0.01),
+                new UserAuthorityCache(30L), sessionRevocationService, null);
         changePasswordService = new ChangePasswordService(
                 changePasswordRepository, emailService,
-                encoderService, userRepository, passwordValidator);
+                encoderService, userRepository, passwordValidator, new PrincipalViewCache(),
+                sessionRevocationService);
     }
 
     @Test
@@ -29,6 +29,8 @@ import static org.mockito.Mockito.*;
 class CustomerServiceTest {
 
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private ReviewService reviewService;
     private CustomerService customerService;
     private ReviewVoteService reviewVoteService;
@@ -49,6 +51,8 @@ class CustomerServiceTest {
     @Mock
     private PaymentCardRepository paymentCardRepository;
     @Mock
+    private ScreeningRepository screeningRepository;
+    @Mock
     private ScreeningSeatRepository screeningSeatRepository;
 
     /*
@@ -57,8 +61,11 @@ class CustomerServiceTest {
     @BeforeEach
     void setUp() {
         seatBookingValidator = new SeatBookingValidator();
-        ticketService = new TicketService(ticketRepository, emailService, seatBookingValidator, customerRepository,
-                paymentCardRepository, screeningSeatRepository);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, emailService, seatBookingValidator, null,
+                customerRepository, paymentCardRepository, screeningRepository, screeningSeatRepository,
+                seatOccupancyService, seatHoldService);
         reviewVoteService = new ReviewVoteService(reviewVoteRepository, reviewRepository, customerRepository);
         reviewService = new ReviewService(reviewRepository, null, customerRepository, null, reviewVoteService);
         paymentCardService = new PaymentCardService(paymentCardRepository, null, customerRepository, null);
@@ -0,0 +1,204 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.entities.OutboxEmail;
+import com.ecinema.app.domain.enums.OutboxEmailStatus;
+import com.ecinema.app.repositories.OutboxEmailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import javax.mail.Session;
+import javax.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailDispatchServiceTest {
+
+    private EmailService emailService;
+    private EmailDispatchService emailDispatchService;
+    @Mock
+    private JavaMailSender javaMailSender;
+    @Mock
+    private OutboxEmailRepository outboxEmailRepository;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailService(javaMailSender, outboxEmailRepository);
+        emailDispatchService = new EmailDispatchService(emailService, outboxEmailRepository, Runnable::run, 50,
+                                                        500, 168);
+    }
+
+    @Test
+    void sendOnlyWritesToOutbox() {
+        // when
+        emailService.sendFromBusinessEmail("user@gmail.com", "Body", "Subject");
+        // then
+        ArgumentCaptor<OutboxEmail> outboxEmailArgumentCaptor = ArgumentCaptor.forClass(OutboxEmail.class);
+        verify(outboxEmailRepository).save(outboxEmailArgumentCaptor.capture());
+        OutboxEmail outboxEmail = outboxEmailArgumentCaptor.getValue();
+        assertEquals("user@gmail.com", outboxEmail.getRecipient());
+        assertEquals("Body", outboxEmail.getBody());
+        assertEquals("Subject", outboxEmail.getSubject());
+        assertEquals(OutboxEmailStatus.PENDING, outboxEmail.getStatus());
+        assertEquals(0, outboxEmail.getAttempts());
+        assertNotNull(outboxEmail.getNextAttemptDateTime());
+        verifyNoInteractions(javaMailSender);
+    }
+
+    @Test
+    void dispatchDeliversDueEmails() {
+        // given
+        List<OutboxEmail> outboxEmails = outboxEmails(3, 0);
+        given(outboxEmailRepository.findAllDue(any(), any())).willReturn(outboxEmails);
+        given(outboxEmailRepository.leaseWithId(any(), any(), any())).willReturn(1);
+        given(javaMailSender.createMimeMessage()).willAnswer(invocation -> new MimeMessage((Session) null));
+        // when
+        int dispatched = emailDispatchService.dispatch();
+        // then
+        assertEquals(3, dispatched);
+        for (OutboxEmail outboxEmail : outboxEmails) {
+            verify(outboxEmailRepository, times(1)).leaseWithId(eq(outboxEmail.getId()), any(), any());
+        }
+        verify(javaMailSender, times(3)).send(any(MimeMessage.class));
+        for (OutboxEmail outboxEmail : outboxEmails) {
+            verify(outboxEmailRepository, times(1)).markSent(eq(outboxEmail.getId()), any(), any());
+        }
+        verify(outboxEmailRepository, never()).markFailed(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void dispatchOnlyEmailsLeased() {
+        // given
+        List<OutboxEmail> outboxEmails = outboxEmails(2, 0);
+        given(outboxEmailRepository.findAllDue(any(), any())).willReturn(outboxEmails);
+        given(outboxEmailRepository.leaseWithId(eq(1L), any(), any())).willReturn(0);
+        given(outboxEmailRepository.leaseWithId(eq(2L), any(), any())).willReturn(1);
+        given(javaMailSender.createMimeMessage()).willAnswer(invocation -> new MimeMessage((Session) null));
+        // when
+        int dispatched = emailDispatchService.dispatch();
+        // then
+        assertEquals(1, dispatched);
+        verify(javaMailSender, times(1)).send(any(MimeMessage.class));
+        verify(outboxEmailRepository, never()).markSent(eq(1L), any(), any());
+        verify(outboxEmailRepository, times(1)).markSent(eq(2L), any(), any());
+    }
+
+    @Test
+    void dispatchNothingWhenNoEmailsAreDue() {
+        // given
+        given(outboxEmailRepository.findAllDue(any(), any())).willReturn(new ArrayList<>());
+        // when
+        int dispatched = emailDispatchService.dispatch();
+        // then
+        assertEquals(0, dispatched);
+        verify(outboxEmailRepository, never()).leaseWithId(any(), any(), any());
+        verifyNoInteractions(javaMailSender);
+    }
+
+    @Test
+    void retryFailedDeliveryWithBackoff() {
+        // given
+        given(outboxEmailRepository.findAllDue(any(), any())).willReturn(outboxEmails(1, 2));
+        given(outboxEmailRepository.leaseWithId(any(), any(), any())).willReturn(1);
+        given(javaMailSender.createMimeMessage()).willAnswer(invocation -> new MimeMessage((Session) null));
+        doThrow(new MailSendException("Connection refused")).when(javaMailSender).send(any(MimeMessage.class));
+        // when
+        LocalDateTime before = LocalDateTime.now();
+        emailDispatchService.dispatch();
+        // then
+        ArgumentCaptor<LocalDateTime> nextAttemptArgumentCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEmailRepository).markFailed(eq(1L), any(), eq(OutboxEmailStatus.PENDING), eq(3),
+                                                 nextAttemptArgumentCaptor.capture(), eq("Connection refused"));
+        assertFalse(nextAttemptArgumentCaptor.getValue().isBefore(before.plus(EmailDispatchService.backoff(3))));
+        verify(outboxEmailRepository, never()).markSent(any(), any(), any());
+    }
+
+    @Test
+    void deadLetterAfterMaxAttempts() {
+        // given
+        given(outboxEmailRepository.findAllDue(any(), any()))
+                .willReturn(outboxEmails(1, EmailDispatchService.MAX_ATTEMPTS - 1));
+        given(outboxEmailRepository.leaseWithId(any(), any(), any())).willReturn(1);
+        given(javaMailSender.createMimeMessage()).willAnswer(invocation -> new MimeMessage((Session) null));
+        doThrow(new MailSendException("Connection refused")).when(javaMailSender).send(any(MimeMessage.class));
+        // when
+        emailDispatchService.dispatch();
+        // then
+        verify(outboxEmailRepository).markFailed(eq(1L), any(), eq(OutboxEmailStatus.DEAD),
+                                                 eq(EmailDispatchService.MAX_ATTEMPTS), isNull(),
+                                                 eq("Connection refused"));
+    }
+
+    @Test
+    void markSentUnderLease() {
+        // given
+        given(outboxEmailRepository.findAllDue(any(), any())).willReturn(outboxEmails(1, 0));
+        given(outboxEmailRepository.leaseWithId(any(), any(), any())).willReturn(1);
+        given(javaMailSender.createMimeMessage()).willAnswer(invocation -> new MimeMessage((Session) null));
+        // when
+        emailDispatchService.dispatch();
+        // then
+        ArgumentCaptor<LocalDateTime> leaseArgumentCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEmailRepository).leaseWithId(eq(1L), any(), leaseArgumentCaptor.capture());
+        verify(outboxEmailRepository).markSent(eq(1L), eq(leaseArgumentCaptor.getValue()), any());
+        assertEquals(0, leaseArgumentCaptor.getValue().getNano());
+    }
+
+    @Test
+    void purgeResolvedEmailsInBatches() {
+        // given
+        given(outboxEmailRepository.findAllResolvedIdsByCreationDateTimeBefore(any(), any()))
+                .willReturn(List.of(1L, 2L), List.of(3L), List.of());
+        given(outboxEmailRepository.deleteAllWithIds(any())).willAnswer(
+                invocation -> invocation.<List<Long>>getArgument(0).size());
+        // when
+        LocalDateTime before = LocalDateTime.now();
+        int purged = emailDispatchService.purge();
+        // then
+        assertEquals(3, purged);
+        ArgumentCaptor<LocalDateTime> createdBeforeArgumentCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(outboxEmailRepository, times(3)).findAllResolvedIdsByCreationDateTimeBefore(
+                createdBeforeArgumentCaptor.capture(), any());
+        assertFalse(createdBeforeArgumentCaptor.getValue().isBefore(before.minusHours(168)));
+        verify(outboxEmailRepository).deleteAllWithIds(List.of(1L, 2L));
+        verify(outboxEmailRepository).deleteAllWithIds(List.of(3L));
+    }
+
+    @Test
+    void backoffDoublesUpToMax() {
+        assertEquals(Duration.ofSeconds(30), EmailDispatchService.backoff(1));
+        assertEquals(Duration.ofSeconds(60), EmailDispatchService.backoff(2));
+        assertEquals(Duration.ofSeconds(120), EmailDispatchService.backoff(3));
+        assertEquals(EmailDispatchService.MAX_BACKOFF, EmailDispatchService.backoff(30));
+    }
+
+    private List<OutboxEmail> outboxEmails(int count, int attempts) {
+        List<OutboxEmail> outboxEmails = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            OutboxEmail outboxEmail = new OutboxEmail();
+            outboxEmail.setId((long) i);
+            outboxEmail.setSender("ECinema");
+            outboxEmail.setRecipient("user" + i + "@gmail.com");
+            outboxEmail.setSubject("Subject");
+            outboxEmail.setBody("Body");
+            outboxEmail.setStatus(OutboxEmailStatus.PENDING);
+            outboxEmail.setAttempts(attempts);
+            outboxEmails.add(outboxEmail);
+        }
+        return outboxEmails;
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.entities.Movie;
+import com.ecinema.app.domain.enums.MovieCategory;
+import com.ecinema.app.domain.enums.MsrbRating;
+import com.ecinema.app.domain.objects.MovieFacetFilter;
+import com.ecinema.app.domain.objects.MovieFacets;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.repositories.MovieIndexVersionRepository;
+import com.ecinema.app.repositories.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSearchServiceTest {
+
+    private MovieSearchService movieSearchService;
+    @Mock
+    private MovieRepository movieRepository;
+    @Mock
+    private MovieIndexVersionRepository movieIndexVersionRepository;
+
+    @BeforeEach
+    void setUp() {
+        movieSearchService = new MovieSearchService(movieRepository, movieIndexVersionRepository);
+    }
+
+    @Test
+    void searchBeforeRebuildIsEmpty() {
+        // when
+        Optional<List<Long>> movieIds = movieSearchService.search("godfather");
+        // then
+        assertTrue(movieIds.isEmpty());
+    }
+
+    @Test
+    void searchRanksTitleAboveCastAndToleratesTypos() {
+        // given
+        given(movieRepository.findAllIdAndTitlePairs()).willReturn(List.of(
+                new Pair<>(1L, "The Godfather"), new Pair<>(2L, "The Godfather Part II"),
+                new Pair<>(3L, "Apocalypse Now")));
+        given(movieRepository.findAllIdAndDirectorPairs()).willReturn(List.of(
+                new Pair<>(1L, "Francis Ford Coppola"), new Pair<>(3L, "Francis Ford Coppola")));
+        given(movieRepository.findAllIdAndCastMemberPairs()).willReturn(List.of(
+                new Pair<>(3L, "Marlon Brando"), new Pair<>(1L, "Marlon Brando")));
+        // when
+        int indexed = movieSearchService.rebuild();
+        // then
+        assertEquals(3, indexed);
+        assertEquals(List.of(1L, 2L), movieSearchService.search("godfather").orElseThrow());
+        assertEquals(List.of(1L, 2L), movieSearchService.search("GODFATER").orElseThrow());
+        assertEquals(List.of(1L, 3L), movieSearchService.search("coppola").orElseThrow());
+        assertEquals(List.of(1L, 3L), movieSearchService.search("brando").orElseThrow());
+        assertEquals(List.of(2L), movieSearchService.search("ii").orElseThrow());
+        assertTrue(movieSearchService.search("casablanca").orElseThrow().isEmpty());
+    }
+
+    @Test
+    void indexAndRemove() {
+        // given
+        movieSearchService.rebuild();
+        Movie movie = new Movie();
+        movie.setId(4L);
+        movie.setTitle("Casablanca");
+        movie.setDirector("Michael Curtiz");
+        movie.setCast(Set.of("Humphrey Bogart"));
+        // when
+        movieSearchService.index(movie);
+        // then
+        assertEquals(List.of(4L), movieSearchService.search("casablanca").orElseThrow());
+        assertEquals(List.of(4L), movieSearchService.search("bogart").orElseThrow());
+        // when
+        movieSearchService.remove(4L);
+        // then
+        assertTrue(movieSearchService.search("casablanca").orElseThrow().isEmpty());
+    }
+
+    @Test
+    void refreshRebuildsWhenAnotherNodeChangedMovies() {
+        // given
+        given(movieIndexVersionRepository.findVersion()).willReturn(Optional.of(3L));
+        movieSearchService.rebuild();
+        // then
+        assertFalse(movieSearchService.refresh());
+        // given
+        given(movieIndexVersionRepository.findVersion()).willReturn(Optional.of(4L));
+        given(movieRepository.findAllIdAndTitlePairs()).willReturn(List.of(new Pair<>(5L, "Vertigo")));
+        // when
+        boolean refreshed = movieSearchService.refresh();
+        // then
+        assertTrue(refreshed);
+        assertEquals(List.of(5L), movieSearchService.search("vertigo").orElseThrow());
+        assertFalse(movieSearchService.refresh());
+    }
+
+    @Test
+    void refreshBeforeRebuildDoesNothing() {
+        // then
+        assertFalse(movieSearchService.refresh());
+        assertTrue(movieSearchService.search("vertigo").isEmpty());
+    }
+
+    @Test
+    void indexAndRemoveBumpVersion() {
+        // given
+        given(movieIndexVersionRepository.increment()).willReturn(0, 1);
+        Movie movie = new Movie();
+        movie.setId(4L);
+        // when
+        movieSearchService.index(movie);
+        movieSearchService.removeAll(List.of(4L, 5L));
+        // then
+        verify(movieIndexVersionRepository, times(2)).increment();
+        verify(movieIndexVersionRepository, times(1)).save(any());
+    }
+
+    @Test
+    void browseFiltersByCategoriesAndRatingsAndCountsFacets() {
+        // given
+        given(movieRepository.findAllIdAndMsrbRatingPairs()).willReturn(List.of(
+                new Pair<>(1L, MsrbRating.R), new Pair<>(2L, MsrbRating.PG13), new Pair<>(3L, MsrbRating.PG13),
+                new Pair<>(4L, null)));
+        given(movieRepository.findAllIdAndMovieCategoryPairs()).willReturn(List.of(
+                new Pair<>(1L, MovieCategory.ACTION), new Pair<>(1L, MovieCategory.HORROR),
+                new Pair<>(2L, MovieCategory.ACTION), new Pair<>(2L, MovieCategory.DRAMA),
+                new Pair<>(3L, MovieCategory.DRAMA), new Pair<>(4L, MovieCategory.ACTION)));
+        movieSearchService.rebuild();
+        MovieFacetFilter filter = new MovieFacetFilter();
+        filter.getAllCategories().add(MovieCategory.ACTION);
+        filter.getMsrbRatings().add(MsrbRating.PG13);
+        // when
+        Pair<List<Long>, MovieFacets> browse = movieSearchService.browse(filter);
+        // then
+        assertEquals(List.of(2L), browse.getFirst());
+        MovieFacets movieFacets = browse.getSecond();
+        assertEquals(1, movieFacets.getTotal());
+        assertEquals(1, movieFacets.getCategoryCounts().get(MovieCategory.DRAMA));
+        assertEquals(0, movieFacets.getCategoryCounts().get(MovieCategory.HORROR));
+        assertEquals(1, movieFacets.getMsrbRatingCounts().get(MsrbRating.R));
+        assertEquals(1, movieFacets.getMsrbRatingCounts().get(MsrbRating.PG13));
+        // when
+        filter.getMsrbRatings().clear();
+        filter.getAnyCategories().addAll(Set.of(MovieCategory.HORROR, MovieCategory.DRAMA));
+        // then
+        assertEquals(List.of(1L, 2L), movieSearchService.browse(filter).getFirst());
+    }
+
+    @Test
+    void browseBeforeRebuildLoadsFromDatabase() {
+        // given
+        given(movieRepository.findAllIdAndMsrbRatingPairs()).willReturn(List.of(new Pair<>(1L, MsrbRating.G)));
+        // when
+        Pair<List<Long>, MovieFacets> browse = movieSearchService.browse(new MovieFacetFilter());
+        // then
+        assertEquals(List.of(1L), browse.getFirst());
+        assertEquals(1, browse.getSecond().getMsrbRatingCounts().get(MsrbRating.G));
+    }
+
+    @Test
+    void refreshRebuildsFacetsWhenAnotherNodeChangedMovies() {
+        // given
+        given(movieIndexVersionRepository.findVersion()).willReturn(Optional.of(1L));
+        given(movieRepository.findAllIdAndMsrbRatingPairs()).willReturn(List.of(new Pair<>(1L, MsrbRating.G)));
+        movieSearchService.rebuild();
+        given(movieIndexVersionRepository.findVersion()).willReturn(Optional.of(2L));
+        given(movieRepository.findAllIdAndMsrbRatingPairs()).willReturn(List.of(
+                new Pair<>(1L, MsrbRating.G), new Pair<>(2L, MsrbRating.R)));
+        // when
+        movieSearchService.refresh();
+        Pair<List<Long>, MovieFacets> browse = movieSearchService.browse(new MovieFacetFilter());
+        // then
+        assertEquals(List.of(1L, 2L), browse.getFirst());
+        assertEquals(1, browse.getSecond().getMsrbRatingCounts().get(MsrbRating.R));
+    }
+
+    @Test
+    void indexAndRemoveFacets() {
+        // given
+        movieSearchService.rebuild();
+        Movie movie = new Movie();
+        movie.setId(4L);
+        movie.setTitle("Casablanca");
+        movie.setMsrbRating(MsrbRating.PG);
+        movie.setMovieCategories(List.of(MovieCategory.ROMANCE, MovieCategory.CLASSIC));
+        MovieFacetFilter filter = new MovieFacetFilter();
+        filter.getAllCategories().add(MovieCategory.ROMANCE);
+        // when
+        movieSearchService.index(movie);
+        // then
+        assertEquals(List.of(4L), movieSearchService.browse(filter).getFirst());
+        // when
+        movie.setMovieCategories(List.of(MovieCategory.CLASSIC));
+        movieSearchService.index(movie);
+        // then
+        assertTrue(movieSearchService.browse(filter).getFirst().isEmpty());
+        // when
+        movieSearchService.remove(4L);
+        // then
+        assertEquals(0, movieSearchService.browse(new MovieFacetFilter()).getSecond().getTotal());
+    }
+
+}
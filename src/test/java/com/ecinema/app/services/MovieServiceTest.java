@@ -1,6 +1,9 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.beans.SecurityContext;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.beans.SignedSessionCodec;
 import com.ecinema.app.domain.dtos.*;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.*;
@@ -33,6 +36,8 @@ class MovieServiceTest {
     private MovieService movieService;
     private ReviewService reviewService;
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private MovieValidator movieValidator;
     private ShowroomService showroomService;
     private CustomerService customerService;
@@ -43,10 +48,13 @@ class MovieServiceTest {
     private PaymentCardService paymentCardService;
     private ShowroomSeatService showroomSeatService;
     private ScreeningSeatService screeningSeatService;
+    private ScreeningScheduleService screeningScheduleService;
     private SeatBookingValidator seatBookingValidator;
     @Mock
     private MovieRepository movieRepository;
     @Mock
+    private MovieIndexVersionRepository movieIndexVersionRepository;
+    @Mock
     private ReviewRepository reviewRepository;
     @Mock
     private TicketRepository ticketRepository;
@@ -66,6 +74,8 @@ class MovieServiceTest {
     private CustomerRepository customerRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserAvailabilityVersionRepository userAvailabilityVersionRepository;
 
     @BeforeEach
     void setUp() {
@@ -76,19 +86,29 @@ class MovieServiceTest {
         reviewVoteService = new ReviewVoteService(reviewVoteRepository, reviewRepository, customerRepository);
         reviewService = new ReviewService(reviewRepository, movieRepository, customerRepository, reviewValidator,
                 reviewVoteService);
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, customerRepository,
-                paymentCardRepository, screeningSeatRepository);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, customerRepository,
+                paymentCardRepository, screeningRepository, screeningSeatRepository, seatOccupancyService,
+                seatHoldService);
         paymentCardService = new PaymentCardService(paymentCardRepository, null, customerRepository, null);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
+        screeningScheduleService = new ScreeningScheduleService(screeningRepository);
         screeningService = new ScreeningService(screeningRepository, movieRepository, ticketRepository,
-                showroomRepository, screeningSeatService, null);
+                showroomRepository, screeningSeatService, screeningScheduleService, null, null, null);
         customerService = new CustomerService(customerRepository, screeningSeatRepository, null, reviewService,
                 ticketService, paymentCardService, reviewVoteService, securityContext);
-        movieService = new MovieService(movieRepository, reviewService, screeningService, movieValidator);
+        movieService = new MovieService(movieRepository, reviewService, screeningService, movieValidator, null,
+                new MovieSearchService(movieRepository, movieIndexVersionRepository));
         showroomSeatService = new ShowroomSeatService(showroomSeatRepository, screeningSeatService);
         showroomService = new ShowroomService(showroomRepository, showroomSeatService, screeningService, null,
-                ticketRepository);
-        userService = new UserService(userRepository, customerService, null, null, null, null, null);
+                ticketRepository, null);
+        SessionRevocationService sessionRevocationService =
+                new SessionRevocationService(null, new SignedSessionCodec(false, "", 720, false), null, null);
+        userService = new UserService(userRepository, customerService, null, null, null, null, null,
+                new PrincipalViewCache(), new UserActivityService(userRepository),
+                new UserAvailabilityService(userRepository, userAvailabilityVersionRepository, 100, 0.01),
+                new UserAuthorityCache(30L), sessionRevocationService, null);
     }
 
     @Test
@@ -31,6 +31,8 @@ class PaymentCardServiceTest {
 
     private ReviewService reviewService;
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private CustomerService customerService;
     private AddressValidator addressValidator;
     private PaymentCardService paymentCardService;
@@ -39,6 +41,8 @@ class PaymentCardServiceTest {
     private EncoderService encoderService;
     private SecurityContext securityContext;
     @Mock
+    private ScreeningRepository screeningRepository;
+    @Mock
     private ScreeningSeatRepository screeningSeatRepository;
     @Mock
     private PaymentCardRepository paymentCardRepository;
@@ -59,8 +63,11 @@ class PaymentCardServiceTest {
         paymentCardService = new PaymentCardService(paymentCardRepository, encoderService, customerRepository,
                 paymentCardValidator);
         reviewService = new ReviewService(reviewRepository, null, customerRepository, null, null);
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, customerRepository,
-                paymentCardRepository, screeningSeatRepository);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, customerRepository,
+                paymentCardRepository, screeningRepository, screeningSeatRepository, seatOccupancyService,
+                seatHoldService);
         customerService = new CustomerService(customerRepository, screeningSeatRepository, null, reviewService,
                 ticketService, paymentCardService, null, securityContext);
     }
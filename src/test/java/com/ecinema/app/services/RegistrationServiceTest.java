@@ -1,5 +1,8 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.beans.SignedSessionCodec;
 import com.ecinema.app.configs.InitializationConfig;
 import com.ecinema.app.domain.dtos.UserDto;
 import com.ecinema.app.domain.entities.Customer;
@@ -41,6 +44,8 @@ class RegistrationServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserAvailabilityVersionRepository userAvailabilityVersionRepository;
+    @Mock
     private CustomerRepository customerRepository;
     @Mock
     private RegistrationRepository registrationRepository;
@@ -62,10 +67,15 @@ class RegistrationServiceTest {
         customerService = new CustomerService(
                 customerRepository, null, null,
                 null, null, null, null, null);
+        SessionRevocationService sessionRevocationService =
+                new SessionRevocationService(null, new SignedSessionCodec(false, "", 720, false), null, null);
         userService = new UserService(
                 userRepository, customerService, null, null,
                 encoderService, userProfileValidator,
-                registrationValidator);
+                registrationValidator, new PrincipalViewCache(),
+                new UserActivityService(userRepository),
+                new UserAvailabilityService(userRepository, userAvailabilityVersionRepository, 100, 0.01),
+                new UserAuthorityCache(30L), sessionRevocationService, null);
         registrationService = new RegistrationService(
                 registrationRepository, userService, emailService,
                 encoderService, registrationValidator);
@@ -107,7 +117,7 @@ class RegistrationServiceTest {
         // then
         assertNotNull(userDto);
         ArgumentCaptor<User> userArgumentCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userArgumentCaptor.capture());
+        verify(userRepository).saveAndFlush(userArgumentCaptor.capture());
         User user = userArgumentCaptor.getValue();
         assertEquals("test@gmail.com", user.getEmail());
         assertEquals("TestUser123", user.getUsername());
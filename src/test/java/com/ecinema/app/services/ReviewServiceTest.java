@@ -1,11 +1,16 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
 import com.ecinema.app.beans.SecurityContext;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.beans.SignedSessionCodec;
 import com.ecinema.app.domain.dtos.ReviewDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.UserAuthority;
 import com.ecinema.app.domain.enums.Vote;
 import com.ecinema.app.domain.forms.ReviewForm;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ReviewWriter;
 import com.ecinema.app.validators.MovieValidator;
 import com.ecinema.app.validators.ReviewValidator;
 import com.ecinema.app.repositories.*;
@@ -15,18 +20,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class ReviewServiceTest {
 
     private ScreeningSeatService screeningSeatService;
+    private ScreeningScheduleService screeningScheduleService;
     private SeatBookingValidator seatBookingValidator;
     private PaymentCardService paymentCardService;
     private ReviewVoteService reviewVoteService;
@@ -37,6 +50,8 @@ class ReviewServiceTest {
     private MovieValidator movieValidator;
     private ReviewService reviewService;
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private MovieService movieService;
     private UserService userService;
     @Mock
@@ -58,7 +73,11 @@ class ReviewServiceTest {
     @Mock
     private MovieRepository movieRepository;
     @Mock
+    private MovieIndexVersionRepository movieIndexVersionRepository;
+    @Mock
     private UserRepository userRepository;
+    @Mock
+    private UserAvailabilityVersionRepository userAvailabilityVersionRepository;
 
     @BeforeEach
     void setUp() {
@@ -70,15 +89,25 @@ class ReviewServiceTest {
         paymentCardService = new PaymentCardService(paymentCardRepository, null, customerRepository, null);
         reviewService = new ReviewService(reviewRepository, movieRepository, customerRepository, reviewValidator,
                 reviewVoteService);
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, customerRepository,
-                paymentCardRepository, screeningSeatRepository);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, customerRepository,
+                paymentCardRepository, screeningRepository, screeningSeatRepository, seatOccupancyService,
+                seatHoldService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
+        screeningScheduleService = new ScreeningScheduleService(screeningRepository);
         screeningService = new ScreeningService(screeningRepository, movieRepository, ticketRepository,
-                showroomRepository, screeningSeatService, null);
+                showroomRepository, screeningSeatService, screeningScheduleService, null, null, null);
         customerService = new CustomerService(customerRepository, screeningSeatRepository, null, reviewService,
                 ticketService, paymentCardService, reviewVoteService, securityContext);
-        movieService = new MovieService(movieRepository, reviewService, screeningService, movieValidator);
-        userService = new UserService(userRepository, customerService, null, null, null, null, null);
+        movieService = new MovieService(movieRepository, reviewService, screeningService, movieValidator, null,
+                new MovieSearchService(movieRepository, movieIndexVersionRepository));
+        SessionRevocationService sessionRevocationService =
+                new SessionRevocationService(null, new SignedSessionCodec(false, "", 720, false), null, null);
+        userService = new UserService(userRepository, customerService, null, null, null, null, null,
+                new PrincipalViewCache(), new UserActivityService(userRepository),
+                new UserAvailabilityService(userRepository, userAvailabilityVersionRepository, 100, 0.01),
+                new UserAuthorityCache(30L), sessionRevocationService, null);
     }
 
     @Test
@@ -122,30 +151,16 @@ class ReviewServiceTest {
     @Test
     void convertToDto() {
         // given
-        given(reviewRepository.findCustomerIdByReviewWithId(1L))
-                .willReturn(Optional.of(2L));
-        given(reviewRepository.findUserIdByReviewWithId(1L))
-                .willReturn(Optional.of(3L));
-        given(reviewRepository.findUsernameOfWriterForReviewWithId(1L))
-                .willReturn(Optional.of("username"));
+        given(reviewRepository.findAllReviewWritersByReviewWithIdIn(List.of(1L)))
+                .willReturn(List.of(new ReviewWriter(1L, 2L, 3L, "username")));
         Review review = new Review();
         review.setId(1L);
+        review.setUpvotes(5);
+        review.setDownvotes(5);
         review.setReview("test review");
         review.setRating(7);
         review.setIsCensored(false);
         review.setCreationDateTime(LocalDateTime.of(2022, Month.APRIL, 28, 22, 55));
-        Map<Vote, List<Long>> mapOfVoterUserIds = new EnumMap<>(Vote.class) {{
-           put(Vote.UPVOTE, new ArrayList<>());
-           put(Vote.DOWNVOTE, new ArrayList<>());
-        }};
-        for (int i = 0; i < 10; i++) {
-            Vote vote = i % 2 == 0 ? Vote.UPVOTE : Vote.DOWNVOTE;
-            mapOfVoterUserIds.get(vote).add((long) i);
-        }
-        given(reviewVoteRepository.findAllUserIdsByReviewWithIdAndVote(1L, Vote.UPVOTE))
-                .willReturn(mapOfVoterUserIds.get(Vote.UPVOTE));
-        given(reviewVoteRepository.findAllUserIdsByReviewWithIdAndVote(1L, Vote.DOWNVOTE))
-                .willReturn(mapOfVoterUserIds.get(Vote.DOWNVOTE));
         given(reviewRepository.findById(1L)).willReturn(Optional.of(review));
         // when
         ReviewDto reviewDto = reviewService.convertToDto(1L);
@@ -159,8 +174,44 @@ class ReviewServiceTest {
         assertEquals(review.getIsCensored(), reviewDto.getIsCensored());
         assertEquals(LocalDateTime.of(2022, Month.APRIL, 28, 22, 55),
                      reviewDto.getCreationDateTime());
-        assertEquals(mapOfVoterUserIds.get(Vote.UPVOTE), reviewDto.getUpvoteUserIds());
-        assertEquals(mapOfVoterUserIds.get(Vote.DOWNVOTE), reviewDto.getDownvoteUserIds());
+        assertEquals(5, reviewDto.getUpvotes());
+        assertEquals(5, reviewDto.getDownvotes());
+        assertNull(reviewDto.getVoteOfCurrentUser());
+    }
+
+    @Test
+    void findPageByMovieIdAndNotCensored() {
+        // given
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        List<Review> reviews = new ArrayList<>();
+        for (long i = 1; i <= 2; i++) {
+            Review review = new Review();
+            review.setId(i);
+            review.setRating((int) i);
+            review.setUpvotes(i == 1 ? 3 : 0);
+            review.setDownvotes(i == 1 ? 0 : 2);
+            reviews.add(review);
+        }
+        given(reviewRepository.findAllByMovieWithIdAndNotCensored(
+                4L, PageRequest.of(0, 2, ReviewService.NEWEST)))
+                .willReturn(new PageImpl<>(reviews, pageRequest, 3));
+        given(reviewRepository.findAllReviewWritersByReviewWithIdIn(List.of(1L, 2L)))
+                .willReturn(List.of(new ReviewWriter(2L, 20L, 200L, "writer2"),
+                                    new ReviewWriter(1L, 10L, 100L, "writer1")));
+        given(reviewVoteRepository.findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn(300L, List.of(1L, 2L)))
+                .willReturn(List.of(new Pair<>(1L, Vote.UPVOTE)));
+        // when
+        Page<ReviewDto> page = reviewService.findPageByMovieIdAndNotCensored(4L, 300L, pageRequest);
+        // then
+        assertEquals(3, page.getTotalElements());
+        List<ReviewDto> reviewDtos = page.getContent();
+        assertEquals(List.of(1L, 2L), List.of(reviewDtos.get(0).getId(), reviewDtos.get(1).getId()));
+        assertEquals("writer1", reviewDtos.get(0).getWriter());
+        assertEquals(3, reviewDtos.get(0).getUpvotes());
+        assertTrue(reviewDtos.get(0).upvotedByCurrentUser());
+        assertEquals(0, reviewDtos.get(1).getUpvotes());
+        assertEquals(2, reviewDtos.get(1).getDownvotes());
+        assertNull(reviewDtos.get(1).getVoteOfCurrentUser());
     }
 
     @Test
@@ -198,6 +249,32 @@ class ReviewServiceTest {
         assertEquals(10, review.getRating());
         assertEquals(reviewStr, review.getReview());
         assertFalse(review.getIsCensored());
+        verify(movieRepository, times(1)).addToRatingAggregates(2L, 10, 1);
+    }
+
+    @Test
+    void setReviewCensoredStatus() {
+        // given
+        Movie movie = new Movie();
+        movie.setId(2L);
+        Review review = new Review();
+        review.setId(1L);
+        review.setMovie(movie);
+        review.setRating(8);
+        review.setIsCensored(false);
+        given(reviewRepository.findById(1L)).willReturn(Optional.of(review));
+        given(reviewRepository.updateIsCensoredOfReviewWithId(1L, true)).willReturn(1, 0);
+        given(reviewRepository.updateIsCensoredOfReviewWithId(1L, false)).willReturn(1);
+        // when
+        reviewService.setReviewCensoredStatus(1L, true);
+        reviewService.setReviewCensoredStatus(1L, true);
+        // then
+        verify(movieRepository, times(1)).addToRatingAggregates(2L, -8, -1);
+        // when
+        reviewService.setReviewCensoredStatus(1L, false);
+        // then
+        verify(movieRepository, times(1)).addToRatingAggregates(2L, 8, 1);
+        verify(reviewRepository, never()).save(any());
     }
 
 }
\ No newline at end of file
@@ -5,6 +5,9 @@ import com.ecinema.app.domain.entities.Customer;
 import com.ecinema.app.domain.entities.Review;
 import com.ecinema.app.domain.entities.ReviewVote;
 import com.ecinema.app.domain.enums.Vote;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ReviewVoteTarget;
+import com.ecinema.app.exceptions.InvalidActionException;
 import com.ecinema.app.exceptions.InvalidAssociationException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.repositories.CustomerRepository;
@@ -16,11 +19,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -84,100 +94,131 @@ class ReviewVoteServiceTest {
         assertFalse(customer.getReviewVotes().contains(reviewVote));
     }
 
+    @Test
+    void cascadeOnDeleteSubtractsVote() {
+        // given
+        ReviewVote reviewVote = new ReviewVote();
+        reviewVote.setVote(Vote.DOWNVOTE);
+        Review review = new Review();
+        review.setId(2L);
+        reviewVote.setReview(review);
+        review.getReviewVotes().add(reviewVote);
+        // when
+        reviewVoteService.onDelete(reviewVote);
+        // then
+        verify(reviewRepository, times(1)).addToVoteCounters(2L, 0, -1);
+        verify(reviewRepository, times(1)).refreshHelpfulnessOfReviewsWithIds(List.of(2L));
+    }
+
     @Test
     void voteOnReview1() {
         // given
-        given(reviewVoteRepository.findByUserWithIdAndReviewWithId(
-                1L, 2L)).willReturn(Optional.empty());
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L))
+                .willReturn(Optional.of(new ReviewVoteTarget(3L, 4L, null, null)));
         Review review = new Review();
         review.setId(2L);
-        given(reviewRepository.findById(2L)).willReturn(
-                Optional.of(review));
+        given(reviewRepository.getById(2L)).willReturn(review);
         Customer customer = new Customer();
         customer.setId(3L);
-        given(customerRepository.findByUserWithId(1L)).willReturn(
-                Optional.of(customer));
-        given(customerRepository.existsByUserWithId(1L)).willReturn(true);
+        given(customerRepository.getById(3L)).willReturn(customer);
         // when
         reviewVoteService.voteOnReview(1L, 2L, Vote.UPVOTE);
         // then
         ArgumentCaptor<ReviewVote> reviewVoteArgumentCaptor = ArgumentCaptor.forClass(ReviewVote.class);
-        verify(reviewVoteRepository).save(reviewVoteArgumentCaptor.capture());
+        verify(reviewVoteRepository).saveAndFlush(reviewVoteArgumentCaptor.capture());
         ReviewVote reviewVote = reviewVoteArgumentCaptor.getValue();
         assertEquals(review, reviewVote.getReview());
         assertEquals(customer, reviewVote.getVoter());
         assertEquals(Vote.UPVOTE, reviewVote.getVote());
-        assertTrue(review.getReviewVotes().contains(reviewVote));
-        assertTrue(customer.getReviewVotes().contains(reviewVote));
+        verify(reviewRepository, times(1)).addToVoteCounters(2L, 1, 0);
+        verify(reviewRepository, times(1)).refreshHelpfulnessOfReviewsWithIds(List.of(2L));
     }
 
     @Test
     void voteOnReview2() {
         // given
-        given(reviewRepository.existsByUserWithIdAndReviewWithId(1L, 2L))
-                .willReturn(false);
-        given(customerRepository.existsByUserWithId(1L)).willReturn(true);
-        Customer customer = new Customer();
-        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
-        Review review = new Review();
-        given(reviewRepository.findById(2L)).willReturn(Optional.of(review));
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L))
+                .willReturn(Optional.of(new ReviewVoteTarget(3L, 4L, 5L, Vote.UPVOTE)));
+        given(reviewVoteRepository.updateVoteOfReviewVoteWithId(5L, Vote.DOWNVOTE)).willReturn(1);
         // when
         reviewVoteService.voteOnReview(1L, 2L, Vote.DOWNVOTE);
         // then
-        ArgumentCaptor<ReviewVote> reviewVoteArgumentCaptor = ArgumentCaptor.forClass(ReviewVote.class);
-        verify(reviewVoteRepository).save(reviewVoteArgumentCaptor.capture());
-        ReviewVote reviewVote = reviewVoteArgumentCaptor.getValue();
-        assertEquals(Vote.DOWNVOTE, reviewVote.getVote());
-        assertEquals(review, reviewVote.getReview());
-        assertTrue(review.getReviewVotes().contains(reviewVote));
-        assertEquals(customer, reviewVote.getVoter());
-        assertTrue(customer.getReviewVotes().contains(reviewVote));
+        verify(reviewVoteRepository, never()).saveAndFlush(any());
+        verify(reviewRepository, times(1)).addToVoteCounters(2L, -1, 1);
+        verify(reviewRepository, times(1)).refreshHelpfulnessOfReviewsWithIds(List.of(2L));
+    }
+
+    @Test
+    void voteOnReview3() {
+        // given
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L))
+                .willReturn(Optional.of(new ReviewVoteTarget(3L, 4L, 5L, Vote.UPVOTE)));
+        given(reviewVoteRepository.updateVoteOfReviewVoteWithId(5L, Vote.UPVOTE)).willReturn(0);
+        // when
+        reviewVoteService.voteOnReview(1L, 2L, Vote.UPVOTE);
+        // then
+        verify(reviewVoteRepository, never()).saveAndFlush(any());
+        verify(reviewRepository, never()).addToVoteCounters(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void voteOnReviewFlippedConcurrentlyIsCountedOnce() {
+        // given
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L))
+                .willReturn(Optional.of(new ReviewVoteTarget(3L, 4L, 5L, Vote.UPVOTE)));
+        given(reviewVoteRepository.updateVoteOfReviewVoteWithId(5L, Vote.DOWNVOTE)).willReturn(1, 0);
+        // when
+        reviewVoteService.voteOnReview(1L, 2L, Vote.DOWNVOTE);
+        reviewVoteService.voteOnReview(1L, 2L, Vote.DOWNVOTE);
+        // then
+        verify(reviewRepository, times(1)).addToVoteCounters(2L, -1, 1);
     }
 
     @Test
     void failToVoteOnReview1() {
         // given
-        given(reviewRepository.existsByUserWithIdAndReviewWithId(1L, 2L)).willReturn(true);
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L))
+                .willReturn(Optional.of(new ReviewVoteTarget(3L, 1L, null, null)));
         // then
         assertThrows(InvalidAssociationException.class,
                      () -> reviewVoteService.voteOnReview(1L, 2L, Vote.UPVOTE));
+        verify(reviewVoteRepository, never()).saveAndFlush(any());
     }
 
     @Test
-    void failToVoteOnReview2() {
+    void failToVoteOnReviewConcurrently() {
         // given
-        given(reviewRepository.existsByUserWithIdAndReviewWithId(1L, 2L))
-                .willReturn(false);
-        given(customerRepository.existsByUserWithId(1L)).willReturn(false);
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L))
+                .willReturn(Optional.of(new ReviewVoteTarget(3L, 4L, null, null)));
+        given(reviewVoteRepository.saveAndFlush(any())).willThrow(DataIntegrityViolationException.class);
         // then
-        assertThrows(NoEntityFoundException.class,
+        assertThrows(InvalidActionException.class,
                      () -> reviewVoteService.voteOnReview(1L, 2L, Vote.UPVOTE));
+        verify(reviewRepository, never()).addToVoteCounters(any(), anyInt(), anyInt());
     }
 
     @Test
-    void failToVoteOnReview3() {
+    void failToVoteOnReview2() {
         // given
-        given(reviewRepository.existsByUserWithIdAndReviewWithId(1L, 2L))
-                .willReturn(false);
-        given(customerRepository.existsByUserWithId(1L)).willReturn(true);
-        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.empty());
+        given(reviewVoteRepository.findReviewVoteTarget(1L, 2L)).willReturn(Optional.empty());
         // then
         assertThrows(NoEntityFoundException.class,
                      () -> reviewVoteService.voteOnReview(1L, 2L, Vote.UPVOTE));
+        verify(reviewRepository, never()).addToVoteCounters(any(), anyInt(), anyInt());
     }
 
     @Test
-    void failToVoteOnReview4() {
+    void findAllVotesOfUser() {
         // given
-        given(reviewRepository.existsByUserWithIdAndReviewWithId(1L, 2L))
-                .willReturn(false);
-        given(customerRepository.existsByUserWithId(1L)).willReturn(true);
-        Customer customer = new Customer();
-        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
-        given(reviewRepository.findById(2L)).willReturn(Optional.empty());
+        given(reviewVoteRepository.findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn(1L, List.of(2L, 3L)))
+                .willReturn(List.of(new Pair<>(3L, Vote.DOWNVOTE)));
+        // when
+        Map<Long, Vote> votes = reviewVoteService.findAllVotesOfUser(List.of(2L, 3L), 1L);
         // then
-        assertThrows(NoEntityFoundException.class,
-                     () -> reviewVoteService.voteOnReview(1L, 2L, Vote.UPVOTE));
+        assertEquals(Map.of(3L, Vote.DOWNVOTE), votes);
+        assertTrue(reviewVoteService.findAllVotesOfUser(List.of(2L, 3L), null).isEmpty());
+        verify(reviewVoteRepository, times(1))
+                .findAllReviewIdAndVotePairsByUserWithIdAndReviewWithIdIn(any(), any());
     }
 
 }
\ No newline at end of file
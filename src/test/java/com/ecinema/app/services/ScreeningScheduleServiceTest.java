@@ -0,0 +1,118 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.ScreeningInterval;
+import com.ecinema.app.domain.objects.ScreeningSchedule;
+import com.ecinema.app.repositories.ScreeningRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ScreeningScheduleServiceTest {
+
+    private LocalDateTime midnight;
+    private ScreeningScheduleService screeningScheduleService;
+    @Mock
+    private ScreeningRepository screeningRepository;
+
+    @BeforeEach
+    void setUp() {
+        screeningScheduleService = new ScreeningScheduleService(screeningRepository);
+        midnight = LocalDateTime.now().toLocalDate().plusDays(1).atStartOfDay();
+        // screenings at 12:00 to 14:00, 15:00 to 17:30, and 20:00 to 22:00 tomorrow
+        List<ScreeningInterval> screeningIntervals = new ArrayList<>();
+        screeningIntervals.add(new ScreeningInterval(1L, midnight.plusHours(12), midnight.plusHours(14)));
+        screeningIntervals.add(new ScreeningInterval(
+                2L, midnight.plusHours(15), midnight.plusHours(17).plusMinutes(30)));
+        screeningIntervals.add(new ScreeningInterval(3L, midnight.plusHours(20), midnight.plusHours(22)));
+        given(screeningRepository.findAllScreeningIntervalsByShowroomWithIdAndEndDateTimeAfter(eq(1L), any()))
+                .willReturn(screeningIntervals);
+    }
+
+    @Test
+    void loadScheduleOnce() {
+        // when
+        screeningScheduleService.findByShowroomWithId(1L);
+        screeningScheduleService.findByShowroomWithId(1L);
+        // then
+        verify(screeningRepository, times(1))
+                .findAllScreeningIntervalsByShowroomWithIdAndEndDateTimeAfter(eq(1L), any());
+        assertEquals(3, screeningScheduleService.findByShowroomWithId(1L).size());
+    }
+
+    @Test
+    void findOverlapping() {
+        // when
+        ScreeningSchedule screeningSchedule = screeningScheduleService.findByShowroomWithId(1L);
+        // then
+        assertEquals(1L, screeningSchedule.findOverlapping(
+                midnight.plusHours(13), midnight.plusHours(13).plusMinutes(30)).orElseThrow().getScreeningId());
+        assertEquals(2L, screeningSchedule.findOverlapping(
+                midnight.plusHours(17).plusMinutes(30), midnight.plusHours(19)).orElseThrow().getScreeningId());
+        assertEquals(1L, screeningSchedule.findOverlapping(
+                midnight.plusHours(11), midnight.plusHours(23)).orElseThrow().getScreeningId());
+        assertTrue(screeningSchedule.findOverlapping(
+                midnight.plusHours(14).plusMinutes(1), midnight.plusHours(14).plusMinutes(59)).isEmpty());
+        assertTrue(screeningSchedule.findOverlapping(
+                midnight.plusHours(22).plusMinutes(1), midnight.plusHours(23)).isEmpty());
+    }
+
+    @Test
+    void findFreeSlots() {
+        // when
+        List<Pair<LocalDateTime, LocalDateTime>> freeSlots = screeningScheduleService.findFreeSlots(
+                1L, midnight.plusHours(12), midnight.plusHours(23).plusMinutes(30), Duration.ofHours(1));
+        // then
+        assertEquals(2, freeSlots.size());
+        assertEquals(midnight.plusHours(17).plusMinutes(31), freeSlots.get(0).getFirst());
+        assertEquals(midnight.plusHours(19).plusMinutes(59), freeSlots.get(0).getSecond());
+        assertEquals(midnight.plusHours(22).plusMinutes(1), freeSlots.get(1).getFirst());
+        assertEquals(midnight.plusHours(23).plusMinutes(30), freeSlots.get(1).getSecond());
+    }
+
+    @Test
+    void addAndRemoveScreening() {
+        // given
+        ScreeningSchedule screeningSchedule = screeningScheduleService.findByShowroomWithId(1L);
+        // when
+        screeningScheduleService.add(1L, new ScreeningInterval(
+                4L, midnight.plusHours(18), midnight.plusHours(19).plusMinutes(30)));
+        screeningScheduleService.remove(1L, 1L);
+        // then
+        assertEquals(4L, screeningSchedule.findOverlapping(
+                midnight.plusHours(19), midnight.plusHours(19)).orElseThrow().getScreeningId());
+        assertTrue(screeningSchedule.findOverlapping(
+                midnight.plusHours(12), midnight.plusHours(14)).isEmpty());
+    }
+
+    @Test
+    void pruneEndedScreenings() {
+        // given
+        ScreeningSchedule screeningSchedule = screeningScheduleService.findByShowroomWithId(1L);
+        screeningSchedule.add(new ScreeningInterval(
+                5L, LocalDateTime.now().minusHours(3), LocalDateTime.now().minusHours(1)));
+        assertEquals(4, screeningSchedule.size());
+        // when
+        screeningScheduleService.pruneEndedScreenings();
+        // then
+        assertEquals(3, screeningSchedule.size());
+        assertTrue(screeningSchedule.findOverlapping(
+                LocalDateTime.now().minusHours(2), LocalDateTime.now().minusHours(2)).isEmpty());
+    }
+
+}
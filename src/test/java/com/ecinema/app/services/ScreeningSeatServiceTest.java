@@ -1,27 +1,47 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.domain.dtos.ScreeningSeatDto;
 import com.ecinema.app.domain.entities.ScreeningSeat;
 import com.ecinema.app.domain.entities.Showroom;
 import com.ecinema.app.domain.entities.ShowroomSeat;
 import com.ecinema.app.domain.entities.Ticket;
 import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.objects.SeatOccupancy;
+import com.ecinema.app.domain.objects.SeatState;
+import com.ecinema.app.exceptions.InvalidActionException;
+import com.ecinema.app.exceptions.InvalidArgumentException;
+import com.ecinema.app.repositories.ScreeningRepository;
 import com.ecinema.app.repositories.ScreeningSeatRepository;
 import com.ecinema.app.repositories.ShowroomRepository;
 import com.ecinema.app.repositories.ShowroomSeatRepository;
 import com.ecinema.app.repositories.TicketRepository;
 import com.ecinema.app.validators.SeatBookingValidator;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class ScreeningSeatServiceTest {
 
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private ShowroomService showroomService;
     private ShowroomSeatService showroomSeatService;
     private ScreeningSeatService screeningSeatService;
@@ -29,20 +49,26 @@ class ScreeningSeatServiceTest {
     @Mock
     private TicketRepository ticketRepository;
     @Mock
+    private ScreeningRepository screeningRepository;
+    @Mock
     private ScreeningSeatRepository screeningSeatRepository;
     @Mock
     private ShowroomSeatRepository showroomSeatRepository;
     @Mock
     private ShowroomRepository showroomRepository;
+    private final Logger logger = LoggerFactory.getLogger(ScreeningSeatServiceTest.class);
 
     @BeforeEach
     void setUp() {
         seatBookingValidator = new SeatBookingValidator();
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null,
-                screeningSeatRepository);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null, null,
+                screeningRepository, screeningSeatRepository, seatOccupancyService, seatHoldService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
         showroomSeatService = new ShowroomSeatService(showroomSeatRepository, screeningSeatService);
-        showroomService = new ShowroomService(showroomRepository, showroomSeatService, null, null, ticketRepository);
+        showroomService = new ShowroomService(showroomRepository, showroomSeatService, null, null, ticketRepository,
+                null);
     }
 
     @Test
@@ -76,4 +102,148 @@ class ScreeningSeatServiceTest {
         assertNull(screeningSeat.getTicket());
     }
 
-}
\ No newline at end of file
+    @Test
+    void findScreeningSeatMapByScreeningWithId() {
+        // given
+        List<SeatState> seatStates = new ArrayList<>();
+        for (int i = 2; i >= 0; i--) {
+            for (int j = 10; j >= 1; j--) {
+                long id = i * 10L + j;
+                seatStates.add(new SeatState(id, Letter.values()[i], j, id % 7 == 0 ? id : null));
+            }
+        }
+        given(screeningSeatRepository.findAllSeatStatesByScreeningWithId(1L)).willReturn(seatStates);
+        // when
+        Map<Letter, Set<ScreeningSeatDto>> test1 = screeningSeatService.findScreeningSeatMapByScreeningWithId(1L);
+        Map<Letter, Set<ScreeningSeatDto>> test2 = screeningSeatService.findScreeningSeatMapByScreeningWithId(1L);
+        seatOccupancyService.markBooked(1L, 1L);
+        seatOccupancyService.markAvailable(1L, 7L);
+        Map<Letter, Set<ScreeningSeatDto>> test3 = screeningSeatService.findScreeningSeatMapByScreeningWithId(1L);
+        // then
+        verify(screeningSeatRepository, times(1)).findAllSeatStatesByScreeningWithId(1L);
+        assertSame(test1, test2);
+        assertNotSame(test2, test3);
+        assertEquals(List.of(Letter.A, Letter.B, Letter.C), new ArrayList<>(test3.keySet()));
+        for (Map.Entry<Letter, Set<ScreeningSeatDto>> entry : test3.entrySet()) {
+            int expectedSeatNumber = 1;
+            for (ScreeningSeatDto screeningSeatDto : entry.getValue()) {
+                assertEquals(entry.getKey(), screeningSeatDto.getRowLetter());
+                assertEquals(expectedSeatNumber++, screeningSeatDto.getSeatNumber());
+                long id = screeningSeatDto.getId();
+                boolean expectedIsBooked = id == 1L || (id % 7 == 0 && id != 7L);
+                assertEquals(expectedIsBooked, screeningSeatDto.getIsBooked(), "seat with id " + id);
+            }
+        }
+        assertEquals(4, seatOccupancyService.findByScreeningWithId(1L).numberOfSeatsBooked());
+    }
+
+    @Test
+    void findBestContiguousSeats() {
+        // given
+        List<SeatState> seatStates = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (int j = 1; j <= 10; j++) {
+                long id = i * 10L + j;
+                boolean isBooked = i == 2 && j >= 4 && j <= 7;
+                seatStates.add(new SeatState(id, Letter.values()[i], j, isBooked ? id : null));
+            }
+        }
+        given(screeningSeatRepository.findAllSeatStatesByScreeningWithId(1L)).willReturn(seatStates);
+        seatOccupancyService.markHeld(1L, 23L);
+        // when
+        List<Long> test1 = screeningSeatService.findBestContiguousSeats(1L, 2);
+        List<Long> test2 = screeningSeatService.findBestContiguousSeats(1L, 3);
+        List<Long> test3 = screeningSeatService.findBestContiguousSeats(1L, 10);
+        // then
+        assertEquals(List.of(15L, 16L), test1);
+        assertEquals(List.of(15L, 16L, 17L), test2);
+        assertEquals(List.of(11L, 12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L, 20L), test3);
+        assertThrows(InvalidActionException.class, () -> screeningSeatService.findBestContiguousSeats(1L, 11));
+        assertThrows(InvalidArgumentException.class, () -> screeningSeatService.findBestContiguousSeats(1L, 0));
+    }
+
+    @Test
+    void findBestContiguousSeatsInFragmentedRoom() {
+        // given the largest room allowed with about 40% of its seats booked at random
+        List<SeatState> seatStates = fragmentedRoom(4);
+        given(screeningSeatRepository.findAllSeatStatesByScreeningWithId(1L)).willReturn(seatStates);
+        SeatOccupancy seatOccupancy = seatOccupancyService.findByScreeningWithId(1L);
+        // when
+        List<List<Long>> searches = new ArrayList<>();
+        for (int numberOfSeats = 1; numberOfSeats <= 8; numberOfSeats++) {
+            searches.add(seatOccupancy.findBestContiguousSeats(numberOfSeats));
+        }
+        // then
+        for (int numberOfSeats = 1; numberOfSeats <= 8; numberOfSeats++) {
+            List<Long> ids = searches.get(numberOfSeats - 1);
+            assertEquals(ids, seatOccupancy.findBestContiguousSeats(numberOfSeats));
+            assertEquals(hasFreeRun(seatStates, 50, numberOfSeats), !ids.isEmpty());
+            if (ids.isEmpty()) {
+                continue;
+            }
+            assertEquals(numberOfSeats, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertFalse(seatOccupancy.isBooked(ids.get(i)));
+                if (i > 0) {
+                    assertEquals(ids.get(i - 1) + 1, ids.get(i));
+                    assertEquals((ids.get(i - 1) - 1) / 50, (ids.get(i) - 1) / 50);
+                }
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void findBestContiguousSeatsThroughput() {
+        // the largest room allowed, from lightly to almost fully booked at random
+        for (int tenthsBooked : new int[]{4, 7, 9}) {
+            SeatOccupancy seatOccupancy = new SeatOccupancy(1L, fragmentedRoom(tenthsBooked));
+            for (int numberOfSeats = 1; numberOfSeats <= 8; numberOfSeats++) {
+                // warm up, then measure, summing the results so that the searches cannot be optimized away
+                long seatsFound = 0;
+                for (int i = 0; i < 20_000; i++) {
+                    seatsFound += seatOccupancy.findBestContiguousSeats(numberOfSeats).size();
+                }
+                int numberOfSearches = 100_000;
+                long start = System.nanoTime();
+                for (int i = 0; i < numberOfSearches; i++) {
+                    seatsFound += seatOccupancy.findBestContiguousSeats(numberOfSeats).size();
+                }
+                long elapsedNanos = System.nanoTime() - start;
+                logger.info("Searches for " + numberOfSeats + " contiguous seats in a 26x50 room " +
+                                    tenthsBooked * 10 + "% booked: " + (elapsedNanos / numberOfSearches) +
+                                    " ns each, " + (seatsFound / (numberOfSearches + 20_000)) +
+                                    " seats found per search");
+            }
+        }
+    }
+
+    /**
+     * The seat states of the largest room allowed, 26 rows of 50 seats, with about the provided tenths of its seats
+     * booked at random, always the same for the same tenths.
+     */
+    private static List<SeatState> fragmentedRoom(int tenthsBooked) {
+        Random random = new Random(42L);
+        List<SeatState> seatStates = new ArrayList<>();
+        for (int i = 0; i < 26; i++) {
+            for (int j = 1; j <= 50; j++) {
+                long id = i * 50L + j;
+                seatStates.add(new SeatState(id, Letter.values()[i], j, random.nextInt(10) < tenthsBooked ? id : null));
+            }
+        }
+        return seatStates;
+    }
+
+    private static boolean hasFreeRun(List<SeatState> seatStates, int seatsPerRow, int numberOfSeats) {
+        int run = 0;
+        for (int i = 0; i < seatStates.size(); i++) {
+            run = i % seatsPerRow == 0 ? 0 : run;
+            run = seatStates.get(i).isBooked() ? 0 : run + 1;
+            if (run >= numberOfSeats) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
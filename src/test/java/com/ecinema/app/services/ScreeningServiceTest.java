@@ -16,10 +16,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,7 +33,10 @@ class ScreeningServiceTest {
 
     private ScreeningService screeningService;
     private ScreeningSeatService screeningSeatService;
+    private ScreeningScheduleService screeningScheduleService;
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private MovieService movieService;
     private ShowroomSeatService showroomSeatService;
     private ShowroomService showroomService;
@@ -43,6 +48,8 @@ class ScreeningServiceTest {
     @Mock
     private MovieRepository movieRepository;
     @Mock
+    private MovieIndexVersionRepository movieIndexVersionRepository;
+    @Mock
     private ScreeningRepository screeningRepository;
     @Mock
     private ScreeningSeatRepository screeningSeatRepository;
@@ -57,16 +64,20 @@ class ScreeningServiceTest {
     void setUp() {
         screeningValidator = new ScreeningValidator();
         seatBookingValidator = new SeatBookingValidator();
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null,
-                screeningSeatRepository);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null, null,
+                screeningRepository, screeningSeatRepository, seatOccupancyService, seatHoldService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
+        screeningScheduleService = new ScreeningScheduleService(screeningRepository);
         screeningService = new ScreeningService(screeningRepository, movieRepository, null, showroomRepository,
-                screeningSeatService, screeningValidator);
+                screeningSeatService, screeningScheduleService, screeningValidator, null, null);
         showroomSeatService = new ShowroomSeatService(showroomSeatRepository, screeningSeatService);
         showroomService = new ShowroomService(showroomRepository, showroomSeatService, screeningService, null,
-                ticketRepository);
+                ticketRepository, null);
         reviewService = new ReviewService(reviewRepository, movieRepository, null, null, null);
-        movieService = new MovieService(movieRepository, reviewService, screeningService, null);
+        movieService = new MovieService(movieRepository, reviewService, screeningService, null, null,
+                new MovieSearchService(movieRepository, movieIndexVersionRepository));
     }
 
     @Test
@@ -190,6 +201,7 @@ class ScreeningServiceTest {
         movie.setId(1L);
         movie.setDuration(Duration.of(1, 30));
         given(movieRepository.findById(1L)).willReturn(Optional.of(movie));
+        given(screeningRepository.findLongestLengthInSecondsOfShowroomWithId(2L)).willReturn(Optional.of(10800L));
         Showroom showroom = new Showroom();
         showroom.setShowroomLetter(Letter.A);
         showroom.setId(2L);
@@ -207,12 +219,15 @@ class ScreeningServiceTest {
         screeningForm.setShowroomId(2L);
         screeningForm.setShowtimeHour(1);
         screeningForm.setShowtimeMinute(0);
-        screeningForm.setShowdate(LocalDate.of(2023, Month.JANUARY, 1));
+        screeningForm.setShowdate(LocalDate.of(LocalDate.now().getYear() + 1, Month.JANUARY, 1));
         screeningService.submitScreeningForm(screeningForm);
         // then
         ArgumentCaptor<Screening> screeningArgumentCaptor = ArgumentCaptor.forClass(Screening.class);
         verify(screeningRepository).save(screeningArgumentCaptor.capture());
         Screening screening = screeningArgumentCaptor.getValue();
+        verify(screeningRepository).findAllByShowroomWithIdOverlapping(
+                2L, screening.getShowDateTime().minusHours(3), screening.getShowDateTime(),
+                screening.getEndDateTime(), PageRequest.of(0, 1));
         assertEquals(movie, screening.getMovie());
         assertEquals(showroom, screening.getShowroom());
         assertTrue(screening.getScreeningSeats().stream().allMatch(
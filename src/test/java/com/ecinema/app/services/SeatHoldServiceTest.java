@@ -0,0 +1,175 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.dtos.ScreeningSeatDto;
+import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.domain.objects.SeatState;
+import com.ecinema.app.exceptions.InvalidActionException;
+import com.ecinema.app.repositories.ScreeningSeatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class SeatHoldServiceTest {
+
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
+    @Mock
+    private ScreeningSeatRepository screeningSeatRepository;
+
+    @BeforeEach
+    void setUp() {
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        List<SeatState> seatStates = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            seatStates.add(new SeatState((long) i, Letter.A, i, i == 5 ? 5L : null));
+        }
+        given(screeningSeatRepository.findAllSeatStatesByScreeningWithId(1L)).willReturn(seatStates);
+    }
+
+    @Test
+    void holdSeat() {
+        // when
+        seatHoldService.hold(1L, 2L, 10L);
+        // then
+        assertTrue(seatHoldService.isHeldByOtherUser(2L, 11L));
+        assertFalse(seatHoldService.isHeldByOtherUser(2L, 10L));
+        assertFalse(seatHoldService.isHeldByOtherUser(3L, 11L));
+        Map<Letter, Set<ScreeningSeatDto>> seatMap = seatOccupancyService.findSeatMapByScreeningWithId(1L);
+        for (ScreeningSeatDto screeningSeatDto : seatMap.get(Letter.A)) {
+            assertEquals(screeningSeatDto.getId() == 2L, screeningSeatDto.getIsHeld());
+            assertEquals(screeningSeatDto.getId() == 5L, screeningSeatDto.getIsBooked());
+        }
+    }
+
+    @Test
+    void renewHoldOfSameUser() {
+        // when
+        seatHoldService.hold(1L, 2L, 10L);
+        seatHoldService.hold(1L, 2L, 10L);
+        // then
+        assertEquals(1, seatHoldService.numberOfHolds());
+        assertEquals(0, seatHoldService.releaseExpired());
+        assertTrue(seatOccupancyService.findByScreeningWithId(1L).isHeld(2L));
+    }
+
+    @Test
+    void stopRenewingHoldAtMaximumLifetime() {
+        // given
+        SeatHoldService shortLivedSeatHoldService = new SeatHoldService(seatOccupancyService, 300L, 0L, 10);
+        shortLivedSeatHoldService.hold(1L, 2L, 10L);
+        assertTrue(shortLivedSeatHoldService.isHeldBy(2L, 10L));
+        // when
+        shortLivedSeatHoldService.hold(1L, 2L, 10L);
+        // then
+        assertFalse(shortLivedSeatHoldService.isHeldBy(2L, 10L));
+        assertFalse(shortLivedSeatHoldService.isHeldByOtherUser(2L, 11L));
+        assertEquals(1, shortLivedSeatHoldService.releaseExpired());
+        assertFalse(seatOccupancyService.findByScreeningWithId(1L).isHeld(2L));
+    }
+
+    @Test
+    void failToHoldMoreSeatsThanAllowedPerUser() {
+        // given
+        SeatHoldService limitedSeatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 2);
+        // then
+        assertThrows(InvalidActionException.class,
+                     () -> limitedSeatHoldService.holdAll(1L, List.of(1L, 2L, 3L), 10L));
+        assertEquals(0, limitedSeatHoldService.numberOfHolds());
+        // when
+        limitedSeatHoldService.holdAll(1L, List.of(1L, 2L), 10L);
+        // then
+        assertThrows(InvalidActionException.class, () -> limitedSeatHoldService.hold(1L, 3L, 10L));
+        assertFalse(limitedSeatHoldService.isHeldBy(3L, 10L));
+        limitedSeatHoldService.holdAll(1L, List.of(1L, 2L), 10L);
+        limitedSeatHoldService.hold(1L, 3L, 11L);
+        assertEquals(3, limitedSeatHoldService.numberOfHolds());
+    }
+
+    @Test
+    void failToHoldSeatHeldByOtherUser() {
+        // given
+        seatHoldService.hold(1L, 2L, 10L);
+        // then
+        assertThrows(InvalidActionException.class, () -> seatHoldService.hold(1L, 2L, 11L));
+        assertFalse(seatHoldService.isHeldByOtherUser(2L, 10L));
+    }
+
+    @Test
+    void holdAllSeatsOrNone() {
+        // given
+        seatHoldService.hold(1L, 3L, 11L);
+        // then
+        assertThrows(InvalidActionException.class, () -> seatHoldService.holdAll(1L, List.of(1L, 2L, 3L), 10L));
+        assertEquals(1, seatHoldService.numberOfHolds());
+        assertFalse(seatOccupancyService.findByScreeningWithId(1L).isHeld(1L));
+        assertFalse(seatOccupancyService.findByScreeningWithId(1L).isHeld(2L));
+        assertTrue(seatOccupancyService.findByScreeningWithId(1L).isHeld(3L));
+        // when
+        seatHoldService.holdAll(1L, List.of(1L, 2L), 10L);
+        // then
+        assertEquals(3, seatHoldService.numberOfHolds());
+        assertEquals(3, seatOccupancyService.findByScreeningWithId(1L).numberOfSeatsHeld());
+    }
+
+    @Test
+    void releaseHoldsWhenHoldingFails() {
+        // then
+        assertThrows(NullPointerException.class,
+                     () -> seatHoldService.holdAll(1L, Arrays.asList(1L, 2L, null), 10L));
+        assertEquals(0, seatHoldService.numberOfHolds());
+        assertEquals(0, seatOccupancyService.findByScreeningWithId(1L).numberOfSeatsHeld());
+    }
+
+    @Test
+    void isHeldBy() {
+        // when
+        seatHoldService.hold(1L, 2L, 10L);
+        // then
+        assertTrue(seatHoldService.isHeldBy(2L, 10L));
+        assertFalse(seatHoldService.isHeldBy(2L, 11L));
+        assertFalse(seatHoldService.isHeldBy(3L, 10L));
+        assertFalse(seatHoldService.isHeldBy(null, 10L));
+        assertFalse(seatHoldService.isHeldByOtherUser(null, 11L));
+    }
+
+    @Test
+    void releaseExpiredHolds() {
+        // given
+        SeatHoldService expiringSeatHoldService = new SeatHoldService(seatOccupancyService, 0L, 900L, 10);
+        expiringSeatHoldService.holdAll(1L, List.of(1L, 2L, 3L), 10L);
+        // then
+        assertFalse(expiringSeatHoldService.isHeldByOtherUser(1L, 11L));
+        assertEquals(3, expiringSeatHoldService.releaseExpired());
+        assertEquals(0, expiringSeatHoldService.numberOfHolds());
+        assertEquals(0, seatOccupancyService.findByScreeningWithId(1L).numberOfSeatsHeld());
+        // when
+        expiringSeatHoldService.hold(1L, 1L, 11L);
+        // then
+        assertEquals(1, expiringSeatHoldService.numberOfHolds());
+    }
+
+    @Test
+    void releaseHold() {
+        // given
+        seatHoldService.hold(1L, 2L, 10L);
+        // when
+        seatHoldService.release(2L);
+        // then
+        assertFalse(seatHoldService.isHeldByOtherUser(2L, 11L));
+        assertFalse(seatOccupancyService.findByScreeningWithId(1L).isHeld(2L));
+    }
+
+}
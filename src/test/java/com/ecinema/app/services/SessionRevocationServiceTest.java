@@ -0,0 +1,94 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.SignedSessionCodec;
+import com.ecinema.app.beans.UserAuthorityCache;
+import com.ecinema.app.domain.entities.SessionRevocation;
+import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.objects.SignedSession;
+import com.ecinema.app.repositories.SessionRevocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionRevocationServiceTest {
+
+    private SignedSessionCodec signedSessionCodec;
+    private SessionRevocationService sessionRevocationService;
+    @Mock
+    private SessionRevocationRepository sessionRevocationRepository;
+
+    @BeforeEach
+    void setUp() {
+        signedSessionCodec = new SignedSessionCodec(true, "0123456789abcdef0123456789abcdef", 60, false);
+        sessionRevocationService = new SessionRevocationService(
+                sessionRevocationRepository, signedSessionCodec, new PrincipalViewCache(), new UserAuthorityCache(30L));
+    }
+
+    @Test
+    void revokeSessionsIssuedBeforeRevocation() {
+        // given
+        SignedSession signedSession = signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER));
+        SignedSession otherSession = signedSessionCodec.newSession(2L, "other", EnumSet.of(UserAuthority.CUSTOMER));
+        // when
+        sessionRevocationService.revokeSessionsOfUserWithId(1L);
+        // then
+        verify(sessionRevocationRepository, times(1)).upsertRevokedDateTimeOfUserWithId(eq(1L), any());
+        assertTrue(sessionRevocationService.isRevoked(signedSession));
+        assertFalse(sessionRevocationService.isRevoked(otherSession));
+        signedSession.setIssuedAtMillis(signedSession.getIssuedAtMillis() + 2000L);
+        assertFalse(sessionRevocationService.isRevoked(signedSession));
+        long issuedAt = sessionRevocationService.issueTimeOf(1L, System.currentTimeMillis());
+        assertFalse(sessionRevocationService.isRevoked(
+                signedSessionCodec.newSession(1L, "user", EnumSet.of(UserAuthority.CUSTOMER), issuedAt)));
+    }
+
+    @Test
+    void refreshPicksUpRevocationsOfOtherNodes() {
+        // given
+        LocalDateTime revokedDateTime = LocalDateTime.now().withNano(0);
+        SessionRevocation sessionRevocation = new SessionRevocation();
+        sessionRevocation.setUserId(1L);
+        sessionRevocation.setRevokedDateTime(revokedDateTime);
+        given(sessionRevocationRepository.findAllByRevokedDateTimeAfter(any()))
+                .willReturn(List.of(sessionRevocation));
+        long revokedAt = revokedDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        SignedSession before = new SignedSession(
+                1L, "user", EnumSet.of(UserAuthority.CUSTOMER), revokedAt - 1000L, revokedAt + 60000L);
+        SignedSession after = new SignedSession(
+                1L, "user", EnumSet.of(UserAuthority.CUSTOMER), revokedAt + 1000L, revokedAt + 60000L);
+        // when
+        int inForce = sessionRevocationService.refresh();
+        // then
+        assertEquals(1, inForce);
+        assertTrue(sessionRevocationService.isRevoked(before));
+        assertFalse(sessionRevocationService.isRevoked(after));
+    }
+
+    @Test
+    void doNothingWhenDisabled() {
+        // given
+        sessionRevocationService = new SessionRevocationService(
+                sessionRevocationRepository, new SignedSessionCodec(false, "", 60, false),
+                new PrincipalViewCache(), new UserAuthorityCache(30L));
+        // when
+        sessionRevocationService.revokeSessionsOfUserWithId(1L);
+        // then
+        assertEquals(0, sessionRevocationService.refresh());
+        verifyNoInteractions(sessionRevocationRepository);
+    }
+
+}
@@ -5,6 +5,7 @@ import com.ecinema.app.domain.entities.Showroom;
 import com.ecinema.app.domain.entities.ShowroomSeat;
 import com.ecinema.app.domain.entities.Ticket;
 import com.ecinema.app.domain.enums.Letter;
+import com.ecinema.app.repositories.ScreeningRepository;
 import com.ecinema.app.repositories.ScreeningSeatRepository;
 import com.ecinema.app.repositories.ShowroomRepository;
 import com.ecinema.app.repositories.ShowroomSeatRepository;
@@ -24,6 +25,8 @@ import static org.mockito.Mockito.verify;
 class ShowroomSeatServiceTest {
 
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private SeatBookingValidator seatBookingValidator;
     private ScreeningSeatService screeningSeatService;
     private ShowroomSeatService showroomSeatService;
@@ -31,6 +34,8 @@ class ShowroomSeatServiceTest {
     @Mock
     private TicketRepository ticketRepository;
     @Mock
+    private ScreeningRepository screeningRepository;
+    @Mock
     private ScreeningSeatRepository screeningSeatRepository;
     @Mock
     private ShowroomSeatRepository showroomSeatRepository;
@@ -40,11 +45,14 @@ class ShowroomSeatServiceTest {
     @BeforeEach
     void setUp() {
         seatBookingValidator = new SeatBookingValidator();
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null,
-                screeningSeatRepository);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null, null,
+                screeningRepository, screeningSeatRepository, seatOccupancyService, seatHoldService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
         showroomSeatService = new ShowroomSeatService(showroomSeatRepository,screeningSeatService);
-        showroomService = new ShowroomService(showroomRepository, showroomSeatService, null, null, ticketRepository);
+        showroomService = new ShowroomService(showroomRepository, showroomSeatService, null, null, ticketRepository,
+                null);
     }
 
     @Test
@@ -30,7 +30,10 @@ class ShowroomServiceTest {
     private ShowroomSeatService showroomSeatService;
     private ScreeningService screeningService;
     private ScreeningSeatService screeningSeatService;
+    private ScreeningScheduleService screeningScheduleService;
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private ShowroomValidator showroomValidator;
     private ScreeningValidator screeningValidator;
     private SeatBookingValidator seatBookingValidator;
@@ -56,14 +59,17 @@ class ShowroomServiceTest {
         showroomValidator = new ShowroomValidator();
         screeningValidator = new ScreeningValidator();
         seatBookingValidator = new SeatBookingValidator();
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null,
-                screeningSeatRepository);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, null, null,
+                screeningRepository, screeningSeatRepository, seatOccupancyService, seatHoldService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
+        screeningScheduleService = new ScreeningScheduleService(screeningRepository);
         screeningService = new ScreeningService(screeningRepository, movieRepository, null, showroomRepository,
-                screeningSeatService, screeningValidator);
+                screeningSeatService, screeningScheduleService, screeningValidator, null, null);
         showroomSeatService = new ShowroomSeatService(showroomSeatRepository, screeningSeatService);
         showroomService = new ShowroomService(showroomRepository, showroomSeatService, screeningService,
-                showroomValidator, ticketRepository);
+                showroomValidator, ticketRepository, null);
     }
 
     @Test
@@ -1,13 +1,17 @@
 package com.ecinema.app.services;
 
 import com.ecinema.app.beans.SecurityContext;
+import com.ecinema.app.domain.dtos.TicketDto;
 import com.ecinema.app.domain.entities.*;
 import com.ecinema.app.domain.enums.*;
 import com.ecinema.app.domain.forms.SeatBookingForm;
+import com.ecinema.app.domain.forms.SeatsBookingForm;
+import com.ecinema.app.domain.objects.SeatState;
 import com.ecinema.app.exceptions.InvalidActionException;
 import com.ecinema.app.exceptions.NoEntityFoundException;
 import com.ecinema.app.repositories.*;
 import com.ecinema.app.validators.SeatBookingValidator;
+import com.ecinema.app.validators.SeatsBookingValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +22,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -28,15 +33,19 @@ import static org.mockito.Mockito.*;
 class TicketServiceTest {
 
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private ScreeningService screeningService;
     private ShowroomService showroomService;
     private ShowroomSeatService showroomSeatService;
     private ScreeningSeatService screeningSeatService;
+    private ScreeningScheduleService screeningScheduleService;
     private CustomerService customerService;
     private ReviewService reviewService;
     private PaymentCardService paymentCardService;
     private SecurityContext securityContext;
     private SeatBookingValidator seatBookingValidator;
+    private SeatsBookingValidator seatsBookingValidator;
     @Mock
     private EmailService emailService;
     @Mock
@@ -62,18 +71,23 @@ class TicketServiceTest {
     void setUp() {
         securityContext = new SecurityContext();
         seatBookingValidator = new SeatBookingValidator();
-        ticketService = new TicketService(ticketRepository, emailService, seatBookingValidator, customerRepository,
-                paymentCardRepository, screeningSeatRepository);
-        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService);
+        seatsBookingValidator = new SeatsBookingValidator();
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, emailService, seatBookingValidator, seatsBookingValidator,
+                customerRepository, paymentCardRepository, screeningRepository, screeningSeatRepository,
+                seatOccupancyService, seatHoldService);
+        screeningSeatService = new ScreeningSeatService(screeningSeatRepository, ticketService, seatOccupancyService);
         showroomSeatService = new ShowroomSeatService(showroomSeatRepository, screeningSeatService);
+        screeningScheduleService = new ScreeningScheduleService(screeningRepository);
         screeningService = new ScreeningService(screeningRepository, movieRepository, null, showroomRepository,
-                screeningSeatService, null);
+                screeningSeatService, screeningScheduleService, null, null, null);
         reviewService = new ReviewService(reviewRepository, movieRepository, null, null, null);
         paymentCardService = new PaymentCardService(paymentCardRepository, null, null, null);
         customerService = new CustomerService(customerRepository, screeningSeatRepository, null, reviewService,
                 ticketService, paymentCardService, null, securityContext);
         showroomService = new ShowroomService(showroomRepository, showroomSeatService, screeningService, null,
-                ticketRepository);
+                ticketRepository, null);
     }
 
     @Test
@@ -131,6 +145,7 @@ class TicketServiceTest {
         assertTrue(customer.getTickets().isEmpty());
         assertNull(ticket.getTicketOwner());
         assertNotEquals(screeningSeats.get(0), ticket.getScreeningSeat());
+        verify(screeningRepository, times(1)).addToSeatsBooked(0L, -1);
         for (ScreeningSeat screeningSeat : screeningSeats) {
             assertEquals(screening, screeningSeat.getScreening());
         }
@@ -147,33 +162,20 @@ class TicketServiceTest {
         paymentCard.setExpirationDate(LocalDate.now().plusYears(1));
         given(paymentCardRepository.findById(2L)).willReturn(Optional.of(paymentCard));
         Screening screening = new Screening();
+        screening.setId(4L);
         screening.setShowDateTime(LocalDateTime.now().plusHours(1));
         ShowroomSeat showroomSeat = new ShowroomSeat();
         showroomSeat.setRowLetter(Letter.A);
         showroomSeat.setSeatNumber(1);
-        given(ticketRepository.findShowroomSeatAssociatedWithTicket(any()))
-                .willReturn(Optional.of(showroomSeat));
         ScreeningSeat screeningSeat = new ScreeningSeat();
+        screeningSeat.setId(3L);
         screeningSeat.setShowroomSeat(showroomSeat);
         showroomSeat.getScreeningSeats().add(screeningSeat);
         screeningSeat.setScreening(screening);
         given(screeningSeatRepository.findById(3L)).willReturn(Optional.of(screeningSeat));
+        given(screeningSeatRepository.claimScreeningSeatWithId(any())).willReturn(1);
         doNothing().when(emailService).sendFromBusinessEmail(anyString(), anyString(), anyString());
-        given(ticketRepository.findUserIdOfTicket(any())).willReturn(Optional.of(1L));
-        given(ticketRepository.findShowDateTimeOfScreeningAssociatedWithTicket(any()))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(4)));
-        given(ticketRepository.findEmailOfTicketUserOwner(any()))
-                .willReturn(Optional.of("user@gmail.com"));
-        given(ticketRepository.findUsernameOfTicketUserOwner(any()))
-                .willReturn(Optional.of("user"));
-        given(ticketRepository.findMovieTitleAssociatedWithTicket(any()))
-                .willReturn(Optional.of("Movie Title"));
-        given(ticketRepository.findShowroomLetterAssociatedWithTicket(any()))
-                .willReturn(Optional.of(Letter.A));
-        given(ticketRepository.findShowDateTimeOfScreeningAssociatedWithTicket(any()))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(5)));
-        given(ticketRepository.findEndDateTimeOfScreeningAssociatedWithTicket(any()))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(5)));
+        given(ticketRepository.findTicketDtoById(any())).willReturn(Optional.of(ticketDto(1L)));
         // when
         SeatBookingForm seatBookingForm = new SeatBookingForm();
         seatBookingForm.setUserId(1L);
@@ -196,6 +198,209 @@ class TicketServiceTest {
         assertEquals(TicketStatus.VALID, ticket.getTicketStatus());
     }
 
+    @Test
+    void failToBookTicketWhenSeatClaimedConcurrently() {
+        // given
+        Customer customer = new Customer();
+        customer.setIsAuthorityValid(true);
+        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
+        PaymentCard paymentCard = new PaymentCard();
+        paymentCard.setExpirationDate(LocalDate.now().plusYears(1));
+        given(paymentCardRepository.findById(2L)).willReturn(Optional.of(paymentCard));
+        Screening screening = new Screening();
+        screening.setShowDateTime(LocalDateTime.now().plusHours(1));
+        ScreeningSeat screeningSeat = new ScreeningSeat();
+        screeningSeat.setId(3L);
+        screeningSeat.setScreening(screening);
+        given(screeningSeatRepository.findById(3L)).willReturn(Optional.of(screeningSeat));
+        given(screeningSeatRepository.claimScreeningSeatWithId(3L)).willReturn(0);
+        SeatBookingForm seatBookingForm = new SeatBookingForm();
+        seatBookingForm.setUserId(1L);
+        seatBookingForm.setTokensToApply(0);
+        seatBookingForm.setPaymentCardId(2L);
+        seatBookingForm.setScreeningSeatId(3L);
+        seatBookingForm.setTicketType(TicketType.ADULT);
+        // then
+        assertThrows(InvalidActionException.class, () -> ticketService.bookTicket(seatBookingForm));
+        verify(ticketRepository, never()).save(any());
+        verify(screeningRepository, never()).addToSeatsBooked(any(), anyInt());
+        assertTrue(customer.getTickets().isEmpty());
+    }
+
+    @Test
+    void failToBookTicketWhenSeatHeldByAnotherCustomer() {
+        // given
+        Customer customer = new Customer();
+        customer.setIsAuthorityValid(true);
+        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
+        PaymentCard paymentCard = new PaymentCard();
+        paymentCard.setExpirationDate(LocalDate.now().plusYears(1));
+        given(paymentCardRepository.findById(2L)).willReturn(Optional.of(paymentCard));
+        Screening screening = new Screening();
+        screening.setId(4L);
+        screening.setShowDateTime(LocalDateTime.now().plusHours(1));
+        ScreeningSeat screeningSeat = new ScreeningSeat();
+        screeningSeat.setId(3L);
+        screeningSeat.setScreening(screening);
+        given(screeningSeatRepository.findById(3L)).willReturn(Optional.of(screeningSeat));
+        given(screeningSeatRepository.findAllSeatStatesByScreeningWithId(4L))
+                .willReturn(List.of(new SeatState(3L, Letter.A, 1, null)));
+        seatHoldService.hold(4L, 3L, 5L);
+        SeatBookingForm seatBookingForm = new SeatBookingForm();
+        seatBookingForm.setUserId(1L);
+        seatBookingForm.setTokensToApply(0);
+        seatBookingForm.setPaymentCardId(2L);
+        seatBookingForm.setScreeningSeatId(3L);
+        seatBookingForm.setTicketType(TicketType.ADULT);
+        // then
+        assertThrows(InvalidActionException.class, () -> ticketService.bookTicket(seatBookingForm));
+        verify(screeningSeatRepository, never()).claimScreeningSeatWithId(any());
+        verify(ticketRepository, never()).save(any());
+        assertTrue(seatOccupancyService.findByScreeningWithId(4L).isHeld(3L));
+    }
+
+    @Test
+    void bookTickets() {
+        // given
+        Customer customer = new Customer();
+        customer.setIsAuthorityValid(true);
+        customer.setTokens(5);
+        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
+        PaymentCard paymentCard = new PaymentCard();
+        paymentCard.setExpirationDate(LocalDate.now().plusYears(1));
+        given(paymentCardRepository.findById(2L)).willReturn(Optional.of(paymentCard));
+        Screening screening = new Screening();
+        screening.setId(1L);
+        screening.setShowDateTime(LocalDateTime.now().plusDays(5));
+        List<ScreeningSeat> screeningSeats = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ShowroomSeat showroomSeat = new ShowroomSeat();
+            showroomSeat.setRowLetter(Letter.A);
+            showroomSeat.setSeatNumber(i + 1);
+            ScreeningSeat screeningSeat = new ScreeningSeat();
+            screeningSeat.setId(10L + i);
+            screeningSeat.setShowroomSeat(showroomSeat);
+            screeningSeat.setScreening(screening);
+            screeningSeats.add(screeningSeat);
+        }
+        SeatsBookingForm seatsBookingForm = new SeatsBookingForm();
+        seatsBookingForm.setScreeningId(1L);
+        seatsBookingForm.setUserId(1L);
+        seatsBookingForm.setTokensToApply(3);
+        seatsBookingForm.setPaymentCardId(2L);
+        for (ScreeningSeat screeningSeat : screeningSeats) {
+            seatsBookingForm.getTicketTypes().put(screeningSeat.getId(),
+                    screeningSeat.getSeatNumber() % 2 == 0 ? TicketType.CHILD : TicketType.ADULT);
+        }
+        given(screeningRepository.findById(1L)).willReturn(Optional.of(screening));
+        given(screeningSeatRepository.findAllById(seatsBookingForm.getTicketTypes().keySet()))
+                .willReturn(screeningSeats);
+        given(screeningSeatRepository.claimAllScreeningSeatsWithIds(seatsBookingForm.getTicketTypes().keySet()))
+                .willReturn(5);
+        given(ticketRepository.saveAll(any())).willAnswer(invocation -> {
+            long ticketId = 100L;
+            for (Ticket ticket : invocation.<Iterable<Ticket>>getArgument(0)) {
+                ticket.setId(ticketId++);
+            }
+            return invocation.getArgument(0);
+        });
+        given(ticketRepository.findAllTicketDtosByIds(any())).willAnswer(
+                invocation -> invocation.<Collection<Long>>getArgument(0).stream()
+                                        .map(this::ticketDto).collect(Collectors.toList()));
+        // when
+        ticketService.bookTickets(seatsBookingForm);
+        // then
+        verify(ticketRepository, times(1)).findAllTicketDtosByIds(any());
+        verify(ticketRepository, never()).findTicketDtoById(any());
+        verify(customerRepository, times(1)).findByUserWithId(1L);
+        verify(paymentCardRepository, times(1)).findById(2L);
+        verify(ticketRepository, times(1)).saveAll(any());
+        verify(screeningRepository, times(1)).addToSeatsBooked(1L, 5);
+        verify(emailService, times(1)).sendFromBusinessEmail(anyString(), anyString(), anyString());
+        assertEquals(2, customer.getTokens());
+        assertEquals(5, customer.getTickets().size());
+        assertEquals(5, paymentCard.getPurchasedTickets().size());
+        for (ScreeningSeat screeningSeat : screeningSeats) {
+            Ticket ticket = screeningSeat.getTicket();
+            assertNotNull(ticket);
+            assertTrue(screeningSeat.getIsClaimed());
+            assertEquals(seatsBookingForm.getTicketTypes().get(screeningSeat.getId()), ticket.getTicketType());
+            assertEquals(TicketStatus.VALID, ticket.getTicketStatus());
+        }
+    }
+
+    @Test
+    void failToBookTicketsWhenAnySeatIsTaken() {
+        // given
+        Customer customer = new Customer();
+        customer.setIsAuthorityValid(true);
+        given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
+        PaymentCard paymentCard = new PaymentCard();
+        paymentCard.setExpirationDate(LocalDate.now().plusYears(1));
+        given(paymentCardRepository.findById(2L)).willReturn(Optional.of(paymentCard));
+        Screening screening = new Screening();
+        screening.setId(1L);
+        screening.setShowDateTime(LocalDateTime.now().plusDays(5));
+        List<ScreeningSeat> screeningSeats = new ArrayList<>();
+        SeatsBookingForm seatsBookingForm = new SeatsBookingForm();
+        seatsBookingForm.setScreeningId(1L);
+        seatsBookingForm.setUserId(1L);
+        seatsBookingForm.setTokensToApply(0);
+        seatsBookingForm.setPaymentCardId(2L);
+        for (int i = 0; i < 3; i++) {
+            ScreeningSeat screeningSeat = new ScreeningSeat();
+            screeningSeat.setId(10L + i);
+            screeningSeat.setScreening(screening);
+            screeningSeats.add(screeningSeat);
+            seatsBookingForm.getTicketTypes().put(screeningSeat.getId(), TicketType.ADULT);
+        }
+        given(screeningRepository.findById(1L)).willReturn(Optional.of(screening));
+        given(screeningSeatRepository.findAllById(seatsBookingForm.getTicketTypes().keySet()))
+                .willReturn(screeningSeats);
+        given(screeningSeatRepository.claimAllScreeningSeatsWithIds(seatsBookingForm.getTicketTypes().keySet()))
+                .willReturn(2);
+        // then
+        assertThrows(InvalidActionException.class, () -> ticketService.bookTickets(seatsBookingForm));
+        verify(ticketRepository, never()).saveAll(any());
+        verify(screeningRepository, never()).addToSeatsBooked(any(), anyInt());
+        assertTrue(customer.getTickets().isEmpty());
+    }
+
+    @Test
+    void failToBookTicketsWhenAnySeatIsOfAnotherScreening() {
+        // given
+        PaymentCard paymentCard = new PaymentCard();
+        paymentCard.setExpirationDate(LocalDate.now().plusYears(1));
+        given(paymentCardRepository.findById(2L)).willReturn(Optional.of(paymentCard));
+        Screening screening = new Screening();
+        screening.setId(1L);
+        screening.setShowDateTime(LocalDateTime.now().plusDays(5));
+        Screening otherScreening = new Screening();
+        otherScreening.setId(2L);
+        otherScreening.setShowDateTime(LocalDateTime.now().plusDays(5));
+        List<ScreeningSeat> screeningSeats = new ArrayList<>();
+        SeatsBookingForm seatsBookingForm = new SeatsBookingForm();
+        seatsBookingForm.setScreeningId(1L);
+        seatsBookingForm.setUserId(1L);
+        seatsBookingForm.setTokensToApply(0);
+        seatsBookingForm.setPaymentCardId(2L);
+        for (int i = 0; i < 3; i++) {
+            ScreeningSeat screeningSeat = new ScreeningSeat();
+            screeningSeat.setId(10L + i);
+            screeningSeat.setScreening(i == 0 ? screening : otherScreening);
+            screeningSeats.add(screeningSeat);
+            seatsBookingForm.getTicketTypes().put(screeningSeat.getId(), TicketType.ADULT);
+        }
+        given(screeningRepository.findById(1L)).willReturn(Optional.of(screening));
+        given(screeningSeatRepository.findAllById(seatsBookingForm.getTicketTypes().keySet()))
+                .willReturn(screeningSeats);
+        // then
+        assertThrows(InvalidActionException.class, () -> ticketService.bookTickets(seatsBookingForm));
+        verify(screeningSeatRepository, never()).claimAllScreeningSeatsWithIds(any());
+        verify(ticketRepository, never()).saveAll(any());
+        verify(screeningRepository, never()).addToSeatsBooked(any(), anyInt());
+    }
+
     @Test
     void ticketIsRefundable1() {
         // given
@@ -226,27 +431,7 @@ class TicketServiceTest {
         ticket.setTicketType(TicketType.ADULT);
         Customer customer = new Customer();
         given(customerRepository.findByUserWithId(1L)).willReturn(Optional.of(customer));
-        given(ticketRepository.findUserIdOfTicket(1L)).willReturn(Optional.of(1L));
-        given(ticketRepository.findShowDateTimeOfScreeningAssociatedWithTicket(1L))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(4)));
-        given(ticketRepository.findEmailOfTicketUserOwner(1L))
-                .willReturn(Optional.of("user@gmail.com"));
-        given(ticketRepository.findUsernameOfTicketUserOwner(1L))
-                .willReturn(Optional.of("user"));
-        given(ticketRepository.findMovieTitleAssociatedWithTicket(1L))
-                .willReturn(Optional.of("Movie Title"));
-        given(ticketRepository.findShowroomLetterAssociatedWithTicket(1L))
-                .willReturn(Optional.of(Letter.A));
-        given(ticketRepository.findShowDateTimeOfScreeningAssociatedWithTicket(1L))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(5)));
-        given(ticketRepository.findEndDateTimeOfScreeningAssociatedWithTicket(1L))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(5)));
-        ShowroomSeat showroomSeat = new ShowroomSeat();
-        showroomSeat.setRowLetter(Letter.A);
-        showroomSeat.setSeatNumber(1);
-        given(ticketRepository.findShowroomSeatAssociatedWithTicket(1L))
-                .willReturn(Optional.of(showroomSeat));
-        given(ticketRepository.existsById(1L)).willReturn(true);
+        given(ticketRepository.findTicketDtoById(1L)).willReturn(Optional.of(ticketDto(1L)));
         given(ticketRepository.findById(1L)).willReturn(Optional.of(ticket));
         doNothing().when(emailService).sendFromBusinessEmail(anyString(), anyString(), anyString());
         // when
@@ -258,7 +443,7 @@ class TicketServiceTest {
     @Test
     void failToRefundTicket1() {
         // given
-        given(ticketRepository.existsById(1L)).willReturn(false);
+        given(ticketRepository.findTicketDtoById(1L)).willReturn(Optional.empty());
         // then
         assertThrows(NoEntityFoundException.class, () -> ticketService.refundTicket(1L));
     }
@@ -266,13 +451,36 @@ class TicketServiceTest {
     @Test
     void failToRefundTicket2() {
         // given
-        Ticket ticket = new Ticket();
-        ticket.setId(1L);
-        given(ticketRepository.existsById(1L)).willReturn(true);
-        given(ticketRepository.findShowDateTimeOfScreeningAssociatedWithTicket(1L))
-                .willReturn(Optional.of(LocalDateTime.now().plusDays(1)));
+        TicketDto ticketDto = ticketDto(1L);
+        ticketDto.setShowDateTime(LocalDateTime.now().plusDays(1));
+        given(ticketRepository.findTicketDtoById(1L)).willReturn(Optional.of(ticketDto));
         // then
         assertThrows(InvalidActionException.class, () -> ticketService.refundTicket(1L));
+        verify(ticketRepository, never()).delete(any());
+    }
+
+    @Test
+    void findAllByUserWithIdAndShowDateTimeIsAfter() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        TicketDto refundable = ticketDto(1L);
+        TicketDto notRefundable = ticketDto(2L);
+        notRefundable.setShowDateTime(now.plusDays(1));
+        given(ticketRepository.findAllTicketDtosByUserWithIdAndShowDateTimeIsAfter(1L, now))
+                .willReturn(List.of(refundable, notRefundable));
+        // when
+        List<TicketDto> ticketDtos = ticketService.findAllByUserWithIdAndShowDateTimeIsAfter(1L, now);
+        // then
+        assertEquals(List.of(refundable, notRefundable), ticketDtos);
+        assertTrue(ticketDtos.get(0).getIsRefundable());
+        assertFalse(ticketDtos.get(1).getIsRefundable());
+        verify(ticketRepository, never()).findById(any());
+    }
+
+    private TicketDto ticketDto(Long ticketId) {
+        return new TicketDto(ticketId, 1L, "user@gmail.com", "user", "Movie Title", 2L, TicketType.ADULT,
+                             Letter.A, TicketStatus.VALID, LocalDateTime.now().plusDays(5).plusHours(2),
+                             LocalDateTime.now().plusDays(5), LocalDateTime.now(), Letter.A, 1);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.objects.TokenSweepStatistics;
+import com.ecinema.app.repositories.ChangePasswordRepository;
+import com.ecinema.app.repositories.RegistrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenSweeperServiceTest {
+
+    private TokenSweeperService tokenSweeperService;
+    @Mock
+    private RegistrationRepository registrationRepository;
+    @Mock
+    private ChangePasswordRepository changePasswordRepository;
+
+    @BeforeEach
+    void setUp() {
+        tokenSweeperService = new TokenSweeperService(registrationRepository, changePasswordRepository, 2, 24L);
+    }
+
+    @Test
+    void sweepPurgesInBoundedBatches() {
+        // given
+        given(registrationRepository.findAllIdsByCreationDateTimeBefore(
+                any(LocalDateTime.class), any(Pageable.class)))
+                .willReturn(List.of(1L, 2L), List.of(3L), List.of());
+        given(registrationRepository.deleteAllWithIds(anyCollection()))
+                .willAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        given(changePasswordRepository.findAllIdsByExpirationDateTimeBefore(
+                any(LocalDateTime.class), any(Pageable.class)))
+                .willReturn(List.of(4L, 5L), List.of());
+        given(changePasswordRepository.deleteAllWithIds(anyCollection()))
+                .willReturn(2);
+        // when
+        TokenSweepStatistics statistics = tokenSweeperService.sweep();
+        // then
+        assertEquals(3, statistics.getRegistrationsPurged());
+        assertEquals(2, statistics.getChangePasswordsPurged());
+        assertEquals(3, statistics.getBatches());
+        assertEquals(1, statistics.getTotalSweeps());
+        verify(registrationRepository).deleteAllAuthoritiesOfRegistrationsWithIds(List.of(1L, 2L));
+        verify(registrationRepository).deleteAllAuthoritiesOfRegistrationsWithIds(List.of(3L));
+        verify(registrationRepository, times(3)).findAllIdsByCreationDateTimeBefore(
+                any(LocalDateTime.class), argThat(pageable -> pageable.getPageSize() == 2));
+        assertEquals(statistics, tokenSweeperService.getStatistics());
+    }
+
+    @Test
+    void sweepAccumulatesTotals() {
+        // given
+        given(registrationRepository.findAllIdsByCreationDateTimeBefore(
+                any(LocalDateTime.class), any(Pageable.class)))
+                .willReturn(List.of(1L), List.of(), List.of());
+        given(registrationRepository.deleteAllWithIds(anyCollection()))
+                .willReturn(1);
+        given(changePasswordRepository.findAllIdsByExpirationDateTimeBefore(
+                any(LocalDateTime.class), any(Pageable.class)))
+                .willReturn(List.of());
+        // when
+        tokenSweeperService.sweep();
+        TokenSweepStatistics statistics = tokenSweeperService.sweep();
+        // then
+        assertEquals(0, statistics.getRegistrationsPurged());
+        assertEquals(1, statistics.getTotalRegistrationsPurged());
+        assertEquals(2, statistics.getTotalSweeps());
+    }
+
+}
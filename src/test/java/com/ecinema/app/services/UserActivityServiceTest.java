@@ -0,0 +1,107 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserActivityServiceTest {
+
+    private UserActivityService userActivityService;
+    @Mock
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userActivityService = new UserActivityService(userRepository);
+    }
+
+    @Test
+    void recordActivityKeepsLatestTime() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        // when
+        userActivityService.recordActivity(1L, now);
+        userActivityService.recordActivity(1L, now.minusMinutes(1));
+        // then
+        assertEquals(Optional.of(now), userActivityService.findPending(1L));
+        assertTrue(userActivityService.findPending(2L).isEmpty());
+        assertTrue(userActivityService.findPending(null).isEmpty());
+    }
+
+    @Test
+    void flushCoalescesUsersActiveAtSameTime() {
+        // given
+        LocalDateTime time1 = LocalDateTime.of(2022, 5, 1, 12, 0, 0);
+        LocalDateTime time2 = time1.plusSeconds(1);
+        userActivityService.recordActivity(1L, time1);
+        userActivityService.recordActivity(2L, time1);
+        userActivityService.recordActivity(3L, time2);
+        // when
+        int flushed = userActivityService.flush();
+        // then
+        assertEquals(3, flushed);
+        verify(userRepository).updateLastActivityDateTimeOfAllWithIds(
+                argThat(ids -> new HashSet<>(ids).equals(Set.of(1L, 2L))), eq(time1));
+        verify(userRepository).updateLastActivityDateTimeOfAllWithIds(List.of(3L), time2);
+        verifyNoMoreInteractions(userRepository);
+        assertTrue(userActivityService.pendingSnapshot().isEmpty());
+        assertEquals(0, userActivityService.flush());
+    }
+
+    @Test
+    void failedFlushKeepsActivityPending() {
+        // given
+        LocalDateTime time = LocalDateTime.now();
+        userActivityService.recordActivity(1L, time);
+        given(userRepository.updateLastActivityDateTimeOfAllWithIds(List.of(1L), time))
+                .willThrow(new RuntimeException("connection lost"));
+        // when
+        int flushed = userActivityService.flush();
+        // then
+        assertEquals(0, flushed);
+        assertEquals(Optional.of(time), userActivityService.findPending(1L));
+    }
+
+    @Test
+    void recordActivityOfManyRequests()
+            throws InterruptedException {
+        // given
+        int threads = 8;
+        int requestsPerThread = 100_000;
+        int users = 1_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        // when
+        for (int i = 0; i < threads; i++) {
+            executorService.submit(() -> {
+                Random random = new Random();
+                for (int j = 0; j < requestsPerThread; j++) {
+                    userActivityService.recordActivity((long) random.nextInt(users));
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+        int flushed = userActivityService.flush();
+        // then
+        assertEquals(users, flushed);
+        assertEquals(0, userActivityService.flush());
+        verify(userRepository, atMost(users))
+                .updateLastActivityDateTimeOfAllWithIds(anyCollection(), any(LocalDateTime.class));
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.ecinema.app.services;
+
+import com.ecinema.app.domain.objects.BloomFilter;
+import com.ecinema.app.repositories.UserAvailabilityVersionRepository;
+import com.ecinema.app.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserAvailabilityServiceTest {
+
+    private UserAvailabilityService userAvailabilityService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserAvailabilityVersionRepository userAvailabilityVersionRepository;
+
+    @BeforeEach
+    void setUp() {
+        userAvailabilityService = new UserAvailabilityService(
+                userRepository, userAvailabilityVersionRepository, 1000, 0.01);
+    }
+
+    @Test
+    void checksDatabaseBeforeWarmUp() {
+        // given
+        given(userRepository.existsByUsername("TestUser")).willReturn(true);
+        // then
+        assertTrue(userAvailabilityService.isUsernameTaken("TestUser"));
+    }
+
+    @Test
+    void definiteMissSkipsDatabase() {
+        // given
+        given(userRepository.findAllUsernames()).willReturn(List.of("TestUser"));
+        given(userRepository.findAllEmails()).willReturn(List.of("test@gmail.com"));
+        given(userRepository.existsByUsername("TestUser")).willReturn(true);
+        given(userRepository.existsByEmail("TEST@gmail.com")).willReturn(true);
+        // when
+        assertEquals(2, userAvailabilityService.rebuild());
+        // then
+        assertTrue(userAvailabilityService.isUsernameTaken("TestUser"));
+        assertTrue(userAvailabilityService.isEmailTaken("TEST@gmail.com"));
+        assertFalse(userAvailabilityService.isUsernameTaken("OtherUser"));
+        assertFalse(userAvailabilityService.isEmailTaken("other@gmail.com"));
+        verify(userRepository, never()).existsByUsername("OtherUser");
+        verify(userRepository, never()).existsByEmail("other@gmail.com");
+    }
+
+    @Test
+    void addedUserIsCheckedInDatabase() {
+        // given
+        given(userRepository.findAllUsernames()).willReturn(List.of());
+        given(userRepository.findAllEmails()).willReturn(List.of());
+        given(userRepository.existsByUsername("NewUser")).willReturn(true);
+        given(userRepository.existsByEmail("new@gmail.com")).willReturn(true);
+        userAvailabilityService.add("NewUser", "new@gmail.com");
+        // when
+        userAvailabilityService.rebuild();
+        // then
+        assertTrue(userAvailabilityService.isUsernameTaken("NewUser"));
+        assertTrue(userAvailabilityService.isEmailTaken("new@gmail.com"));
+        verify(userRepository).existsByUsername("NewUser");
+        verify(userRepository).existsByEmail("new@gmail.com");
+    }
+
+    @Test
+    void addBumpsVersion() {
+        // given
+        given(userAvailabilityVersionRepository.increment()).willReturn(0, 1);
+        // when
+        userAvailabilityService.add("NewUser", "new@gmail.com");
+        userAvailabilityService.add("OtherUser", "other@gmail.com");
+        // then
+        verify(userAvailabilityVersionRepository, times(2)).increment();
+        verify(userAvailabilityVersionRepository, times(1)).save(any());
+    }
+
+    @Test
+    void refreshRebuildsWhenAnotherNodeAddedUser() {
+        // given
+        given(userAvailabilityVersionRepository.findVersion()).willReturn(Optional.of(3L));
+        given(userRepository.findAllUsernames()).willReturn(List.of());
+        given(userRepository.findAllEmails()).willReturn(List.of());
+        userAvailabilityService.rebuild();
+        // then
+        assertFalse(userAvailabilityService.refresh());
+        assertFalse(userAvailabilityService.isUsernameTaken("NewUser"));
+        // given
+        given(userAvailabilityVersionRepository.findVersion()).willReturn(Optional.of(4L));
+        given(userRepository.findAllUsernames()).willReturn(List.of("NewUser"));
+        given(userRepository.existsByUsername("NewUser")).willReturn(true);
+        // when
+        boolean refreshed = userAvailabilityService.refresh();
+        // then
+        assertTrue(refreshed);
+        assertTrue(userAvailabilityService.isUsernameTaken("NewUser"));
+        assertFalse(userAvailabilityService.refresh());
+    }
+
+    @Test
+    void refreshBeforeRebuildDoesNothing() {
+        // then
+        assertFalse(userAvailabilityService.refresh());
+        verifyNoInteractions(userAvailabilityVersionRepository);
+    }
+
+    @Test
+    void falsePositiveRateOfFullFilter() {
+        // given
+        int insertions = 100_000;
+        BloomFilter bloomFilter = new BloomFilter(insertions, 0.01);
+        for (int i = 0; i < insertions; i++) {
+            bloomFilter.add("u:user" + i);
+        }
+        // when
+        int falsePositives = 0;
+        for (int i = 0; i < insertions; i++) {
+            assertTrue(bloomFilter.mightContain("u:user" + i));
+            if (bloomFilter.mightContain("u:other" + i)) {
+                falsePositives++;
+            }
+        }
+        // then
+        double rate = (double) falsePositives / insertions;
+        assertTrue(rate < 0.02);
+    }
+
+}
@@ -1,8 +1,16 @@
 package com.ecinema.app.services;
 
+import com.ecinema.app.beans.PrincipalViewCache;
+import com.ecinema.app.beans.UserAuthorityCache;
 import com.ecinema.app.beans.SecurityContext;
+import com.ecinema.app.beans.SignedSessionCodec;
 import com.ecinema.app.domain.entities.*;
+import com.ecinema.app.domain.enums.SecurityQuestions;
 import com.ecinema.app.domain.enums.UserAuthority;
+import com.ecinema.app.domain.forms.RegistrationForm;
+import com.ecinema.app.domain.objects.Pair;
+import com.ecinema.app.domain.objects.UserSearchCriteria;
+import com.ecinema.app.domain.objects.UserSearchPage;
 import com.ecinema.app.repositories.*;
 import com.ecinema.app.domain.dtos.UserDto;
 import com.ecinema.app.exceptions.ClashException;
@@ -12,10 +20,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -26,9 +40,16 @@ class UserServiceTest {
     private AdminService adminService;
     private ReviewService reviewService;
     private TicketService ticketService;
+    private SeatOccupancyService seatOccupancyService;
+    private SeatHoldService seatHoldService;
     private EmailValidator emailValidator;
     private CustomerService customerService;
     private SecurityContext securityContext;
+    private PrincipalViewCache principalViewCache;
+    private UserActivityService userActivityService;
+    private UserAvailabilityService userAvailabilityService;
+    private UserAuthorityCache userAuthorityCache;
+    private SessionRevocationService sessionRevocationService;
     private ModeratorService moderatorService;
     private ReviewVoteService reviewVoteService;
     private UsernameValidator usernameValidator;
@@ -40,6 +61,8 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserAvailabilityVersionRepository userAvailabilityVersionRepository;
+    @Mock
     private AdminRepository adminRepository;
     @Mock
     private ReviewRepository reviewRepository;
@@ -54,10 +77,19 @@ class UserServiceTest {
     @Mock
     private PaymentCardRepository paymentCardRepository;
     @Mock
+    private ScreeningRepository screeningRepository;
+    @Mock
     private ScreeningSeatRepository screeningSeatRepository;
 
     @BeforeEach
     void setUp() {
+        principalViewCache = new PrincipalViewCache();
+        userActivityService = new UserActivityService(userRepository);
+        userAvailabilityService = new UserAvailabilityService(
+                userRepository, userAvailabilityVersionRepository, 100, 0.01);
+        userAuthorityCache = new UserAuthorityCache(30L);
+        sessionRevocationService = new SessionRevocationService(
+                null, new SignedSessionCodec(false, "", 720, false), null, null);
         seatBookingValidator = new SeatBookingValidator();
         securityContext = new SecurityContext();
         emailValidator = new EmailValidator();
@@ -68,15 +100,20 @@ class UserServiceTest {
                 PasswordValidator);
         reviewVoteService = new ReviewVoteService(reviewVoteRepository, reviewRepository, customerRepository);
         reviewService = new ReviewService(reviewRepository, null, null, null, reviewVoteService);
-        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, customerRepository,
-                paymentCardRepository, screeningSeatRepository);
+        seatOccupancyService = new SeatOccupancyService(screeningSeatRepository);
+        seatHoldService = new SeatHoldService(seatOccupancyService, 300L, 900L, 10);
+        ticketService = new TicketService(ticketRepository, null, seatBookingValidator, null, customerRepository,
+                paymentCardRepository, screeningRepository, screeningSeatRepository, seatOccupancyService,
+                seatHoldService);
         paymentCardService = new PaymentCardService(paymentCardRepository, null, null, null);
-        adminService = new AdminService(adminRepository, userRepository, null, null);
+        adminService = new AdminService(adminRepository, userRepository, null, null, principalViewCache,
+                sessionRevocationService);
         customerService = new CustomerService(customerRepository, screeningSeatRepository, null, reviewService,
                 ticketService, paymentCardService, reviewVoteService, securityContext);
         moderatorService = new ModeratorService(moderatorRepository, customerRepository);
         userService = new UserService(userRepository, customerService, moderatorService, adminService, null,
-                userProfileValidator, registrationValidator);
+                userProfileValidator, registrationValidator, principalViewCache,
+                userActivityService, userAvailabilityService, userAuthorityCache, sessionRevocationService, null);
     }
 
     @Test
@@ -101,10 +138,12 @@ class UserServiceTest {
         user.setId(1L);
         when(userRepository.findById(1L))
                 .thenReturn(Optional.of(user));
+        long version = principalViewCache.currentVersionOf(1L);
         // when
         userService.addUserAuthorityToUser(
                 1L, UserAuthority.CUSTOMER, UserAuthority.ADMIN, UserAuthority.MODERATOR);
         // then
+        assertNotEquals(version, principalViewCache.currentVersionOf(1L));
         assertTrue(user.getUserAuthorities().containsKey(UserAuthority.CUSTOMER));
         assertTrue(user.getUserAuthorities().get(UserAuthority.CUSTOMER) instanceof Customer);
         assertTrue(user.getUserAuthorities().containsKey(UserAuthority.ADMIN));
@@ -132,8 +171,6 @@ class UserServiceTest {
         // given
         User user = new User();
         user.setId(1L);
-        given(userRepository.findById(1L))
-                .willReturn(Optional.of(user));
         userService.save(user);
         Admin admin = new Admin();
         admin.setId(2L);
@@ -157,7 +194,7 @@ class UserServiceTest {
         assertNotNull(customer.getUser());
         assertNotNull(paymentCard.getCardOwner());
         // when
-        userService.delete(user.getId());
+        userService.delete(user);
         // then
         assertNull(user.getUserAuthorities().get(UserAuthority.ADMIN));
         assertNull(user.getUserAuthorities().get(UserAuthority.CUSTOMER));
@@ -190,4 +227,131 @@ class UserServiceTest {
         assertTrue(userDto.getUserAuthorities().contains(UserAuthority.CUSTOMER));
     }
 
-}
\ No newline at end of file
+    @Test
+    void findAllByLastActivityDateTimeMergesPendingActivity() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime anHourAgo = now.minusHours(1);
+        User user1 = new User();
+        user1.setId(1L);
+        user1.setLastActivityDateTime(now.minusHours(2));
+        User user2 = new User();
+        user2.setId(2L);
+        user2.setLastActivityDateTime(now);
+        userService.updateLastActivityDateTimeOfUserWithId(1L);
+        given(userRepository.findAllByLastActivityDateTimeAfter(anHourAgo))
+                .willReturn(List.of(user2));
+        given(userRepository.findAllById(List.of(1L)))
+                .willReturn(List.of(user1));
+        given(userRepository.findAllByLastActivityDateTimeBefore(anHourAgo))
+                .willReturn(List.of(user1));
+        // when
+        List<UserDto> activeUsers = userService.findAllByLastActivityDateTimeAfter(anHourAgo);
+        List<UserDto> inactiveUsers = userService.findAllByLastActivityDateTimeBefore(anHourAgo);
+        // then
+        assertEquals(Set.of(1L, 2L), activeUsers.stream().map(UserDto::getId).collect(Collectors.toSet()));
+        assertTrue(inactiveUsers.isEmpty());
+        assertTrue(activeUsers.stream().allMatch(userDto -> userDto.getLastActivityDateTime().isAfter(anHourAgo)));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void registerReportsClashWhenInsertLosesRace() {
+        // given
+        RegistrationForm registrationForm = new RegistrationForm();
+        registrationForm.setEmail("test@gmail.com");
+        registrationForm.setUsername("TestUser123");
+        registrationForm.setFirstName("First");
+        registrationForm.setLastName("Last");
+        registrationForm.setPassword("password123?!");
+        registrationForm.setConfirmPassword("password123?!");
+        registrationForm.setSecurityQuestion1(SecurityQuestions.SQ1);
+        registrationForm.setSecurityAnswer1("Answer 1");
+        registrationForm.setSecurityQuestion2(SecurityQuestions.SQ2);
+        registrationForm.setSecurityAnswer2("Answer 2");
+        registrationForm.setBirthDate(LocalDate.of(2000, Month.JANUARY, 1));
+        registrationForm.getAuthorities().add(UserAuthority.CUSTOMER);
+        given(userRepository.saveAndFlush(any(User.class)))
+                .willThrow(new DataIntegrityViolationException("Duplicate entry 'TestUser123'"));
+        // then
+        assertThrows(ClashException.class, () -> userService.register(registrationForm, true, true, true));
+    }
+
+    @Test
+    void userAuthoritiesAreCachedUntilChanged() {
+        // given
+        User user = new User();
+        user.setId(1L);
+        given(userRepository.findAllUserAuthoritiesOfUserWithId(1L))
+                .willReturn(List.of(UserAuthority.CUSTOMER));
+        given(userRepository.findById(1L))
+                .willReturn(Optional.of(user));
+        // when
+        Set<UserAuthority> userAuthorities1 = userService.userAuthorities(1L);
+        Set<UserAuthority> userAuthorities2 = userService.userAuthorities(1L);
+        userService.addUserAuthorityToUser(1L, UserAuthority.ADMIN);
+        given(userRepository.findAllUserAuthoritiesOfUserWithId(1L))
+                .willReturn(List.of(UserAuthority.CUSTOMER, UserAuthority.ADMIN));
+        Set<UserAuthority> userAuthorities3 = userService.userAuthorities(1L);
+        // then
+        assertEquals(EnumSet.of(UserAuthority.CUSTOMER), userAuthorities1);
+        assertEquals(EnumSet.of(UserAuthority.CUSTOMER), userAuthorities2);
+        assertEquals(EnumSet.of(UserAuthority.CUSTOMER, UserAuthority.ADMIN), userAuthorities3);
+        verify(userRepository, times(2)).findAllUserAuthoritiesOfUserWithId(1L);
+        verify(userRepository, never()).existsById(1L);
+    }
+
+    @Test
+    void userAuthoritiesExpireFromCache() {
+        // given
+        UserAuthorityCache expiringUserAuthorityCache = new UserAuthorityCache(0L);
+        // when
+        Set<UserAuthority> userAuthorities1 = expiringUserAuthorityCache.get(
+                1L, () -> EnumSet.of(UserAuthority.CUSTOMER));
+        Set<UserAuthority> userAuthorities2 = expiringUserAuthorityCache.get(
+                1L, () -> EnumSet.of(UserAuthority.CUSTOMER, UserAuthority.ADMIN));
+        // then
+        assertEquals(EnumSet.of(UserAuthority.CUSTOMER), userAuthorities1);
+        assertEquals(EnumSet.of(UserAuthority.CUSTOMER, UserAuthority.ADMIN), userAuthorities2);
+    }
+
+    @Test
+    void getUserAuthorityOfMissingAuthorityDoesNotLoadUser() {
+        // given
+        given(userRepository.findAllUserAuthoritiesOfUserWithId(1L))
+                .willReturn(List.of(UserAuthority.CUSTOMER));
+        // when
+        Optional<Admin> admin = userService.getUserAuthorityOf(1L, Admin.class);
+        // then
+        assertTrue(admin.isEmpty());
+        verify(userRepository, never()).findById(1L);
+    }
+
+    @Test
+    void searchReadsOneExtraUserForNextCursor() {
+        // given
+        LocalDateTime creationDateTime = LocalDateTime.of(2022, 1, 1, 12, 0);
+        List<UserDto> userDtos = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            userDtos.add(new UserDto(i, "user" + i + "@gmail.com", "user" + i, "first", "last", null,
+                                     creationDateTime.plusDays(i), null));
+        }
+        UserSearchCriteria criteria = new UserSearchCriteria();
+        criteria.setIsAccountLocked(true);
+        given(userRepository.searchUserDtos(eq(true), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(),
+                                            isNull(), isNull(), isNull(), isNull(), any()))
+                .willReturn(userDtos);
+        given(userRepository.findAllUserIdAndUserAuthorityPairsByUserIdIn(Set.of(1L, 2L)))
+                .willReturn(List.of(new Pair<>(2L, UserAuthority.ADMIN)));
+        // when
+        UserSearchPage page = userService.search(criteria, null, 2);
+        // then
+        assertEquals(List.of(1L, 2L), page.getUsers().stream().map(UserDto::getId).collect(Collectors.toList()));
+        assertTrue(page.hasNext());
+        assertEquals(2L, page.getNextCursor().getId());
+        assertEquals(creationDateTime.plusDays(2), page.getNextCursor().getCreationDateTime());
+        assertTrue(page.getUsers().get(0).getUserAuthorities().isEmpty());
+        assertEquals(Set.of(UserAuthority.ADMIN), page.getUsers().get(1).getUserAuthorities());
+    }
+
+}